@@ -0,0 +1,27 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.runtime.test;
+
+/**
+ * Derives the key of the configuration of objects under test, so that test results can be reused while the
+ * configuration doesn't change
+ */
+public interface RuntimeTestCacheKeyProvider {
+  boolean accepts( Object objectUnderTest );
+
+  /**
+   * @return a key that changes whenever a setting the tests depend on changes, null if the results can't be reused
+   */
+  String getCacheKey( Object objectUnderTest );
+}
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.runtime.test.impl;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.runtime.test.RuntimeTestCacheKeyProvider;
+import org.pentaho.runtime.test.result.RuntimeTestEntrySeverity;
+import org.pentaho.runtime.test.result.RuntimeTestResultSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the results of runtime tests for KETTLE_RUNTIME_TEST_CACHE_TTL milliseconds (default 1 minute), keyed by the
+ * configuration of the object under test, so that validating an unchanged named cluster again doesn't run its tests
+ * again. Only successful results are kept: a failed test runs again on the next validation, so fixing the cluster
+ * shows at once.
+ */
+public class RuntimeTestResultCache {
+
+  public static final String CACHE_TTL_PROPERTY = "KETTLE_RUNTIME_TEST_CACHE_TTL";
+
+  public static final long DEFAULT_CACHE_TTL = 60000L;
+
+  private final List<RuntimeTestCacheKeyProvider> keyProviders;
+  private final long ttl;
+  private final ConcurrentMap<String, CachedResult> results = new ConcurrentHashMap<>();
+
+  /**
+   * @param keyProviders
+   *          derive the keys of the objects under test, objects no provider accepts are not cached
+   */
+  public RuntimeTestResultCache( List<RuntimeTestCacheKeyProvider> keyProviders ) {
+    this( keyProviders, Const.toLong( System.getProperty( CACHE_TTL_PROPERTY ), DEFAULT_CACHE_TTL ) );
+  }
+
+  public RuntimeTestResultCache( List<RuntimeTestCacheKeyProvider> keyProviders, long ttl ) {
+    this.keyProviders = keyProviders == null ? Collections.<RuntimeTestCacheKeyProvider>emptyList() : keyProviders;
+    this.ttl = ttl;
+  }
+
+  /**
+   * @return the key of the configuration of the object under test, null if its results can't be cached
+   */
+  public String getKey( Object objectUnderTest ) {
+    if ( ttl <= 0 || objectUnderTest == null ) {
+      return null;
+    }
+    // the providers may be a dynamic service list
+    for ( RuntimeTestCacheKeyProvider keyProvider : new ArrayList<>( keyProviders ) ) {
+      if ( keyProvider.accepts( objectUnderTest ) ) {
+        return keyProvider.getCacheKey( objectUnderTest );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the result of the test for the configuration, null if there is none or it expired
+   */
+  public RuntimeTestResultSummary get( String key, String testId ) {
+    String resultKey = resultKey( key, testId );
+    CachedResult cachedResult = results.get( resultKey );
+    if ( cachedResult == null ) {
+      return null;
+    }
+    if ( System.currentTimeMillis() - cachedResult.time >= ttl ) {
+      results.remove( resultKey, cachedResult );
+      return null;
+    }
+    return cachedResult.summary;
+  }
+
+  /**
+   * Keeps the result of a test for the configuration, unless the test failed
+   */
+  public void put( String key, String testId, RuntimeTestResultSummary summary ) {
+    RuntimeTestEntrySeverity severity = summary.getOverallStatusEntry() == null ? null
+      : summary.getOverallStatusEntry().getSeverity();
+    if ( severity == null || severity == RuntimeTestEntrySeverity.ERROR || severity == RuntimeTestEntrySeverity.FATAL
+      || severity == RuntimeTestEntrySeverity.SKIPPED ) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    results.values().removeIf( cachedResult -> now - cachedResult.time >= ttl );
+    results.put( resultKey( key, testId ), new CachedResult( summary, now ) );
+  }
+
+  public void clear() {
+    results.clear();
+  }
+
+  int size() {
+    return results.size();
+  }
+
+  private static String resultKey( String key, String testId ) {
+    return key + '\u0000' + testId;
+  }
+
+  private static class CachedResult {
+    private final RuntimeTestResultSummary summary;
+    private final long time;
+
+    private CachedResult( RuntimeTestResultSummary summary, long time ) {
+      this.summary = summary;
+      this.time = time;
+    }
+  }
+}
@@ -26,110 +26,119 @@ import org.pentaho.runtime.test.test.impl.RuntimeTestDelegateWithMoreDependencie
 import org.pentaho.runtime.test.test.impl.RuntimeTestResultEntryImpl;
 import org.pentaho.runtime.test.test.impl.RuntimeTestResultImpl;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ExecutorService;
 
 /**
- * Created by bryan on 8/11/15.
+ * Runs runtime tests in dependency order. Each test counts its unresolved dependencies and is submitted to the executor
+ * as soon as the last of them passes, by the thread that ran it, so independent branches of the dependency graph run
+ * concurrently. Tests depending on a failed, skipped or missing test are skipped.
+ * <p>
+ * The progress callback is notified of each change; the results of a module are only gathered again when one of its
+ * tests changed. With a {@link RuntimeTestResultCache}, tests having a cached result for the configuration of the
+ * object under test complete at once without running.
  */
 public class RuntimeTestRunner {
   private static final Class<?> PKG = RuntimeTestRunner.class;
-  private final Set<RuntimeTest> remainingTests;
   private final Object objectUnderTest;
   private final RuntimeTestProgressCallback runtimeTestProgressCallback;
   private final ExecutorService executorService;
-  private final Set<String> satisfiedDependencies;
-  private final Set<String> failedDependencies;
-  private final List<String> runtimeModuleList;
-  private final Map<String, List<String>> stringRuntimeTestModuleToTestIdMap;
-  private final Map<String, RuntimeTestResult> runtimeTestResultMap;
-  private final Set<String> outstandingTestIds;
-  private final Set<String> runningTestIds;
+  private final RuntimeTestResultCache resultCache;
+  private final Map<String, Node> nodes;
+  private final List<Module> modules;
   private final int numberOfTests;
+  private String cacheKey;
+  private int testsRunning;
+  private int testsOutstanding;
 
-  @SuppressWarnings( "unchecked" )
   public RuntimeTestRunner( Collection<? extends RuntimeTest> runtimeTests, Object objectUnderTest,
                             RuntimeTestProgressCallback runtimeTestProgressCallback, ExecutorService executorService ) {
+    this( runtimeTests, objectUnderTest, runtimeTestProgressCallback, executorService, null );
+  }
+
+  public RuntimeTestRunner( Collection<? extends RuntimeTest> runtimeTests, Object objectUnderTest,
+                            RuntimeTestProgressCallback runtimeTestProgressCallback, ExecutorService executorService,
+                            RuntimeTestResultCache resultCache ) {
     this.objectUnderTest = objectUnderTest;
-    runtimeModuleList = new ArrayList<>();
-    stringRuntimeTestModuleToTestIdMap = new HashMap<>();
-    runtimeTestResultMap = new HashMap<>();
-    outstandingTestIds = new HashSet<>();
-    runningTestIds = new HashSet<>();
+    this.runtimeTestProgressCallback = runtimeTestProgressCallback;
+    this.executorService = executorService;
+    this.resultCache = resultCache;
+    nodes = new LinkedHashMap<>();
+    modules = new ArrayList<>();
 
-    Set<RuntimeTest> initTests = new HashSet<>();
+    List<RuntimeTest> acceptedTests = new ArrayList<>();
     Set<String> initTestIds = new HashSet<>();
-    Set<RuntimeTest> nonInitTests = new HashSet<>();
-    int numberOfTests = 0;
     for ( RuntimeTest runtimeTest : runtimeTests ) {
       if ( runtimeTest.accepts( objectUnderTest ) ) {
-        numberOfTests++;
-        String runtimeTestModule = runtimeTest.getModule();
-        List<String> runtimeIdsForModule = stringRuntimeTestModuleToTestIdMap.get( runtimeTestModule );
-        if ( runtimeIdsForModule == null ) {
-          runtimeModuleList.add( runtimeTestModule );
-          runtimeIdsForModule = new ArrayList<>();
-          stringRuntimeTestModuleToTestIdMap.put( runtimeTestModule, runtimeIdsForModule );
-        }
-        String runtimeTestId = runtimeTest.getId();
-        runtimeIdsForModule.add( runtimeTestId );
+        acceptedTests.add( runtimeTest );
         if ( runtimeTest.isConfigInitTest() ) {
-          initTests.add( runtimeTest );
-          initTestIds.add( runtimeTestId );
-        } else {
-          nonInitTests.add( runtimeTest );
+          initTestIds.add( runtimeTest.getId() );
         }
       }
     }
-    this.numberOfTests = numberOfTests;
-    this.remainingTests = new HashSet<>( initTests );
-    for ( RuntimeTest nonInitTest : nonInitTests ) {
-      remainingTests.add( new RuntimeTestDelegateWithMoreDependencies( nonInitTest, initTestIds ) );
+    Map<String, Module> moduleMap = new LinkedHashMap<>();
+    for ( RuntimeTest runtimeTest : acceptedTests ) {
+      if ( nodes.containsKey( runtimeTest.getId() ) ) {
+        continue;
+      }
+      Module module = moduleMap.get( runtimeTest.getModule() );
+      if ( module == null ) {
+        module = new Module( runtimeTest.getModule() );
+        moduleMap.put( runtimeTest.getModule(), module );
+        modules.add( module );
+      }
+      Node node = new Node( runtimeTest.isConfigInitTest() ? runtimeTest
+        : new RuntimeTestDelegateWithMoreDependencies( runtimeTest, initTestIds ), module );
+      module.nodes.add( node );
+      nodes.put( node.id, node );
     }
-    for ( RuntimeTest remainingTest : remainingTests ) {
-      String remainingTestId = remainingTest.getId();
-      runtimeTestResultMap
-        .put( remainingTestId, new RuntimeTestResultImpl( remainingTest, false, new RuntimeTestResultSummaryImpl(),
-          0L ) );
-      outstandingTestIds.add( remainingTestId );
+    for ( Node node : nodes.values() ) {
+      for ( String dependency : node.runtimeTest.getDependencies() ) {
+        Node dependencyNode = nodes.get( dependency );
+        if ( dependencyNode == null ) {
+          node.missingDependency = true;
+        } else if ( dependencyNode != node ) {
+          dependencyNode.dependents.add( node );
+          node.unresolvedDependencies++;
+        }
+      }
     }
-    this.satisfiedDependencies = new HashSet<>();
-    this.failedDependencies = new HashSet<>();
-    this.runtimeTestProgressCallback = runtimeTestProgressCallback;
-    this.executorService = executorService;
+    this.numberOfTests = nodes.size();
+    this.testsOutstanding = numberOfTests;
   }
 
-  private void markSkipped( RuntimeTest runtimeTest ) {
-    Set<String> relevantFailed = new HashSet<>( failedDependencies );
-    relevantFailed.retainAll( runtimeTest.getDependencies() );
+  private RuntimeTestResult skippedResult( Node node ) {
+    RuntimeTest runtimeTest = node.runtimeTest;
+    Set<String> relevantFailed = new TreeSet<>();
+    for ( String dependency : runtimeTest.getDependencies() ) {
+      Node dependencyNode = nodes.get( dependency );
+      if ( dependencyNode != null && dependencyNode.failed ) {
+        relevantFailed.add( dependency );
+      }
+    }
 
     // Get one of the dependencies' names for display
     String failedDependencyName = "a prerequisite";
     if ( !relevantFailed.isEmpty() ) {
-      String failedDependencyId = relevantFailed.iterator().next();
-      RuntimeTestResult runtimeTestResult = runtimeTestResultMap.get( failedDependencyId );
-      if ( runtimeTestResult != null ) {
-        failedDependencyName = runtimeTestResult.getRuntimeTest().getName();
-      }
-
+      failedDependencyName = nodes.get( relevantFailed.iterator().next() ).runtimeTest.getName();
     }
 
     // We had a dependency fail so we need to skip
-    String runtimeTestId = runtimeTest.getId();
-    failedDependencies.add( runtimeTestId );
-    outstandingTestIds.remove( runtimeTestId );
-    runningTestIds.remove( runtimeTestId );
-    runtimeTestResultMap.put( runtimeTestId, new RuntimeTestResultImpl( runtimeTest, true,
+    return new RuntimeTestResultImpl( runtimeTest, true,
       new RuntimeTestResultSummaryImpl( new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.SKIPPED,
         BaseMessages.getString( PKG, "RuntimeTestRunner.Skipped.Desc", failedDependencyName ),
-        BaseMessages.getString( PKG, "RuntimeTestRunner.Skipped.Message", runtimeTest.getName(), relevantFailed ), (Throwable) null ) ), 0L ) );
+        BaseMessages.getString( PKG, "RuntimeTestRunner.Skipped.Message", runtimeTest.getName(), relevantFailed ), (Throwable) null ) ), 0L );
   }
 
   private void callbackState() {
@@ -138,25 +147,10 @@ public class RuntimeTestRunner {
 
   private void callbackState( boolean done ) {
     if ( runtimeTestProgressCallback != null ) {
-      List<RuntimeTestModuleResults> moduleResults = new ArrayList<>( runtimeModuleList.size() );
-      for ( String runtimeModule : runtimeModuleList ) {
-        List<RuntimeTestResult> runtimeTestResults = new ArrayList<>();
-        Set<RuntimeTest> runningTests = new HashSet<>();
-        HashSet<RuntimeTest> outstandingTests = new HashSet<>();
-        for ( String testId : stringRuntimeTestModuleToTestIdMap.get( runtimeModule ) ) {
-          RuntimeTestResult runtimeTestResult = runtimeTestResultMap.get( testId );
-          runtimeTestResults.add( runtimeTestResult );
-          if ( runningTestIds.contains( testId ) ) {
-            runningTests.add( runtimeTestResult.getRuntimeTest() );
-          } else if ( outstandingTestIds.contains( testId ) ) {
-            outstandingTests.add( runtimeTestResult.getRuntimeTest() );
-          }
-        }
-        moduleResults
-          .add( new RuntimeTestModuleResultsImpl( runtimeModule, runtimeTestResults, runningTests, outstandingTests ) );
+      List<RuntimeTestModuleResults> moduleResults = new ArrayList<>( modules.size() );
+      for ( Module module : modules ) {
+        moduleResults.add( module.getResults() );
       }
-      int testsRunning = runningTestIds.size();
-      int testsOutstanding = outstandingTestIds.size();
       int testsDone = numberOfTests - testsOutstanding - testsRunning;
       runtimeTestProgressCallback.onProgress(
         new RuntimeTestStatusImpl( Collections.unmodifiableList( moduleResults ), testsDone, testsRunning,
@@ -164,98 +158,219 @@ public class RuntimeTestRunner {
     }
   }
 
-  private void runTest( RuntimeTest runtimeTest ) {
-    String eligibleTestId = runtimeTest.getId();
+  private static boolean isFailure( RuntimeTestResultSummary runtimeTestResultSummary ) {
+    RuntimeTestEntrySeverity severity = runtimeTestResultSummary.getOverallStatusEntry() == null ? null
+      : runtimeTestResultSummary.getOverallStatusEntry().getSeverity();
+    return severity == RuntimeTestEntrySeverity.ERROR || severity == RuntimeTestEntrySeverity.FATAL;
+  }
+
+  /**
+   * Starts a test whose dependencies all passed, or queues its cached result. Must hold the lock.
+   */
+  private void start( Node node, Deque<Node> completed ) {
+    node.queued = true;
+    RuntimeTestResultSummary cachedSummary = cacheKey == null ? null : resultCache.get( cacheKey, node.id );
+    if ( cachedSummary != null ) {
+      node.pendingResult = new RuntimeTestResultImpl( node.runtimeTest, true, cachedSummary, 0L );
+      completed.add( node );
+      return;
+    }
+    node.setState( State.RUNNING );
+    callbackState();
+    executorService.submit( new Runnable() {
+      @Override
+      public void run() {
+        runTest( node );
+      }
+    } );
+  }
+
+  /**
+   * Records the results of completed tests, one callback each, skipping the tests depending on failed ones and
+   * starting the tests whose last dependency passed. Must hold the lock.
+   */
+  private void process( Deque<Node> completed ) {
+    while ( !completed.isEmpty() ) {
+      Node node = completed.poll();
+      node.result = node.pendingResult;
+      node.pendingResult = null;
+      node.failed = node.skipped || isFailure( node.result );
+      node.setState( State.DONE );
+      callbackState();
+      for ( Node dependent : node.dependents ) {
+        if ( dependent.queued ) {
+          continue;
+        }
+        if ( node.failed ) {
+          skip( dependent, completed );
+        } else if ( --dependent.unresolvedDependencies == 0 ) {
+          start( dependent, completed );
+        }
+      }
+    }
+    notifyAll();
+  }
+
+  private void skip( Node node, Deque<Node> completed ) {
+    node.queued = true;
+    node.skipped = true;
+    node.pendingResult = skippedResult( node );
+    completed.add( node );
+  }
+
+  private void runTest( Node node ) {
+    RuntimeTest runtimeTest = node.runtimeTest;
     RuntimeTestResultSummary runtimeTestResultSummary;
     long before = System.currentTimeMillis();
-    RuntimeTestEntrySeverity overallSeverity;
     try {
       runtimeTestResultSummary = runtimeTest.runTest( objectUnderTest );
-      overallSeverity = runtimeTestResultSummary.getOverallStatusEntry().getSeverity();
+      // a test without an overall status fails like one throwing an exception
+      Objects.requireNonNull( runtimeTestResultSummary.getOverallStatusEntry() );
     } catch ( Throwable e ) {
-      overallSeverity = RuntimeTestEntrySeverity.FATAL;
       runtimeTestResultSummary = new RuntimeTestResultSummaryImpl(
         new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.FATAL,
           BaseMessages.getString( PKG, "RuntimeTestRunner.Error.Desc", runtimeTest.getName() ), e.getMessage(), e ) );
     }
     long after = System.currentTimeMillis();
-    RuntimeTestResult runtimeTestResult =
-      new RuntimeTestResultImpl( runtimeTest, true, runtimeTestResultSummary, after - before );
+    if ( cacheKey != null ) {
+      // the cache only keeps passing results
+      resultCache.put( cacheKey, node.id, runtimeTestResultSummary );
+    }
     synchronized ( this ) {
-      if ( overallSeverity == RuntimeTestEntrySeverity.ERROR || overallSeverity == RuntimeTestEntrySeverity.FATAL ) {
-        failedDependencies.add( eligibleTestId );
-      } else {
-        satisfiedDependencies.add( eligibleTestId );
-      }
-      runtimeTestResultMap.put( eligibleTestId, runtimeTestResult );
-      runningTestIds.remove( eligibleTestId );
-      callbackState();
-      notifyAll();
+      node.pendingResult = new RuntimeTestResultImpl( runtimeTest, true, runtimeTestResultSummary, after - before );
+      Deque<Node> completed = new ArrayDeque<>();
+      completed.add( node );
+      process( completed );
     }
   }
 
   public synchronized void runTests() {
     callbackState();
-    while ( remainingTests.size() > 0 || runningTestIds.size() > 0 ) {
-      Set<RuntimeTest> eligibleTests = new HashSet<>();
-      Set<RuntimeTest> skippingTests = new HashSet<>();
-      Set<String> possibleToSatisfyIds = new HashSet<>( satisfiedDependencies );
-      for ( RuntimeTest remainingTest : remainingTests ) {
-        possibleToSatisfyIds.add( remainingTest.getId() );
+    if ( resultCache != null ) {
+      cacheKey = resultCache.getKey( objectUnderTest );
+    }
+    Deque<Node> completed = new ArrayDeque<>();
+    for ( Node node : nodes.values() ) {
+      if ( node.missingDependency ) {
+        skip( node, completed );
       }
-      possibleToSatisfyIds.addAll( outstandingTestIds );
-      possibleToSatisfyIds.addAll( runningTestIds );
-      for ( RuntimeTest remainingTest : remainingTests ) {
-        Set<String> remainingTestDependencies = remainingTest.getDependencies();
-        if ( satisfiedDependencies.containsAll( remainingTestDependencies ) ) {
-          eligibleTests.add( remainingTest );
-        } else if ( !Collections.disjoint( remainingTestDependencies, failedDependencies ) || !possibleToSatisfyIds
-          .containsAll( remainingTestDependencies ) ) {
-          skippingTests.add( remainingTest );
-          markSkipped( remainingTest );
+    }
+    for ( Node node : nodes.values() ) {
+      if ( !node.queued && node.unresolvedDependencies == 0 ) {
+        start( node, completed );
+      }
+    }
+    process( completed );
+    while ( testsRunning > 0 || testsOutstanding > 0 ) {
+      if ( testsRunning == 0 ) {
+        // Nothing left to run can complete the remaining tests, their dependencies are circular
+        for ( Node node : nodes.values() ) {
+          if ( !node.queued ) {
+            skip( node, completed );
+          }
         }
+        process( completed );
+        continue;
       }
-      remainingTests.removeAll( eligibleTests );
-      remainingTests.removeAll( skippingTests );
-      for ( RuntimeTest eligibleTest : eligibleTests ) {
-        String eligibleTestId = eligibleTest.getId();
-        outstandingTestIds.remove( eligibleTestId );
-        runningTestIds.add( eligibleTestId );
+      try {
+        // Wait until a test finishes
+        wait();
+      } catch ( InterruptedException e ) {
+        // Ignore
       }
-      final int wasRunning = runningTestIds.size();
-      for ( final RuntimeTest eligibleTest : eligibleTests ) {
-        executorService.submit( new Runnable() {
-          @Override
-          public void run() {
-            runTest( eligibleTest );
-          }
-        } );
+    }
+    callbackState( true );
+  }
+
+  private enum State {
+    OUTSTANDING, RUNNING, DONE
+  }
+
+  private class Node {
+    private final String id;
+    private final RuntimeTest runtimeTest;
+    private final Module module;
+    private final List<Node> dependents = new ArrayList<>();
+    private State state = State.OUTSTANDING;
+    private RuntimeTestResult result;
+    private RuntimeTestResult pendingResult;
+    private int unresolvedDependencies;
+    private boolean missingDependency;
+    private boolean queued;
+    private boolean skipped;
+    private boolean failed;
+
+    private Node( RuntimeTest runtimeTest, Module module ) {
+      this.id = runtimeTest.getId();
+      this.runtimeTest = runtimeTest;
+      this.module = module;
+      this.result = new RuntimeTestResultImpl( runtimeTest, false, new RuntimeTestResultSummaryImpl(), 0L );
+    }
+
+    private void setState( State newState ) {
+      if ( state == State.OUTSTANDING ) {
+        testsOutstanding--;
+      } else if ( state == State.RUNNING ) {
+        testsRunning--;
       }
-      // If we skipped test(s) state has changed and we should rerun immediately, otherwise we can wait until one
-      // finishes
-      if ( skippingTests.size() == 0 ) {
-        if ( wasRunning > 0 ) {
-          while ( wasRunning == runningTestIds.size() ) {
-            try {
-              // Wait until a test finishes
-              wait();
-            } catch ( InterruptedException e ) {
-              // Ignore
-            }
+      if ( newState == State.OUTSTANDING ) {
+        testsOutstanding++;
+      } else if ( newState == State.RUNNING ) {
+        testsRunning++;
+      }
+      state = newState;
+      module.results = null;
+    }
+  }
+
+  private static class Module {
+    private final String name;
+    private final List<Node> nodes = new ArrayList<>();
+    private RuntimeTestModuleResults results;
+
+    private Module( String name ) {
+      this.name = name;
+    }
+
+    private RuntimeTestModuleResults getResults() {
+      if ( results == null ) {
+        List<RuntimeTestResult> runtimeTestResults = new ArrayList<>( nodes.size() );
+        Set<RuntimeTest> runningTests = new HashSet<>();
+        Set<RuntimeTest> outstandingTests = new HashSet<>();
+        for ( Node node : nodes ) {
+          runtimeTestResults.add( node.result );
+          if ( node.state == State.RUNNING ) {
+            runningTests.add( node.runtimeTest );
+          } else if ( node.state == State.OUTSTANDING ) {
+            outstandingTests.add( node.runtimeTest );
           }
         }
-      } else {
-        callbackState();
+        results = new RuntimeTestModuleResultsImpl( name, runtimeTestResults, runningTests, outstandingTests );
       }
+      return results;
     }
-    callbackState( true );
   }
 
   public static class Factory {
+    private final RuntimeTestResultCache resultCache;
+
+    public Factory() {
+      this( null );
+    }
+
+    /**
+     * @param resultCache
+     *          the cache of the results of the runners, can be null
+     */
+    public Factory( RuntimeTestResultCache resultCache ) {
+      this.resultCache = resultCache;
+    }
+
     public RuntimeTestRunner create( Collection<? extends RuntimeTest> runtimeTests, Object objectUnderTest,
                                      RuntimeTestProgressCallback runtimeTestProgressCallback,
                                      ExecutorService executorService ) {
-      return new RuntimeTestRunner( runtimeTests, objectUnderTest, runtimeTestProgressCallback, executorService );
+      return new RuntimeTestRunner( runtimeTests, objectUnderTest, runtimeTestProgressCallback, executorService,
+        resultCache );
     }
   }
 }
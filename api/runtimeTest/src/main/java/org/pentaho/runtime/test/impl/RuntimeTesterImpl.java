@@ -14,6 +14,7 @@
 package org.pentaho.runtime.test.impl;
 
 import org.pentaho.runtime.test.RuntimeTest;
+import org.pentaho.runtime.test.RuntimeTestCacheKeyProvider;
 import org.pentaho.runtime.test.RuntimeTestProgressCallback;
 import org.pentaho.runtime.test.RuntimeTester;
 
@@ -37,6 +38,15 @@ public class RuntimeTesterImpl implements RuntimeTester {
     this( runtimeTests, executorService, orderedModulesString, new RuntimeTestRunner.Factory() );
   }
 
+  /**
+   * Caches the results of the tests of objects one of the providers gives a key for
+   */
+  public RuntimeTesterImpl( List<RuntimeTest> runtimeTests, ExecutorService executorService,
+                            String orderedModulesString, List<RuntimeTestCacheKeyProvider> cacheKeyProviders ) {
+    this( runtimeTests, executorService, orderedModulesString,
+      new RuntimeTestRunner.Factory( new RuntimeTestResultCache( cacheKeyProviders ) ) );
+  }
+
   public RuntimeTesterImpl( List<RuntimeTest> runtimeTests, ExecutorService executorService,
                             String orderedModulesString, RuntimeTestRunner.Factory runtimeTestRunnerFactory ) {
     this.runtimeTests = runtimeTests;
@@ -0,0 +1,81 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.runtime.test.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.runtime.test.RuntimeTestCacheKeyProvider;
+import org.pentaho.runtime.test.result.RuntimeTestEntrySeverity;
+import org.pentaho.runtime.test.result.RuntimeTestResultSummary;
+import org.pentaho.runtime.test.result.org.pentaho.runtime.test.result.impl.RuntimeTestResultSummaryImpl;
+import org.pentaho.runtime.test.test.impl.RuntimeTestResultEntryImpl;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RuntimeTestResultCacheTest {
+  private RuntimeTestCacheKeyProvider keyProvider;
+  private Object objectUnderTest;
+
+  @Before
+  public void setup() {
+    objectUnderTest = new Object();
+    keyProvider = mock( RuntimeTestCacheKeyProvider.class );
+    when( keyProvider.accepts( objectUnderTest ) ).thenReturn( true );
+    when( keyProvider.getCacheKey( objectUnderTest ) ).thenReturn( "key" );
+  }
+
+  @Test
+  public void testGetKey() {
+    RuntimeTestResultCache cache = new RuntimeTestResultCache( Arrays.asList( keyProvider ), 60000L );
+    assertEquals( "key", cache.getKey( objectUnderTest ) );
+    assertNull( cache.getKey( new Object() ) );
+    assertNull( new RuntimeTestResultCache( Arrays.asList( keyProvider ), 0L ).getKey( objectUnderTest ) );
+    assertNull( new RuntimeTestResultCache( null, 60000L ).getKey( objectUnderTest ) );
+  }
+
+  @Test
+  public void testOnlyPassedResultsAreCached() {
+    RuntimeTestResultCache cache = new RuntimeTestResultCache( Arrays.asList( keyProvider ), 60000L );
+    RuntimeTestResultSummary info = summary( RuntimeTestEntrySeverity.INFO );
+    cache.put( "key", "info", info );
+    cache.put( "key", "warning", summary( RuntimeTestEntrySeverity.WARNING ) );
+    cache.put( "key", "error", summary( RuntimeTestEntrySeverity.ERROR ) );
+    cache.put( "key", "fatal", summary( RuntimeTestEntrySeverity.FATAL ) );
+    cache.put( "key", "skipped", summary( RuntimeTestEntrySeverity.SKIPPED ) );
+
+    assertSame( info, cache.get( "key", "info" ) );
+    assertEquals( 2, cache.size() );
+    assertNull( cache.get( "otherKey", "info" ) );
+    assertNull( cache.get( "key", "error" ) );
+  }
+
+  @Test
+  public void testResultsExpire() throws InterruptedException {
+    RuntimeTestResultCache cache = new RuntimeTestResultCache( Arrays.asList( keyProvider ), 10L );
+    cache.put( "key", "info", summary( RuntimeTestEntrySeverity.INFO ) );
+    Thread.sleep( 20L );
+    assertNull( cache.get( "key", "info" ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  private static RuntimeTestResultSummary summary( RuntimeTestEntrySeverity severity ) {
+    return new RuntimeTestResultSummaryImpl( new RuntimeTestResultEntryImpl( severity, "desc", "message" ) );
+  }
+}
@@ -17,6 +17,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.runtime.test.RuntimeTest;
+import org.pentaho.runtime.test.RuntimeTestCacheKeyProvider;
 import org.pentaho.runtime.test.RuntimeTestProgressCallback;
 import org.pentaho.runtime.test.RuntimeTestStatus;
 import org.pentaho.runtime.test.module.RuntimeTestModuleResults;
@@ -40,7 +41,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Created by bryan on 8/12/15.
@@ -152,7 +157,122 @@ public class RuntimeTestRunnerTest {
         unsatisfiableDependencyA ) );
   }
 
-  private void testScenario( List<TestRuntimeTest> runtimeTests ) {
+  @Test( timeout = 10000 )
+  public void testCircularDependenciesAreSkipped() {
+    RuntimeTestResultEntryImpl overallEntry =
+      new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.INFO, "testDesc", "testMessage" );
+    TestRuntimeTest cycleA = new TestRuntimeTest( "cycle", "cycleA", "Test A", new HashSet<>( Arrays.asList(
+      new TestRuntimeTest( "cycle", "cycleB", "Test B", new HashSet<TestRuntimeTest>(), 5, overallEntry,
+        new ArrayList<RuntimeTestResultEntry>(), false ) ) ), 5, overallEntry,
+      new ArrayList<RuntimeTestResultEntry>(), false );
+    TestRuntimeTest cycleB = new TestRuntimeTest( "cycle", "cycleB", "Test B", new HashSet<>( Arrays.asList( cycleA ) ),
+      5, overallEntry, new ArrayList<RuntimeTestResultEntry>(), false );
+
+    RuntimeTestStatus status = testScenario( Arrays.asList( moduleATestA, cycleA, cycleB, moduleATestB ) );
+
+    assertEquals( RuntimeTestEntrySeverity.SKIPPED, getSeverity( status, "cycleA" ) );
+    assertEquals( RuntimeTestEntrySeverity.SKIPPED, getSeverity( status, "cycleB" ) );
+    assertEquals( RuntimeTestEntrySeverity.INFO, getSeverity( status, "moduleATestB" ) );
+  }
+
+  @Test( timeout = 20000 )
+  public void testDependentsStartWhenTheirDependenciesPass() {
+    RuntimeTestResultEntryImpl overallEntry =
+      new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.INFO, "testDesc", "testMessage" );
+    final TestRuntimeTest fastDependent =
+      new TestRuntimeTest( "moduleB", "fastDependent", "Fast dependent", new HashSet<>( Arrays.asList( moduleATestA ) ),
+        5, overallEntry, new ArrayList<RuntimeTestResultEntry>(), true );
+    // the slow test only finishes once the dependent of the fast one ran, it fails if that waits for the slow test
+    TestRuntimeTest slowTest =
+      new TestRuntimeTest( "moduleA", "slowTest", "Slow test", new HashSet<TestRuntimeTest>(), 5, overallEntry,
+        new ArrayList<RuntimeTestResultEntry>(), true ) {
+        @Override public RuntimeTestResultSummary runTest( Object objectUnderTest ) {
+          long timeout = System.currentTimeMillis() + 10000L;
+          while ( !fastDependent.hasRun.get() && System.currentTimeMillis() < timeout ) {
+            try {
+              Thread.sleep( 5 );
+            } catch ( InterruptedException e ) {
+              // Ignore
+            }
+          }
+          assertTrue( fastDependent.hasRun.get() );
+          return super.runTest( objectUnderTest );
+        }
+      };
+
+    RuntimeTestStatus status = testScenario( Arrays.asList( slowTest, moduleATestA, fastDependent ) );
+
+    assertEquals( RuntimeTestEntrySeverity.INFO, getSeverity( status, "slowTest" ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testFailuresSkipAllDependents() {
+    RuntimeTestResultEntryImpl errorEntry =
+      new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.ERROR, "testDesc", "testMessage" );
+    RuntimeTestResultEntryImpl overallEntry =
+      new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.INFO, "testDesc", "testMessage" );
+    TestRuntimeTest failingTest =
+      new TestRuntimeTest( "moduleF", "failingTest", "Failing test", new HashSet<TestRuntimeTest>(), 5, errorEntry,
+        new ArrayList<RuntimeTestResultEntry>(), true );
+    TestRuntimeTest dependentA =
+      new TestRuntimeTest( "moduleF", "dependentA", "Dependent A", new HashSet<>( Arrays.asList( failingTest ) ), 5,
+        overallEntry, new ArrayList<RuntimeTestResultEntry>(), false );
+    TestRuntimeTest dependentB =
+      new TestRuntimeTest( "moduleG", "dependentB", "Dependent B", new HashSet<>( Arrays.asList( dependentA ) ), 5,
+        overallEntry, new ArrayList<RuntimeTestResultEntry>(), false );
+    TestRuntimeTest dependentC =
+      new TestRuntimeTest( "moduleG", "dependentC", "Dependent C",
+        new HashSet<>( Arrays.asList( failingTest, moduleATestA ) ), 5, overallEntry,
+        new ArrayList<RuntimeTestResultEntry>(), false );
+
+    // testScenario checks each skipped test gets its own callback
+    RuntimeTestStatus status =
+      testScenario( Arrays.asList( failingTest, dependentA, dependentB, dependentC, moduleATestA ) );
+
+    assertEquals( RuntimeTestEntrySeverity.ERROR, getSeverity( status, "failingTest" ) );
+    assertEquals( RuntimeTestEntrySeverity.SKIPPED, getSeverity( status, "dependentA" ) );
+    assertEquals( RuntimeTestEntrySeverity.SKIPPED, getSeverity( status, "dependentB" ) );
+    assertEquals( RuntimeTestEntrySeverity.SKIPPED, getSeverity( status, "dependentC" ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testCachedResultsCompleteWithoutRunning() {
+    RuntimeTestCacheKeyProvider keyProvider = mock( RuntimeTestCacheKeyProvider.class );
+    when( keyProvider.accepts( objectUnderTest ) ).thenReturn( true );
+    when( keyProvider.getCacheKey( objectUnderTest ) ).thenReturn( "key" );
+    RuntimeTestResultCache resultCache = new RuntimeTestResultCache( Arrays.asList( keyProvider ), 60000L );
+    RuntimeTestResultEntryImpl cachedEntry =
+      new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.WARNING, "cachedDesc", "cachedMessage" );
+    resultCache.put( "key", "cachedTest", new RuntimeTestResultSummaryImpl( cachedEntry ) );
+    TestRuntimeTest cachedTest =
+      new TestRuntimeTest( "moduleA", "cachedTest", "Cached test", new HashSet<TestRuntimeTest>(), 5,
+        new RuntimeTestResultEntryImpl( RuntimeTestEntrySeverity.INFO, "testDesc", "testMessage" ),
+        new ArrayList<RuntimeTestResultEntry>(), false );
+
+    RuntimeTestStatus status = testScenario( Arrays.asList( cachedTest, moduleATestA ), resultCache );
+
+    assertEquals( RuntimeTestEntrySeverity.WARNING, getSeverity( status, "cachedTest" ) );
+    assertEquals( RuntimeTestEntrySeverity.INFO, getSeverity( status, "moduleATestA" ) );
+    assertNotNull( resultCache.get( "key", "moduleATestA" ) );
+  }
+
+  private static RuntimeTestEntrySeverity getSeverity( RuntimeTestStatus runtimeTestStatus, String id ) {
+    for ( RuntimeTestModuleResults runtimeTestModuleResults : runtimeTestStatus.getModuleResults() ) {
+      for ( RuntimeTestResult runtimeTestResult : runtimeTestModuleResults.getRuntimeTestResults() ) {
+        if ( runtimeTestResult.getRuntimeTest().getId().equals( id ) ) {
+          return runtimeTestResult.getOverallStatusEntry().getSeverity();
+        }
+      }
+    }
+    fail( "No result for " + id );
+    return null;
+  }
+
+  private RuntimeTestStatus testScenario( List<TestRuntimeTest> runtimeTests ) {
+    return testScenario( runtimeTests, null );
+  }
+
+  private RuntimeTestStatus testScenario( List<TestRuntimeTest> runtimeTests, RuntimeTestResultCache resultCache ) {
     final List<RuntimeTestStatus> runtimeTestStatuses = Collections.synchronizedList( new ArrayList
       <RuntimeTestStatus>() );
     final RuntimeTestProgressCallback runtimeTestProgressCallback = new RuntimeTestProgressCallback() {
@@ -166,7 +286,8 @@ public class RuntimeTestRunnerTest {
       }
     };
     long before = System.currentTimeMillis();
-    new RuntimeTestRunner( runtimeTests, objectUnderTest, runtimeTestProgressCallback, executorService ).runTests();
+    new RuntimeTestRunner( runtimeTests, objectUnderTest, runtimeTestProgressCallback, executorService, resultCache )
+      .runTests();
     synchronized ( runtimeTestProgressCallback ) {
       while ( runtimeTestStatuses.size() == 0 || !runtimeTestStatuses.get( runtimeTestStatuses.size() - 1 ).isDone() ) {
         try {
@@ -225,6 +346,7 @@ public class RuntimeTestRunnerTest {
     }
     System.out.println( "Ran in " + ( after - before ) + " ms" );
     System.out.flush();
+    return runtimeTestStatuses.get( runtimeTestStatuses.size() - 1 );
   }
 
   public class TestRuntimeTest extends BaseRuntimeTest {
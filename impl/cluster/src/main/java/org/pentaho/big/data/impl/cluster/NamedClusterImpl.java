@@ -21,7 +21,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -81,6 +81,14 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
 
   private static final Logger LOGGER = LoggerFactory.getLogger( NamedClusterImpl.class );
 
+  /**
+   * Matches a path that became a fully qualified URL through variable substitution
+   */
+  private static final Pattern FULLY_QUALIFIED_URL = Pattern.compile(
+    "^(" + HDFS_SCHEME + "|" + WASB_SCHEME + "|" + MAPRFS_SCHEME + "|" + NC_SCHEME + "):\\/\\/" );
+
+  private static final Pattern VARIABLE_CHARACTERS = Pattern.compile( "[${}]" );
+
   private VariableSpace variables = new Variables();
 
   @MetaStoreAttribute
@@ -139,6 +147,11 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
 
   private ITwoWayPasswordEncoder passwordEncoder = new Base64TwoWayPasswordEncoder();
 
+  /**
+   * The last URL generated from settings without variables, reused while the scheme and the settings are the same
+   */
+  private transient volatile ClusterUrl clusterUrl;
+
   public NamedClusterImpl() {
     siteFiles = new ArrayList<>();
     initializeVariablesFrom( null );
@@ -296,6 +309,15 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
   private String processURLsubstitution( String incomingURL, String hdfsScheme, IMetaStore metastore,
                                          VariableSpace variableSpace ) {
 
+    // fast path: a URL already qualified with this cluster's URL comes out unchanged
+    if ( incomingURL.indexOf( '$' ) < 0 ) {
+      ClusterUrl cached = clusterUrl;
+      if ( cached != null && cached.isFor( hdfsScheme, this ) && incomingURL.startsWith( cached.prefix )
+        && !isHdfsHostEmpty( variableSpace ) ) {
+        return incomingURL;
+      }
+    }
+
     String outgoingURL = null;
     String clusterURL = null;
     if ( !hdfsScheme.equals( MAPRFS_SCHEME ) ) {
@@ -307,12 +329,12 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
       } else if ( incomingURL.equals( "/" ) ) {
         outgoingURL = clusterURL;
       } else if ( clusterURL != null ) {
-        String noVariablesURL = incomingURL.replaceAll( "[${}]", "/" );
+        String noVariablesURL = VARIABLE_CHARACTERS.matcher( incomingURL ).replaceAll( "/" );
 
         String fullyQualifiedIncomingURL = incomingURL;
         if ( !incomingURL.startsWith( hdfsScheme ) && !incomingURL.startsWith( NC_SCHEME ) ) {
           fullyQualifiedIncomingURL = clusterURL + incomingURL;
-          noVariablesURL = clusterURL + incomingURL.replaceAll( "[${}]", "/" );
+          noVariablesURL = clusterURL + noVariablesURL;
         }
 
         UrlFileNameParser parser = new UrlFileNameParser();
@@ -326,12 +348,7 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
         boolean prependCluster = true;
         if ( variableSpace != null ) {
           String filePath = variableSpace.environmentSubstitute( path );
-          StringBuilder pattern = new StringBuilder();
-          pattern.append( "^(" ).append( HDFS_SCHEME ).append( "|" ).append( WASB_SCHEME ).append( "|" ).append(
-              MAPRFS_SCHEME ).append( "|" ).append( NC_SCHEME ).append( "):\\/\\/" );
-          Pattern r = Pattern.compile( pattern.toString() );
-          Matcher m = r.matcher( filePath );
-          prependCluster = !m.find();
+          prependCluster = !FULLY_QUALIFIED_URL.matcher( filePath ).find();
         }
         if ( prependCluster ) {
           buffer.append( clusterURL );
@@ -367,6 +384,23 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
    * @return the generated URL from the specific NamedCluster or null if an error occurs
    */
   @VisibleForTesting String generateURL( String scheme, IMetaStore metastore, VariableSpace variableSpace ) {
+    ClusterUrl cached = clusterUrl;
+    if ( cached != null && cached.isFor( scheme, this ) ) {
+      if ( variableSpace != null ) {
+        variableSpace.initializeVariablesFrom( getParentVariableSpace() );
+      }
+      return cached.url;
+    }
+    String clusterURL = buildURL( scheme, variableSpace );
+    if ( clusterURL != null && !Utils.isEmpty( scheme ) && !StringUtil.isVariable( scheme )
+      && !StringUtil.isVariable( hdfsHost ) && !StringUtil.isVariable( hdfsPort )
+      && !StringUtil.isVariable( hdfsUsername ) && !StringUtil.isVariable( hdfsPassword ) ) {
+      clusterUrl = new ClusterUrl( scheme, this, clusterURL );
+    }
+    return clusterURL;
+  }
+
+  private String buildURL( String scheme, VariableSpace variableSpace ) {
     String clusterURL = null;
     try {
       if ( !Utils.isEmpty( scheme ) ) {
@@ -792,4 +826,33 @@ public class NamedClusterImpl implements NamedCluster, NamedClusterOsgi {
       .findFirst().orElse( null );
     return n == null ? null : new ByteArrayInputStream( n.getSiteFileContents().getBytes() );
   }
+
+  /**
+   * A cluster URL with the settings it was generated from
+   */
+  private static final class ClusterUrl {
+    private final String scheme;
+    private final String host;
+    private final String port;
+    private final String username;
+    private final String password;
+    private final String url;
+    private final String prefix;
+
+    private ClusterUrl( String scheme, NamedClusterImpl namedCluster, String url ) {
+      this.scheme = scheme;
+      this.host = namedCluster.hdfsHost;
+      this.port = namedCluster.hdfsPort;
+      this.username = namedCluster.hdfsUsername;
+      this.password = namedCluster.hdfsPassword;
+      this.url = url;
+      this.prefix = url + "/";
+    }
+
+    private boolean isFor( String scheme, NamedClusterImpl namedCluster ) {
+      return Objects.equals( this.scheme, scheme ) && Objects.equals( host, namedCluster.hdfsHost )
+        && Objects.equals( port, namedCluster.hdfsPort ) && Objects.equals( username, namedCluster.hdfsUsername )
+        && Objects.equals( password, namedCluster.hdfsPassword );
+    }
+  }
 }
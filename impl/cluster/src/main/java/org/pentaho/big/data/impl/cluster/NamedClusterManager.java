@@ -57,6 +57,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class NamedClusterManager implements NamedClusterService {
@@ -65,7 +66,9 @@ public class NamedClusterManager implements NamedClusterService {
   private static final Class<?> PKG = NamedClusterManager.class;
   private BundleContext bundleContext;
 
-  private Map<IMetaStore, MetaStoreFactory<NamedClusterImpl>> factoryMap = new HashMap<>();
+  private Map<IMetaStore, MetaStoreFactory<NamedClusterImpl>> factoryMap = new ConcurrentHashMap<>();
+
+  private final NamedClusterRegistry registry = new NamedClusterRegistry( this::loadAll );
 
   private NamedCluster clusterTemplate;
 
@@ -135,7 +138,14 @@ public class NamedClusterManager implements NamedClusterService {
   }
 
   @Override public void close( IMetaStore metastore ) {
-    factoryMap.remove( metastore );
+    if ( metastore != null ) {
+      factoryMap.remove( metastore );
+    }
+  }
+
+  @VisibleForTesting
+  NamedClusterRegistry getRegistry() {
+    return registry;
   }
 
   @Override
@@ -163,17 +173,25 @@ public class NamedClusterManager implements NamedClusterService {
 
   @Override
   public void create( NamedCluster namedCluster, IMetaStore metastore ) throws MetaStoreException {
-    getMetaStoreFactory( metastore ).saveElement( new NamedClusterImpl( namedCluster ) );
+    NamedClusterImpl element = new NamedClusterImpl( namedCluster );
+    getMetaStoreFactory( metastore ).saveElement( element );
+    registry.put( element, metastore );
   }
 
   @Override
   public NamedCluster read( String clusterName, IMetaStore metastore ) throws MetaStoreException {
+    if ( registry.isCached( metastore ) && registry.contains( clusterName, metastore ) ) {
+      return registry.getByName( clusterName, metastore );
+    }
     MetaStoreFactory<NamedClusterImpl> factory = getMetaStoreFactory( metastore );
 
     if ( metastore == null || !listNames( metastore ).contains( clusterName ) ) {
       // only try the slave metastore if the given one fails
       IMetaStore slaveMetastore = getSlaveServerMetastore();
       if ( slaveMetastore != null && listNames( slaveMetastore ).contains( clusterName ) ) {
+        if ( registry.isCached( slaveMetastore ) ) {
+          return registry.getByName( clusterName, slaveMetastore );
+        }
         factory = getMetaStoreFactory( slaveMetastore );
       }
     }
@@ -196,8 +214,10 @@ public class NamedClusterManager implements NamedClusterService {
     List<NamedCluster> namedClusters = list( metastore );
     for ( NamedCluster nc : namedClusters ) {
       if ( namedCluster.getName().equals( nc.getName() ) ) {
+        NamedClusterImpl element = new NamedClusterImpl( namedCluster );
         factory.deleteElement( nc.getName() );
-        factory.saveElement( new NamedClusterImpl( namedCluster ) );
+        factory.saveElement( element );
+        registry.put( element, metastore );
       }
     }
   }
@@ -205,10 +225,18 @@ public class NamedClusterManager implements NamedClusterService {
   @Override
   public void delete( String clusterName, IMetaStore metastore ) throws MetaStoreException {
     getMetaStoreFactory( metastore ).deleteElement( clusterName );
+    registry.remove( clusterName, metastore );
   }
 
   @Override
   public List<NamedCluster> list( IMetaStore metastore ) throws MetaStoreException {
+    if ( registry.isCached( metastore ) ) {
+      return registry.list( metastore );
+    }
+    return loadAll( metastore );
+  }
+
+  private List<NamedCluster> loadAll( IMetaStore metastore ) throws MetaStoreException {
     MetaStoreFactory<NamedClusterImpl> factory = getMetaStoreFactory( metastore );
     List<NamedCluster> namedClusters;
     List<MetaStoreException> exceptionList = new ArrayList<>();
@@ -243,6 +271,9 @@ public class NamedClusterManager implements NamedClusterService {
 
   @Override
   public List<String> listNames( IMetaStore metastore ) throws MetaStoreException {
+    if ( registry.isCached( metastore ) ) {
+      return registry.listNames( metastore );
+    }
     return getMetaStoreFactory( metastore ).getElementNames( false );
   }
 
@@ -282,6 +313,9 @@ public class NamedClusterManager implements NamedClusterService {
 
   private NamedCluster searchMetastoreByName( String namedCluster, IMetaStore metastore ) {
     try {
+      if ( registry.isCached( metastore ) ) {
+        return registry.getByName( namedCluster, metastore );
+      }
       List<NamedCluster> namedClusters = list( metastore );
       for ( NamedCluster nc : namedClusters ) {
         if ( nc.getName().equals( namedCluster ) ) {
@@ -318,6 +352,11 @@ public class NamedClusterManager implements NamedClusterService {
 
   private NamedCluster searchMetastoreByHost( String hostName, IMetaStore metastore ) {
     try {
+      if ( registry.isCached( metastore ) ) {
+        NamedCluster nc = registry.getByHost( hostName, metastore );
+        loadSiteFilesIfNecessary( nc, metastore );
+        return nc;
+      }
       List<NamedCluster> namedClusters = list( metastore );
       for ( NamedCluster nc : namedClusters ) {
         if ( hostName.equals( nc.getHdfsHost() ) ) {
@@ -0,0 +1,252 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.cluster;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metastore.api.exceptions.MetaStoreException;
+import org.pentaho.metastore.stores.delegate.DelegatingMetaStore;
+import org.pentaho.metastore.stores.xml.XmlMetaStore;
+import org.pentaho.metastore.util.PentahoDefaults;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory registry of the named clusters of file based metastores, so that resolving a cluster by name or by host
+ * doesn't parse every cluster of the metastore each time.
+ * <p>
+ * The clusters of a metastore are loaded once, indexed by name and by HDFS host, and reloaded when the version of
+ * the metastore changes. The version is a signature of the files of the NamedCluster element folder (names, sizes and
+ * modification times), checked at most every KETTLE_NAMED_CLUSTER_REGISTRY_CHECK_INTERVAL milliseconds (default 1
+ * second), so clusters written by another process are picked up too. Writes made through the manager update the
+ * registry directly until the next check, which reloads the clusters. Metastores that aren't file based (embedded
+ * metastores for instance) have no version and are not cached.
+ * <p>
+ * Lookups return copies of the registered clusters, callers are free to modify them.
+ */
+public class NamedClusterRegistry {
+
+  public static final String CHECK_INTERVAL_PROPERTY = "KETTLE_NAMED_CLUSTER_REGISTRY_CHECK_INTERVAL";
+
+  public static final long DEFAULT_CHECK_INTERVAL = 1000L;
+
+  static final String ELEMENT_TYPE_FOLDER = "NamedCluster";
+
+  /**
+   * Loads all the named clusters of a metastore
+   */
+  interface Loader {
+    List<NamedCluster> load( IMetaStore metastore ) throws MetaStoreException;
+  }
+
+  private final Loader loader;
+  private final long checkInterval;
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  NamedClusterRegistry( Loader loader ) {
+    this( loader, Const.toLong( System.getProperty( CHECK_INTERVAL_PROPERTY ), DEFAULT_CHECK_INTERVAL ) );
+  }
+
+  NamedClusterRegistry( Loader loader, long checkInterval ) {
+    this.loader = loader;
+    this.checkInterval = checkInterval;
+  }
+
+  /**
+   * @return true if the named clusters of the metastore are kept in the registry
+   */
+  public boolean isCached( IMetaStore metastore ) {
+    return getFolder( metastore ) != null;
+  }
+
+  /**
+   * @return a copy of the named cluster, or null if the metastore has no cluster with that name
+   */
+  public NamedCluster getByName( String name, IMetaStore metastore ) throws MetaStoreException {
+    return copy( getSnapshot( metastore ).byName.get( name ) );
+  }
+
+  /**
+   * @return a copy of the first named cluster with that HDFS host, or null if there is none
+   */
+  public NamedCluster getByHost( String host, IMetaStore metastore ) throws MetaStoreException {
+    return copy( getSnapshot( metastore ).byHost.get( host ) );
+  }
+
+  public boolean contains( String name, IMetaStore metastore ) throws MetaStoreException {
+    return getSnapshot( metastore ).byName.containsKey( name );
+  }
+
+  public List<String> listNames( IMetaStore metastore ) throws MetaStoreException {
+    return new ArrayList<>( getSnapshot( metastore ).byName.keySet() );
+  }
+
+  public List<NamedCluster> list( IMetaStore metastore ) throws MetaStoreException {
+    List<NamedCluster> namedClusters = new ArrayList<>();
+    for ( NamedCluster namedCluster : getSnapshot( metastore ).byName.values() ) {
+      namedClusters.add( copy( namedCluster ) );
+    }
+    return namedClusters;
+  }
+
+  /**
+   * Registers a named cluster just written to a metastore
+   */
+  public void put( NamedCluster namedCluster, IMetaStore metastore ) {
+    update( metastore, namedCluster.getName(), namedCluster );
+  }
+
+  /**
+   * Unregisters a named cluster just deleted from a metastore
+   */
+  public void remove( String name, IMetaStore metastore ) {
+    update( metastore, name, null );
+  }
+
+  /**
+   * Forgets the clusters of a metastore, they are loaded again on the next lookup
+   */
+  public void invalidate( IMetaStore metastore ) {
+    File folder = getFolder( metastore );
+    if ( folder != null ) {
+      snapshots.remove( folder.getPath() );
+    }
+  }
+
+  public void clear() {
+    snapshots.clear();
+  }
+
+  private void update( IMetaStore metastore, String name, NamedCluster namedCluster ) {
+    File folder = getFolder( metastore );
+    if ( folder == null ) {
+      return;
+    }
+    snapshots.computeIfPresent( folder.getPath(), ( key, snapshot ) -> {
+      Map<String, NamedCluster> clusters = new LinkedHashMap<>( snapshot.byName );
+      if ( namedCluster == null ) {
+        clusters.remove( name );
+      } else {
+        clusters.put( name, copy( namedCluster ) );
+      }
+      // the folder may also hold changes made by other processes since the last check, keeping the version the
+      // snapshot was loaded with reloads it on the next check rather than taking those changes as seen
+      return new Snapshot( clusters, snapshot.version );
+    } );
+  }
+
+  private Snapshot getSnapshot( IMetaStore metastore ) throws MetaStoreException {
+    File folder = getFolder( metastore );
+    if ( folder == null ) {
+      throw new IllegalArgumentException( "The named clusters of " + metastore + " aren't cached" );
+    }
+    String key = folder.getPath();
+    Snapshot snapshot = snapshots.get( key );
+    long now = System.currentTimeMillis();
+    if ( snapshot != null && now - snapshot.checked < checkInterval ) {
+      return snapshot;
+    }
+    long version = version( folder );
+    if ( snapshot != null && snapshot.version == version ) {
+      snapshot.checked = now;
+      return snapshot;
+    }
+    Map<String, NamedCluster> clusters = new LinkedHashMap<>();
+    for ( NamedCluster namedCluster : loader.load( metastore ) ) {
+      clusters.putIfAbsent( namedCluster.getName(), namedCluster );
+    }
+    snapshot = new Snapshot( clusters, version );
+    snapshots.put( key, snapshot );
+    return snapshot;
+  }
+
+  /**
+   * @return the folder holding the named clusters of a file based metastore, null for other metastores
+   */
+  static File getFolder( IMetaStore metastore ) {
+    if ( metastore instanceof DelegatingMetaStore ) {
+      try {
+        metastore = ( (DelegatingMetaStore) metastore ).getActiveMetaStore();
+      } catch ( MetaStoreException e ) {
+        return null;
+      }
+    }
+    if ( !( metastore instanceof XmlMetaStore ) ) {
+      return null;
+    }
+    return new File( ( (XmlMetaStore) metastore ).getRootFolder() + File.separator + PentahoDefaults.NAMESPACE
+      + File.separator + ELEMENT_TYPE_FOLDER );
+  }
+
+  /**
+   * @return a signature of the element files of the folder, which changes whenever an element is written or deleted
+   */
+  static long version( File folder ) {
+    return version( folder.listFiles( ( dir, name ) -> name.endsWith( ".xml" ) ) );
+  }
+
+  /**
+   * @return a signature of element files, independent of their order as listing a folder returns files in no
+   *         particular order
+   */
+  static long version( File[] files ) {
+    if ( files == null ) {
+      return 0L;
+    }
+    File[] sorted = files.clone();
+    Arrays.sort( sorted, Comparator.comparing( File::getName ) );
+    long version = sorted.length;
+    for ( File file : sorted ) {
+      version = 31 * version + ( file.getName().hashCode() ^ file.lastModified() ^ ( file.length() << 32 ) );
+    }
+    return version;
+  }
+
+  private static NamedCluster copy( NamedCluster namedCluster ) {
+    if ( namedCluster == null ) {
+      return null;
+    }
+    NamedCluster copy = namedCluster.clone();
+    copy.setLastModifiedDate( namedCluster.getLastModifiedDate() );
+    return copy;
+  }
+
+  private static class Snapshot {
+    private final Map<String, NamedCluster> byName;
+    private final Map<String, NamedCluster> byHost;
+    private final long version;
+    private volatile long checked = System.currentTimeMillis();
+
+    private Snapshot( Map<String, NamedCluster> byName, long version ) {
+      this.byName = Collections.unmodifiableMap( byName );
+      Map<String, NamedCluster> hosts = new ConcurrentHashMap<>();
+      for ( NamedCluster namedCluster : byName.values() ) {
+        if ( namedCluster.getHdfsHost() != null ) {
+          hosts.putIfAbsent( namedCluster.getHdfsHost(), namedCluster );
+        }
+      }
+      this.byHost = hosts;
+      this.version = version;
+    }
+  }
+}
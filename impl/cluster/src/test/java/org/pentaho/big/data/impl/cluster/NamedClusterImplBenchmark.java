@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.cluster;
+
+import org.pentaho.di.core.variables.Variables;
+
+/**
+ * Micro-benchmark of {@link NamedClusterImpl#processURLsubstitution} over typical paths, run by hand (it is not picked
+ * up by the test runner):
+ * <pre>
+ *   java -cp ... org.pentaho.big.data.impl.cluster.NamedClusterImplBenchmark [iterations]
+ * </pre>
+ */
+public class NamedClusterImplBenchmark {
+
+  private static final String[] HDFS_URLS = {
+    "/user/pentaho/input/part-00000",
+    "hdfs://namenode:8020/user/pentaho/input/part-00000",
+    "hc://cluster/user/pentaho/input/part-00000",
+    "/user/${user}/input/part-00000"
+  };
+
+  private static final String[] MAPR_URLS = {
+    "/user/pentaho/input/part-00000",
+    "maprfs:///user/pentaho/input/part-00000"
+  };
+
+  public static void main( String[] args ) {
+    int iterations = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 200000;
+
+    NamedClusterImpl hdfs = new NamedClusterImpl();
+    hdfs.setName( "cluster" );
+    hdfs.setStorageScheme( NamedClusterImpl.HDFS_SCHEME );
+    hdfs.setHdfsHost( "namenode" );
+    hdfs.setHdfsPort( "8020" );
+
+    NamedClusterImpl mapr = new NamedClusterImpl();
+    mapr.setName( "mapr" );
+    mapr.setMapr( true );
+
+    Variables variables = new Variables();
+    variables.setVariable( "user", "pentaho" );
+
+    for ( String url : HDFS_URLS ) {
+      run( hdfs, url, variables, iterations );
+    }
+    for ( String url : MAPR_URLS ) {
+      run( mapr, url, variables, iterations );
+    }
+  }
+
+  private static void run( NamedClusterImpl namedCluster, String url, Variables variables, int iterations ) {
+    // warm up
+    for ( int i = 0; i < iterations / 10; i++ ) {
+      namedCluster.processURLsubstitution( url, null, variables );
+    }
+    String result = null;
+    long start = System.nanoTime();
+    for ( int i = 0; i < iterations; i++ ) {
+      result = namedCluster.processURLsubstitution( url, null, variables );
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.printf( "%-55s -> %-55s %8.0f ns/op%n", url, result, (double) elapsed / iterations );
+  }
+}
@@ -577,6 +577,34 @@ public class NamedClusterImplTest {
     assertEquals( scheme + ":", namedCluster.generateURL( scheme, metaStore, variableSpace ) );
   }
 
+  @Test
+  public void testGenerateURLIsReusedUntilSettingsChange() {
+    namedCluster.setHdfsHost( "testHost" );
+    namedCluster.setHdfsPort( "8020" );
+    namedCluster.setHdfsUsername( null );
+    namedCluster.setHdfsPassword( null );
+    assertEquals( "hdfs://testHost:8020", namedCluster.generateURL( "hdfs", metaStore, null ) );
+    assertEquals( "hdfs://testHost:8020", namedCluster.generateURL( "hdfs", metaStore, variableSpace ) );
+    verify( variableSpace ).initializeVariablesFrom( any() );
+
+    namedCluster.setHdfsHost( "otherHost" );
+    assertEquals( "hdfs://otherHost:8020", namedCluster.generateURL( "hdfs", metaStore, null ) );
+    assertEquals( "wasb://otherHost:8020", namedCluster.generateURL( "wasb", metaStore, null ) );
+  }
+
+  @Test
+  public void testProcessURLQualifiedWithClusterURLIsUnchanged() {
+    namedCluster.setHdfsHost( "testHost" );
+    namedCluster.setHdfsPort( "8020" );
+    namedCluster.setHdfsUsername( null );
+    namedCluster.setHdfsPassword( null );
+    namedCluster.setStorageScheme( HDFS_PREFIX );
+    namedCluster.generateURL( HDFS_PREFIX, metaStore, null );
+
+    String incomingURL = "hdfs://testHost:8020/tmp/file.txt";
+    assertEquals( incomingURL, namedCluster.processURLsubstitution( incomingURL, metaStore, null ) );
+  }
+
   @Test
   public void testXMLEmbedding() throws Exception {
     Element node = createNodeFromNamedCluster();
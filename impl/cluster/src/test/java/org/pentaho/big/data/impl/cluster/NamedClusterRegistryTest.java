@@ -0,0 +1,168 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.cluster;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metastore.api.exceptions.MetaStoreException;
+import org.pentaho.metastore.stores.xml.XmlMetaStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NamedClusterRegistryTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private NamedClusterRegistry.Loader loader;
+  private XmlMetaStore metastore;
+  private File folder;
+  private List<NamedCluster> clusters;
+
+  @Before
+  public void setup() throws IOException, MetaStoreException {
+    File root = temporaryFolder.newFolder( "metastore" );
+    folder = new File( root, "pentaho" + File.separator + NamedClusterRegistry.ELEMENT_TYPE_FOLDER );
+    assertTrue( folder.mkdirs() );
+    metastore = mock( XmlMetaStore.class );
+    when( metastore.getRootFolder() ).thenReturn( root.getPath() );
+
+    clusters = new ArrayList<>( Arrays.asList( cluster( "first", "host1" ), cluster( "second", "host2" ),
+      cluster( "third", "host1" ) ) );
+    loader = mock( NamedClusterRegistry.Loader.class );
+    when( loader.load( metastore ) ).thenAnswer( invocation -> new ArrayList<>( clusters ) );
+  }
+
+  @Test
+  public void testLookupsAreServedFromOneLoad() throws MetaStoreException {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 60000L );
+
+    assertTrue( registry.isCached( metastore ) );
+    assertEquals( "host2", registry.getByName( "second", metastore ).getHdfsHost() );
+    assertEquals( "first", registry.getByHost( "host1", metastore ).getName() );
+    assertNull( registry.getByName( "missing", metastore ) );
+    assertNull( registry.getByHost( "missing", metastore ) );
+    assertTrue( registry.contains( "third", metastore ) );
+    assertEquals( Arrays.asList( "first", "second", "third" ), registry.listNames( metastore ) );
+    assertEquals( 3, registry.list( metastore ).size() );
+
+    verify( loader, times( 1 ) ).load( metastore );
+  }
+
+  @Test
+  public void testLookupsReturnCopies() throws MetaStoreException {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 60000L );
+    NamedCluster copy = registry.getByName( "first", metastore );
+    copy.setHdfsHost( "changed" );
+
+    assertNotSame( copy, registry.getByName( "first", metastore ) );
+    assertEquals( "host1", registry.getByName( "first", metastore ).getHdfsHost() );
+    assertEquals( clusters.get( 0 ).getLastModifiedDate(), copy.getLastModifiedDate() );
+  }
+
+  @Test
+  public void testReloadsWhenTheFolderChanges() throws Exception {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 0L );
+    assertFalse( registry.contains( "fourth", metastore ) );
+    registry.contains( "fourth", metastore );
+    verify( loader, times( 1 ) ).load( metastore );
+
+    clusters.add( cluster( "fourth", "host4" ) );
+    Files.write( new File( folder, "fourth.xml" ).toPath(), new byte[] { 1 } );
+
+    assertTrue( registry.contains( "fourth", metastore ) );
+    verify( loader, times( 2 ) ).load( metastore );
+  }
+
+  @Test
+  public void testWriteThrough() throws MetaStoreException {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 0L );
+    registry.listNames( metastore );
+
+    registry.put( cluster( "fourth", "host4" ), metastore );
+    registry.remove( "first", metastore );
+
+    assertEquals( "fourth", registry.getByHost( "host4", metastore ).getName() );
+    assertEquals( "third", registry.getByHost( "host1", metastore ).getName() );
+    assertFalse( registry.contains( "first", metastore ) );
+    verify( loader, times( 1 ) ).load( metastore );
+
+    registry.invalidate( metastore );
+    assertTrue( registry.contains( "first", metastore ) );
+    verify( loader, times( 2 ) ).load( metastore );
+  }
+
+  @Test
+  public void testWriteThroughKeepsExternalChangesVisible() throws Exception {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 0L );
+    registry.listNames( metastore );
+
+    // another process adds a cluster before this one writes one
+    clusters.add( cluster( "fifth", "host5" ) );
+    Files.write( new File( folder, "fifth.xml" ).toPath(), new byte[] { 1 } );
+    clusters.add( cluster( "fourth", "host4" ) );
+    Files.write( new File( folder, "fourth.xml" ).toPath(), new byte[] { 1 } );
+    registry.put( cluster( "fourth", "host4" ), metastore );
+
+    assertTrue( registry.contains( "fifth", metastore ) );
+    assertTrue( registry.contains( "fourth", metastore ) );
+    verify( loader, times( 2 ) ).load( metastore );
+  }
+
+  @Test
+  public void testVersionIgnoresListingOrder() throws IOException {
+    File first = new File( folder, "first.xml" );
+    File second = new File( folder, "second.xml" );
+    Files.write( first.toPath(), new byte[] { 1 } );
+    Files.write( second.toPath(), new byte[] { 1, 2 } );
+
+    assertEquals( NamedClusterRegistry.version( new File[] { first, second } ),
+      NamedClusterRegistry.version( new File[] { second, first } ) );
+    assertEquals( NamedClusterRegistry.version( new File[] { first, second } ), NamedClusterRegistry.version( folder ) );
+  }
+
+  @Test
+  public void testOtherMetastoresAreNotCached() {
+    NamedClusterRegistry registry = new NamedClusterRegistry( loader, 0L );
+    assertFalse( registry.isCached( mock( IMetaStore.class ) ) );
+    assertFalse( registry.isCached( null ) );
+  }
+
+  private static NamedCluster cluster( String name, String host ) {
+    NamedClusterImpl namedCluster = new NamedClusterImpl();
+    namedCluster.setName( name );
+    namedCluster.setHdfsHost( host );
+    namedCluster.setLastModifiedDate( 42L );
+    return namedCluster;
+  }
+}
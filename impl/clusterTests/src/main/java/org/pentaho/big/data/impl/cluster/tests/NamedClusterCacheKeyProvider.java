@@ -0,0 +1,52 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.cluster.tests;
+
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.runtime.test.RuntimeTestCacheKeyProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keys the cached runtime test results of a named cluster by a hash of its configuration, variables substituted, so
+ * that editing any setting of the cluster runs its tests again
+ */
+public class NamedClusterCacheKeyProvider implements RuntimeTestCacheKeyProvider {
+  @Override
+  public boolean accepts( Object objectUnderTest ) {
+    return objectUnderTest instanceof NamedCluster;
+  }
+
+  @Override
+  public String getCacheKey( Object objectUnderTest ) {
+    NamedCluster namedCluster = (NamedCluster) objectUnderTest;
+    String xml = namedCluster.toXmlForEmbed( "NamedCluster" );
+    if ( xml == null ) {
+      return null;
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance( "SHA-256" )
+        .digest( namedCluster.environmentSubstitute( xml ).getBytes( StandardCharsets.UTF_8 ) );
+      StringBuilder key = new StringBuilder( digest.length * 2 );
+      for ( byte b : digest ) {
+        key.append( String.format( "%02x", b ) );
+      }
+      return key.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      return null;
+    }
+  }
+}
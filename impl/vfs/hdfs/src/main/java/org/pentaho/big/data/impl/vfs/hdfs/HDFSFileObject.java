@@ -17,30 +17,116 @@ import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.RandomAccessContent;
 import org.apache.commons.vfs2.provider.AbstractFileObject;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.pentaho.di.core.Const;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatus;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
 
 
+import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 public class HDFSFileObject extends AbstractFileObject  {
 
+  /**
+   * Number of chunks to prefetch in the background when reading a file sequentially (0, the default, disables
+   * read-ahead)
+   */
+  public static final String READ_AHEAD_CHUNKS_PROPERTY = "KETTLE_HDFS_READ_AHEAD_CHUNKS";
+
+  /** Size in bytes of a prefetched chunk */
+  public static final String READ_AHEAD_CHUNK_SIZE_PROPERTY = "KETTLE_HDFS_READ_AHEAD_CHUNK_SIZE";
+
+  public static final int DEFAULT_READ_AHEAD_CHUNK_SIZE = 4 * 1024 * 1024;
+
   private HadoopFileSystem hdfs;
 
+  private final HadoopFileStatusCache statusCache;
+
+  /**
+   * Status of the file, fetched when the file is attached and reused for its type, size and time for as long as the
+   * file system's status cache keeps a status, so that changes by other writers show up
+   */
+  private HadoopFileStatus status;
+  private boolean statusLoaded;
+  private long statusLoadedAt;
+
   public HDFSFileObject( final AbstractFileName name, final HDFSFileSystem fileSystem ) throws FileSystemException {
     super( name, fileSystem );
     hdfs = fileSystem.getHDFSFileSystem();
+    statusCache = fileSystem.getStatusCache();
+  }
+
+  @Override
+  protected void doAttach() throws Exception {
+    getStatus();
+  }
+
+  @Override
+  protected void doDetach() throws Exception {
+    clearStatus();
+  }
+
+  @Override
+  public void refresh() throws FileSystemException {
+    statusCache.invalidate( getName().getPath() );
+    super.refresh();
+  }
+
+  @Override
+  protected void onChange() throws Exception {
+    clearStatus();
+    statusCache.invalidate( getName().getPath() );
+  }
+
+  /**
+   * @return the status of the file, or null if it does not exist
+   */
+  protected HadoopFileStatus getStatus() {
+    if ( !statusLoaded || System.currentTimeMillis() - statusLoadedAt > statusCache.getTtl() ) {
+      if ( null == hdfs ) {
+        throw new IllegalStateException( "No HDFS file system present" );
+      }
+      String path = getName().getPath();
+      status = statusCache.get( path );
+      if ( status == null ) {
+        try {
+          status = hdfs.getFileStatus( hdfs.getPath( path ) );
+        } catch ( Exception ex ) {
+          status = null;
+        }
+        statusCache.put( path, status );
+      }
+      statusLoaded = true;
+      statusLoadedAt = System.currentTimeMillis();
+    }
+    return status;
+  }
+
+  private HadoopFileStatus getExistingStatus() throws FileNotFoundException {
+    HadoopFileStatus fileStatus = getStatus();
+    if ( fileStatus == null ) {
+      throw new FileNotFoundException( getName().getPath() );
+    }
+    return fileStatus;
+  }
+
+  protected void clearStatus() {
+    status = null;
+    statusLoaded = false;
   }
 
   @Override
   protected long doGetContentSize() throws Exception {
-    return hdfs.getFileStatus( hdfs.getPath( getName().getPath() ) ).getLen();
+    return getExistingStatus().getLen();
   }
 
   @Override
   protected OutputStream doGetOutputStream( boolean append ) throws Exception {
+    statusCache.invalidate( getName().getPath() );
     OutputStream out;
     if ( append ) {
       out = hdfs.append( hdfs.getPath( getName().getPath() ) );
@@ -57,20 +143,29 @@ public class HDFSFileObject extends AbstractFileObject  {
 
   @Override
   protected InputStream doGetInputStream( final int bufferSize ) throws Exception {
-    return this.doGetInputStream();
+    InputStream in = this.doGetInputStream();
+    int readAheadChunks = Const.toInt( System.getProperty( READ_AHEAD_CHUNKS_PROPERTY ), 0 );
+    if ( readAheadChunks > 0 ) {
+      int chunkSize = Const.toInt( System.getProperty( READ_AHEAD_CHUNK_SIZE_PROPERTY ),
+        DEFAULT_READ_AHEAD_CHUNK_SIZE );
+      return new ReadAheadInputStream( in, chunkSize, readAheadChunks );
+    }
+    // VFS already buffers the returned stream with the requested buffer size
+    return in;
   }
 
   @Override
-  protected FileType doGetType() throws Exception {
-    HadoopFileStatus status = null;
-    if ( null == hdfs ) {
-      throw new IllegalStateException( "No HDFS file system present" );
-    }
-    try {
-      status = hdfs.getFileStatus( hdfs.getPath( getName().getPath() ) );
-    } catch ( Exception ex ) {
-      // Ignore
+  protected RandomAccessContent doGetRandomAccessContent( final RandomAccessMode mode ) throws Exception {
+    if ( mode.requestWrite() ) {
+      throw new FileSystemException( "vfs.provider/random-access-write-not-supported.error", getName() );
     }
+    return new HDFSRandomAccessContent( () -> hdfs.open( hdfs.getPath( getName().getPath() ) ),
+      getExistingStatus().getLen() );
+  }
+
+  @Override
+  protected FileType doGetType() throws Exception {
+    HadoopFileStatus status = getStatus();
 
     if ( status == null ) {
       return FileType.IMAGINARY;
@@ -83,36 +178,46 @@ public class HDFSFileObject extends AbstractFileObject  {
 
   @Override
   public void doCreateFolder() throws Exception {
+    statusCache.invalidate( getName().getPath() );
     hdfs.mkdirs( hdfs.getPath( getName().getPath() ) );
   }
 
   @Override
   public void doDelete() throws Exception {
+    statusCache.invalidate( getName().getPath() );
     hdfs.delete( hdfs.getPath( getName().getPath() ), true );
   }
 
   @Override
   protected void doRename( FileObject newfile ) throws Exception {
+    statusCache.invalidate( getName().getPath() );
+    statusCache.invalidate( newfile.getName().getPath() );
     hdfs.rename( hdfs.getPath( getName().getPath() ), hdfs.getPath( newfile.getName().getPath() ) );
   }
 
   @Override
   protected long doGetLastModifiedTime() throws Exception {
-    return hdfs.getFileStatus( hdfs.getPath( getName().getPath() ) ).getModificationTime();
+    return getExistingStatus().getModificationTime();
   }
 
   @Override
   protected boolean doSetLastModifiedTime( long modtime ) throws Exception {
     hdfs.setTimes( hdfs.getPath( getName().getPath() ), modtime, System.currentTimeMillis() );
+    clearStatus();
+    statusCache.invalidate( getName().getPath() );
     return true;
   }
 
   @Override
   protected String[] doListChildren() throws Exception {
-    HadoopFileStatus[] statusList = hdfs.listStatus( hdfs.getPath( getName().getPath() ) );
+    String path = getName().getPath();
+    HadoopFileStatus[] statusList = hdfs.listStatus( hdfs.getPath( path ) );
+    String parentPrefix = path.endsWith( "/" ) ? path : path + "/";
     String[] children = new String[ statusList.length ];
     for ( int i = 0; i < statusList.length; i++ ) {
       children[ i ] = statusList[ i ].getPath().getName();
+      // resolving the children (type, size, time) is then served from the listing
+      statusCache.put( parentPrefix + children[ i ], statusList[ i ] );
     }
     return children;
   }
@@ -27,6 +27,7 @@ import java.util.Collection;
 
 public class HDFSFileSystem extends AbstractFileSystem implements FileSystem {
   private final HadoopFileSystem hdfs;
+  private final HadoopFileStatusCache statusCache = new HadoopFileStatusCache();
 
   public HDFSFileSystem( final FileName rootName, final FileSystemOptions fileSystemOptions,
                             HadoopFileSystem hdfs ) {
@@ -55,4 +56,11 @@ public class HDFSFileSystem extends AbstractFileSystem implements FileSystem {
   public HadoopFileSystem getHDFSFileSystem() throws FileSystemException {
     return hdfs;
   }
+
+  /**
+   * @return the file statuses recently fetched or listed through this file system
+   */
+  public HadoopFileStatusCache getStatusCache() {
+    return statusCache;
+  }
 }
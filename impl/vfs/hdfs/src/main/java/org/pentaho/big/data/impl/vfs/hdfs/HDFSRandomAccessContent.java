@@ -0,0 +1,160 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs;
+
+import org.apache.commons.vfs2.provider.AbstractRandomAccessStreamContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read only random access content of an HDFS file. Seeking is lazy: a forward seek skips on the open stream (which is a
+ * seek on an HDFS stream), a backward seek reopens the file, and nothing is read until the content is actually read.
+ */
+public class HDFSRandomAccessContent extends AbstractRandomAccessStreamContent {
+
+  /**
+   * Opens a new stream positioned at the start of the file
+   */
+  public interface StreamOpener {
+    InputStream open() throws IOException;
+  }
+
+  private final StreamOpener opener;
+  private final long length;
+
+  private long filePointer;
+  private long streamPosition;
+  private InputStream stream;
+  private DataInputStream dataInputStream;
+
+  public HDFSRandomAccessContent( StreamOpener opener, long length ) {
+    super( RandomAccessMode.READ );
+    this.opener = opener;
+    this.length = length;
+  }
+
+  @Override
+  public long getFilePointer() throws IOException {
+    return filePointer;
+  }
+
+  @Override
+  public void seek( long pos ) throws IOException {
+    if ( pos < 0 ) {
+      throw new IOException( "Negative seek offset: " + pos );
+    }
+    filePointer = pos;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return length;
+  }
+
+  @Override
+  protected DataInputStream getDataInputStream() throws IOException {
+    if ( stream != null && streamPosition > filePointer ) {
+      closeStream();
+    }
+    if ( stream == null ) {
+      stream = opener.open();
+      streamPosition = 0;
+      dataInputStream = new DataInputStream( new PositionTrackingInputStream( stream ) );
+    }
+    while ( streamPosition < filePointer ) {
+      long skipped = stream.skip( filePointer - streamPosition );
+      if ( skipped <= 0 ) {
+        // at (or past) the end of the file
+        break;
+      }
+      streamPosition += skipped;
+    }
+    return dataInputStream;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return getDataInputStream();
+  }
+
+  @Override
+  public void close() throws IOException {
+    closeStream();
+  }
+
+  private void closeStream() throws IOException {
+    if ( stream != null ) {
+      InputStream toClose = stream;
+      stream = null;
+      dataInputStream = null;
+      toClose.close();
+    }
+  }
+
+  /**
+   * Keeps the file pointer in step with what is read through the content's streams
+   */
+  private class PositionTrackingInputStream extends FilterInputStream {
+
+    private PositionTrackingInputStream( InputStream in ) {
+      super( in );
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if ( b >= 0 ) {
+        advance( 1 );
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      int n = super.read( b, off, len );
+      if ( n > 0 ) {
+        advance( n );
+      }
+      return n;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException {
+      long skipped = super.skip( n );
+      if ( skipped > 0 ) {
+        advance( skipped );
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      HDFSRandomAccessContent.this.close();
+    }
+
+    private void advance( long n ) {
+      streamPosition += n;
+      filePointer = streamPosition;
+    }
+  }
+}
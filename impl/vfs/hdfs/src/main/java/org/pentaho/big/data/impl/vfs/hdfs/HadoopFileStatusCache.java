@@ -0,0 +1,131 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatus;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Short lived cache of file statuses by path, held by an HDFS file system. Directory listings put the status of every
+ * child in the cache so that resolving the children doesn't cost a NameNode round trip each. Entries expire after
+ * KETTLE_HDFS_STATUS_CACHE_TTL milliseconds (default 5 seconds, 0 disables the cache) and are invalidated whenever
+ * the file system modifies a path.
+ */
+public class HadoopFileStatusCache {
+
+  public static final String TTL_PROPERTY = "KETTLE_HDFS_STATUS_CACHE_TTL";
+
+  public static final long DEFAULT_TTL = 5000L;
+
+  /** Upper bound of cached statuses; when it is reached expired entries are purged, or everything if none expired */
+  public static final int MAX_ENTRIES = 100000;
+
+  private final long ttl;
+  private final int maxEntries;
+  private final NavigableMap<String, Entry> entries = new TreeMap<>();
+
+  public HadoopFileStatusCache() {
+    this( Const.toLong( System.getProperty( TTL_PROPERTY ), DEFAULT_TTL ), MAX_ENTRIES );
+  }
+
+  public HadoopFileStatusCache( long ttl, int maxEntries ) {
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * @return the time in milliseconds a status is kept
+   */
+  public long getTtl() {
+    return ttl;
+  }
+
+  public boolean isEnabled() {
+    return ttl > 0 && maxEntries > 0;
+  }
+
+  /**
+   * @param path
+   *          the path of the file
+   * @return the cached status, or null if there is no live entry
+   */
+  public synchronized HadoopFileStatus get( String path ) {
+    if ( !isEnabled() ) {
+      return null;
+    }
+    Entry entry = entries.get( path );
+    if ( entry == null ) {
+      return null;
+    }
+    if ( System.currentTimeMillis() - entry.created > ttl ) {
+      entries.remove( path );
+      return null;
+    }
+    return entry.status;
+  }
+
+  /**
+   * @param path
+   *          the path of the file
+   * @param status
+   *          the status of the file
+   */
+  public synchronized void put( String path, HadoopFileStatus status ) {
+    if ( isEnabled() && status != null ) {
+      if ( entries.size() >= maxEntries && !entries.containsKey( path ) ) {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf( entry -> now - entry.created > ttl );
+        if ( entries.size() >= maxEntries ) {
+          entries.clear();
+        }
+      }
+      entries.put( path, new Entry( status ) );
+    }
+  }
+
+  /**
+   * Drops the status of a path and of everything below it
+   *
+   * @param path
+   *          the path that was modified
+   */
+  public synchronized void invalidate( String path ) {
+    if ( entries.isEmpty() ) {
+      return;
+    }
+    entries.remove( path );
+    String prefix = path.endsWith( "/" ) ? path : path + "/";
+    entries.subMap( prefix, true, prefix + Character.MAX_VALUE, false ).clear();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private static class Entry {
+    private final HadoopFileStatus status;
+    private final long created = System.currentTimeMillis();
+
+    private Entry( HadoopFileStatus status ) {
+      this.status = status;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input stream that reads the next chunks of the underlying stream on a background thread while the current one is
+ * consumed, so that the caller doesn't wait on a DataNode round trip for every buffer it reads. At most {@code window}
+ * chunks are held in memory.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  private static final ExecutorService READERS = Executors.newCachedThreadPool( r -> {
+    Thread thread = new Thread( r, "hdfs-read-ahead" );
+    thread.setDaemon( true );
+    return thread;
+  } );
+
+  private static final byte[] EOF = new byte[ 0 ];
+
+  private final InputStream in;
+  private final int chunkSize;
+  private final BlockingQueue<Object> chunks;
+  private final Future<?> reader;
+
+  private byte[] current;
+  private int currentPos;
+  private boolean eof;
+  private volatile boolean closed;
+
+  /**
+   * @param in
+   *          the stream to read ahead of
+   * @param chunkSize
+   *          the size of a prefetched chunk
+   * @param window
+   *          the maximum number of prefetched chunks
+   */
+  public ReadAheadInputStream( InputStream in, int chunkSize, int window ) {
+    this.in = in;
+    this.chunkSize = Math.max( 1, chunkSize );
+    this.chunks = new ArrayBlockingQueue<>( Math.max( 1, window ) );
+    this.reader = READERS.submit( this::readAhead );
+  }
+
+  private void readAhead() {
+    Object last = null;
+    try {
+      while ( !closed ) {
+        byte[] chunk = new byte[ chunkSize ];
+        int filled = 0;
+        int read = 0;
+        while ( filled < chunkSize && ( read = in.read( chunk, filled, chunkSize - filled ) ) >= 0 ) {
+          filled += read;
+        }
+        if ( filled > 0 ) {
+          if ( filled < chunkSize ) {
+            byte[] shorter = new byte[ filled ];
+            System.arraycopy( chunk, 0, shorter, 0, filled );
+            chunk = shorter;
+          }
+          enqueue( chunk );
+        }
+        if ( read < 0 ) {
+          last = EOF;
+          return;
+        }
+      }
+    } catch ( IOException e ) {
+      last = e;
+    } catch ( InterruptedException e ) {
+      last = new InterruptedIOException( e.getMessage() );
+    } catch ( Throwable e ) {
+      // Hadoop client code commonly fails with runtime exceptions
+      last = e;
+    } finally {
+      // whatever ended the reader, the consumer must not wait for another chunk
+      enqueueLast( last == null ? new IOException( "Read ahead stopped" ) : last );
+    }
+  }
+
+  private void enqueue( Object chunk ) throws InterruptedException {
+    while ( !closed && !chunks.offer( chunk, 100, TimeUnit.MILLISECONDS ) ) {
+      // wait for the consumer to make room
+    }
+  }
+
+  private void enqueueLast( Object chunk ) {
+    boolean interrupted = Thread.interrupted();
+    try {
+      enqueue( chunk );
+    } catch ( InterruptedException e ) {
+      interrupted = true;
+    } finally {
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return false if the end of the stream has been reached
+   */
+  private boolean ensureChunk() throws IOException {
+    if ( closed ) {
+      throw new IOException( "Stream closed" );
+    }
+    if ( eof ) {
+      return false;
+    }
+    if ( current != null && currentPos < current.length ) {
+      return true;
+    }
+    Object next;
+    try {
+      next = chunks.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( e.getMessage() );
+    }
+    if ( next instanceof IOException ) {
+      throw new IOException( ( (IOException) next ).getMessage(), (IOException) next );
+    }
+    if ( next instanceof Throwable ) {
+      throw new IOException( next.toString(), (Throwable) next );
+    }
+    if ( next == EOF ) {
+      eof = true;
+      current = null;
+      return false;
+    }
+    current = (byte[]) next;
+    currentPos = 0;
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if ( !ensureChunk() ) {
+      return -1;
+    }
+    return current[ currentPos++ ] & 0xff;
+  }
+
+  @Override
+  public int read( byte[] b, int off, int len ) throws IOException {
+    if ( len == 0 ) {
+      return 0;
+    }
+    if ( !ensureChunk() ) {
+      return -1;
+    }
+    int n = Math.min( len, current.length - currentPos );
+    System.arraycopy( current, currentPos, b, off, n );
+    currentPos += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return current == null ? 0 : current.length - currentPos;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    reader.cancel( true );
+    chunks.clear();
+    in.close();
+  }
+}
@@ -21,16 +21,29 @@ import org.pentaho.big.data.impl.vfs.hdfs.HDFSFileSystem;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
 
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class NamedClusterFileSystem extends HDFSFileSystem {
 
   private final URI realFileSystemURI;
+  private final Runnable onClose;
+  private final AtomicBoolean closed = new AtomicBoolean();
 
   public NamedClusterFileSystem( final FileName rootName, final URI realFileSystemURI, final FileSystemOptions fileSystemOptions,
                                  HadoopFileSystem hdfs ) {
+    this( rootName, realFileSystemURI, fileSystemOptions, hdfs, null );
+  }
+
+  /**
+   * @param onClose
+   *          run once when the file system is closed, releases the shared Hadoop file system
+   */
+  public NamedClusterFileSystem( final FileName rootName, final URI realFileSystemURI, final FileSystemOptions fileSystemOptions,
+                                 HadoopFileSystem hdfs, Runnable onClose ) {
     super( rootName, fileSystemOptions, hdfs );
     this.realFileSystemURI = realFileSystemURI;
+    this.onClose = onClose;
   }
 
   @Override protected FileObject createFile( AbstractFileName name ) throws Exception {
@@ -41,4 +54,15 @@ public class NamedClusterFileSystem extends HDFSFileSystem {
     return realFileSystemURI;
   }
 
+  @Override
+  public void close() {
+    try {
+      super.close();
+    } finally {
+      if ( onClose != null && closed.compareAndSet( false, true ) ) {
+        onClose.run();
+      }
+    }
+  }
+
 }
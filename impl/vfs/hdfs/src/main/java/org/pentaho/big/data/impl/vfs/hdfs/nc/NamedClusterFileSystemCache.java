@@ -0,0 +1,292 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs.nc;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.pentaho.di.core.Const;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of the named clusters resolved by the hc:// provider, with the substituted URI and the Hadoop file system of
+ * each root, so that creating a root again (another embedded metastore, another set of file system options, a file
+ * system that was closed) doesn't read the metastore, substitute the URL and set a Hadoop file system up every time.
+ * <p>
+ * An entry is leased by every VFS file system built on it and only idle entries are evicted once more than
+ * KETTLE_HC_FILESYSTEM_CACHE_SIZE (default 64) are cached. After KETTLE_HC_FILESYSTEM_CACHE_TTL milliseconds (default
+ * 30 seconds) the named cluster of an entry is read again on its next use and the entry is dropped if the definition
+ * changed or was deleted in the meantime, so an edited cluster is picked up within the TTL.
+ * <p>
+ * Entries are loaded outside the lock of the cache, so a slow metastore or cluster doesn't hold up the other roots;
+ * concurrent uses of a root being loaded wait for that load.
+ */
+public class NamedClusterFileSystemCache {
+
+  public static final String TTL_PROPERTY = "KETTLE_HC_FILESYSTEM_CACHE_TTL";
+  public static final String MAX_ENTRIES_PROPERTY = "KETTLE_HC_FILESYSTEM_CACHE_SIZE";
+
+  public static final long DEFAULT_TTL = 30000L;
+  public static final int DEFAULT_MAX_ENTRIES = 64;
+
+  /**
+   * Resolves what an entry holds
+   */
+  public interface Loader {
+    /**
+     * @return the current definition of the named cluster, never null
+     */
+    NamedCluster readNamedCluster() throws FileSystemException;
+
+    URI resolveUri( NamedCluster namedCluster ) throws FileSystemException;
+
+    HadoopFileSystem createFileSystem( NamedCluster namedCluster, URI uri ) throws FileSystemException;
+  }
+
+  private final long ttl;
+  private final int maxEntries;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+  private final Map<Key, CompletableFuture<Entry>> loading = new HashMap<>();
+  /** incremented when entries are dropped, so that a load started before doesn't cache a stale entry */
+  private long generation;
+
+  public NamedClusterFileSystemCache() {
+    this( Const.toLong( System.getProperty( TTL_PROPERTY ), DEFAULT_TTL ),
+      Const.toInt( System.getProperty( MAX_ENTRIES_PROPERTY ), DEFAULT_MAX_ENTRIES ) );
+  }
+
+  public NamedClusterFileSystemCache( long ttl, int maxEntries ) {
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Leases the entry of a root, revalidating or loading it when needed
+   *
+   * @param clusterName
+   *          the name of the named cluster (host of the hc:// URL)
+   * @param metastoreKey
+   *          the key of the embedded metastore the cluster is read from, or null
+   * @param path
+   *          the path of the root
+   * @param loader
+   *          resolves the entry when it is not cached or no longer valid
+   * @return the entry, to {@link Entry#release() release} when the file system using it is closed
+   */
+  public Entry acquire( String clusterName, String metastoreKey, String path, Loader loader )
+    throws FileSystemException {
+    if ( !isEnabled() ) {
+      Entry entry = load( null, loader, System.currentTimeMillis() );
+      entry.references++;
+      return entry;
+    }
+    Key key = new Key( clusterName, metastoreKey, path );
+    while ( true ) {
+      Entry entry;
+      CompletableFuture<Entry> pending;
+      long loadGeneration;
+      long now = System.currentTimeMillis();
+      synchronized ( this ) {
+        entry = entries.get( key );
+        if ( entry != null && now - entry.validated <= ttl ) {
+          entry.references++;
+          return entry;
+        }
+        pending = loading.get( key );
+        if ( pending == null ) {
+          loading.put( key, new CompletableFuture<>() );
+        }
+        loadGeneration = generation;
+      }
+      if ( pending != null ) {
+        // another thread is loading the root, use its result
+        await( pending );
+        continue;
+      }
+
+      Entry loaded;
+      try {
+        loaded = load( entry, loader, now );
+      } catch ( FileSystemException | RuntimeException | Error e ) {
+        synchronized ( this ) {
+          loading.remove( key ).completeExceptionally( e );
+        }
+        throw e;
+      }
+      synchronized ( this ) {
+        if ( loaded == entry ) {
+          entry.validated = now;
+        } else if ( entry != null ) {
+          entries.remove( key, entry );
+        }
+        if ( generation == loadGeneration ) {
+          entries.put( key, loaded );
+          evictIdle();
+        }
+        loaded.references++;
+        loading.remove( key ).complete( loaded );
+      }
+      return loaded;
+    }
+  }
+
+  /**
+   * Revalidates an expired entry or loads a new one
+   *
+   * @return the entry if the named cluster didn't change, a new entry otherwise
+   */
+  private Entry load( Entry entry, Loader loader, long now ) throws FileSystemException {
+    NamedCluster namedCluster = loader.readNamedCluster();
+    if ( entry != null && namedCluster.getLastModifiedDate() == entry.lastModified ) {
+      return entry;
+    }
+    URI uri = loader.resolveUri( namedCluster );
+    return new Entry( namedCluster, uri, loader.createFileSystem( namedCluster, uri ), now );
+  }
+
+  private static void await( CompletableFuture<Entry> pending ) throws FileSystemException {
+    boolean interrupted = false;
+    try {
+      while ( true ) {
+        try {
+          pending.get();
+          return;
+        } catch ( InterruptedException e ) {
+          interrupted = true;
+        } catch ( ExecutionException e ) {
+          throw new FileSystemException( e.getCause() );
+        }
+      }
+    } finally {
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private boolean isEnabled() {
+    return ttl > 0 && maxEntries > 0;
+  }
+
+  private void evictIdle() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while ( entries.size() > maxEntries && iterator.hasNext() ) {
+      if ( iterator.next().references <= 0 ) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops the entries read from an embedded metastore
+   *
+   * @param metastoreKey
+   *          the key of the embedded metastore being closed
+   */
+  public synchronized void invalidateMetastore( String metastoreKey ) {
+    generation++;
+    entries.keySet().removeIf( key -> Objects.equals( key.metastoreKey, metastoreKey ) );
+  }
+
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private synchronized void release( Entry entry ) {
+    entry.references--;
+    evictIdle();
+  }
+
+  /**
+   * A resolved root
+   */
+  public class Entry {
+    private final NamedCluster namedCluster;
+    private final long lastModified;
+    private final URI uri;
+    private final HadoopFileSystem hadoopFileSystem;
+    private long validated;
+    private int references;
+
+    private Entry( NamedCluster namedCluster, URI uri, HadoopFileSystem hadoopFileSystem, long validated ) {
+      this.namedCluster = namedCluster;
+      this.lastModified = namedCluster.getLastModifiedDate();
+      this.uri = uri;
+      this.hadoopFileSystem = hadoopFileSystem;
+      this.validated = validated;
+    }
+
+    public NamedCluster getNamedCluster() {
+      return namedCluster;
+    }
+
+    public URI getUri() {
+      return uri;
+    }
+
+    public HadoopFileSystem getHadoopFileSystem() {
+      return hadoopFileSystem;
+    }
+
+    /**
+     * Ends a lease of the entry, which becomes evictable once no file system uses it
+     */
+    public void release() {
+      NamedClusterFileSystemCache.this.release( this );
+    }
+  }
+
+  private static class Key {
+    private final String clusterName;
+    private final String metastoreKey;
+    private final String path;
+
+    private Key( String clusterName, String metastoreKey, String path ) {
+      this.clusterName = clusterName;
+      this.metastoreKey = metastoreKey;
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( !( o instanceof Key ) ) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equals( clusterName, other.clusterName ) && Objects.equals( metastoreKey, other.metastoreKey )
+        && Objects.equals( path, other.path );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( clusterName, metastoreKey, path );
+    }
+  }
+}
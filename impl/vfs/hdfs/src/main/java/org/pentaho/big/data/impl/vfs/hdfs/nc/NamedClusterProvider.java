@@ -27,6 +27,7 @@ import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.hadoop.shim.api.cluster.ClusterInitializationException;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystemLocator;
 import org.pentaho.metastore.api.IMetaStore;
 import org.pentaho.metastore.api.exceptions.MetaStoreException;
@@ -47,6 +48,8 @@ public class NamedClusterProvider extends HDFSFileProvider implements VfsEmbedde
   private Map<String, Set<FileSystem>> cacheEntries =
     Collections.synchronizedMap( new HashMap<>() );
 
+  private final NamedClusterFileSystemCache fileSystemCache = new NamedClusterFileSystemCache();
+
   public NamedClusterProvider( HadoopFileSystemLocator hadoopFileSystemLocator,
                                NamedClusterService namedClusterService,
                                FileNameParser fileNameParser,
@@ -91,21 +94,35 @@ public class NamedClusterProvider extends HDFSFileProvider implements VfsEmbedde
     GenericFileName genericFileName = (GenericFileName) name.getRoot();
     String clusterName = genericFileName.getHostName();
     String path = genericFileName.getPath();
-    NamedCluster namedCluster = getNamedClusterByName( clusterName, fileSystemOptions );
-    try {
-      if ( namedCluster == null ) {
-        namedCluster = namedClusterService.getClusterTemplate();
-      }
-      String generatedUrl = namedCluster
-        .processURLsubstitution( path == null ? "" : path,
-          getMetastore( clusterName, fileSystemOptions ), new Variables() );
-      URI uri = URI.create( generatedUrl );
-
-      return new NamedClusterFileSystem( name, uri, fileSystemOptions,
-        hadoopFileSystemLocator.getHadoopFilesystem( namedCluster, uri ) );
-    } catch ( ClusterInitializationException e ) {
-      throw new FileSystemException( e );
-    }
+    NamedClusterFileSystemCache.Entry entry = fileSystemCache.acquire( clusterName,
+      getEmbeddedMetastoreKey( fileSystemOptions ), path, new NamedClusterFileSystemCache.Loader() {
+        @Override
+        public NamedCluster readNamedCluster() throws FileSystemException {
+          NamedCluster namedCluster = getNamedClusterByName( clusterName, fileSystemOptions );
+          return namedCluster == null ? namedClusterService.getClusterTemplate() : namedCluster;
+        }
+
+        @Override
+        public URI resolveUri( NamedCluster namedCluster ) {
+          return URI.create( namedCluster.processURLsubstitution( path == null ? "" : path,
+            getMetastore( clusterName, fileSystemOptions ), new Variables() ) );
+        }
+
+        @Override
+        public HadoopFileSystem createFileSystem( NamedCluster namedCluster, URI uri ) throws FileSystemException {
+          try {
+            return hadoopFileSystemLocator.getHadoopFilesystem( namedCluster, uri );
+          } catch ( ClusterInitializationException e ) {
+            throw new FileSystemException( e );
+          }
+        }
+      } );
+    return new NamedClusterFileSystem( name, entry.getUri(), fileSystemOptions, entry.getHadoopFileSystem(),
+      entry::release );
+  }
+
+  NamedClusterFileSystemCache getFileSystemCache() {
+    return fileSystemCache;
   }
 
   @Override
@@ -191,6 +208,7 @@ public class NamedClusterProvider extends HDFSFileProvider implements VfsEmbedde
       }
     }
     cacheEntries.remove( embeddedMetastoreKey );
+    fileSystemCache.invalidateMetastore( embeddedMetastoreKey );
     namedClusterService.close( defaultMetastore );
     if ( defaultMetastore != embeddedMetastore ) {
       namedClusterService.close( embeddedMetastore );
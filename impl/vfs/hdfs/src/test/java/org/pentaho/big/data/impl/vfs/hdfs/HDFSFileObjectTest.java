@@ -17,7 +17,9 @@ import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.RandomAccessContent;
 import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.util.RandomAccessMode;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -26,13 +28,16 @@ import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
 import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystemPath;
 
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -68,6 +73,88 @@ public class HDFSFileObjectTest {
     assertEquals( len, hdfsFileObject.doGetContentSize() );
   }
 
+  @Test
+  public void testStatusIsFetchedOnceForTypeSizeAndTime() throws Exception {
+    HadoopFileStatus hadoopFileStatus = mock( HadoopFileStatus.class );
+    when( hadoopFileSystem.getFileStatus( hadoopFileSystemPath ) ).thenReturn( hadoopFileStatus );
+    when( hadoopFileStatus.getLen() ).thenReturn( 10L );
+    when( hadoopFileStatus.getModificationTime() ).thenReturn( 20L );
+
+    hdfsFileObject.doAttach();
+    assertEquals( FileType.FILE, hdfsFileObject.doGetType() );
+    assertEquals( 10L, hdfsFileObject.doGetContentSize() );
+    assertEquals( 20L, hdfsFileObject.doGetLastModifiedTime() );
+    verify( hadoopFileSystem, times( 1 ) ).getFileStatus( hadoopFileSystemPath );
+
+    // a detached file object is served from the file system's status cache
+    hdfsFileObject.doDetach();
+    hdfsFileObject.doGetContentSize();
+    verify( hadoopFileSystem, times( 1 ) ).getFileStatus( hadoopFileSystemPath );
+
+    // until the file changes
+    hdfsFileObject.onChange();
+    hdfsFileObject.doGetContentSize();
+    verify( hadoopFileSystem, times( 2 ) ).getFileStatus( hadoopFileSystemPath );
+  }
+
+  @Test
+  public void testRefreshDropsTheCachedStatus() throws Exception {
+    HadoopFileStatus hadoopFileStatus = mock( HadoopFileStatus.class );
+    when( hadoopFileSystem.getFileStatus( hadoopFileSystemPath ) ).thenReturn( hadoopFileStatus );
+
+    hdfsFileObject.doAttach();
+    hdfsFileObject.doDetach();
+    hdfsFileObject.refresh();
+    hdfsFileObject.doGetContentSize();
+    verify( hadoopFileSystem, times( 2 ) ).getFileStatus( hadoopFileSystemPath );
+  }
+
+  @Test
+  public void testStatusOfAnAttachedFileExpires() throws Exception {
+    System.setProperty( HadoopFileStatusCache.TTL_PROPERTY, "200" );
+    try {
+      hdfsFileObject = new HDFSFileObject( abstractFileName,
+        new HDFSFileSystem( mock( AbstractFileName.class ), null, hadoopFileSystem ) );
+    } finally {
+      System.clearProperty( HadoopFileStatusCache.TTL_PROPERTY );
+    }
+    HadoopFileStatus before = mock( HadoopFileStatus.class );
+    when( before.getLen() ).thenReturn( 10L );
+    HadoopFileStatus after = mock( HadoopFileStatus.class );
+    when( after.getLen() ).thenReturn( 20L );
+    when( hadoopFileSystem.getFileStatus( hadoopFileSystemPath ) ).thenReturn( before, after );
+
+    hdfsFileObject.doAttach();
+    assertEquals( 10L, hdfsFileObject.doGetContentSize() );
+    // another writer appended to the file
+    Thread.sleep( 300L );
+    assertEquals( 20L, hdfsFileObject.doGetContentSize() );
+  }
+
+  @Test
+  public void testRandomAccessContentSeeks() throws Exception {
+    byte[] data = "0123456789".getBytes();
+    HadoopFileStatus hadoopFileStatus = mock( HadoopFileStatus.class );
+    when( hadoopFileSystem.getFileStatus( hadoopFileSystemPath ) ).thenReturn( hadoopFileStatus );
+    when( hadoopFileStatus.getLen() ).thenReturn( (long) data.length );
+    when( hadoopFileSystem.open( hadoopFileSystemPath ) ).thenAnswer( invocation -> new ByteArrayInputStream( data ) );
+
+    RandomAccessContent content = hdfsFileObject.doGetRandomAccessContent( RandomAccessMode.READ );
+    assertEquals( 10L, content.length() );
+    content.seek( 5 );
+    assertEquals( '5', content.readByte() );
+    assertEquals( 6L, content.getFilePointer() );
+    content.seek( 2 );
+    assertEquals( '2', content.readByte() );
+    content.seek( 8 );
+    byte[] tail = new byte[ 2 ];
+    content.readFully( tail );
+    assertArrayEquals( "89".getBytes(), tail );
+    content.close();
+    // the backward seek reopened the file
+    verify( hadoopFileSystem, times( 2 ) ).open( hadoopFileSystemPath );
+  }
+
   @Test
   public void testDoGetOutputStreamAppend() throws Exception {
     OutputStream outputStream = mock( OutputStream.class );
@@ -174,5 +261,6 @@ public class HDFSFileObjectTest {
     String[] children = hdfsFileObject.doListChildren();
     assertEquals( 1, children.length );
     assertEquals( childPathName, children[ 0 ] );
+    assertEquals( hadoopFileStatus, hdfsFileSystem.getStatusCache().get( "fake-path/" + childPathName ) );
   }
 }
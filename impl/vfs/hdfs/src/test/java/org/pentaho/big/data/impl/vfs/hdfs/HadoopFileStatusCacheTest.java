@@ -0,0 +1,67 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs;
+
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class HadoopFileStatusCacheTest {
+
+  @Test
+  public void testInvalidateDropsPathAndDescendants() {
+    HadoopFileStatusCache cache = new HadoopFileStatusCache( 60000L, 100 );
+    HadoopFileStatus status = mock( HadoopFileStatus.class );
+    cache.put( "/data", status );
+    cache.put( "/data/a", status );
+    cache.put( "/data/a/b", status );
+    cache.put( "/database", status );
+
+    cache.invalidate( "/data" );
+
+    assertNull( cache.get( "/data" ) );
+    assertNull( cache.get( "/data/a" ) );
+    assertNull( cache.get( "/data/a/b" ) );
+    assertSame( status, cache.get( "/database" ) );
+  }
+
+  @Test
+  public void testExpiredEntriesAreNotServed() throws InterruptedException {
+    HadoopFileStatusCache cache = new HadoopFileStatusCache( 1L, 100 );
+    cache.put( "/a", mock( HadoopFileStatus.class ) );
+    Thread.sleep( 20 );
+    assertNull( cache.get( "/a" ) );
+  }
+
+  @Test
+  public void testDisabledCache() {
+    HadoopFileStatusCache cache = new HadoopFileStatusCache( 0L, 100 );
+    cache.put( "/a", mock( HadoopFileStatus.class ) );
+    assertNull( cache.get( "/a" ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testBoundedSize() {
+    HadoopFileStatusCache cache = new HadoopFileStatusCache( 60000L, 2 );
+    cache.put( "/a", mock( HadoopFileStatus.class ) );
+    cache.put( "/b", mock( HadoopFileStatus.class ) );
+    cache.put( "/c", mock( HadoopFileStatus.class ) );
+    assertEquals( 1, cache.size() );
+  }
+}
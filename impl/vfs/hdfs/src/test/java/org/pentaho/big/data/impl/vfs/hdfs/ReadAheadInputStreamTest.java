@@ -0,0 +1,81 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadAheadInputStreamTest {
+
+  @Test
+  public void testReadsWholeStreamInOrder() throws IOException {
+    byte[] data = new byte[ 10000 ];
+    new Random( 42 ).nextBytes( data );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( InputStream in = new ReadAheadInputStream( new ByteArrayInputStream( data ), 333, 2 ) ) {
+      assertEquals( data[ 0 ] & 0xff, in.read() );
+      out.write( data[ 0 ] );
+      byte[] buffer = new byte[ 1000 ];
+      int n;
+      while ( ( n = in.read( buffer ) ) >= 0 ) {
+        out.write( buffer, 0, n );
+      }
+      assertEquals( -1, in.read() );
+    }
+    assertArrayEquals( data, out.toByteArray() );
+  }
+
+  @Test
+  public void testPropagatesReadErrors() {
+    InputStream failing = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException( "boom" );
+      }
+    };
+    try ( InputStream in = new ReadAheadInputStream( failing, 16, 1 ) ) {
+      in.read();
+      fail( "expected the read error" );
+    } catch ( IOException e ) {
+      assertEquals( "boom", e.getMessage() );
+    }
+  }
+
+  @Test( timeout = 10000 )
+  public void testPropagatesRuntimeExceptions() {
+    InputStream failing = new InputStream() {
+      @Override
+      public int read() {
+        throw new IllegalStateException( "boom" );
+      }
+    };
+    try ( InputStream in = new ReadAheadInputStream( failing, 16, 1 ) ) {
+      in.read();
+      fail( "expected the read error" );
+    } catch ( IOException e ) {
+      assertTrue( e.getCause() instanceof IllegalStateException );
+    }
+  }
+}
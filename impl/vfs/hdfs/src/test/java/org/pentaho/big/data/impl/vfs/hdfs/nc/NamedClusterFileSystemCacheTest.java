@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.impl.vfs.hdfs.nc;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.hadoop.shim.api.hdfs.HadoopFileSystem;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NamedClusterFileSystemCacheTest {
+
+  private NamedClusterFileSystemCache.Loader loader;
+  private NamedCluster namedCluster;
+
+  @Before
+  public void setup() throws FileSystemException {
+    loader = mock( NamedClusterFileSystemCache.Loader.class );
+    namedCluster = mock( NamedCluster.class );
+    when( namedCluster.getLastModifiedDate() ).thenReturn( 1L );
+    when( loader.readNamedCluster() ).thenReturn( namedCluster );
+    when( loader.resolveUri( namedCluster ) ).thenReturn( URI.create( "hdfs://host:8020/" ) );
+    when( loader.createFileSystem( any( NamedCluster.class ), any( URI.class ) ) )
+      .thenAnswer( invocation -> mock( HadoopFileSystem.class ) );
+  }
+
+  @Test
+  public void testReusesResolvedRoot() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 10 );
+    NamedClusterFileSystemCache.Entry first = cache.acquire( "nc", null, "/", loader );
+    NamedClusterFileSystemCache.Entry second = cache.acquire( "nc", null, "/", loader );
+
+    assertSame( first, second );
+    assertSame( first.getHadoopFileSystem(), second.getHadoopFileSystem() );
+    assertEquals( URI.create( "hdfs://host:8020/" ), first.getUri() );
+    verify( loader, times( 1 ) ).readNamedCluster();
+    verify( loader, times( 1 ) ).createFileSystem( namedCluster, first.getUri() );
+  }
+
+  @Test
+  public void testKeyedByMetastoreAndPath() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 10 );
+    NamedClusterFileSystemCache.Entry entry = cache.acquire( "nc", null, "/", loader );
+
+    assertNotSame( entry, cache.acquire( "nc", "embedded", "/", loader ) );
+    assertNotSame( entry, cache.acquire( "nc", null, "/other", loader ) );
+    assertEquals( 3, cache.size() );
+  }
+
+  @Test
+  public void testChangedDefinitionIsReloaded() throws Exception {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 1L, 10 );
+    NamedClusterFileSystemCache.Entry entry = cache.acquire( "nc", null, "/", loader );
+    Thread.sleep( 5 );
+    assertSame( entry, cache.acquire( "nc", null, "/", loader ) );
+
+    when( namedCluster.getLastModifiedDate() ).thenReturn( 2L );
+    Thread.sleep( 5 );
+    assertNotSame( entry, cache.acquire( "nc", null, "/", loader ) );
+  }
+
+  @Test
+  public void testInvalidateMetastore() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 10 );
+    NamedClusterFileSystemCache.Entry entry = cache.acquire( "nc", null, "/", loader );
+    NamedClusterFileSystemCache.Entry embedded = cache.acquire( "nc", "embedded", "/", loader );
+
+    cache.invalidateMetastore( "embedded" );
+    assertEquals( 1, cache.size() );
+    assertSame( entry, cache.acquire( "nc", null, "/", loader ) );
+    assertNotSame( embedded, cache.acquire( "nc", "embedded", "/", loader ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testSlowLoadDoesNotBlockOtherRoots() throws Exception {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 10 );
+    CountDownLatch loadStarted = new CountDownLatch( 1 );
+    CountDownLatch finishLoad = new CountDownLatch( 1 );
+    NamedClusterFileSystemCache.Loader slowLoader = mock( NamedClusterFileSystemCache.Loader.class );
+    when( slowLoader.readNamedCluster() ).thenAnswer( invocation -> {
+      loadStarted.countDown();
+      finishLoad.await();
+      return namedCluster;
+    } );
+    when( slowLoader.resolveUri( namedCluster ) ).thenReturn( URI.create( "hdfs://slow:8020/" ) );
+    when( slowLoader.createFileSystem( any( NamedCluster.class ), any( URI.class ) ) )
+      .thenAnswer( invocation -> mock( HadoopFileSystem.class ) );
+
+    ExecutorService executor = Executors.newFixedThreadPool( 2 );
+    try {
+      Future<NamedClusterFileSystemCache.Entry> first =
+        executor.submit( () -> cache.acquire( "slow", null, "/", slowLoader ) );
+      loadStarted.await();
+      Future<NamedClusterFileSystemCache.Entry> second =
+        executor.submit( () -> cache.acquire( "slow", null, "/", slowLoader ) );
+
+      // another root resolves while the slow one is loading
+      assertEquals( URI.create( "hdfs://host:8020/" ), cache.acquire( "fast", null, "/", loader ).getUri() );
+      assertFalse( second.isDone() );
+
+      finishLoad.countDown();
+      assertSame( first.get(), second.get() );
+      verify( slowLoader, times( 1 ) ).readNamedCluster();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedLoadIsNotCached() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 10 );
+    when( loader.readNamedCluster() ).thenThrow( new FileSystemException( "unavailable" ) ).thenReturn( namedCluster );
+    try {
+      cache.acquire( "nc", null, "/", loader );
+      fail( "expected the load failure" );
+    } catch ( FileSystemException e ) {
+      assertEquals( 0, cache.size() );
+    }
+    assertEquals( URI.create( "hdfs://host:8020/" ), cache.acquire( "nc", null, "/", loader ).getUri() );
+  }
+
+  @Test
+  public void testOnlyIdleEntriesAreEvicted() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 60000L, 1 );
+    NamedClusterFileSystemCache.Entry first = cache.acquire( "first", null, "/", loader );
+    NamedClusterFileSystemCache.Entry second = cache.acquire( "second", null, "/", loader );
+    assertEquals( 2, cache.size() );
+
+    first.release();
+    assertEquals( 1, cache.size() );
+    assertSame( second, cache.acquire( "second", null, "/", loader ) );
+  }
+
+  @Test
+  public void testDisabled() throws FileSystemException {
+    NamedClusterFileSystemCache cache = new NamedClusterFileSystemCache( 0L, 10 );
+    NamedClusterFileSystemCache.Entry entry = cache.acquire( "nc", null, "/", loader );
+
+    assertNotSame( entry, cache.acquire( "nc", null, "/", loader ) );
+    assertEquals( 0, cache.size() );
+  }
+}
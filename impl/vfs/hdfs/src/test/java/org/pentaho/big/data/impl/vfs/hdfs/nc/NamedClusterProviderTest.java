@@ -138,4 +138,24 @@ public class NamedClusterProviderTest {
     verify( hdfsLocator ).getHadoopFilesystem( eq( ncTemplate ), any( URI.class ) );
   }
 
+  @Test
+  public void testDoCreateFileSystem_reusesResolvedCluster() throws FileSystemException, MetaStoreException,
+    ClusterInitializationException {
+    when( metastoreLocator.getMetastore() ).thenReturn( metastore );
+
+    UrlFileName name = new UrlFileName( "hc", ncName, 0, 0, null, null, path, null, null );
+    NamedClusterProvider provider = new  NamedClusterProvider( hdfsLocator, ncService, fileSystemManager, fileNameParser, scheme, metastoreLocator );
+    HDFSFileSystem first = (HDFSFileSystem) provider.doCreateFileSystem( name, null );
+    first.close();
+    HDFSFileSystem second = (HDFSFileSystem) provider.doCreateFileSystem( name, null );
+
+    assertEquals( hfs, second.getHDFSFileSystem() );
+    verify( hdfsLocator, times( 1 ) ).getHadoopFilesystem( eq( nc ), any( URI.class ) );
+    verify( nc, times( 1 ) ).processURLsubstitution( anyString(), eq( metastore ), any( Variables.class ) );
+
+    provider.getFileSystemCache().clear();
+    provider.doCreateFileSystem( name, null );
+    verify( hdfsLocator, times( 2 ) ).getHadoopFilesystem( eq( nc ), any( URI.class ) );
+  }
+
 }
@@ -0,0 +1,278 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.job;
+
+import org.pentaho.di.core.Const;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the completion of jobs running on a remote cluster (MapReduce, Oozie, EMR...) so that blocking job entries
+ * don't sleep a whole logging interval between status checks.
+ * <p>
+ * The jobs of all the running entries are polled by a small shared pool of threads. A job is first polled after
+ * KETTLE_JOB_COMPLETION_INITIAL_POLL_INTERVAL milliseconds (default 250), the interval then doubles after each poll up
+ * to KETTLE_JOB_COMPLETION_MAX_POLL_INTERVAL milliseconds (default 10 seconds) or the interval given by the entry,
+ * whichever is lower. The stop conditions of the entries are checked every {@link #STOP_CHECK_INTERVAL} milliseconds
+ * by a thread of their own, so stopping the parent job takes effect at once even while slow status requests hold the
+ * polling threads. Backends able to notify completion call
+ * {@link Completion#complete()} directly.
+ */
+public class JobCompletionTracker {
+
+  public static final String INITIAL_POLL_INTERVAL_PROPERTY = "KETTLE_JOB_COMPLETION_INITIAL_POLL_INTERVAL";
+
+  public static final String MAX_POLL_INTERVAL_PROPERTY = "KETTLE_JOB_COMPLETION_MAX_POLL_INTERVAL";
+
+  public static final String POLL_THREADS_PROPERTY = "KETTLE_JOB_COMPLETION_POLL_THREADS";
+
+  public static final long DEFAULT_INITIAL_POLL_INTERVAL = 250L;
+
+  public static final long DEFAULT_MAX_POLL_INTERVAL = 10000L;
+
+  public static final int DEFAULT_POLL_THREADS = 2;
+
+  public static final long STOP_CHECK_INTERVAL = 100L;
+
+  /**
+   * A job running remotely
+   */
+  public interface RemoteJob {
+    /**
+     * @return true once the job has finished, successfully or not
+     */
+    boolean isComplete() throws Exception;
+  }
+
+  public interface StopCondition {
+    boolean isStopped();
+  }
+
+  public enum State {
+    RUNNING, COMPLETE, STOPPED, FAILED
+  }
+
+  private static JobCompletionTracker instance;
+
+  private final ScheduledExecutorService scheduler;
+  private final ScheduledExecutorService stopChecker;
+  private final long initialInterval;
+  private final long maxInterval;
+  private final Set<Completion> tracked = ConcurrentHashMap.newKeySet();
+
+  JobCompletionTracker( int threads, long initialInterval, long maxInterval ) {
+    this( Executors.newScheduledThreadPool( Math.max( 1, threads ), daemonThreads( "Job completion tracker" ) ),
+      Executors.newSingleThreadScheduledExecutor( daemonThreads( "Job completion stop checker" ) ), initialInterval,
+      maxInterval );
+  }
+
+  /**
+   * @param scheduler
+   *          polls the jobs
+   * @param stopChecker
+   *          checks the stop conditions, kept apart from the polls which block on remote calls
+   */
+  JobCompletionTracker( ScheduledExecutorService scheduler, ScheduledExecutorService stopChecker,
+                        long initialInterval, long maxInterval ) {
+    this.initialInterval = Math.max( 1L, initialInterval );
+    this.maxInterval = Math.max( this.initialInterval, maxInterval );
+    this.scheduler = scheduler;
+    this.stopChecker = stopChecker;
+    stopChecker.scheduleWithFixedDelay( this::checkStopConditions, STOP_CHECK_INTERVAL, STOP_CHECK_INTERVAL,
+      TimeUnit.MILLISECONDS );
+  }
+
+  private static ThreadFactory daemonThreads( String name ) {
+    final AtomicInteger count = new AtomicInteger();
+    return r -> {
+      Thread thread = new Thread( r, name + " " + count.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+
+  public static synchronized JobCompletionTracker getInstance() {
+    if ( instance == null ) {
+      instance = new JobCompletionTracker(
+        Const.toInt( System.getProperty( POLL_THREADS_PROPERTY ), DEFAULT_POLL_THREADS ),
+        Const.toLong( System.getProperty( INITIAL_POLL_INTERVAL_PROPERTY ), DEFAULT_INITIAL_POLL_INTERVAL ),
+        Const.toLong( System.getProperty( MAX_POLL_INTERVAL_PROPERTY ), DEFAULT_MAX_POLL_INTERVAL ) );
+    }
+    return instance;
+  }
+
+  /**
+   * Starts tracking a job
+   *
+   * @param job
+   *          the job to poll
+   * @param stopCondition
+   *          tells when the caller is no longer interested in the job, can be null
+   * @param maxInterval
+   *          the longest interval in milliseconds between two polls of the job, 0 or less for the tracker's default
+   * @return the completion of the job, to wait on
+   */
+  public Completion track( RemoteJob job, StopCondition stopCondition, long maxInterval ) {
+    long max = maxInterval > 0 ? Math.min( maxInterval, this.maxInterval ) : this.maxInterval;
+    Completion completion = new Completion( job, stopCondition, Math.max( 1L, max ) );
+    tracked.add( completion );
+    completion.schedule( Math.min( initialInterval, completion.maxInterval ) );
+    return completion;
+  }
+
+  /**
+   * @return the number of jobs currently tracked
+   */
+  int getTrackedCount() {
+    return tracked.size();
+  }
+
+  void shutdown() {
+    stopChecker.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  private void checkStopConditions() {
+    for ( Completion completion : tracked ) {
+      completion.checkStopped();
+    }
+  }
+
+  /**
+   * The completion of a tracked job
+   */
+  public class Completion {
+    private final RemoteJob job;
+    private final StopCondition stopCondition;
+    private final long maxInterval;
+    private final CountDownLatch done = new CountDownLatch( 1 );
+
+    private volatile State state = State.RUNNING;
+    private volatile Exception failure;
+    private ScheduledFuture<?> nextPoll;
+    private long interval;
+    private int polls;
+
+    private Completion( RemoteJob job, StopCondition stopCondition, long maxInterval ) {
+      this.job = job;
+      this.stopCondition = stopCondition;
+      this.maxInterval = maxInterval;
+    }
+
+    /**
+     * Waits until the job is complete, failed or stopped
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean await( long timeout, TimeUnit unit ) throws InterruptedException {
+      return done.await( timeout, unit );
+    }
+
+    public State await() throws InterruptedException {
+      done.await();
+      return state;
+    }
+
+    public boolean isDone() {
+      return state != State.RUNNING;
+    }
+
+    public State getState() {
+      return state;
+    }
+
+    /**
+     * @return the exception thrown while polling the job when the state is {@link State#FAILED}
+     */
+    public Exception getFailure() {
+      return failure;
+    }
+
+    /**
+     * @return the number of times the job was polled
+     */
+    public synchronized int getPolls() {
+      return polls;
+    }
+
+    /**
+     * Marks the job complete, for backends notifying completion
+     */
+    public void complete() {
+      finish( State.COMPLETE, null );
+    }
+
+    /**
+     * Stops tracking the job, does nothing if it is already done
+     */
+    public void cancel() {
+      finish( State.STOPPED, null );
+    }
+
+    private synchronized void schedule( long delay ) {
+      if ( state == State.RUNNING ) {
+        interval = delay;
+        nextPoll = scheduler.schedule( this::poll, delay, TimeUnit.MILLISECONDS );
+      }
+    }
+
+    private void poll() {
+      if ( isDone() || checkStopped() ) {
+        return;
+      }
+      try {
+        synchronized ( this ) {
+          polls++;
+        }
+        if ( job.isComplete() ) {
+          finish( State.COMPLETE, null );
+          return;
+        }
+      } catch ( Exception e ) {
+        finish( State.FAILED, e );
+        return;
+      }
+      schedule( Math.min( interval * 2, maxInterval ) );
+    }
+
+    private boolean checkStopped() {
+      if ( stopCondition != null && stopCondition.isStopped() ) {
+        finish( State.STOPPED, null );
+        return true;
+      }
+      return false;
+    }
+
+    private synchronized void finish( State newState, Exception e ) {
+      if ( state != State.RUNNING ) {
+        return;
+      }
+      failure = e;
+      state = newState;
+      if ( nextPoll != null ) {
+        nextPoll.cancel( false );
+      }
+      tracked.remove( this );
+      done.countDown();
+    }
+  }
+}
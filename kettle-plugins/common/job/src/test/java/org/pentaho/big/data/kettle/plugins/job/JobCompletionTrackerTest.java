@@ -0,0 +1,160 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.job;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JobCompletionTrackerTest {
+
+  private JobCompletionTracker tracker;
+
+  @Before
+  public void setup() {
+    tracker = new JobCompletionTracker( 2, 10L, 40L );
+  }
+
+  @After
+  public void tearDown() {
+    tracker.shutdown();
+  }
+
+  @Test
+  public void testCompletesSoonAfterTheJob() throws InterruptedException {
+    AtomicInteger polls = new AtomicInteger();
+    JobCompletionTracker.Completion completion = tracker.track( () -> polls.incrementAndGet() >= 3, null, 0L );
+
+    assertTrue( completion.await( 5, TimeUnit.SECONDS ) );
+    assertEquals( JobCompletionTracker.State.COMPLETE, completion.getState() );
+    assertEquals( 3, completion.getPolls() );
+    assertEquals( 0, tracker.getTrackedCount() );
+  }
+
+  @Test
+  public void testPollIntervalBacksOff() {
+    List<Runnable> polls = new ArrayList<>();
+    List<Long> delays = new ArrayList<>();
+    ScheduledExecutorService scheduler = mock( ScheduledExecutorService.class );
+    when( scheduler.schedule( any( Runnable.class ), anyLong(), eq( TimeUnit.MILLISECONDS ) ) ).thenAnswer(
+      invocation -> {
+        polls.add( (Runnable) invocation.getArguments()[ 0 ] );
+        delays.add( (Long) invocation.getArguments()[ 1 ] );
+        return mock( ScheduledFuture.class );
+      } );
+    JobCompletionTracker manual =
+      new JobCompletionTracker( scheduler, mock( ScheduledExecutorService.class ), 50L, 800L );
+
+    JobCompletionTracker.Completion completion = manual.track( () -> false, null, 0L );
+    for ( int i = 0; i < 6; i++ ) {
+      polls.get( i ).run();
+    }
+
+    assertEquals( Arrays.asList( 50L, 100L, 200L, 400L, 800L, 800L, 800L ), delays );
+    assertEquals( 6, completion.getPolls() );
+    assertFalse( completion.isDone() );
+  }
+
+  @Test
+  public void testEntryIntervalCapsBackOff() {
+    List<Long> delays = new ArrayList<>();
+    ScheduledExecutorService scheduler = mock( ScheduledExecutorService.class );
+    when( scheduler.schedule( any( Runnable.class ), anyLong(), eq( TimeUnit.MILLISECONDS ) ) ).thenAnswer(
+      invocation -> {
+        delays.add( (Long) invocation.getArguments()[ 1 ] );
+        ( (Runnable) invocation.getArguments()[ 0 ] ).run();
+        return mock( ScheduledFuture.class );
+      } );
+    JobCompletionTracker manual =
+      new JobCompletionTracker( scheduler, mock( ScheduledExecutorService.class ), 50L, 800L );
+
+    AtomicInteger polls = new AtomicInteger();
+    manual.track( () -> polls.incrementAndGet() >= 4, null, 120L );
+
+    assertEquals( Arrays.asList( 50L, 100L, 120L, 120L ), delays );
+  }
+
+  @Test
+  public void testStopCheckedWhilePollsBlock() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch( 1 );
+    try {
+      // both polling threads stuck on slow status requests
+      tracker.track( () -> release.await( 1, TimeUnit.MINUTES ), null, 0L );
+      tracker.track( () -> release.await( 1, TimeUnit.MINUTES ), null, 0L );
+      AtomicBoolean stopped = new AtomicBoolean();
+      JobCompletionTracker.Completion completion = tracker.track( () -> false, stopped::get, 0L );
+
+      stopped.set( true );
+      assertTrue( completion.await( 30, TimeUnit.SECONDS ) );
+      assertSame( JobCompletionTracker.State.STOPPED, completion.getState() );
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testStopConditionCancelsAtOnce() throws InterruptedException {
+    AtomicBoolean stopped = new AtomicBoolean();
+    JobCompletionTracker.Completion completion = tracker.track( () -> false, stopped::get, 60000L );
+    assertFalse( completion.await( 200, TimeUnit.MILLISECONDS ) );
+
+    long start = System.currentTimeMillis();
+    stopped.set( true );
+    assertSame( JobCompletionTracker.State.STOPPED, completion.await() );
+    assertTrue( System.currentTimeMillis() - start < 2000 );
+    assertEquals( 0, tracker.getTrackedCount() );
+  }
+
+  @Test
+  public void testPollFailure() throws InterruptedException {
+    IOException failure = new IOException( "unreachable" );
+    JobCompletionTracker.Completion completion = tracker.track( () -> {
+      throw failure;
+    }, null, 0L );
+
+    assertSame( JobCompletionTracker.State.FAILED, completion.await() );
+    assertSame( failure, completion.getFailure() );
+  }
+
+  @Test
+  public void testCompletionCallback() throws InterruptedException {
+    JobCompletionTracker.Completion completion = tracker.track( () -> false, null, 0L );
+    completion.complete();
+    completion.cancel();
+
+    assertTrue( completion.isDone() );
+    assertSame( JobCompletionTracker.State.COMPLETE, completion.await() );
+  }
+}
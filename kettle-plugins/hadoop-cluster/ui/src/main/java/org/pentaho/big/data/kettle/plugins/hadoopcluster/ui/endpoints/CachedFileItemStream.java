@@ -14,12 +14,16 @@
 package org.pentaho.big.data.kettle.plugins.hadoopcluster.ui.endpoints;
 
 import org.apache.commons.fileupload.FileItemStream;
-import org.apache.commons.io.IOUtils;
+import org.pentaho.di.core.Const;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collection;
 
 /**
  * Cached File Item Stream
@@ -28,10 +32,21 @@ import java.io.InputStream;
  * returning cached bytes. Additionally {@link FileItemStream} throws a
  * {@link org.apache.commons.fileupload.FileItemStream.ItemSkippedException}
  * when a previous stream is accessed after {@link FileItemIterator#next()} is called, which is not applicable here.
+ * <p>
+ * Small items are kept in memory, items larger than KETTLE_HADOOP_CLUSTER_UPLOAD_MEMORY_THRESHOLD bytes (default 256
+ * KB) are spilled to a temporary file, deleted by {@link #dispose()}. The cached content is read without copying it.
  */
 public class CachedFileItemStream {
 
-  private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  public static final String MEMORY_THRESHOLD_PROPERTY = "KETTLE_HADOOP_CLUSTER_UPLOAD_MEMORY_THRESHOLD";
+
+  public static final int DEFAULT_MEMORY_THRESHOLD = 256 * 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final SharedByteArrayOutputStream memory = new SharedByteArrayOutputStream();
+  private File file;
+  private long size;
   private String name;
   private String fieldName;
   private long lastModified; //optional file last modified date
@@ -49,17 +64,104 @@ public class CachedFileItemStream {
   }
 
   public CachedFileItemStream( InputStream inputStream, String name, String fieldName ) throws IOException {
-    IOUtils.copy( inputStream, this.outputStream );
+    this( inputStream, name, fieldName,
+      Const.toInt( System.getProperty( MEMORY_THRESHOLD_PROPERTY ), DEFAULT_MEMORY_THRESHOLD ) );
+  }
+
+  CachedFileItemStream( InputStream inputStream, String name, String fieldName, int memoryThreshold )
+    throws IOException {
     this.name = name;
     this.fieldName = fieldName;
+    cache( inputStream, memoryThreshold );
+  }
+
+  private void cache( InputStream inputStream, int memoryThreshold ) throws IOException {
+    byte[] buffer = new byte[ BUFFER_SIZE ];
+    OutputStream fileStream = null;
+    try {
+      int read;
+      while ( ( read = inputStream.read( buffer ) ) >= 0 ) {
+        if ( fileStream == null && memory.size() + read > memoryThreshold ) {
+          file = File.createTempFile( "hadoop-cluster-upload", ".tmp" );
+          file.deleteOnExit();
+          fileStream = Files.newOutputStream( file.toPath() );
+          memory.writeTo( fileStream );
+          memory.reset();
+          memory.release();
+        }
+        if ( fileStream != null ) {
+          fileStream.write( buffer, 0, read );
+        } else {
+          memory.write( buffer, 0, read );
+        }
+        size += read;
+      }
+    } catch ( IOException e ) {
+      if ( fileStream != null ) {
+        fileStream.close();
+        fileStream = null;
+      }
+      dispose();
+      throw e;
+    } finally {
+      if ( fileStream != null ) {
+        fileStream.close();
+      }
+    }
+  }
+
+  /**
+   * @return a new stream over the cached content: a view of the in-memory buffer or a stream of the spill file
+   */
+  public InputStream getCachedInputStream() throws IOException {
+    if ( file != null ) {
+      return Files.newInputStream( file.toPath() );
+    }
+    return memory.toInputStream();
+  }
+
+  /**
+   * Writes the cached content to a stream without copying it to an intermediate buffer
+   */
+  public void writeTo( OutputStream outputStream ) throws IOException {
+    if ( file != null ) {
+      Files.copy( file.toPath(), outputStream );
+    } else {
+      memory.writeTo( outputStream );
+    }
+  }
+
+  /**
+   * @return the file the content was spilled to, or null if the content is in memory
+   */
+  public File getCachedFile() {
+    return file;
   }
 
-  public ByteArrayOutputStream getCachedOutputStream() {
-    return this.outputStream;
+  public long getSize() {
+    return size;
   }
 
-  public ByteArrayInputStream getCachedInputStream() {
-    return new ByteArrayInputStream( this.outputStream.toByteArray() );
+  /**
+   * Deletes the spill file, if any. The content can't be read afterwards.
+   */
+  public void dispose() {
+    if ( file != null ) {
+      try {
+        Files.deleteIfExists( file.toPath() );
+      } catch ( IOException e ) {
+        // deleted on exit
+      }
+      file = null;
+    }
+    memory.release();
+    size = 0;
+  }
+
+  public static void dispose( Collection<CachedFileItemStream> fileItemStreams ) {
+    for ( CachedFileItemStream fileItemStream : fileItemStreams ) {
+      fileItemStream.dispose();
+    }
   }
 
   public String getName() {
@@ -77,4 +179,22 @@ public class CachedFileItemStream {
   public void setLastModified( long lastModified ) {
     this.lastModified = lastModified;
   }
+
+  /**
+   * {@link ByteArrayOutputStream} whose buffer is read in place instead of copied by {@link #toByteArray()}
+   */
+  private static class SharedByteArrayOutputStream extends ByteArrayOutputStream {
+    private SharedByteArrayOutputStream() {
+      super( 0 );
+    }
+
+    private synchronized InputStream toInputStream() {
+      return new ByteArrayInputStream( buf, 0, count );
+    }
+
+    private synchronized void release() {
+      buf = new byte[ 0 ];
+      count = 0;
+    }
+  }
 }
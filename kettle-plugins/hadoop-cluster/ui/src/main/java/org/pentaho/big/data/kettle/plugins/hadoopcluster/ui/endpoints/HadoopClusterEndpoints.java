@@ -220,9 +220,13 @@ public class HadoopClusterEndpoints {
   @Produces( { MediaType.APPLICATION_JSON } )
   public Response importNamedCluster( @Context HttpServletRequest request ) {
     Map<String, CachedFileItemStream> siteFilesSource = parseRequest( request, FileType.CONFIGURATION );
-    ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
-    JSONObject response = getClusterManager().importNamedCluster( model, siteFilesSource );
-    return Response.ok( response ).build();
+    try {
+      ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
+      JSONObject response = getClusterManager().importNamedCluster( model, siteFilesSource );
+      return Response.ok( response ).build();
+    } finally {
+      CachedFileItemStream.dispose( siteFilesSource.values() );
+    }
   }
 
   //http://localhost:9051/cxf/hadoop-cluster/createNamedCluster
@@ -232,9 +236,13 @@ public class HadoopClusterEndpoints {
   @Produces( { MediaType.APPLICATION_JSON } )
   public Response createNamedCluster( @Context HttpServletRequest request ) {
     Map<String, CachedFileItemStream> siteFilesSource = parseRequest( request, FileType.CONFIGURATION );
-    ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
-    JSONObject response = getClusterManager().createNamedCluster( model, siteFilesSource );
-    return Response.ok( response ).build();
+    try {
+      ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
+      JSONObject response = getClusterManager().createNamedCluster( model, siteFilesSource );
+      return Response.ok( response ).build();
+    } finally {
+      CachedFileItemStream.dispose( siteFilesSource.values() );
+    }
   }
 
   //http://localhost:9051/cxf/hadoop-cluster/editNamedCluster
@@ -244,9 +252,13 @@ public class HadoopClusterEndpoints {
   @Produces( { MediaType.APPLICATION_JSON } )
   public Response editNamedCluster( @Context HttpServletRequest request ) {
     Map<String, CachedFileItemStream> siteFilesSource = parseRequest( request, FileType.CONFIGURATION );
-    ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
-    JSONObject response = getClusterManager().editNamedCluster( model, true, siteFilesSource );
-    return Response.ok( response ).build();
+    try {
+      ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
+      JSONObject response = getClusterManager().editNamedCluster( model, true, siteFilesSource );
+      return Response.ok( response ).build();
+    } finally {
+      CachedFileItemStream.dispose( siteFilesSource.values() );
+    }
   }
 
   //http://localhost:9051/cxf/hadoop-cluster/duplicateNamedCluster
@@ -256,9 +268,13 @@ public class HadoopClusterEndpoints {
   @Produces( { MediaType.APPLICATION_JSON } )
   public Response duplicateNamedCluster( @Context HttpServletRequest request ) {
     Map<String, CachedFileItemStream> siteFilesSource = parseRequest( request, FileType.CONFIGURATION );
-    ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
-    JSONObject response = getClusterManager().editNamedCluster( model, false, siteFilesSource );
-    return Response.ok( response ).build();
+    try {
+      ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFilesSource );
+      JSONObject response = getClusterManager().editNamedCluster( model, false, siteFilesSource );
+      return Response.ok( response ).build();
+    } finally {
+      CachedFileItemStream.dispose( siteFilesSource.values() );
+    }
   }
 
   //http://localhost:9051/cxf/hadoop-cluster/getNamedCluster?namedCluster=
@@ -80,9 +80,7 @@ import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -626,7 +624,7 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
       if ( isValidConfigurationFile( name ) ) {
         if ( name.equals( KEYTAB_AUTH_FILE ) || name.equals( KEYTAB_IMPL_FILE ) || !name.endsWith( "-site.xml" ) ) {
           name = extractFileNameFromFullPath( siteFile.getValue().getName() );
-          addFileToConfigFolder( siteFile.getValue().getCachedOutputStream(), name, nc );
+          addFileToConfigFolder( siteFile.getValue(), name, nc );
         } else {
           addFileToNamedClusterSiteFiles( siteFile, name, nc );
         }
@@ -634,26 +632,26 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
     }
   }
 
-  private void addFileToConfigFolder( ByteArrayOutputStream outputStream, String fileName, NamedCluster nc )
+  private void addFileToConfigFolder( CachedFileItemStream fileItemStream, String fileName, NamedCluster nc )
     throws IOException {
     File destination = new File(
       getNamedClusterConfigsRootDir() + fileSeparator + nc.getName() + fileSeparator + fileName );
     destination.getParentFile().mkdirs();
     try ( OutputStream fos = new FileOutputStream( destination ) ) {
-      outputStream.writeTo( fos );
+      fileItemStream.writeTo( fos );
     }
   }
 
   private void addFileToNamedClusterSiteFiles( Map.Entry<String, CachedFileItemStream> cachedFileItemStreamMapEntry,
                                                String fileName, NamedCluster nc )
     throws IOException {
-    InputStream inputStream = cachedFileItemStreamMapEntry.getValue().getCachedInputStream();
-    InputStreamReader isReader = new InputStreamReader( inputStream );
-    BufferedReader reader = new BufferedReader( isReader );
     StringBuilder sb = new StringBuilder();
-    String str;
-    while ( ( str = reader.readLine() ) != null ) {
-      sb.append( str );
+    try ( BufferedReader reader = new BufferedReader(
+      new InputStreamReader( cachedFileItemStreamMapEntry.getValue().getCachedInputStream() ) ) ) {
+      String str;
+      while ( ( str = reader.readLine() ) != null ) {
+        sb.append( str );
+      }
     }
     //skip placeholder site file contents because the site file content is in the NamedCluster already
     if ( !sb.toString().equals( PLACEHOLDER_VALUE ) ) {
@@ -683,9 +681,9 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
 
   private Document parseSiteFileDocument( CachedFileItemStream file ) {
     Document document = null;
-    try {
-      document = XMLHandler.loadXMLFile( file.getCachedInputStream() );
-    } catch ( KettleXMLException e ) {
+    try ( InputStream inputStream = file.getCachedInputStream() ) {
+      document = XMLHandler.loadXMLFile( inputStream );
+    } catch ( KettleXMLException | IOException e ) {
       log.logMinimal( String.format( "Site file %s is not a well formed XML document", file.getName() ) );
     }
     return document;
@@ -1205,6 +1203,7 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
     context.setCredentialsProvider( credsProvider );
     context.setAuthCache( authCache );
     MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+    Map<String, CachedFileItemStream> siteFileSource = null;
     if ( driverFile != null ) {
       builder.addBinaryBody(
         driverFile.getName(),
@@ -1213,24 +1212,14 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
         driverFile.getName()
       );
     } else {
-      Map<String, CachedFileItemStream>  siteFileSource = NamedClusterHelper.processSiteFiles( thinNameClusterModel, this );
+      siteFileSource = NamedClusterHelper.processSiteFiles( thinNameClusterModel, this );
       for ( Map.Entry<String, CachedFileItemStream> siteFile : siteFileSource.entrySet() ) {
         String name = siteFile.getValue().getFieldName();
         if ( isValidConfigurationFile( name ) ) {
           if ( name.equals( KEYTAB_AUTH_FILE ) || name.equals( KEYTAB_IMPL_FILE ) || !name.endsWith( "-site.xml" ) ) {
-            builder.addBinaryBody(
-              name,
-              siteFile.getValue().getCachedInputStream(),
-              ContentType.APPLICATION_OCTET_STREAM,
-              siteFile.getValue().getName()
-            );
+            addBinaryBody( builder, name, siteFile.getValue() );
           } else {
-            builder.addBinaryBody(
-              siteFile.getValue().getName(),
-              siteFile.getValue().getCachedInputStream(),
-              ContentType.APPLICATION_OCTET_STREAM,
-              siteFile.getValue().getName()
-            );
+            addBinaryBody( builder, siteFile.getValue().getName(), siteFile.getValue() );
           }
         }
       }
@@ -1246,10 +1235,28 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
       try ( CloseableHttpResponse response = httpClient.execute( httpPost, context ) ) {
         result = response.getStatusLine().getStatusCode() == 200;
       }
+    } finally {
+      if ( siteFileSource != null ) {
+        CachedFileItemStream.dispose( siteFileSource.values() );
+      }
     }
     return result;
   }
 
+  /**
+   * Adds a cached file to a multipart request, sending spilled files straight from disk
+   */
+  private void addBinaryBody( MultipartEntityBuilder builder, String name, CachedFileItemStream fileItemStream )
+    throws IOException {
+    if ( fileItemStream.getCachedFile() != null ) {
+      builder.addBinaryBody( name, fileItemStream.getCachedFile(), ContentType.APPLICATION_OCTET_STREAM,
+        fileItemStream.getName() );
+    } else {
+      builder.addBinaryBody( name, fileItemStream.getCachedInputStream(), ContentType.APPLICATION_OCTET_STREAM,
+        fileItemStream.getName() );
+    }
+  }
+
   public boolean processDriverFile( String driverFile, HadoopClusterManager manager ) throws Exception {
     boolean result = false;
     if ( NamedClusterHelper.isConnectedToRepo() ) {
@@ -1259,11 +1266,9 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
       }
     } else {
       File file = new File( driverFile );
-      FileInputStream driverStream = new FileInputStream( file );
       if ( NamedClusterHelper.isValidUpload( file.getName(), NamedClusterHelper.FileType.DRIVER, manager ) ) {
         String destination = Const.getShimDriverDeploymentLocation();
-        FileUtils.copyInputStreamToFile( driverStream,
-          new File( destination + File.separator + file.getName() ) );
+        FileUtils.copyFile( file, new File( destination + File.separator + file.getName() ) );
         result = true;
       }
     }
@@ -1280,11 +1285,15 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
       }
     } else {
       Map<String, CachedFileItemStream> siteFiles = processSiteFiles( thinNameClusterModel, this );
-      if ( dialogState.equals( "new-edit" ) ) {
-        createNamedCluster( thinNameClusterModel, siteFiles );
-      }
-      if ( dialogState.equals( "import" ) ) {
-        importNamedCluster( thinNameClusterModel, siteFiles );
+      try {
+        if ( dialogState.equals( "new-edit" ) ) {
+          createNamedCluster( thinNameClusterModel, siteFiles );
+        }
+        if ( dialogState.equals( "import" ) ) {
+          importNamedCluster( thinNameClusterModel, siteFiles );
+        }
+      } finally {
+        CachedFileItemStream.dispose( siteFiles.values() );
       }
     }
   }
@@ -1298,7 +1307,11 @@ public class HadoopClusterManager implements RuntimeTestProgressCallback {
       }
     } else {
       Map<String, CachedFileItemStream> siteFiles = processSiteFiles( thinNameClusterModel, this );
-      editNamedCluster( thinNameClusterModel, isEditMode, siteFiles );
+      try {
+        editNamedCluster( thinNameClusterModel, isEditMode, siteFiles );
+      } finally {
+        CachedFileItemStream.dispose( siteFiles.values() );
+      }
     }
   }
 }
\ No newline at end of file
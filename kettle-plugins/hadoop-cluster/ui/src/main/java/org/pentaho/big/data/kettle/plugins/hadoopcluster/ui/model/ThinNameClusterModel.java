@@ -271,9 +271,16 @@ public class ThinNameClusterModel {
     try {
       final CachedFileItemStream fileItemStream = siteFilesSource.remove( "data" );
 
-      InputStreamReader inputStreamReader = new InputStreamReader( fileItemStream.getCachedInputStream() );
-      JSONParser parser = new JSONParser();
-      JSONObject json = (JSONObject) parser.parse( inputStreamReader );
+      JSONObject json;
+      try ( InputStreamReader inputStreamReader = new InputStreamReader( fileItemStream.getCachedInputStream() ) ) {
+        JSONParser parser = new JSONParser();
+        json = (JSONObject) parser.parse( inputStreamReader );
+      } finally {
+        // the item is no longer in the map the caller disposes
+        if ( fileItemStream != null ) {
+          fileItemStream.dispose();
+        }
+      }
       model.setName( (String) json.get( "name" ) );
       model.setShimVendor( (String) json.get( "shimVendor" ) );
       model.setShimVersion( (String) json.get( "shimVersion" ) );
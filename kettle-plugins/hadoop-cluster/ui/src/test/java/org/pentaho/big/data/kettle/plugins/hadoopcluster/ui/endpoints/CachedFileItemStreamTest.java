@@ -0,0 +1,96 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hadoopcluster.ui.endpoints;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachedFileItemStreamTest {
+
+  @Test
+  public void testSmallItemStaysInMemory() throws IOException {
+    byte[] content = content( 100 );
+    CachedFileItemStream item = new CachedFileItemStream( new ByteArrayInputStream( content ), "name", "field", 1024 );
+
+    assertNull( item.getCachedFile() );
+    assertEquals( 100, item.getSize() );
+    assertArrayEquals( content, read( item ) );
+    // every read gets its own stream over the same content
+    assertArrayEquals( content, read( item ) );
+    assertArrayEquals( content, written( item ) );
+    assertEquals( "name", item.getName() );
+    assertEquals( "field", item.getFieldName() );
+  }
+
+  @Test
+  public void testLargeItemSpillsToDisk() throws IOException {
+    byte[] content = content( 100000 );
+    CachedFileItemStream item = new CachedFileItemStream( new ByteArrayInputStream( content ), "name", "field", 1024 );
+
+    File file = item.getCachedFile();
+    assertNotNull( file );
+    assertTrue( file.exists() );
+    assertEquals( content.length, file.length() );
+    assertEquals( content.length, item.getSize() );
+    assertArrayEquals( content, read( item ) );
+    assertArrayEquals( content, written( item ) );
+
+    CachedFileItemStream.dispose( Collections.singletonList( item ) );
+    assertFalse( file.exists() );
+    assertNull( item.getCachedFile() );
+    assertEquals( 0, item.getSize() );
+  }
+
+  @Test
+  public void testItemOfThresholdSizeStaysInMemory() throws IOException {
+    byte[] content = content( 1024 );
+    CachedFileItemStream item = new CachedFileItemStream( new ByteArrayInputStream( content ), "name", "field", 1024 );
+
+    assertNull( item.getCachedFile() );
+    assertArrayEquals( content, read( item ) );
+  }
+
+  private static byte[] content( int size ) {
+    byte[] content = new byte[ size ];
+    new Random( size ).nextBytes( content );
+    return content;
+  }
+
+  private static byte[] read( CachedFileItemStream item ) throws IOException {
+    try ( InputStream inputStream = item.getCachedInputStream() ) {
+      return IOUtils.toByteArray( inputStream );
+    }
+  }
+
+  private static byte[] written( CachedFileItemStream item ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    item.writeTo( outputStream );
+    return outputStream.toByteArray();
+  }
+}
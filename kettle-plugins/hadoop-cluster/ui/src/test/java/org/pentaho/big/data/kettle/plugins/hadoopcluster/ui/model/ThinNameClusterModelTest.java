@@ -0,0 +1,58 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hadoopcluster.ui.model;
+
+import org.junit.Test;
+import org.pentaho.big.data.kettle.plugins.hadoopcluster.ui.endpoints.CachedFileItemStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+public class ThinNameClusterModelTest {
+
+  @Test
+  public void testUnmarshallDisposesTheData() throws IOException {
+    StringBuilder json = new StringBuilder( "{\"name\":\"cluster\",\"hdfsHost\":\"" );
+    for ( int i = 0; i < 100; i++ ) {
+      json.append( "host" );
+    }
+    json.append( "\"}" );
+    CachedFileItemStream data;
+    System.setProperty( CachedFileItemStream.MEMORY_THRESHOLD_PROPERTY, "16" );
+    try {
+      data = new CachedFileItemStream(
+        new ByteArrayInputStream( json.toString().getBytes( StandardCharsets.UTF_8 ) ), "data", "data" );
+    } finally {
+      System.clearProperty( CachedFileItemStream.MEMORY_THRESHOLD_PROPERTY );
+    }
+    File spillFile = data.getCachedFile();
+    assertNotNull( spillFile );
+    Map<String, CachedFileItemStream> siteFiles = new HashMap<>();
+    siteFiles.put( "data", data );
+
+    ThinNameClusterModel model = ThinNameClusterModel.unmarshall( siteFiles );
+
+    assertEquals( "cluster", model.getName() );
+    assertEquals( 0, model.getSiteFiles().size() );
+    assertFalse( spillFile.exists() );
+  }
+}
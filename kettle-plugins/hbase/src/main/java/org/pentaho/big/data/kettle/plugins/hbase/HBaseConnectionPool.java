@@ -0,0 +1,284 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.logging.LogChannel;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.hadoop.shim.api.hbase.HBaseConnection;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process wide, reference counted pool of HBase connections keyed by named cluster and configuration. Step copies and
+ * repeated executions of a transformation share one live connection instead of each paying the connection and
+ * ZooKeeper setup cost.
+ * <p>
+ * The connection handed out is a lease: closing it releases the reference rather than the underlying connection. A
+ * connection nobody holds is closed once it has been idle for KETTLE_HBASE_CONNECTION_IDLE_TIMEOUT milliseconds
+ * (default 5 minutes, 0 disables pooling), and is health checked before an idle connection is leased again.
+ * <p>
+ * A pooled connection outlives the step that created it, so it must be created with {@link #detach(VariableSpace)}
+ * variables and the {@link #newLogChannel()} log channel rather than with the step itself, and the key must hold the
+ * substituted settings of the connection. Leases are used concurrently: the shim connection only holds the cluster
+ * configuration and the HBase client connection, which is thread-safe, and each getTable() call returns a table with
+ * its own handle, so steps don't share table or scanner state.
+ */
+public class HBaseConnectionPool {
+
+  public static final String IDLE_TIMEOUT_PROPERTY = "KETTLE_HBASE_CONNECTION_IDLE_TIMEOUT";
+
+  public static final long DEFAULT_IDLE_TIMEOUT = 300000L;
+
+  private static final HBaseConnectionPool INSTANCE =
+    new HBaseConnectionPool( Const.toLong( System.getProperty( IDLE_TIMEOUT_PROPERTY ), DEFAULT_IDLE_TIMEOUT ) );
+
+  private final Map<String, PooledConnection> pool = new ConcurrentHashMap<>();
+
+  private final long idleTimeout;
+
+  private ScheduledExecutorService evictor;
+
+  HBaseConnectionPool( long idleTimeout ) {
+    this.idleTimeout = idleTimeout;
+  }
+
+  public static HBaseConnectionPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return a copy of the variables of a step, to create a connection that may outlive the step with
+   */
+  public static VariableSpace detach( VariableSpace space ) {
+    Variables variables = new Variables();
+    variables.copyVariablesFrom( space );
+    return variables;
+  }
+
+  /**
+   * @return the log channel to create a connection that may outlive the step with
+   */
+  public static LogChannelInterface newLogChannel() {
+    return new LogChannel( HBaseConnectionPool.class.getSimpleName() );
+  }
+
+  /**
+   * Creates a new (unpooled) connection
+   */
+  public interface ConnectionFactory {
+    HBaseConnection create() throws IOException;
+  }
+
+  /**
+   * Leases the pooled connection for a key, creating it with the factory if there is no live connection
+   *
+   * @param key
+   *          the key identifying the cluster and configuration of the connection
+   * @param factory
+   *          the factory to create the connection with
+   * @return a lease on the connection; closing it releases the lease
+   * @throws IOException
+   *           if the connection could not be created
+   */
+  public HBaseConnection acquire( String key, ConnectionFactory factory ) throws IOException {
+    if ( idleTimeout <= 0 ) {
+      return factory.create();
+    }
+    while ( true ) {
+      PooledConnection pooled = pool.computeIfAbsent( key, PooledConnection::new );
+      HBaseConnection lease = pooled.lease( factory );
+      if ( lease != null ) {
+        startEvictor();
+        return lease;
+      }
+      // the connection got evicted while we were looking it up
+      pool.remove( key, pooled );
+    }
+  }
+
+  /**
+   * @return the number of live pooled connections
+   */
+  public int size() {
+    return pool.size();
+  }
+
+  /**
+   * @param key
+   *          the key of a pooled connection
+   * @return the number of leases held on the connection, 0 if there is no such connection
+   */
+  public int getReferenceCount( String key ) {
+    PooledConnection pooled = pool.get( key );
+    return pooled == null ? 0 : pooled.refCount;
+  }
+
+  /**
+   * Closes the idle connections that have exceeded the idle timeout
+   */
+  public void evictIdle() {
+    long now = System.currentTimeMillis();
+    pool.values().forEach( pooled -> {
+      if ( pooled.evictIfIdle( now - idleTimeout ) ) {
+        pool.remove( pooled.key, pooled );
+      }
+    } );
+  }
+
+  /**
+   * Stops the evictor and closes the idle connections, when the plugin is unloaded. Connections still leased are closed
+   * by the evictor once released if the pool is used again.
+   */
+  public synchronized void shutdown() {
+    if ( evictor != null ) {
+      evictor.shutdownNow();
+      evictor = null;
+    }
+    pool.values().forEach( pooled -> {
+      if ( pooled.evictIfIdle( Long.MAX_VALUE ) ) {
+        pool.remove( pooled.key, pooled );
+      }
+    } );
+  }
+
+  synchronized boolean isEvictorRunning() {
+    return evictor != null;
+  }
+
+  private synchronized void startEvictor() {
+    if ( evictor == null ) {
+      evictor = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread thread = new Thread( r, "HBaseConnectionPool-evictor" );
+        thread.setDaemon( true );
+        return thread;
+      } );
+      long period = Math.max( 1000L, idleTimeout / 2 );
+      evictor.scheduleWithFixedDelay( this::evictIdle, period, period, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  private static class PooledConnection {
+    private final String key;
+    private HBaseConnection connection;
+    private int refCount;
+    private long lastReleased;
+    private boolean retired;
+
+    private PooledConnection( String key ) {
+      this.key = key;
+    }
+
+    private synchronized HBaseConnection lease( ConnectionFactory factory ) throws IOException {
+      if ( retired ) {
+        return null;
+      }
+      if ( connection != null && refCount == 0 && !isHealthy() ) {
+        closeQuietly();
+      }
+      if ( connection == null ) {
+        connection = factory.create();
+      }
+      refCount++;
+      return (HBaseConnection) Proxy.newProxyInstance( HBaseConnection.class.getClassLoader(),
+        new Class<?>[] { HBaseConnection.class }, new Lease( this, connection ) );
+    }
+
+    private synchronized void release() {
+      refCount--;
+      if ( refCount == 0 ) {
+        lastReleased = System.currentTimeMillis();
+      }
+    }
+
+    private synchronized boolean evictIfIdle( long idleSince ) {
+      if ( refCount == 0 && lastReleased <= idleSince ) {
+        retired = true;
+        closeQuietly();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean isHealthy() {
+      try {
+        connection.checkHBaseAvailable();
+        return true;
+      } catch ( Exception e ) {
+        return false;
+      }
+    }
+
+    private void closeQuietly() {
+      try {
+        connection.close();
+      } catch ( Exception e ) {
+        // Ignore
+      }
+      connection = null;
+    }
+  }
+
+  /**
+   * Delegates everything but close() to the pooled connection
+   */
+  private static class Lease implements InvocationHandler {
+    private final PooledConnection pooled;
+    private final HBaseConnection connection;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Lease( PooledConnection pooled, HBaseConnection connection ) {
+      this.pooled = pooled;
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+      if ( "close".equals( method.getName() ) && method.getParameterCount() == 0 ) {
+        // steps close on both end of stream and stop, so releasing must be idempotent
+        if ( released.compareAndSet( false, true ) ) {
+          pooled.release();
+        }
+        return null;
+      }
+      if ( method.getDeclaringClass() == Object.class ) {
+        switch ( method.getName() ) {
+          case "equals":
+            return proxy == args[ 0 ];
+          case "hashCode":
+            return System.identityHashCode( proxy );
+          default:
+            return "Pooled" + connection;
+        }
+      }
+      try {
+        return method.invoke( connection, args );
+      } catch ( InvocationTargetException e ) {
+        throw e.getCause();
+      }
+    }
+  }
+}
@@ -19,8 +19,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.big.data.kettle.plugins.hbase.HBaseConnectionPool;
 import org.pentaho.big.data.kettle.plugins.hbase.mapping.HBaseRowToKettleTuple;
 import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingAdmin;
+import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingCache;
 import org.pentaho.hadoop.shim.api.hbase.ByteConversionUtil;
 import org.pentaho.hadoop.shim.api.hbase.HBaseConnection;
 import org.pentaho.hadoop.shim.api.hbase.HBaseService;
@@ -36,6 +38,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.StringUtil;
+import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -74,6 +77,9 @@ public class HBaseInput extends BaseStep implements StepInterface {
   /** Byte utilities */
   protected ByteConversionUtil m_bytesUtil;
 
+  /** Key of the connection in the connection pool and mapping cache */
+  protected String m_connectionKey;
+
   /** The mapping admin object for interacting with mapping information */
   protected MappingAdmin m_mappingAdmin;
 
@@ -91,6 +97,13 @@ public class HBaseInput extends BaseStep implements StepInterface {
    */
   protected HBaseRowToKettleTuple m_tupleHandler;
 
+  /** The key ranges to scan, one after the other */
+  protected List<ScanRange> m_scanRanges;
+  protected int m_scanRangeIndex;
+
+  /** Conversion mask for user specified key values */
+  protected String m_keyConversionMask;
+
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
 
@@ -103,8 +116,14 @@ public class HBaseInput extends BaseStep implements StepInterface {
       try {
         List<String> connectionMessages = new ArrayList<String>();
         hBaseService = namedClusterServiceLocator.getService( m_meta.getNamedCluster(), HBaseService.class );
-        m_hbAdmin = hBaseService.getHBaseConnection( this, environmentSubstitute( m_meta.getCoreConfigURL() ),
-          environmentSubstitute( m_meta.getDefaultConfigURL() ), log );
+        m_connectionKey = MappingCache.connectionKey( m_meta.getNamedCluster(), this, m_meta.getCoreConfigURL(),
+          m_meta.getDefaultConfigURL() );
+        VariableSpace connectionSpace = HBaseConnectionPool.detach( this );
+        m_hbAdmin = HBaseConnectionPool.getInstance().acquire( m_connectionKey,
+          () -> hBaseService.getHBaseConnection( connectionSpace,
+            connectionSpace.environmentSubstitute( m_meta.getCoreConfigURL() ),
+            connectionSpace.environmentSubstitute( m_meta.getDefaultConfigURL() ),
+            HBaseConnectionPool.newLogChannel() ) );
         m_bytesUtil = hBaseService.getByteConversionUtil();
         hBaseValueMetaInterfaceFactory = hBaseService.getHBaseValueMetaInterfaceFactory();
 
@@ -118,7 +137,7 @@ public class HBaseInput extends BaseStep implements StepInterface {
             "HBaseInput.Error.UnableToObtainConnection" ), ex );
       }
       try {
-        m_mappingAdmin = new MappingAdmin( m_hbAdmin );
+        m_mappingAdmin = new MappingAdmin( m_hbAdmin, m_connectionKey );
       } catch ( Exception ex ) {
         throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
             "HBaseInput.Error.UnableToCreateAMappingAdminConnection" ), ex );
@@ -213,28 +232,22 @@ public class HBaseInput extends BaseStep implements StepInterface {
             "HBaseInput.Error.UnableToSetSourceTableForScan" ), ex );
       }
 
-      ResultScannerBuilder scannerBuilder = m_hbAdminTable
-        .createScannerBuilder( m_tableMapping, dateOrNumberConversionMaskForKey, m_meta.getKeyStartValue(),
-          m_meta.getKeyStopValue(), m_meta.getScannerCacheSize(), log, this );
-
-      // LIMIT THE SCAN TO JUST THE COLUMNS IN THE MAPPING
-      // User-selected output columns?
-      if ( m_userOutputColumns != null && m_userOutputColumns.size() > 0 && !m_tableMapping.isTupleMapping() ) {
-        HBaseInputData.setScanColumns( scannerBuilder, m_userOutputColumns, m_tableMapping );
+      m_keyConversionMask = dateOrNumberConversionMaskForKey;
+      String keyPrefix = environmentSubstitute( m_meta.getKeyPrefix() );
+      if ( !Const.isEmpty( keyPrefix ) && m_tableMapping.getKeyType() != Mapping.KeyType.STRING ) {
+        throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
+            "HBaseInput.Error.KeyPrefixRequiresStringKey", m_tableMapping.getKeyType() ) );
       }
-
-      // set any filters
-      if ( m_meta.getColumnFilters() != null && m_meta.getColumnFilters().size() > 0 ) {
-        HBaseInputData.setScanFilters( scannerBuilder, m_meta.getColumnFilters(), m_meta.getMatchAnyFilter(),
-          m_columnsMappedByAlias, this );
+      m_scanRanges = HBaseInputData.getScanRanges( m_meta.getKeyStartValue(), m_meta.getKeyStopValue(), keyPrefix,
+        environmentSubstitute( m_meta.getKeyRanges() ), readIncomingKeyRanges() );
+      if ( m_tableMapping.getKeyType() == Mapping.KeyType.STRING ) {
+        m_scanRanges = ScanRange.mergeStringRanges( m_scanRanges );
       }
+      m_scanRangeIndex = 0;
 
       if ( !isStopped() ) {
-        try {
-          resultScanner = scannerBuilder.build();
-        } catch ( Exception e ) {
-          throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
-              "HBaseInput.Error.UnableToExecuteSourceTableScan" ), e );
+        if ( !m_scanRanges.isEmpty() ) {
+          resultScanner = openScanner( m_scanRanges.get( m_scanRangeIndex ) );
         }
 
         // set up the output fields (using the mapping)
@@ -244,15 +257,26 @@ public class HBaseInput extends BaseStep implements StepInterface {
     }
 
     Result next = null;
-    if ( !isStopped() ) {
+    while ( !isStopped() ) {
+      if ( resultScanner == null ) {
+        // no ranges to scan
+        break;
+      }
       try {
         next = resultScanner.next();
       } catch ( Exception e ) {
         throw new KettleException( e.getMessage(), e );
       }
+      if ( next != null || m_scanRangeIndex + 1 >= m_scanRanges.size() ) {
+        break;
+      }
+      // current range exhausted, move on to the next one
+      closeScanner();
+      resultScanner = openScanner( m_scanRanges.get( ++m_scanRangeIndex ) );
     }
 
     if ( next == null ) {
+      closeScanner();
       try {
         m_hbAdminTable.close();
         m_hbAdmin.close();
@@ -282,6 +306,89 @@ public class HBaseInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Reads all incoming rows and collects the keys/key ranges held in the configured incoming field
+   *
+   * @return the values of the field, or null if no field is configured
+   * @throws KettleException
+   *           if the field does not exist in the incoming stream
+   */
+  protected List<String> readIncomingKeyRanges() throws KettleException {
+    String fieldName = environmentSubstitute( m_meta.getKeyRangesField() );
+    if ( Const.isEmpty( fieldName ) ) {
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    int fieldIndex = -1;
+    Object[] row;
+    while ( ( row = getRow() ) != null ) {
+      if ( fieldIndex < 0 ) {
+        fieldIndex = getInputRowMeta().indexOfValue( fieldName );
+        if ( fieldIndex < 0 ) {
+          throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
+              "HBaseInput.Error.UnableToFindKeyRangesField", fieldName ) );
+        }
+      }
+      String value = getInputRowMeta().getString( row, fieldIndex );
+      if ( !Const.isEmpty( value ) ) {
+        values.add( value );
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Builds and opens the scanner for a key range, limited to the mapped/selected columns and with the column filters
+   * applied server-side
+   */
+  protected ResultScanner openScanner( ScanRange range ) throws KettleException {
+    ResultScannerBuilder scannerBuilder;
+    if ( range.isSingleKey() ) {
+      byte[] key =
+        HBaseInputData.encodeKey( m_bytesUtil, range.getStart(), m_keyConversionMask, m_tableMapping.getKeyType() );
+      try {
+        scannerBuilder = HBaseInputData.createKeyScannerBuilder( m_hbAdminTable, key );
+      } catch ( Exception e ) {
+        throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
+            "HBaseInput.Error.UnableToExecuteSourceTableScan" ), e );
+      }
+    } else {
+      scannerBuilder = m_hbAdminTable
+        .createScannerBuilder( m_tableMapping, m_keyConversionMask, range.getStart(), range.getStop(),
+          m_meta.getScannerCacheSize(), log, this );
+    }
+
+    // LIMIT THE SCAN TO JUST THE COLUMNS IN THE MAPPING
+    // User-selected output columns?
+    if ( m_userOutputColumns != null && m_userOutputColumns.size() > 0 && !m_tableMapping.isTupleMapping() ) {
+      HBaseInputData.setScanColumns( scannerBuilder, m_userOutputColumns, m_tableMapping );
+    }
+
+    // set any filters
+    if ( m_meta.getColumnFilters() != null && m_meta.getColumnFilters().size() > 0 ) {
+      HBaseInputData.setScanFilters( scannerBuilder, m_meta.getColumnFilters(), m_meta.getMatchAnyFilter(),
+        m_columnsMappedByAlias, this );
+    }
+
+    try {
+      return scannerBuilder.build();
+    } catch ( Exception e ) {
+      throw new KettleException( BaseMessages.getString( HBaseInputMeta.PKG,
+          "HBaseInput.Error.UnableToExecuteSourceTableScan" ), e );
+    }
+  }
+
+  private void closeScanner() {
+    if ( resultScanner == null ) {
+      return;
+    }
+    try {
+      resultScanner.close();
+    } catch ( Exception e ) {
+      logDebug( e.getMessage() );
+    }
+  }
+
   @Override
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     if ( super.init( smi, sdi ) ) {
@@ -14,16 +14,20 @@
 package org.pentaho.big.data.kettle.plugins.hbase.input;
 
 import org.pentaho.big.data.kettle.plugins.hbase.mapping.HBaseRowToKettleTuple;
+import org.pentaho.hadoop.shim.api.hbase.ByteConversionUtil;
 import org.pentaho.hadoop.shim.api.hbase.HBaseService;
 import org.pentaho.hadoop.shim.api.hbase.mapping.ColumnFilter;
 import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
 import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
 import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
 import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -31,7 +35,10 @@ import org.pentaho.di.trans.step.StepDataInterface;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -175,6 +182,86 @@ public class HBaseInputData extends BaseStepData implements StepDataInterface {
     }
   }
 
+  /**
+   * Work out the key ranges to scan. A key prefix, a list of keys/ranges and keys/ranges read from an incoming field
+   * are all scanned (in that order); when none of them is configured the start/stop range is scanned as before. An
+   * incoming field that holds no keys gives no ranges, rather than a scan of the start/stop range.
+   *
+   * @param keyStart
+   *          the start key value (may be null)
+   * @param keyStop
+   *          the stop key value (may be null)
+   * @param keyPrefix
+   *          the key prefix (may be null)
+   * @param keyRanges
+   *          keys and key ranges separated by ';' or new lines (may be null)
+   * @param incomingRanges
+   *          keys and key ranges read from an incoming field (null if no field is configured)
+   * @return the ranges to scan
+   */
+  public static List<ScanRange> getScanRanges( String keyStart, String keyStop, String keyPrefix, String keyRanges,
+                                               Collection<String> incomingRanges ) {
+    Set<ScanRange> ranges = new LinkedHashSet<>();
+    ScanRange prefixRange = ScanRange.forPrefix( keyPrefix );
+    if ( prefixRange != null ) {
+      ranges.add( prefixRange );
+    }
+    ranges.addAll( ScanRange.parseList( keyRanges ) );
+    if ( incomingRanges != null ) {
+      for ( String entry : incomingRanges ) {
+        ScanRange range = ScanRange.parse( entry );
+        if ( range != null ) {
+          ranges.add( range );
+        }
+      }
+    }
+    if ( prefixRange == null && Const.isEmpty( Const.trim( keyRanges ) ) && incomingRanges == null ) {
+      ranges.add( new ScanRange( keyStart, keyStop ) );
+    }
+    return new ArrayList<>( ranges );
+  }
+
+  /**
+   * Encodes a key given as a string, the way keys held in string fields are encoded by the HBase Output step
+   *
+   * @param bytesUtil
+   *          the byte utilities
+   * @param key
+   *          the key value
+   * @param conversionMask
+   *          the conversion mask of number and date keys (may be null)
+   * @param keyType
+   *          the key type of the mapping
+   * @return the encoded key
+   * @throws KettleException
+   *           if the value can't be converted to the key type
+   */
+  public static byte[] encodeKey( ByteConversionUtil bytesUtil, String key, String conversionMask,
+                                  Mapping.KeyType keyType ) throws KettleException {
+    ValueMetaInterface keyMeta = new ValueMetaString( "key" );
+    keyMeta.setConversionMask( conversionMask );
+    return bytesUtil.encodeKeyValue( key, keyMeta, keyType );
+  }
+
+  /**
+   * Creates the builder of a scan reading a single row
+   *
+   * @param table
+   *          the table to read from
+   * @param key
+   *          the encoded key of the row
+   * @return the scanner builder
+   * @throws Exception
+   *           if a problem occurs creating the builder
+   */
+  public static ResultScannerBuilder createKeyScannerBuilder( HBaseTable table, byte[] key ) throws Exception {
+    // the stop row is exclusive, so the scan stops at the smallest key after the row's
+    byte[] stop = Arrays.copyOf( key, key.length + 1 );
+    ResultScannerBuilder scannerBuilder = table.createScannerBuilder( key, stop );
+    scannerBuilder.setCaching( 1 );
+    return scannerBuilder;
+  }
+
   /**
    * Convert/decode the current hbase row into a list of "tuple" kettle rows
    * 
@@ -131,6 +131,9 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
 
   // Key start line
   private TextVar m_keyStartText;
+  private TextVar m_keyPrefixText;
+  private TextVar m_keyRangesText;
+  private TextVar m_keyRangesFieldText;
 
   // Key stop line
   private TextVar m_keyStopText;
@@ -540,6 +543,69 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
     fd.top = new FormAttachment( m_keyStartText, margin );
     m_keyStopText.setLayoutData( fd );
 
+    // KeyPrefix
+    Label keyPrefixLab = new Label( wConfigComp, SWT.RIGHT );
+    keyPrefixLab.setText( Messages.getString( "HBaseInputDialog.KeyPrefix.Label" ) );
+    keyPrefixLab.setToolTipText( Messages.getString( "HBaseInputDialog.KeyPrefix.TipText" ) );
+    props.setLook( keyPrefixLab );
+    fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.top = new FormAttachment( m_keyStopText, margin );
+    fd.right = new FormAttachment( middle, -margin );
+    keyPrefixLab.setLayoutData( fd );
+
+    m_keyPrefixText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    m_keyPrefixText.setToolTipText( Messages.getString( "HBaseInputDialog.KeyPrefix.TipText" ) );
+    m_keyPrefixText.addModifyListener( lsMod );
+    props.setLook( m_keyPrefixText );
+    fd = new FormData();
+    fd.right = new FormAttachment( 100, 0 );
+    fd.left = new FormAttachment( middle, 0 );
+    fd.top = new FormAttachment( m_keyStopText, margin );
+    m_keyPrefixText.setLayoutData( fd );
+
+    // KeyRanges
+    Label keyRangesLab = new Label( wConfigComp, SWT.RIGHT );
+    keyRangesLab.setText( Messages.getString( "HBaseInputDialog.KeyRanges.Label" ) );
+    keyRangesLab.setToolTipText( Messages.getString( "HBaseInputDialog.KeyRanges.TipText" ) );
+    props.setLook( keyRangesLab );
+    fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.top = new FormAttachment( m_keyPrefixText, margin );
+    fd.right = new FormAttachment( middle, -margin );
+    keyRangesLab.setLayoutData( fd );
+
+    m_keyRangesText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    m_keyRangesText.setToolTipText( Messages.getString( "HBaseInputDialog.KeyRanges.TipText" ) );
+    m_keyRangesText.addModifyListener( lsMod );
+    props.setLook( m_keyRangesText );
+    fd = new FormData();
+    fd.right = new FormAttachment( 100, 0 );
+    fd.left = new FormAttachment( middle, 0 );
+    fd.top = new FormAttachment( m_keyPrefixText, margin );
+    m_keyRangesText.setLayoutData( fd );
+
+    // KeyRangesField
+    Label keyRangesFieldLab = new Label( wConfigComp, SWT.RIGHT );
+    keyRangesFieldLab.setText( Messages.getString( "HBaseInputDialog.KeyRangesField.Label" ) );
+    keyRangesFieldLab.setToolTipText( Messages.getString( "HBaseInputDialog.KeyRangesField.TipText" ) );
+    props.setLook( keyRangesFieldLab );
+    fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.top = new FormAttachment( m_keyRangesText, margin );
+    fd.right = new FormAttachment( middle, -margin );
+    keyRangesFieldLab.setLayoutData( fd );
+
+    m_keyRangesFieldText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    m_keyRangesFieldText.setToolTipText( Messages.getString( "HBaseInputDialog.KeyRangesField.TipText" ) );
+    m_keyRangesFieldText.addModifyListener( lsMod );
+    props.setLook( m_keyRangesFieldText );
+    fd = new FormData();
+    fd.right = new FormAttachment( 100, 0 );
+    fd.left = new FormAttachment( middle, 0 );
+    fd.top = new FormAttachment( m_keyRangesText, margin );
+    m_keyRangesFieldText.setLayoutData( fd );
+
     // Scanner caching
     Label scannerCacheLab = new Label( wConfigComp, SWT.RIGHT );
     scannerCacheLab.setText( Messages.getString( "HBaseInputDialog.ScannerCache.Label" ) );
@@ -547,7 +613,7 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
     props.setLook( scannerCacheLab );
     fd = new FormData();
     fd.left = new FormAttachment( 0, 0 );
-    fd.top = new FormAttachment( m_keyStopText, margin );
+    fd.top = new FormAttachment( m_keyRangesFieldText, margin );
     fd.right = new FormAttachment( middle, -margin );
     scannerCacheLab.setLayoutData( fd );
 
@@ -557,7 +623,7 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
     fd = new FormData();
     fd.right = new FormAttachment( 100, 0 );
     fd.left = new FormAttachment( middle, 0 );
-    fd.top = new FormAttachment( m_keyStopText, margin );
+    fd.top = new FormAttachment( m_keyRangesFieldText, margin );
     m_scanCacheText.setLayoutData( fd );
 
     m_getKeyInfoBut = new Button( wConfigComp, SWT.PUSH );
@@ -1008,6 +1074,9 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
 
     m_currentMeta.setKeyStartValue( m_keyStartText.getText() );
     m_currentMeta.setKeyStopValue( m_keyStopText.getText() );
+    m_currentMeta.setKeyPrefix( m_keyPrefixText.getText() );
+    m_currentMeta.setKeyRanges( m_keyRangesText.getText() );
+    m_currentMeta.setKeyRangesField( m_keyRangesFieldText.getText() );
     m_currentMeta.setScannerCacheSize( m_scanCacheText.getText() );
     m_currentMeta.setMatchAnyFilter( m_matchAnyBut.getSelection() );
 
@@ -1178,6 +1247,18 @@ public class HBaseInputDialog extends BaseStepDialog implements StepDialogInterf
       m_keyStopText.setText( m_currentMeta.getKeyStopValue() );
     }
 
+    if ( !Const.isEmpty( m_currentMeta.getKeyPrefix() ) ) {
+      m_keyPrefixText.setText( m_currentMeta.getKeyPrefix() );
+    }
+
+    if ( !Const.isEmpty( m_currentMeta.getKeyRanges() ) ) {
+      m_keyRangesText.setText( m_currentMeta.getKeyRanges() );
+    }
+
+    if ( !Const.isEmpty( m_currentMeta.getKeyRangesField() ) ) {
+      m_keyRangesFieldText.setText( m_currentMeta.getKeyRangesField() );
+    }
+
     if ( !Const.isEmpty( m_currentMeta.getScannerCacheSize() ) ) {
       m_scanCacheText.setText( m_currentMeta.getScannerCacheSize() );
     }
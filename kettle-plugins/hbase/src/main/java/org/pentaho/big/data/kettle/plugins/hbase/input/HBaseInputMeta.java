@@ -136,6 +136,24 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
   @Injection( name = "STOP_KEY_VALUE" )
   protected String m_keyStop;
 
+  /**
+   * Key prefix for prefix scans (string keys only)
+   */
+  @Injection( name = "KEY_PREFIX" )
+  protected String m_keyPrefix;
+
+  /**
+   * Keys and key ranges to scan, separated by ';' or new lines (see {@link ScanRange})
+   */
+  @Injection( name = "KEY_RANGES" )
+  protected String m_keyRanges;
+
+  /**
+   * Incoming field holding keys or key ranges to scan
+   */
+  @Injection( name = "KEY_RANGES_FIELD" )
+  protected String m_keyRangesField;
+
   /**
    * Scanner caching
    */
@@ -357,6 +375,61 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     return m_keyStop;
   }
 
+  /**
+   * Set the prefix that the keys to scan must start with. Only supported for string keys
+   *
+   * @param prefix the key prefix
+   */
+  public void setKeyPrefix( String prefix ) {
+    m_keyPrefix = prefix;
+  }
+
+  /**
+   * Get the prefix that the keys to scan must start with
+   *
+   * @return the key prefix
+   */
+  public String getKeyPrefix() {
+    return m_keyPrefix;
+  }
+
+  /**
+   * Set the keys and key ranges to scan. Entries are separated by ';' or new lines and are either a single key or a
+   * "start..stop" range (start inclusive, stop exclusive)
+   *
+   * @param ranges the keys and key ranges to scan
+   */
+  public void setKeyRanges( String ranges ) {
+    m_keyRanges = ranges;
+  }
+
+  /**
+   * Get the keys and key ranges to scan
+   *
+   * @return the keys and key ranges to scan
+   */
+  public String getKeyRanges() {
+    return m_keyRanges;
+  }
+
+  /**
+   * Set the incoming field whose values are keys or key ranges to scan
+   *
+   * @param field the name of the incoming field
+   */
+  public void setKeyRangesField( String field ) {
+    m_keyRangesField = field;
+  }
+
+  /**
+   * Get the incoming field whose values are keys or key ranges to scan
+   *
+   * @return the name of the incoming field
+   */
+  public String getKeyRangesField() {
+    return m_keyRangesField;
+  }
+
   /**
    * Set the number of rows to cache for scans. Higher values result in improved performance since there will be fewer
    * requests to HBase but at the expense of increased memory consumption.
@@ -422,6 +495,9 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     m_sourceMappingName = null;
     m_keyStart = null;
     m_keyStop = null;
+    m_keyPrefix = null;
+    m_keyRanges = null;
+    m_keyRangesField = null;
     namedCluster = namedClusterService.getClusterTemplate();
   }
 
@@ -596,6 +672,15 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     if ( !Const.isEmpty( m_keyStop ) ) {
       retval.append( "\n    " ).append( XMLHandler.addTagValue( "key_stop", m_keyStop ) );
     }
+    if ( !Const.isEmpty( m_keyPrefix ) ) {
+      retval.append( "\n    " ).append( XMLHandler.addTagValue( "key_prefix", m_keyPrefix ) );
+    }
+    if ( !Const.isEmpty( m_keyRanges ) ) {
+      retval.append( "\n    " ).append( XMLHandler.addTagValue( "key_ranges", m_keyRanges ) );
+    }
+    if ( !Const.isEmpty( m_keyRangesField ) ) {
+      retval.append( "\n    " ).append( XMLHandler.addTagValue( "key_ranges_field", m_keyRangesField ) );
+    }
     if ( !Const.isEmpty( m_scannerCacheSize ) ) {
       retval.append( "\n    " ).append( XMLHandler.addTagValue( "scanner_cache_size", m_scannerCacheSize ) );
     }
@@ -653,6 +738,9 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     m_sourceMappingName = XMLHandler.getTagValue( stepnode, "source_mapping_name" );
     m_keyStart = XMLHandler.getTagValue( stepnode, "key_start" );
     m_keyStop = XMLHandler.getTagValue( stepnode, "key_stop" );
+    m_keyPrefix = XMLHandler.getTagValue( stepnode, "key_prefix" );
+    m_keyRanges = XMLHandler.getTagValue( stepnode, "key_ranges" );
+    m_keyRangesField = XMLHandler.getTagValue( stepnode, "key_ranges_field" );
     m_scannerCacheSize = XMLHandler.getTagValue( stepnode, "scanner_cache_size" );
     String m = XMLHandler.getTagValue( stepnode, "match_any_filter" );
     if ( !Const.isEmpty( m ) ) {
@@ -755,6 +843,15 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     if ( !Const.isEmpty( m_keyStop ) ) {
       rep.saveStepAttribute( id_transformation, id_step, 0, "key_stop", m_keyStop );
     }
+    if ( !Const.isEmpty( m_keyPrefix ) ) {
+      rep.saveStepAttribute( id_transformation, id_step, 0, "key_prefix", m_keyPrefix );
+    }
+    if ( !Const.isEmpty( m_keyRanges ) ) {
+      rep.saveStepAttribute( id_transformation, id_step, 0, "key_ranges", m_keyRanges );
+    }
+    if ( !Const.isEmpty( m_keyRangesField ) ) {
+      rep.saveStepAttribute( id_transformation, id_step, 0, "key_ranges_field", m_keyRangesField );
+    }
     if ( !Const.isEmpty( m_scannerCacheSize ) ) {
       rep.saveStepAttribute( id_transformation, id_step, 0, "scanner_cache_size", m_scannerCacheSize );
     }
@@ -803,6 +900,9 @@ public class HBaseInputMeta extends BaseStepMeta implements StepMetaInterface {
     m_sourceMappingName = rep.getStepAttributeString( id_step, 0, "source_mapping_name" );
     m_keyStart = rep.getStepAttributeString( id_step, 0, "key_start" );
     m_keyStop = rep.getStepAttributeString( id_step, 0, "key_stop" );
+    m_keyPrefix = rep.getStepAttributeString( id_step, 0, "key_prefix" );
+    m_keyRanges = rep.getStepAttributeString( id_step, 0, "key_ranges" );
+    m_keyRangesField = rep.getStepAttributeString( id_step, 0, "key_ranges_field" );
     m_matchAnyFilter = rep.getStepAttributeBoolean( id_step, 0, "match_any_filter" );
     m_scannerCacheSize = rep.getStepAttributeString( id_step, 0, "scanner_cache_size" );
 
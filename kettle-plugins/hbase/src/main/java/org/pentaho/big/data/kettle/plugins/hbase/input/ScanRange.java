@@ -0,0 +1,215 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.input;
+
+import org.pentaho.di.core.Const;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A key range to scan, expressed with the same (unencoded) start and stop values as the start/stop key of the HBase
+ * Input step, so that the key encoding and conversion masks are applied by the scanner builder exactly as for a single
+ * range scan. The start is inclusive and the stop exclusive; a range whose start equals its stop reads just that key.
+ * <p>
+ * Several ranges can be given as a list separated by ';' or new lines where each entry is either a single key or a
+ * range written as "start..stop" (either side may be empty). Overlapping ranges of string keys are merged so each row
+ * is read once; the string values of other key types don't sort like their encoded keys, so those ranges are scanned
+ * as given and a row in several of them is read once per range.
+ */
+public class ScanRange {
+
+  public static final String RANGE_SEPARATOR = "..";
+
+  /**
+   * Orders string keys by code point, which is the order of their UTF-8 encoding and so the order HBase sorts them in
+   */
+  static final Comparator<String> KEY_ORDER = ( a, b ) -> {
+    int i = 0;
+    int j = 0;
+    while ( i < a.length() && j < b.length() ) {
+      int ca = a.codePointAt( i );
+      int cb = b.codePointAt( j );
+      if ( ca != cb ) {
+        return Integer.compare( ca, cb );
+      }
+      i += Character.charCount( ca );
+      j += Character.charCount( cb );
+    }
+    return ( a.length() - i ) - ( b.length() - j );
+  };
+
+  private final String start;
+  private final String stop;
+
+  public ScanRange( String start, String stop ) {
+    this.start = Const.isEmpty( start ) ? null : start;
+    this.stop = Const.isEmpty( stop ) ? null : stop;
+  }
+
+  public String getStart() {
+    return start;
+  }
+
+  public String getStop() {
+    return stop;
+  }
+
+  /**
+   * @return true if the range reads a single key
+   */
+  public boolean isSingleKey() {
+    return start != null && start.equals( stop );
+  }
+
+  /**
+   * Parses one entry of a range list
+   *
+   * @param entry
+   *          a single key or a "start..stop" range
+   * @return the range, or null if the entry is blank
+   */
+  public static ScanRange parse( String entry ) {
+    if ( entry == null || entry.trim().isEmpty() ) {
+      return null;
+    }
+    String trimmed = entry.trim();
+    int sep = trimmed.indexOf( RANGE_SEPARATOR );
+    if ( sep < 0 ) {
+      return new ScanRange( trimmed, trimmed );
+    }
+    return new ScanRange( trimmed.substring( 0, sep ).trim(),
+      trimmed.substring( sep + RANGE_SEPARATOR.length() ).trim() );
+  }
+
+  /**
+   * Parses a list of ranges, dropping blank entries and duplicates
+   *
+   * @param spec
+   *          entries separated by ';' or new lines
+   * @return the ranges in the order given
+   */
+  public static List<ScanRange> parseList( String spec ) {
+    Set<ScanRange> ranges = new LinkedHashSet<>();
+    if ( spec != null ) {
+      for ( String entry : spec.split( "[;\\r\\n]+" ) ) {
+        ScanRange range = parse( entry );
+        if ( range != null ) {
+          ranges.add( range );
+        }
+      }
+    }
+    return new ArrayList<>( ranges );
+  }
+
+  /**
+   * Merges overlapping and adjacent ranges of string keys, so that every row is read once
+   *
+   * @param ranges
+   *          the ranges, over string keys
+   * @return the merged ranges in key order. As the stop of a range is exclusive, a single key becomes the range up to
+   *         the first key after it, the key followed by a zero character
+   */
+  public static List<ScanRange> mergeStringRanges( Collection<ScanRange> ranges ) {
+    List<ScanRange> sorted = new ArrayList<>( ranges.size() );
+    for ( ScanRange range : ranges ) {
+      sorted.add( range.isSingleKey() ? new ScanRange( range.start, range.start + '\u0000' ) : range );
+    }
+    // an open start sorts first
+    sorted.sort( ( a, b ) -> a.start == null ? ( b.start == null ? 0 : -1 )
+      : b.start == null ? 1 : KEY_ORDER.compare( a.start, b.start ) );
+
+    List<ScanRange> merged = new ArrayList<>();
+    ScanRange current = null;
+    for ( ScanRange range : sorted ) {
+      if ( current == null ) {
+        current = range;
+      } else if ( current.stop == null || range.start == null || KEY_ORDER.compare( range.start, current.stop ) <= 0 ) {
+        if ( current.stop != null && ( range.stop == null || KEY_ORDER.compare( range.stop, current.stop ) > 0 ) ) {
+          current = new ScanRange( current.start, range.stop );
+        }
+      } else {
+        merged.add( current );
+        current = range;
+      }
+    }
+    if ( current != null ) {
+      merged.add( current );
+    }
+    return merged;
+  }
+
+  /**
+   * Builds the range holding every (string) key that starts with a prefix. The stop key is the smallest string that
+   * sorts after all strings with the prefix, so the region servers only visit the matching rows.
+   *
+   * @param prefix
+   *          the key prefix
+   * @return the range, or null if the prefix is empty
+   */
+  public static ScanRange forPrefix( String prefix ) {
+    if ( Const.isEmpty( prefix ) ) {
+      return null;
+    }
+    return new ScanRange( prefix, prefixSuccessor( prefix ) );
+  }
+
+  /**
+   * @return the smallest string greater than every string starting with the prefix, or null (scan to the end of the
+   *         table) if there is none
+   */
+  static String prefixSuccessor( String prefix ) {
+    int end = prefix.length();
+    while ( end > 0 ) {
+      int cp = prefix.codePointBefore( end );
+      int len = Character.charCount( cp );
+      if ( cp < Character.MAX_CODE_POINT ) {
+        int next = cp + 1;
+        if ( next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE ) {
+          next = Character.MAX_SURROGATE + 1;
+        }
+        return prefix.substring( 0, end - len ) + new String( Character.toChars( next ) );
+      }
+      end -= len;
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals( Object o ) {
+    if ( this == o ) {
+      return true;
+    }
+    if ( !( o instanceof ScanRange ) ) {
+      return false;
+    }
+    ScanRange other = (ScanRange) o;
+    return Objects.equals( start, other.start ) && Objects.equals( stop, other.stop );
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash( start, stop );
+  }
+
+  @Override
+  public String toString() {
+    return isSingleKey() ? start : Const.NVL( start, "" ) + RANGE_SEPARATOR + Const.NVL( stop, "" );
+  }
+}
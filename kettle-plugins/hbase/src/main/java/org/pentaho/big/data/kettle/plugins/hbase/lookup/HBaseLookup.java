@@ -0,0 +1,279 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.pentaho.big.data.kettle.plugins.hbase.HBaseConnectionPool;
+import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingCache;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.hadoop.shim.api.hbase.ByteConversionUtil;
+import org.pentaho.hadoop.shim.api.hbase.HBaseConnection;
+import org.pentaho.hadoop.shim.api.hbase.HBaseService;
+import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Step that looks up the HBase row whose key is held in an incoming field and appends the columns of the row (decoded
+ * according to a mapping) to the incoming row. Keys are looked up in batches and recently looked up keys can be cached,
+ * so that a stream of rows doesn't translate into one round trip to the region servers per row.
+ * <p>
+ * Only the range scan mode reads a batch with a single scan. The table API has no multi-key read, so otherwise each
+ * distinct uncached key of a batch is still read on its own; batching then only removes the duplicate keys.
+ */
+public class HBaseLookup extends BaseStep implements StepInterface {
+
+  private static final Class<?> PKG = HBaseLookupMeta.PKG;
+
+  private final NamedClusterServiceLocator namedClusterServiceLocator;
+
+  protected HBaseLookupMeta m_meta;
+  protected HBaseLookupData m_data;
+
+  /** Connection to HBase */
+  protected HBaseConnection m_hbAdmin;
+
+  /** The table to look keys up in */
+  protected HBaseTable m_table;
+
+  /** Byte utilities */
+  protected ByteConversionUtil m_bytesUtil;
+
+  /** The mapping of the table */
+  protected Mapping m_tableMapping;
+
+  /** Index and meta data of the incoming key field */
+  protected int m_keyInIndex = -1;
+  protected ValueMetaInterface m_keyInMeta;
+
+  protected int m_batchSize;
+  protected boolean m_rangeScan;
+  protected boolean m_preserveOrder;
+
+  public HBaseLookup( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
+                      Trans trans, NamedClusterServiceLocator namedClusterServiceLocator ) {
+    super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
+    this.namedClusterServiceLocator = namedClusterServiceLocator;
+  }
+
+  @Override
+  public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    Object[] r = getRow();
+
+    if ( r == null ) {
+      if ( !first ) {
+        flush();
+        logDetailed( BaseMessages.getString( PKG, "HBaseLookup.CacheStatistics", m_data.m_cache.getHits(),
+          m_data.m_cache.getMisses() ) );
+        closeConnection();
+      }
+      setOutputDone();
+      return false;
+    }
+
+    if ( first ) {
+      first = false;
+      m_meta = (HBaseLookupMeta) smi;
+      m_data = (HBaseLookupData) sdi;
+      initialize();
+    }
+
+    Object[] outputRow = RowDataUtil.resizeArray( r, m_data.getOutputRowMeta().size() );
+    Object key = r[ m_keyInIndex ];
+    if ( m_keyInMeta.isNull( key ) ) {
+      if ( m_preserveOrder && !m_data.m_pendingRows.isEmpty() ) {
+        // wait for the rows ahead of it, there is nothing to look up
+        m_data.m_pendingRows.add( outputRow );
+        m_data.m_pendingKeys.add( null );
+        m_data.m_pendingValues.add( LookupCache.NOT_FOUND );
+      } else {
+        emit( outputRow, null );
+      }
+      return true;
+    }
+
+    ByteBuffer encodedKey =
+      ByteBuffer.wrap( m_bytesUtil.encodeKeyValue( key, m_keyInMeta, m_tableMapping.getKeyType() ) );
+    Object[] cached = m_data.m_cache.get( encodedKey );
+    if ( cached != null && ( !m_preserveOrder || m_data.m_pendingRows.isEmpty() ) ) {
+      emit( outputRow, cached );
+      return true;
+    }
+
+    // the cache is only checked here, flush() fetches the keys that had no cached value
+    m_data.m_pendingRows.add( outputRow );
+    m_data.m_pendingKeys.add( encodedKey );
+    m_data.m_pendingValues.add( cached );
+    if ( m_data.m_pendingRows.size() >= m_batchSize ) {
+      flush();
+    }
+
+    return true;
+  }
+
+  private void initialize() throws KettleException {
+    m_tableMapping = m_meta.getMapping();
+    if ( m_tableMapping == null || Const.isEmpty( m_tableMapping.getTableName() ) ) {
+      throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.NoMappingInfo" ) );
+    }
+
+    String keyField = environmentSubstitute( m_meta.getIncomingKeyField() );
+    m_keyInIndex = getInputRowMeta().indexOfValue( keyField );
+    if ( m_keyInIndex < 0 ) {
+      throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.UnableToFindKeyField", keyField ) );
+    }
+    m_keyInMeta = getInputRowMeta().getValueMeta( m_keyInIndex );
+
+    m_data.setOutputRowMeta( getInputRowMeta().clone() );
+    m_meta.getFields( m_data.getOutputRowMeta(), getStepname(), null, null, this );
+    m_data.m_inputRowSize = getInputRowMeta().size();
+    m_data.setColumns( m_meta.getLookupColumns() );
+
+    m_batchSize = Math.max( 1, Const.toInt( environmentSubstitute( m_meta.getBatchSize() ), 1 ) );
+    m_rangeScan = m_meta.getRangeScan();
+    m_preserveOrder = m_meta.getPreserveOrder();
+    m_data.m_cache = new LookupCache( Const.toInt( environmentSubstitute( m_meta.getCacheSize() ), 0 ),
+      Const.toLong( environmentSubstitute( m_meta.getCacheTTL() ), 0L ) * 1000L );
+
+    try {
+      HBaseService hBaseService =
+        namedClusterServiceLocator.getService( m_meta.getNamedCluster(), HBaseService.class );
+      String connectionKey = MappingCache.connectionKey( m_meta.getNamedCluster(), this, null, null );
+      VariableSpace connectionSpace = HBaseConnectionPool.detach( this );
+      m_hbAdmin = HBaseConnectionPool.getInstance().acquire( connectionKey,
+        () -> hBaseService.getHBaseConnection( connectionSpace, null, null, HBaseConnectionPool.newLogChannel() ) );
+      m_bytesUtil = hBaseService.getByteConversionUtil();
+    } catch ( Exception ex ) {
+      throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.UnableToObtainConnection" ), ex );
+    }
+
+    String tableName = m_tableMapping.getTableName();
+    try {
+      m_table = m_hbAdmin.getTable( tableName );
+    } catch ( IOException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.CantGetTable", tableName ), e );
+    }
+    try {
+      if ( !m_table.exists() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.TableDoesNotExist", tableName ) );
+      }
+      if ( m_table.disabled() || !m_table.available() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.TableIsNotAvailable",
+          tableName ) );
+      }
+    } catch ( KettleException ex ) {
+      throw ex;
+    } catch ( Exception ex ) {
+      throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.AvailabilityReadinessProblem",
+        tableName ), ex );
+    }
+  }
+
+  /**
+   * Looks up the keys of the pending rows that weren't cached and passes the pending rows on
+   */
+  protected void flush() throws KettleException {
+    if ( m_data.m_pendingRows.isEmpty() ) {
+      return;
+    }
+
+    Set<ByteBuffer> toFetch = new LinkedHashSet<>();
+    Object[][] values = m_data.m_pendingValues.toArray( new Object[ m_data.m_pendingValues.size() ][] );
+    for ( int i = 0; i < values.length; i++ ) {
+      if ( values[ i ] == null ) {
+        toFetch.add( m_data.m_pendingKeys.get( i ) );
+      }
+    }
+
+    if ( !toFetch.isEmpty() ) {
+      Map<ByteBuffer, Object[]> found;
+      try {
+        found = m_data.lookup( m_table, toFetch, m_rangeScan );
+      } catch ( Exception ex ) {
+        throw new KettleException( BaseMessages.getString( PKG, "HBaseLookup.Error.LookupFailed",
+          m_tableMapping.getTableName() ), ex );
+      }
+      for ( ByteBuffer key : toFetch ) {
+        m_data.m_cache.put( key, found.get( key ) );
+      }
+      for ( int i = 0; i < values.length; i++ ) {
+        if ( values[ i ] == null ) {
+          values[ i ] = found.get( m_data.m_pendingKeys.get( i ) );
+        }
+      }
+    }
+
+    for ( int i = 0; i < values.length; i++ ) {
+      emit( m_data.m_pendingRows.get( i ), values[ i ] );
+    }
+    m_data.m_pendingRows.clear();
+    m_data.m_pendingKeys.clear();
+    m_data.m_pendingValues.clear();
+  }
+
+  private void emit( Object[] outputRow, Object[] values ) throws KettleException {
+    if ( values != null && values != LookupCache.NOT_FOUND ) {
+      System.arraycopy( values, 0, outputRow, m_data.m_inputRowSize, values.length );
+    }
+    putRow( m_data.getOutputRowMeta(), outputRow );
+  }
+
+  protected void closeConnection() {
+    try {
+      if ( m_table != null ) {
+        m_table.close();
+        m_table = null;
+      }
+      if ( m_hbAdmin != null ) {
+        m_hbAdmin.close();
+      }
+    } catch ( Exception ex ) {
+      logError( BaseMessages.getString( PKG, "HBaseLookup.Error.ProblemClosingConnection", ex.getMessage() ), ex );
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.trans.step.BaseStep#setStopped(boolean)
+   */
+  @Override
+  public void setStopped( boolean stopped ) {
+    if ( isStopped() && stopped ) {
+      return;
+    }
+    super.setStopped( stopped );
+
+    if ( stopped ) {
+      closeConnection();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.pentaho.big.data.kettle.plugins.hbase.output.ColumnWritePlan;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.step.BaseStepData;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScanner;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Data class for the HBase lookup step. Holds the rows waiting for their batch to be looked up and the routines that
+ * fetch and decode a batch of keys.
+ */
+public class HBaseLookupData extends BaseStepData implements StepDataInterface {
+
+  /** Orders encoded keys the way HBase sorts row keys (unsigned lexicographic) */
+  static final Comparator<ByteBuffer> KEY_ORDER = ( a, b ) -> {
+    int length = Math.min( a.remaining(), b.remaining() );
+    for ( int i = 0; i < length; i++ ) {
+      int cmp = ( a.get( a.position() + i ) & 0xff ) - ( b.get( b.position() + i ) & 0xff );
+      if ( cmp != 0 ) {
+        return cmp;
+      }
+    }
+    return a.remaining() - b.remaining();
+  };
+
+  /** The output data format */
+  protected RowMetaInterface m_outputRowMeta;
+
+  /** The number of fields in the incoming rows */
+  protected int m_inputRowSize;
+
+  /** The mapped columns that are appended to the incoming row */
+  protected HBaseValueMetaInterface[] m_columns;
+  protected String[] m_families;
+  protected String[] m_qualifiers;
+  protected boolean[] m_binaryQualifiers;
+
+  /**
+   * Rows waiting for the current batch to be looked up, with their encoded keys and cached values (null when the key
+   * has to be fetched)
+   */
+  protected List<Object[]> m_pendingRows = new ArrayList<>();
+  protected List<ByteBuffer> m_pendingKeys = new ArrayList<>();
+  protected List<Object[]> m_pendingValues = new ArrayList<>();
+
+  /** Decoded results of recent lookups */
+  protected LookupCache m_cache;
+
+  public RowMetaInterface getOutputRowMeta() {
+    return m_outputRowMeta;
+  }
+
+  public void setOutputRowMeta( RowMetaInterface rmi ) {
+    m_outputRowMeta = rmi;
+  }
+
+  /**
+   * Resolves the family and qualifier of each looked up column once
+   *
+   * @param columns
+   *          the (non-key) mapped columns to append to the incoming rows
+   */
+  public void setColumns( List<HBaseValueMetaInterface> columns ) {
+    m_columns = columns.toArray( new HBaseValueMetaInterface[ columns.size() ] );
+    m_families = new String[ m_columns.length ];
+    m_qualifiers = new String[ m_columns.length ];
+    m_binaryQualifiers = new boolean[ m_columns.length ];
+    for ( int i = 0; i < m_columns.length; i++ ) {
+      m_families[ i ] = m_columns[ i ].getColumnFamily();
+      m_binaryQualifiers[ i ] = ColumnWritePlan.isBinaryColumnName( m_columns[ i ].getColumnName() );
+      m_qualifiers[ i ] = ColumnWritePlan.stripBinaryPrefix( m_columns[ i ].getColumnName() );
+    }
+  }
+
+  /**
+   * Looks up a batch of keys
+   *
+   * @param table
+   *          the table to read from
+   * @param keys
+   *          the encoded keys to look up
+   * @param rangeScan
+   *          true to fetch the whole batch with a single scan over the range spanned by the keys (efficient when the
+   *          keys are clustered), false to issue a point read per key (the table API has no multi-key read, and a
+   *          scan over the span of scattered keys would read every row in between)
+   * @return the decoded column values of the keys that exist in the table
+   * @throws Exception
+   *           if a problem occurs reading from the table
+   */
+  public Map<ByteBuffer, Object[]> lookup( HBaseTable table, Collection<ByteBuffer> keys, boolean rangeScan )
+    throws Exception {
+    Map<ByteBuffer, Object[]> found = new HashMap<>();
+    if ( keys.isEmpty() ) {
+      return found;
+    }
+    TreeSet<ByteBuffer> sorted = new TreeSet<>( KEY_ORDER );
+    sorted.addAll( keys );
+
+    if ( rangeScan ) {
+      scan( table, toBytes( sorted.first() ), stopRow( sorted.last() ), sorted.size(), sorted, found );
+    } else {
+      for ( ByteBuffer key : sorted ) {
+        scan( table, toBytes( key ), stopRow( key ), 1, sorted, found );
+      }
+    }
+    return found;
+  }
+
+  private void scan( HBaseTable table, byte[] start, byte[] stop, int caching, TreeSet<ByteBuffer> wanted,
+                     Map<ByteBuffer, Object[]> found ) throws Exception {
+    ResultScannerBuilder scannerBuilder = table.createScannerBuilder( start, stop );
+    scannerBuilder.setCaching( Math.max( 1, caching ) );
+    for ( int i = 0; i < m_columns.length; i++ ) {
+      scannerBuilder.addColumnToScan( m_families[ i ], m_qualifiers[ i ], m_binaryQualifiers[ i ] );
+    }
+
+    try ( ResultScanner resultScanner = scannerBuilder.build() ) {
+      Result result;
+      while ( ( result = resultScanner.next() ) != null ) {
+        ByteBuffer key = ByteBuffer.wrap( result.getRow() );
+        if ( wanted.contains( key ) ) {
+          found.put( key, decode( result ) );
+        }
+      }
+    }
+  }
+
+  /**
+   * Decodes the looked up columns of a result
+   */
+  Object[] decode( Result result ) throws Exception {
+    Object[] values = new Object[ m_columns.length ];
+    for ( int i = 0; i < m_columns.length; i++ ) {
+      byte[] kv = result.getValue( m_families[ i ], m_qualifiers[ i ], m_binaryQualifiers[ i ] );
+      values[ i ] = m_columns[ i ].decodeColumnValue( kv );
+    }
+    return values;
+  }
+
+  /**
+   * @return the smallest row key following a key, as the stop row of a scan is exclusive
+   */
+  static byte[] stopRow( ByteBuffer key ) {
+    byte[] stop = new byte[ key.remaining() + 1 ];
+    key.duplicate().get( stop, 0, key.remaining() );
+    return stop;
+  }
+
+  private static byte[] toBytes( ByteBuffer key ) {
+    byte[] bytes = new byte[ key.remaining() ];
+    key.duplicate().get( bytes );
+    return bytes;
+  }
+}
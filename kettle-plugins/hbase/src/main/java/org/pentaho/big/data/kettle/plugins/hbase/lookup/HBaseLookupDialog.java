@@ -0,0 +1,372 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
+import org.eclipse.swt.custom.CTabFolder;
+import org.eclipse.swt.custom.CTabItem;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.events.ShellAdapter;
+import org.eclipse.swt.events.ShellEvent;
+import org.eclipse.swt.layout.FormAttachment;
+import org.eclipse.swt.layout.FormData;
+import org.eclipse.swt.layout.FormLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingEditor;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Props;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepDialogInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.ui.core.gui.GUIResource;
+import org.pentaho.di.ui.core.widget.TextVar;
+import org.pentaho.di.ui.trans.step.BaseStepDialog;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.runtime.test.RuntimeTester;
+import org.pentaho.runtime.test.action.RuntimeTestActionService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UI dialog for the HBase lookup step
+ */
+public class HBaseLookupDialog extends BaseStepDialog implements StepDialogInterface {
+
+  private static final Class<?> PKG = HBaseLookupMeta.PKG;
+
+  private Text m_stepnameText;
+
+  // The tabs of the dialog
+  private CTabFolder m_wTabFolder;
+
+  private CCombo m_incomingKeyCombo;
+  private TextVar m_batchSizeText;
+  private TextVar m_cacheSizeText;
+  private TextVar m_cacheTTLText;
+  private Button m_preserveOrderBut;
+  private Button m_rangeScanBut;
+
+  // mapping editor composite
+  private MappingEditor m_mappingEditor;
+
+  private final HBaseLookupMeta m_currentMeta;
+  private final NamedClusterService namedClusterService;
+  private final RuntimeTestActionService runtimeTestActionService;
+  private final RuntimeTester runtimeTester;
+  private final NamedClusterServiceLocator namedClusterServiceLocator;
+
+  private int middle;
+  private int margin;
+
+  public HBaseLookupDialog( Shell parent, Object in, TransMeta tr, String name,
+                            NamedClusterService namedClusterService,
+                            RuntimeTestActionService runtimeTestActionService, RuntimeTester runtimeTester,
+                            NamedClusterServiceLocator namedClusterServiceLocator ) {
+
+    super( parent, (BaseStepMeta) in, tr, name );
+    this.namedClusterService = namedClusterService;
+    this.runtimeTestActionService = runtimeTestActionService;
+    this.runtimeTester = runtimeTester;
+    this.namedClusterServiceLocator = namedClusterServiceLocator;
+
+    m_currentMeta = (HBaseLookupMeta) in;
+  }
+
+  public String open() {
+
+    Shell parent = getParent();
+    Display display = parent.getDisplay();
+
+    shell = new Shell( parent, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MIN | SWT.MAX );
+
+    props.setLook( shell );
+    setShellImage( shell, m_currentMeta );
+
+    ModifyListener lsMod = e -> m_currentMeta.setChanged();
+    changed = m_currentMeta.hasChanged();
+
+    FormLayout formLayout = new FormLayout();
+    formLayout.marginWidth = Const.FORM_MARGIN;
+    formLayout.marginHeight = Const.FORM_MARGIN;
+
+    shell.setLayout( formLayout );
+    shell.setText( BaseMessages.getString( PKG, "HBaseLookupDialog.Shell.Title" ) );
+
+    middle = props.getMiddlePct();
+    margin = Const.MARGIN;
+
+    // Stepname line
+    Label stepnameLabel = new Label( shell, SWT.RIGHT );
+    stepnameLabel.setText( BaseMessages.getString( PKG, "HBaseLookupDialog.StepName.Label" ) );
+    props.setLook( stepnameLabel );
+    FormData fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.right = new FormAttachment( middle, -margin );
+    fd.top = new FormAttachment( 0, margin );
+    stepnameLabel.setLayoutData( fd );
+
+    m_stepnameText = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    m_stepnameText.setText( stepname );
+    props.setLook( m_stepnameText );
+    m_stepnameText.addModifyListener( lsMod );
+    fd = new FormData();
+    fd.left = new FormAttachment( middle, 0 );
+    fd.top = new FormAttachment( 0, margin );
+    fd.right = new FormAttachment( 100, 0 );
+    m_stepnameText.setLayoutData( fd );
+
+    m_wTabFolder = new CTabFolder( shell, SWT.BORDER );
+    props.setLook( m_wTabFolder, Props.WIDGET_STYLE_TAB );
+    m_wTabFolder.setSimple( false );
+
+    // Start of the config tab
+    CTabItem wConfigTab = new CTabItem( m_wTabFolder, SWT.NONE );
+    wConfigTab.setText( BaseMessages.getString( PKG, "HBaseLookupDialog.ConfigTab.TabTitle" ) );
+
+    Composite wConfigComp = new Composite( m_wTabFolder, SWT.NONE );
+    props.setLook( wConfigComp );
+
+    FormLayout configLayout = new FormLayout();
+    configLayout.marginWidth = 3;
+    configLayout.marginHeight = 3;
+    wConfigComp.setLayout( configLayout );
+
+    m_incomingKeyCombo = new CCombo( wConfigComp, SWT.BORDER );
+    addRow( wConfigComp, "HBaseLookupDialog.KeyField", m_incomingKeyCombo, null );
+    m_incomingKeyCombo.addModifyListener( e -> {
+      m_currentMeta.setChanged();
+      m_incomingKeyCombo.setToolTipText( transMeta.environmentSubstitute( m_incomingKeyCombo.getText() ) );
+    } );
+
+    m_batchSizeText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    addRow( wConfigComp, "HBaseLookupDialog.BatchSize", m_batchSizeText, m_incomingKeyCombo );
+    m_batchSizeText.addModifyListener( lsMod );
+
+    m_cacheSizeText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    addRow( wConfigComp, "HBaseLookupDialog.CacheSize", m_cacheSizeText, m_batchSizeText );
+    m_cacheSizeText.addModifyListener( lsMod );
+
+    m_cacheTTLText = new TextVar( transMeta, wConfigComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    addRow( wConfigComp, "HBaseLookupDialog.CacheTTL", m_cacheTTLText, m_cacheSizeText );
+    m_cacheTTLText.addModifyListener( lsMod );
+
+    m_preserveOrderBut = new Button( wConfigComp, SWT.CHECK );
+    addRow( wConfigComp, "HBaseLookupDialog.PreserveOrder", m_preserveOrderBut, m_cacheTTLText );
+
+    m_rangeScanBut = new Button( wConfigComp, SWT.CHECK );
+    addRow( wConfigComp, "HBaseLookupDialog.RangeScan", m_rangeScanBut, m_preserveOrderBut );
+
+    populateFieldsCombo();
+
+    wConfigComp.layout();
+    wConfigTab.setControl( wConfigComp );
+
+    // --- mapping editor tab
+    CTabItem editorTab = new CTabItem( m_wTabFolder, SWT.NONE );
+    editorTab.setText( BaseMessages.getString( PKG, "HBaseLookupDialog.MappingEditorTab.TabTitle" ) );
+
+    m_mappingEditor =
+        new MappingEditor( shell, m_wTabFolder, null, null, SWT.FULL_SELECTION | SWT.MULTI, false, props, transMeta,
+          namedClusterService, runtimeTestActionService, runtimeTester, namedClusterServiceLocator );
+
+    fd = new FormData();
+    fd.top = new FormAttachment( 0, 0 );
+    fd.left = new FormAttachment( 0, 0 );
+    fd.bottom = new FormAttachment( 100, -margin * 2 );
+    fd.right = new FormAttachment( 100, 0 );
+    m_mappingEditor.setLayoutData( fd );
+
+    m_mappingEditor.layout();
+    editorTab.setControl( m_mappingEditor );
+
+    fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.top = new FormAttachment( m_stepnameText, margin );
+    fd.right = new FormAttachment( 100, 0 );
+    fd.bottom = new FormAttachment( 100, -50 );
+    m_wTabFolder.setLayoutData( fd );
+
+    // Buttons inherited from BaseStepDialog
+    wOK = new Button( shell, SWT.PUSH );
+    wOK.setText( BaseMessages.getString( PKG, "System.Button.OK" ) );
+
+    wCancel = new Button( shell, SWT.PUSH );
+    wCancel.setText( BaseMessages.getString( PKG, "System.Button.Cancel" ) );
+
+    setButtonPositions( new Button[] { wOK, wCancel }, margin, m_wTabFolder );
+
+    // Add listeners
+    lsCancel = e -> cancel();
+    lsOK = e -> ok();
+
+    wCancel.addListener( SWT.Selection, lsCancel );
+    wOK.addListener( SWT.Selection, lsOK );
+
+    lsDef = new SelectionAdapter() {
+      @Override
+      public void widgetDefaultSelected( SelectionEvent e ) {
+        ok();
+      }
+    };
+
+    m_stepnameText.addSelectionListener( lsDef );
+
+    // Detect X or ALT-F4 or something that kills this window...
+    shell.addShellListener( new ShellAdapter() {
+      @Override
+      public void shellClosed( ShellEvent e ) {
+        cancel();
+      }
+    } );
+
+    m_wTabFolder.setSelection( 0 );
+    setSize();
+
+    getData();
+
+    shell.open();
+    while ( !shell.isDisposed() ) {
+      if ( !display.readAndDispatch() ) {
+        display.sleep();
+      }
+    }
+
+    return stepname;
+  }
+
+  private void addRow( Composite parent, String messageKey, Control control, Control above ) {
+    Label label = new Label( parent, SWT.RIGHT );
+    label.setText( BaseMessages.getString( PKG, messageKey + ".Label" ) );
+    label.setToolTipText( BaseMessages.getString( PKG, messageKey + ".TipText" ) );
+    props.setLook( label );
+    FormData fd = new FormData();
+    fd.left = new FormAttachment( 0, 0 );
+    fd.top = above == null ? new FormAttachment( 0, margin ) : new FormAttachment( above, margin );
+    fd.right = new FormAttachment( middle, -margin );
+    label.setLayoutData( fd );
+
+    props.setLook( control );
+    fd = new FormData();
+    fd.left = new FormAttachment( middle, 0 );
+    fd.top = above == null ? new FormAttachment( 0, margin ) : new FormAttachment( above, margin );
+    fd.right = new FormAttachment( 100, 0 );
+    control.setLayoutData( fd );
+  }
+
+  protected void cancel() {
+    stepname = null;
+    m_currentMeta.setChanged( changed );
+
+    dispose();
+  }
+
+  protected void ok() {
+    if ( Const.isEmpty( m_stepnameText.getText() ) ) {
+      return;
+    }
+
+    stepname = m_stepnameText.getText();
+
+    List<String> problems = new ArrayList<String>();
+    Mapping mapping = m_mappingEditor.getMapping( false, problems, false );
+    if ( problems.size() > 0 ) {
+      StringBuilder p = new StringBuilder();
+      for ( String s : problems ) {
+        p.append( s ).append( "\n" );
+      }
+      MessageDialog md =
+          new MessageDialog( shell,
+              BaseMessages.getString( PKG, "HBaseLookupDialog.Error.IssuesWithMapping.Title" ), null, BaseMessages
+                  .getString( PKG, "HBaseLookupDialog.Error.IssuesWithMapping" )
+                  + ":\n\n" + p.toString(), MessageDialog.WARNING, new String[] {
+                      BaseMessages.getString( PKG, "HBaseLookupDialog.Error.IssuesWithMapping.ButtonOK" ),
+                      BaseMessages.getString( PKG, "HBaseLookupDialog.Error.IssuesWithMapping.ButtonCancel" ) }, 0 );
+      MessageDialog.setDefaultImage( GUIResource.getInstance().getImageSpoon() );
+      int idx = md.open() & 0xFF;
+      if ( idx == 1 || idx == 255 /* 255 = escape pressed */ ) {
+        return; // Cancel
+      }
+    }
+
+    m_currentMeta.setIncomingKeyField( m_incomingKeyCombo.getText() );
+    m_currentMeta.setBatchSize( m_batchSizeText.getText() );
+    m_currentMeta.setCacheSize( m_cacheSizeText.getText() );
+    m_currentMeta.setCacheTTL( m_cacheTTLText.getText() );
+    m_currentMeta.setPreserveOrder( m_preserveOrderBut.getSelection() );
+    m_currentMeta.setRangeScan( m_rangeScanBut.getSelection() );
+    if ( mapping != null ) {
+      m_currentMeta.setMapping( mapping );
+    }
+    NamedCluster selectedNamedCluster = m_mappingEditor.getSelectedNamedCluster();
+    if ( selectedNamedCluster != null ) {
+      m_currentMeta.setNamedCluster( selectedNamedCluster );
+    }
+    m_currentMeta.setChanged();
+
+    dispose();
+  }
+
+  protected void getData() {
+    m_incomingKeyCombo.setText( Const.NVL( m_currentMeta.getIncomingKeyField(), "" ) );
+    m_batchSizeText.setText( Const.NVL( m_currentMeta.getBatchSize(), "" ) );
+    m_cacheSizeText.setText( Const.NVL( m_currentMeta.getCacheSize(), "" ) );
+    m_cacheTTLText.setText( Const.NVL( m_currentMeta.getCacheTTL(), "" ) );
+    m_preserveOrderBut.setSelection( m_currentMeta.getPreserveOrder() );
+    m_rangeScanBut.setSelection( m_currentMeta.getRangeScan() );
+
+    if ( m_currentMeta.getNamedCluster() != null ) {
+      m_mappingEditor.setSelectedNamedCluster( m_currentMeta.getNamedCluster().getName() );
+    }
+    if ( m_currentMeta.getMapping() != null ) {
+      m_mappingEditor.setMapping( m_currentMeta.getMapping() );
+    }
+  }
+
+  private void populateFieldsCombo() {
+    StepMeta stepMeta = transMeta.findStep( stepname );
+    if ( stepMeta == null ) {
+      return;
+    }
+    try {
+      RowMetaInterface rowMeta = transMeta.getPrevStepFields( stepMeta );
+      if ( rowMeta != null && rowMeta.size() > 0 ) {
+        String currentKey = m_incomingKeyCombo.getText();
+        m_incomingKeyCombo.setItems( rowMeta.getFieldNames() );
+        m_incomingKeyCombo.setText( currentKey );
+      }
+    } catch ( KettleException ex ) {
+      if ( log.isError() ) {
+        log.logError( "Error populating fields", ex );
+      }
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.swt.widgets.Shell;
+import org.pentaho.big.data.kettle.plugins.hbase.NamedClusterLoadSaveUtil;
+import org.pentaho.di.core.CheckResult;
+import org.pentaho.di.core.CheckResultInterface;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.annotations.Step;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleXMLException;
+import org.pentaho.di.core.injection.Injection;
+import org.pentaho.di.core.injection.InjectionSupported;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.service.PluginServiceLoader;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.xml.XMLHandler;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.metastore.MetaStoreConst;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepDialogInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.hadoop.shim.api.cluster.ClusterInitializationException;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.hadoop.shim.api.hbase.HBaseService;
+import org.pentaho.hadoop.shim.api.hbase.mapping.Mapping;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metastore.locator.api.MetastoreLocator;
+import org.pentaho.runtime.test.RuntimeTester;
+import org.pentaho.runtime.test.action.RuntimeTestActionService;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.pentaho.di.core.CheckResult.TYPE_RESULT_ERROR;
+import static org.pentaho.di.core.CheckResult.TYPE_RESULT_OK;
+
+/**
+ * Meta class for the HBase lookup step. Enriches incoming rows with the columns of the HBase row whose key is held in
+ * an incoming field, according to a mapping.
+ */
+@Step( id = "HBaseLookup", image = "HB.svg", name = "HBaseLookup.Name", description = "HBaseLookup.Description",
+    categoryDescription = "i18n:org.pentaho.di.trans.step:BaseStep.Category.BigData",
+    i18nPackageName = "org.pentaho.big.data.kettle.plugins.hbase.lookup" )
+@InjectionSupported( localizationPrefix = "HBaseLookup.Injection." )
+public class HBaseLookupMeta extends BaseStepMeta implements StepMetaInterface {
+
+  public static final Class<?> PKG = HBaseLookupMeta.class;
+
+  public static final String INCOMING_KEY_FIELD = "incoming_key_field";
+  public static final String BATCH_SIZE = "batch_size";
+  public static final String CACHE_SIZE = "cache_size";
+  public static final String CACHE_TTL = "cache_ttl";
+  public static final String PRESERVE_ORDER = "preserve_order";
+  public static final String RANGE_SCAN = "range_scan";
+
+  public static final String DEFAULT_BATCH_SIZE = "100";
+  public static final String DEFAULT_CACHE_SIZE = "0";
+  public static final String DEFAULT_CACHE_TTL = "300";
+
+  protected NamedCluster namedCluster;
+
+  /** The incoming field that holds the key to look up */
+  @Injection( name = "KEY_FIELD" )
+  protected String m_incomingKeyField = "";
+
+  /** The number of keys to look up together */
+  @Injection( name = "BATCH_SIZE" )
+  protected String m_batchSize = DEFAULT_BATCH_SIZE;
+
+  /** The maximum number of looked up keys to cache (0 disables the cache) */
+  @Injection( name = "CACHE_SIZE" )
+  protected String m_cacheSize = DEFAULT_CACHE_SIZE;
+
+  /** The time (in seconds) a looked up key stays cached */
+  @Injection( name = "CACHE_TTL" )
+  protected String m_cacheTTL = DEFAULT_CACHE_TTL;
+
+  /** True if rows are to be output in the order they arrived; otherwise cache hits are passed on immediately */
+  @Injection( name = "PRESERVE_ORDER" )
+  protected boolean m_preserveOrder = true;
+
+  /**
+   * True to fetch a batch with one scan over the range of its keys rather than a read per key. Only this mode saves
+   * round trips, without it batching only groups the reads
+   */
+  @Injection( name = "RANGE_SCAN" )
+  protected boolean m_rangeScan;
+
+  /** The mapping to use */
+  protected Mapping m_mapping;
+
+  private MetastoreLocator metaStoreService;
+  private final NamedClusterServiceLocator namedClusterServiceLocator;
+  private final NamedClusterService namedClusterService;
+  private final RuntimeTestActionService runtimeTestActionService;
+  private final RuntimeTester runtimeTester;
+
+  private final NamedClusterLoadSaveUtil namedClusterLoadSaveUtil;
+
+  public HBaseLookupMeta( NamedClusterServiceLocator namedClusterServiceLocator,
+                          NamedClusterService namedClusterService,
+                          RuntimeTestActionService runtimeTestActionService, RuntimeTester runtimeTester ) {
+    this.namedClusterServiceLocator = namedClusterServiceLocator;
+    this.namedClusterService = namedClusterService;
+    this.runtimeTestActionService = runtimeTestActionService;
+    this.runtimeTester = runtimeTester;
+    this.namedClusterLoadSaveUtil = new NamedClusterLoadSaveUtil();
+  }
+
+  public synchronized MetastoreLocator getMetastoreLocators() {
+    if ( this.metaStoreService == null ) {
+      try {
+        Collection<MetastoreLocator> metastoreLocators = PluginServiceLoader.loadServices( MetastoreLocator.class );
+        this.metaStoreService = metastoreLocators.stream().findFirst().get();
+      } catch ( Exception e ) {
+        logError( "Error getting MetastoreLocator", e );
+      }
+    }
+    return this.metaStoreService;
+  }
+
+  public void setNamedCluster( NamedCluster namedCluster ) {
+    this.namedCluster = namedCluster;
+  }
+
+  public NamedCluster getNamedCluster() {
+    return namedCluster;
+  }
+
+  public void setIncomingKeyField( String inKey ) {
+    m_incomingKeyField = inKey;
+  }
+
+  public String getIncomingKeyField() {
+    return m_incomingKeyField;
+  }
+
+  public void setBatchSize( String batchSize ) {
+    m_batchSize = batchSize;
+  }
+
+  public String getBatchSize() {
+    return m_batchSize;
+  }
+
+  public void setCacheSize( String cacheSize ) {
+    m_cacheSize = cacheSize;
+  }
+
+  public String getCacheSize() {
+    return m_cacheSize;
+  }
+
+  public void setCacheTTL( String cacheTTL ) {
+    m_cacheTTL = cacheTTL;
+  }
+
+  public String getCacheTTL() {
+    return m_cacheTTL;
+  }
+
+  public void setPreserveOrder( boolean preserveOrder ) {
+    m_preserveOrder = preserveOrder;
+  }
+
+  public boolean getPreserveOrder() {
+    return m_preserveOrder;
+  }
+
+  public void setRangeScan( boolean rangeScan ) {
+    m_rangeScan = rangeScan;
+  }
+
+  public boolean getRangeScan() {
+    return m_rangeScan;
+  }
+
+  public void setMapping( Mapping m ) {
+    m_mapping = m;
+  }
+
+  public Mapping getMapping() {
+    return m_mapping;
+  }
+
+  public NamedClusterServiceLocator getNamedClusterServiceLocator() {
+    return namedClusterServiceLocator;
+  }
+
+  @Override
+  public void setDefault() {
+    m_incomingKeyField = "";
+    m_batchSize = DEFAULT_BATCH_SIZE;
+    m_cacheSize = DEFAULT_CACHE_SIZE;
+    m_cacheTTL = DEFAULT_CACHE_TTL;
+    m_preserveOrder = true;
+    m_rangeScan = false;
+    namedCluster = namedClusterService.getClusterTemplate();
+  }
+
+  /**
+   * @return the mapped (non-key) columns that the lookup appends to the incoming rows
+   */
+  public List<HBaseValueMetaInterface> getLookupColumns() {
+    List<HBaseValueMetaInterface> columns = new ArrayList<>();
+    if ( m_mapping != null ) {
+      for ( HBaseValueMetaInterface column : m_mapping.getMappedColumns().values() ) {
+        if ( !column.isKey() ) {
+          columns.add( column );
+        }
+      }
+    }
+    return columns;
+  }
+
+  @Override
+  public void getFields( RowMetaInterface rowMeta, String origin, RowMetaInterface[] info, StepMeta nextStep,
+      VariableSpace space ) throws KettleStepException {
+    for ( HBaseValueMetaInterface column : getLookupColumns() ) {
+      ValueMetaInterface vm = column.clone();
+      vm.setOrigin( origin );
+      rowMeta.addValueMeta( vm );
+    }
+  }
+
+  @Override
+  public void check( List<CheckResultInterface> remarks, TransMeta transMeta, StepMeta stepMeta, RowMetaInterface prev,
+      String[] input, String[] output, RowMetaInterface info ) {
+
+    if ( m_mapping == null ) {
+      remarks.add( new CheckResult( TYPE_RESULT_ERROR,
+        BaseMessages.getString( PKG, "HBaseLookup.Error.NoMappingInfo" ), stepMeta ) );
+    }
+    if ( prev != null && !Const.isEmpty( m_incomingKeyField )
+      && prev.indexOfValue( transMeta.environmentSubstitute( m_incomingKeyField ) ) < 0 ) {
+      remarks.add( new CheckResult( TYPE_RESULT_ERROR,
+        BaseMessages.getString( PKG, "HBaseLookup.Error.UnableToFindKeyField", m_incomingKeyField ), stepMeta ) );
+    }
+    if ( input.length > 0 ) {
+      remarks.add( new CheckResult( TYPE_RESULT_OK, "Step is receiving info from other steps.", stepMeta ) );
+    } else {
+      remarks.add( new CheckResult( TYPE_RESULT_ERROR, "No input received from other steps!", stepMeta ) );
+    }
+  }
+
+  @Override
+  public StepInterface getStep( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr,
+      TransMeta transMeta, Trans trans ) {
+    return new HBaseLookup( stepMeta, stepDataInterface, copyNr, transMeta, trans, namedClusterServiceLocator );
+  }
+
+  @Override
+  public StepDataInterface getStepData() {
+    return new HBaseLookupData();
+  }
+
+  @Override
+  public String getXML() {
+    StringBuilder retval = new StringBuilder();
+
+    if ( StringUtils.isNotEmpty( m_incomingKeyField ) ) {
+      retval.append( "\n    " ).append( XMLHandler.addTagValue( INCOMING_KEY_FIELD, m_incomingKeyField ) );
+    }
+    retval.append( "\n    " ).append( XMLHandler.addTagValue( BATCH_SIZE, m_batchSize ) );
+    retval.append( "\n    " ).append( XMLHandler.addTagValue( CACHE_SIZE, m_cacheSize ) );
+    retval.append( "\n    " ).append( XMLHandler.addTagValue( CACHE_TTL, m_cacheTTL ) );
+    retval.append( "\n    " ).append( XMLHandler.addTagValue( PRESERVE_ORDER, m_preserveOrder ) );
+    retval.append( "\n    " ).append( XMLHandler.addTagValue( RANGE_SCAN, m_rangeScan ) );
+
+    namedClusterLoadSaveUtil.getXml( retval, namedClusterService, namedCluster,
+      MetaStoreConst.getDefaultMetastore(), log );
+    if ( m_mapping != null ) {
+      retval.append( m_mapping.getXML() );
+    }
+
+    return retval.toString();
+  }
+
+  @Override
+  public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
+    if ( metaStore == null ) {
+      metaStore = getMetastoreLocators().getMetastore();
+    }
+
+    m_incomingKeyField = XMLHandler.getTagValue( stepnode, INCOMING_KEY_FIELD );
+    m_batchSize = Const.NVL( XMLHandler.getTagValue( stepnode, BATCH_SIZE ), DEFAULT_BATCH_SIZE );
+    m_cacheSize = Const.NVL( XMLHandler.getTagValue( stepnode, CACHE_SIZE ), DEFAULT_CACHE_SIZE );
+    m_cacheTTL = Const.NVL( XMLHandler.getTagValue( stepnode, CACHE_TTL ), DEFAULT_CACHE_TTL );
+    m_preserveOrder = !"N".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, PRESERVE_ORDER ) );
+    m_rangeScan = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, RANGE_SCAN ) );
+    this.namedCluster =
+        namedClusterLoadSaveUtil.loadClusterConfig( namedClusterService, null, repository, metaStore, stepnode, log );
+    try {
+      HBaseService hbaseService = namedClusterServiceLocator.getService( this.namedCluster, HBaseService.class );
+      m_mapping = ( hbaseService == null ? null : hbaseService.getMappingFactory().createMapping() );
+    } catch ( ClusterInitializationException e ) {
+      throw new KettleXMLException( e );
+    }
+    if ( m_mapping != null && !m_mapping.loadXML( stepnode ) ) {
+      m_mapping = null;
+    }
+  }
+
+  @Override
+  public void readRep( Repository rep, IMetaStore metaStore, ObjectId idStep, List<DatabaseMeta> databases )
+    throws KettleException {
+
+    m_incomingKeyField = rep.getStepAttributeString( idStep, 0, INCOMING_KEY_FIELD );
+    m_batchSize = Const.NVL( rep.getStepAttributeString( idStep, 0, BATCH_SIZE ), DEFAULT_BATCH_SIZE );
+    m_cacheSize = Const.NVL( rep.getStepAttributeString( idStep, 0, CACHE_SIZE ), DEFAULT_CACHE_SIZE );
+    m_cacheTTL = Const.NVL( rep.getStepAttributeString( idStep, 0, CACHE_TTL ), DEFAULT_CACHE_TTL );
+    m_preserveOrder = rep.getStepAttributeBoolean( idStep, 0, PRESERVE_ORDER, true );
+    m_rangeScan = rep.getStepAttributeBoolean( idStep, 0, RANGE_SCAN, false );
+    this.namedCluster =
+        namedClusterLoadSaveUtil.loadClusterConfig( namedClusterService, idStep, rep, metaStore, null, log );
+    try {
+      m_mapping =
+          namedClusterServiceLocator.getService( this.namedCluster, HBaseService.class ).getMappingFactory()
+              .createMapping();
+    } catch ( ClusterInitializationException e ) {
+      throw new KettleXMLException( e );
+    }
+    if ( !m_mapping.readRep( rep, idStep ) ) {
+      m_mapping = null;
+    }
+  }
+
+  @Override
+  public void saveRep( Repository rep, IMetaStore metaStore, ObjectId idTransformation, ObjectId idStep )
+    throws KettleException {
+
+    if ( StringUtils.isNotEmpty( m_incomingKeyField ) ) {
+      rep.saveStepAttribute( idTransformation, idStep, 0, INCOMING_KEY_FIELD, m_incomingKeyField );
+    }
+    rep.saveStepAttribute( idTransformation, idStep, 0, BATCH_SIZE, m_batchSize );
+    rep.saveStepAttribute( idTransformation, idStep, 0, CACHE_SIZE, m_cacheSize );
+    rep.saveStepAttribute( idTransformation, idStep, 0, CACHE_TTL, m_cacheTTL );
+    rep.saveStepAttribute( idTransformation, idStep, 0, PRESERVE_ORDER, m_preserveOrder );
+    rep.saveStepAttribute( idTransformation, idStep, 0, RANGE_SCAN, m_rangeScan );
+
+    namedClusterLoadSaveUtil.saveRep( rep, metaStore, idTransformation, idStep, namedClusterService, namedCluster, log );
+
+    if ( m_mapping != null ) {
+      m_mapping.saveRep( rep, idTransformation, idStep );
+    }
+  }
+
+  @Override
+  public StepDialogInterface getDialog( Shell shell, StepMetaInterface meta, TransMeta transMeta, String name ) {
+    return new HBaseLookupDialog( shell, meta, transMeta, name, namedClusterService, runtimeTestActionService,
+      runtimeTester, namedClusterServiceLocator );
+  }
+}
@@ -0,0 +1,111 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and time bounded LRU cache of decoded lookup results, keyed by encoded row key. Keys that were not found in the
+ * table are cached too (as a null result) so that repeated misses don't go back to HBase.
+ */
+public class LookupCache {
+
+  /** Marker for a key that is known not to exist in the table */
+  static final Object[] NOT_FOUND = new Object[ 0 ];
+
+  private final int maxSize;
+  private final long ttl;
+  private final Map<ByteBuffer, Entry> entries;
+
+  private long hits;
+  private long misses;
+
+  /**
+   * @param maxSize
+   *          the maximum number of cached keys; 0 or less disables the cache
+   * @param ttl
+   *          time to live of an entry in milliseconds; 0 or less means entries do not expire
+   */
+  public LookupCache( int maxSize, long ttl ) {
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    this.entries = new LinkedHashMap<ByteBuffer, Entry>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<ByteBuffer, Entry> eldest ) {
+        return size() > LookupCache.this.maxSize;
+      }
+    };
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * @param key
+   *          the encoded row key
+   * @return the cached column values, NOT_FOUND if the key is known to be missing, or null if nothing is cached
+   */
+  public Object[] get( ByteBuffer key ) {
+    if ( !isEnabled() ) {
+      return null;
+    }
+    Entry entry = entries.get( key );
+    if ( entry != null && ttl > 0 && System.currentTimeMillis() - entry.created > ttl ) {
+      entries.remove( key );
+      entry = null;
+    }
+    if ( entry == null ) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.values;
+  }
+
+  /**
+   * @param key
+   *          the encoded row key
+   * @param values
+   *          the decoded column values, or null if the key does not exist in the table
+   */
+  public void put( ByteBuffer key, Object[] values ) {
+    if ( isEnabled() ) {
+      entries.put( key, new Entry( values == null ? NOT_FOUND : values ) );
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  private static class Entry {
+    private final Object[] values;
+    private final long created = System.currentTimeMillis();
+
+    private Entry( Object[] values ) {
+      this.values = values;
+    }
+  }
+}
@@ -61,6 +61,9 @@ public class MappingAdmin implements Closeable {
 
   private final HBaseConnection hBaseConnection;
 
+  /** Key of the connection in the MappingCache; null if mapping reads are not cached */
+  private String cacheKey;
+
   /** Name of the mapping table (might make this configurable at some stage) */
   protected String m_mappingTableName = "pentaho_mappings";
 
@@ -93,6 +96,28 @@ public class MappingAdmin implements Closeable {
     this.hBaseConnection = hBaseConnection;
   }
 
+  /**
+   * Constructor for an admin whose mapping reads are served from the process wide MappingCache
+   *
+   * @param hBaseConnection
+   *          the connection to use
+   * @param cacheKey
+   *          the key identifying the connection in the cache (see MappingCache.connectionKey()), null to disable
+   *          caching
+   */
+  public MappingAdmin( HBaseConnection hBaseConnection, String cacheKey ) {
+    this.hBaseConnection = hBaseConnection;
+    this.cacheKey = cacheKey;
+  }
+
+  public void setCacheKey( String cacheKey ) {
+    this.cacheKey = cacheKey;
+  }
+
+  public String getCacheKey() {
+    return cacheKey;
+  }
+
   /**
    * Set the name of the mapping table.
    *
@@ -496,6 +521,12 @@ public class MappingAdmin implements Closeable {
   }
 
   private void addMappedTables( Set<String> tableNames, String nameSpace ) throws Exception {
+    if ( cacheKey != null ) {
+      for ( String qualifier : getNamespaceMappings( nameSpace ).keySet() ) {
+        tableNames.add( nameSpace + ":" + qualifier );
+      }
+      return;
+    }
     ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
     try ( HBaseTable hBaseTable = hBaseConnection.getTable( nameSpace + ":" + m_mappingTableName ) ) {
       if ( hBaseTable.exists() ) {
@@ -529,6 +560,11 @@ public class MappingAdmin implements Closeable {
    */
   public List<String> getMappingNames( String tableName ) throws Exception {
     tableName = HbaseUtil.expandTableName( tableName );
+    if ( cacheKey != null ) {
+      Map<String, MappingCache.MappingRow> cached = getNamespaceMappings(
+        HbaseUtil.parseNamespaceFromTableName( tableName ) ).get( HbaseUtil.parseQualifierFromTableName( tableName ) );
+      return cached == null ? new ArrayList<String>() : new ArrayList<String>( cached.keySet() );
+    }
     ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
     List<String> mappingsForTable = new ArrayList<String>();
     try ( HBaseTable hBaseTable = hBaseConnection.getTable( getMappingTableName( tableName ) ) ) {
@@ -568,6 +604,14 @@ public class MappingAdmin implements Closeable {
    *           if a problem occurs during deletion
    */
   public boolean deleteMapping( String tableName, String mappingName ) throws Exception {
+    try {
+      return doDeleteMapping( tableName, mappingName );
+    } finally {
+      MappingCache.getInstance().invalidate( cacheKey, HbaseUtil.parseNamespaceFromTableName( tableName ) );
+    }
+  }
+
+  private boolean doDeleteMapping( String tableName, String mappingName ) throws Exception {
     ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
     try ( HBaseTable hBaseTable = hBaseConnection.getTable( getMappingTableName( tableName ) ) ) {
       try ( HBaseTableWriteOperationManager hBaseTableWriteOperationManager = hBaseTable
@@ -615,6 +659,15 @@ public class MappingAdmin implements Closeable {
 
 
   public void putMapping( Mapping theMapping, boolean overwrite ) throws Exception {
+    try {
+      doPutMapping( theMapping, overwrite );
+    } finally {
+      MappingCache.getInstance().invalidate( cacheKey,
+        HbaseUtil.parseNamespaceFromTableName( theMapping.getTableName() ) );
+    }
+  }
+
+  private void doPutMapping( Mapping theMapping, boolean overwrite ) throws Exception {
     String tableName = theMapping.getTableName();
     String mappingName = theMapping.getMappingName();
     Map<String, HBaseValueMetaInterface> mapping = theMapping.getMappedColumns();
@@ -758,9 +811,17 @@ public class MappingAdmin implements Closeable {
    *           if a mapping by the given name does not exist for the given table
    */
   public Mapping getMapping( String tableName, String mappingName ) throws Exception {
+    if ( cacheKey != null ) {
+      Map<String, MappingCache.MappingRow> cached = getNamespaceMappings(
+        HbaseUtil.parseNamespaceFromTableName( tableName ) ).get( HbaseUtil.parseQualifierFromTableName( tableName ) );
+      MappingCache.MappingRow row = cached == null ? null : cached.get( mappingName );
+      if ( row != null ) {
+        return decodeMapping( tableName, mappingName, row.getKeyColumns(), row.getMappedColumns() );
+      }
+      // not known (yet) - fall through to a direct read so that a missing mapping is reported as usual
+    }
+
     ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
-    MappingFactory mappingFactory = hBaseConnection.getMappingFactory();
-    HBaseValueMetaInterfaceFactory valueMetaInterfaceFactory = hBaseConnection.getHBaseValueMetaInterfaceFactory();
     try ( HBaseTable hBaseTable = hBaseConnection.getTable( getMappingTableName( tableName ) ) ) {
       if ( !hBaseTable.exists() ) {
 
@@ -781,137 +842,189 @@ public class MappingAdmin implements Closeable {
         throw new IOException( "Mapping \"" + tableName + "," + mappingName + "\" does not exist!" );
       }
 
-      NavigableMap<byte[], byte[]> colsInKeyFamily = result.getFamilyMap( KEY_FAMILY_NAME );
+      return decodeMapping( tableName, mappingName, result.getFamilyMap( KEY_FAMILY_NAME ),
+        result.getFamilyMap( COLUMNS_FAMILY_NAME ) );
+    }
+  }
 
-      Set<byte[]> keyCols = colsInKeyFamily.keySet();
-      // should only be one key defined!!
-      if ( keyCols.size() != 1 ) {
-        throw new IOException( "Mapping \"" + tableName + "," + mappingName + "\" has more than one key defined!" );
-      }
+  /**
+   * Decodes a mapping from the contents of its row in the mapping table
+   *
+   * @param tableName
+   *          the name of the table
+   * @param mappingName
+   *          the name of the mapping
+   * @param colsInKeyFamily
+   *          the columns of the key family of the mapping row
+   * @param colsInMapping
+   *          the columns of the columns family of the mapping row
+   * @return the decoded mapping
+   * @throws Exception
+   *           if the mapping row is not valid
+   */
+  private Mapping decodeMapping( String tableName, String mappingName, NavigableMap<byte[], byte[]> colsInKeyFamily,
+                                 NavigableMap<byte[], byte[]> colsInMapping ) throws Exception {
+    ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
+    MappingFactory mappingFactory = hBaseConnection.getMappingFactory();
+    HBaseValueMetaInterfaceFactory valueMetaInterfaceFactory = hBaseConnection.getHBaseValueMetaInterfaceFactory();
+    Set<byte[]> keyCols = colsInKeyFamily.keySet();
+    // should only be one key defined!!
+    if ( keyCols.size() != 1 ) {
+      throw new IOException( "Mapping \"" + tableName + "," + mappingName + "\" has more than one key defined!" );
+    }
 
-      byte[] keyNameB = keyCols.iterator().next();
-      String decodedKeyName = byteConversionUtil.toString( keyNameB );
-      byte[] keyTypeB = colsInKeyFamily.get( keyNameB );
-      String decodedKeyType = byteConversionUtil.toString( keyTypeB );
-      Mapping.KeyType keyType = null;
+    byte[] keyNameB = keyCols.iterator().next();
+    String decodedKeyName = byteConversionUtil.toString( keyNameB );
+    byte[] keyTypeB = colsInKeyFamily.get( keyNameB );
+    String decodedKeyType = byteConversionUtil.toString( keyTypeB );
+    Mapping.KeyType keyType = null;
 
-      for ( Mapping.KeyType t : Mapping.KeyType.values() ) {
-        if ( decodedKeyType.equalsIgnoreCase( t.toString() ) ) {
-          keyType = t;
-          break;
-        }
+    for ( Mapping.KeyType t : Mapping.KeyType.values() ) {
+      if ( decodedKeyType.equalsIgnoreCase( t.toString() ) ) {
+        keyType = t;
+        break;
       }
+    }
 
-      if ( keyType == null ) {
-        throw new IOException( "Unrecognized type for the key column in \"" + compoundKey + "\"" );
-      }
+    if ( keyType == null ) {
+      throw new IOException( "Unrecognized type for the key column in \"" + tableName + "," + mappingName + "\"" );
+    }
 
-      String tupleFamilies = "";
-      boolean isTupleMapping = false;
-      if ( decodedKeyName.indexOf( ',' ) > 0 ) {
+    String tupleFamilies = "";
+    boolean isTupleMapping = false;
+    if ( decodedKeyName.indexOf( ',' ) > 0 ) {
 
-        isTupleMapping = true;
+      isTupleMapping = true;
 
-        if ( decodedKeyName.indexOf( ',' ) != decodedKeyName.length() - 1 ) {
-          tupleFamilies = decodedKeyName.substring( decodedKeyName.indexOf( ',' ) + 1, decodedKeyName.length() );
-        }
-        decodedKeyName = decodedKeyName.substring( 0, decodedKeyName.indexOf( ',' ) );
+      if ( decodedKeyName.indexOf( ',' ) != decodedKeyName.length() - 1 ) {
+        tupleFamilies = decodedKeyName.substring( decodedKeyName.indexOf( ',' ) + 1, decodedKeyName.length() );
       }
+      decodedKeyName = decodedKeyName.substring( 0, decodedKeyName.indexOf( ',' ) );
+    }
 
-      Mapping resultMapping = mappingFactory.createMapping( tableName, mappingName, decodedKeyName, keyType );
-      resultMapping.setTupleMapping( isTupleMapping );
-      if ( !Const.isEmpty( tupleFamilies ) ) {
-        resultMapping.setTupleFamilies( tupleFamilies );
-      }
+    Mapping resultMapping = mappingFactory.createMapping( tableName, mappingName, decodedKeyName, keyType );
+    resultMapping.setTupleMapping( isTupleMapping );
+    if ( !Const.isEmpty( tupleFamilies ) ) {
+      resultMapping.setTupleFamilies( tupleFamilies );
+    }
 
-      Map<String, HBaseValueMetaInterface> resultCols = new TreeMap<String, HBaseValueMetaInterface>();
+    Map<String, HBaseValueMetaInterface> resultCols = new TreeMap<String, HBaseValueMetaInterface>();
 
-      // now process the mapping
-      NavigableMap<byte[], byte[]> colsInMapping = result.getFamilyMap( COLUMNS_FAMILY_NAME );
+    // now process the mapping
+    Set<byte[]> colNames = colsInMapping.keySet();
 
-      Set<byte[]> colNames = colsInMapping.keySet();
+    for ( byte[] b : colNames ) {
+      String decodedName = byteConversionUtil.toString( b );
+      byte[] c = colsInMapping.get( b );
+      if ( c == null ) {
+        throw new IOException( "No type declaration for column \"" + decodedName + "\"" );
+      }
 
-      for ( byte[] b : colNames ) {
-        String decodedName = byteConversionUtil.toString( b );
-        byte[] c = colsInMapping.get( b );
-        if ( c == null ) {
-          throw new IOException( "No type declaration for column \"" + decodedName + "\"" );
+      String decodedType = byteConversionUtil.toString( c );
+
+      HBaseValueMetaInterface newMeta = null;
+      if ( decodedType.equalsIgnoreCase( "Float" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_NUMBER, -1, -1 );
+
+        // While passing through Kettle this will be represented
+        // as a double
+        newMeta.setIsLongOrDouble( false );
+      } else if ( decodedType.equalsIgnoreCase( "Double" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_NUMBER, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "String" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_STRING, -1, -1 );
+      } else if ( decodedType.toLowerCase().startsWith( "date" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_DATE, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "Boolean" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BOOLEAN, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "Integer" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_INTEGER, -1, -1 );
+
+        // Integer in the mapping is really an integer (not a long
+        // as Kettle uses internally)
+        newMeta.setIsLongOrDouble( false );
+      } else if ( decodedType.equalsIgnoreCase( "Long" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_INTEGER, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "BigNumber" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BIGNUMBER, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "Serializable" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_SERIALIZABLE, -1, -1 );
+      } else if ( decodedType.equalsIgnoreCase( "Binary" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BINARY, -1, -1 );
+      } else if ( decodedType.startsWith( "{" ) && decodedType.endsWith( "}" ) ) {
+        newMeta = valueMetaInterfaceFactory
+          .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_STRING, -1, -1 );
+
+        Object[] labels = null;
+        try {
+          labels = byteConversionUtil.stringIndexListToObjects( decodedType );
+        } catch ( IllegalArgumentException ex ) {
+          throw new IOException( "Indexed/nominal type must have at least one " + "label declared" );
         }
+        newMeta.setIndex( labels );
+        newMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_INDEXED );
+      } else {
+        throw new IOException( "Unknown column type : \"" + decodedType + "\"" );
+      }
 
-        String decodedType = byteConversionUtil.toString( c );
-
-        HBaseValueMetaInterface newMeta = null;
-        if ( decodedType.equalsIgnoreCase( "Float" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_NUMBER, -1, -1 );
-
-          // While passing through Kettle this will be represented
-          // as a double
-          newMeta.setIsLongOrDouble( false );
-        } else if ( decodedType.equalsIgnoreCase( "Double" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_NUMBER, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "String" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_STRING, -1, -1 );
-        } else if ( decodedType.toLowerCase().startsWith( "date" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_DATE, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "Boolean" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BOOLEAN, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "Integer" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_INTEGER, -1, -1 );
-
-          // Integer in the mapping is really an integer (not a long
-          // as Kettle uses internally)
-          newMeta.setIsLongOrDouble( false );
-        } else if ( decodedType.equalsIgnoreCase( "Long" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_INTEGER, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "BigNumber" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BIGNUMBER, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "Serializable" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_SERIALIZABLE, -1, -1 );
-        } else if ( decodedType.equalsIgnoreCase( "Binary" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_BINARY, -1, -1 );
-        } else if ( decodedType.startsWith( "{" ) && decodedType.endsWith( "}" ) ) {
-          newMeta = valueMetaInterfaceFactory
-            .createHBaseValueMetaInterface( decodedName, ValueMetaInterface.TYPE_STRING, -1, -1 );
-
-          Object[] labels = null;
-          try {
-            labels = byteConversionUtil.stringIndexListToObjects( decodedType );
-          } catch ( IllegalArgumentException ex ) {
-            throw new IOException( "Indexed/nominal type must have at least one " + "label declared" );
-          }
-          newMeta.setIndex( labels );
-          newMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_INDEXED );
+      newMeta.setTableName( tableName );
+      newMeta.setMappingName( mappingName );
+      // check that this one doesn't have the same name as the key!
+      String alias = newMeta.getAlias();
+      if ( !Mapping.TupleMapping.KEY.toString().equalsIgnoreCase( alias ) ) {
+        if ( resultMapping.getKeyName().equals( alias ) ) {
+          throw new IOException( "Error in mapping. Column \"" + newMeta.getAlias()
+            + "\" has the same name as the table key (" + resultMapping.getKeyName() + ")" );
         } else {
-          throw new IOException( "Unknown column type : \"" + decodedType + "\"" );
+          resultCols.put( newMeta.getAlias(), newMeta );
         }
+      }
+    }
 
-        newMeta.setTableName( tableName );
-        newMeta.setMappingName( mappingName );
-        // check that this one doesn't have the same name as the key!
-        String alias = newMeta.getAlias();
-        if ( !Mapping.TupleMapping.KEY.toString().equalsIgnoreCase( alias ) ) {
-          if ( resultMapping.getKeyName().equals( alias ) ) {
-            throw new IOException( "Error in mapping. Column \"" + newMeta.getAlias()
-              + "\" has the same name as the table key (" + resultMapping.getKeyName() + ")" );
-          } else {
-            resultCols.put( newMeta.getAlias(), newMeta );
+    resultMapping.setMappedColumns( resultCols );
+    return resultMapping;
+  }
+
+  /**
+   * Gets the (cached) mapping rows of a namespace, loading them all with a single scan if required
+   */
+  private Map<String, Map<String, MappingCache.MappingRow>> getNamespaceMappings( String nameSpace )
+    throws Exception {
+    return MappingCache.getInstance().getNamespaceMappings( cacheKey, nameSpace,
+      () -> loadNamespaceMappings( nameSpace ) );
+  }
+
+  private Map<String, Map<String, MappingCache.MappingRow>> loadNamespaceMappings( String nameSpace )
+    throws Exception {
+    ByteConversionUtil byteConversionUtil = hBaseConnection.getByteConversionUtil();
+    Map<String, Map<String, MappingCache.MappingRow>> mappings = new TreeMap<>();
+    try ( HBaseTable hBaseTable = hBaseConnection.getTable( nameSpace + ":" + m_mappingTableName ) ) {
+      if ( hBaseTable.exists() ) {
+        ResultScannerBuilder scannerBuilder = hBaseTable.createScannerBuilder( null, null );
+        scannerBuilder.setCaching( 100 );
+
+        try ( ResultScanner resultScanner = scannerBuilder.build() ) {
+          Result next;
+          while ( ( next = resultScanner.next() ) != null ) {
+            String[] splitKey = byteConversionUtil.splitKey( next.getRow() );
+            mappings.computeIfAbsent( HbaseUtil.parseQualifierFromTableName( splitKey[ 0 ] ), k -> new TreeMap<>() )
+              .put( splitKey[ 1 ], new MappingCache.MappingRow( next.getFamilyMap( KEY_FAMILY_NAME ),
+                next.getFamilyMap( COLUMNS_FAMILY_NAME ) ) );
           }
         }
       }
-
-      resultMapping.setMappedColumns( resultCols );
-      return resultMapping;
     }
+    return mappings;
   }
 
   @Override public void close() throws IOException {
@@ -0,0 +1,225 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.mapping;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the raw mapping definitions stored in the "pentaho_mappings" tables. Entries are held per
+ * connection (named cluster and configuration) and namespace, and are loaded in bulk with a single scan of the
+ * namespace's mapping table. An entry expires after a TTL (KETTLE_HBASE_MAPPING_CACHE_TTL system property, in
+ * milliseconds, 0 disables caching) and is invalidated explicitly whenever a mapping is written or deleted.
+ * <p>
+ * Only the raw column bytes are cached; callers decode a fresh Mapping object from them since steps modify the mapping
+ * they are handed.
+ */
+public class MappingCache {
+
+  public static final String TTL_PROPERTY = "KETTLE_HBASE_MAPPING_CACHE_TTL";
+
+  public static final long DEFAULT_TTL = 60000L;
+
+  private static final MappingCache INSTANCE = new MappingCache();
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private volatile long ttl = Const.toLong( System.getProperty( TTL_PROPERTY ), DEFAULT_TTL );
+
+  MappingCache() {
+  }
+
+  public static MappingCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Builds the cache key identifying a connection
+   *
+   * @param parts
+   *          the values identifying the connection (named cluster name, zookeeper hosts, config urls, ...)
+   * @return the cache key
+   */
+  public static String connectionKey( String... parts ) {
+    StringBuilder key = new StringBuilder();
+    for ( String part : parts ) {
+      key.append( Const.NVL( part, "" ) ).append( '\u0000' );
+    }
+    return key.toString();
+  }
+
+  /**
+   * Builds the cache key identifying the connection to a named cluster. The ZooKeeper settings and config URLs are
+   * substituted first, so that the same step run with other variable values gets a key of its own.
+   *
+   * @param namedCluster
+   *          the named cluster connected to
+   * @param space
+   *          the variables the connection settings are resolved with
+   * @param coreConfigURL
+   *          the (unsubstituted) hbase-site.xml URL, can be null
+   * @param defaultConfigURL
+   *          the (unsubstituted) hbase-default.xml URL, can be null
+   * @return the cache key
+   */
+  public static String connectionKey( NamedCluster namedCluster, VariableSpace space, String coreConfigURL,
+                                      String defaultConfigURL ) {
+    return connectionKey( namedCluster.getName(), space.environmentSubstitute( namedCluster.getZooKeeperHost() ),
+      space.environmentSubstitute( namedCluster.getZooKeeperPort() ), space.environmentSubstitute( coreConfigURL ),
+      space.environmentSubstitute( defaultConfigURL ) );
+  }
+
+  public long getTtl() {
+    return ttl;
+  }
+
+  public void setTtl( long ttl ) {
+    this.ttl = ttl;
+  }
+
+  /**
+   * Gets the mappings defined in a namespace, loading all of them with the supplied loader if they are not cached or
+   * have expired
+   *
+   * @param connectionKey
+   *          the key of the connection
+   * @param namespace
+   *          the namespace
+   * @param loader
+   *          the loader used to scan the namespace's mapping table
+   * @return the mapping rows by table qualifier and mapping name
+   * @throws Exception
+   *           if the loader fails
+   */
+  public Map<String, Map<String, MappingRow>> getNamespaceMappings( String connectionKey, String namespace,
+                                                                    Loader loader ) throws Exception {
+    if ( ttl <= 0 ) {
+      return loader.load();
+    }
+    Entry entry = entries.computeIfAbsent( entryKey( connectionKey, namespace ), k -> new Entry() );
+
+    Snapshot snapshot = entry.snapshot;
+    if ( snapshot != null && !snapshot.isExpired( ttl ) ) {
+      return snapshot.mappings;
+    }
+
+    synchronized ( entry ) {
+      snapshot = entry.snapshot;
+      if ( snapshot != null && !snapshot.isExpired( ttl ) ) {
+        return snapshot.mappings;
+      }
+      long version = entry.version.get();
+      Map<String, Map<String, MappingRow>> loaded = Collections.unmodifiableMap( loader.load() );
+      // a write that happened while we were scanning makes the result stale; hand it out but don't cache it
+      if ( entry.version.get() == version ) {
+        entry.snapshot = new Snapshot( loaded );
+      }
+      return loaded;
+    }
+  }
+
+  /**
+   * Invalidates the cached mappings of a namespace
+   *
+   * @param connectionKey
+   *          the key of the connection, or null to invalidate the namespace for every connection
+   * @param namespace
+   *          the namespace
+   */
+  public void invalidate( String connectionKey, String namespace ) {
+    if ( connectionKey == null ) {
+      String suffix = '\u0001' + namespace;
+      entries.forEach( ( key, entry ) -> {
+        if ( key.endsWith( suffix ) ) {
+          entry.invalidate();
+        }
+      } );
+    } else {
+      Entry entry = entries.get( entryKey( connectionKey, namespace ) );
+      if ( entry != null ) {
+        entry.invalidate();
+      }
+    }
+  }
+
+  /**
+   * Drops every cached mapping
+   */
+  public void invalidateAll() {
+    entries.values().forEach( Entry::invalidate );
+    entries.clear();
+  }
+
+  private static String entryKey( String connectionKey, String namespace ) {
+    return connectionKey + '\u0001' + namespace;
+  }
+
+  /**
+   * Loads every mapping row of a namespace
+   */
+  public interface Loader {
+    Map<String, Map<String, MappingRow>> load() throws Exception;
+  }
+
+  /**
+   * The raw contents of a mapping row: the key family and the columns family
+   */
+  public static class MappingRow {
+    private final NavigableMap<byte[], byte[]> keyColumns;
+    private final NavigableMap<byte[], byte[]> mappedColumns;
+
+    public MappingRow( NavigableMap<byte[], byte[]> keyColumns, NavigableMap<byte[], byte[]> mappedColumns ) {
+      this.keyColumns = keyColumns;
+      this.mappedColumns = mappedColumns;
+    }
+
+    public NavigableMap<byte[], byte[]> getKeyColumns() {
+      return keyColumns;
+    }
+
+    public NavigableMap<byte[], byte[]> getMappedColumns() {
+      return mappedColumns;
+    }
+  }
+
+  private static class Entry {
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private void invalidate() {
+      version.incrementAndGet();
+      snapshot = null;
+    }
+  }
+
+  private static class Snapshot {
+    private final Map<String, Map<String, MappingRow>> mappings;
+    private final long loadedAt = System.currentTimeMillis();
+
+    private Snapshot( Map<String, Map<String, MappingRow>> mappings ) {
+      this.mappings = mappings;
+    }
+
+    private boolean isExpired( long ttl ) {
+      return System.currentTimeMillis() - loadedAt > ttl;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.hbase.table.HBasePut;
+
+/**
+ * A compiled write plan for the mapped (non-key) columns of the incoming row structure. The plan is built once, from
+ * the incoming row meta data and the table mapping, so that adding the columns of a row to a put operation does not
+ * require any mapping lookups or column name handling.
+ */
+public class ColumnWritePlan {
+
+  /** Prefix used in mappings to mark a hex encoded (binary) column name */
+  public static final String BINARY_COLUMN_PREFIX = "@@@binary@@@";
+
+  private final ColumnWriter[] writers;
+
+  /**
+   * Compiles a write plan
+   *
+   * @param inRowMeta
+   *          the incoming kettle row meta data
+   * @param keyIndex
+   *          the index of the key in the incoming row structure
+   * @param columnsMappedByAlias
+   *          the columns in the table mapping
+   * @param mappingName
+   *          the name of the table mapping (used for error reporting)
+   * @throws KettleException
+   *           if an incoming field (other than the key) is not defined in the mapping
+   */
+  public ColumnWritePlan( RowMetaInterface inRowMeta, int keyIndex,
+      Map<String, HBaseValueMetaInterface> columnsMappedByAlias, String mappingName ) throws KettleException {
+    List<ColumnWriter> compiled = new ArrayList<>( inRowMeta.size() );
+
+    for ( int i = 0; i < inRowMeta.size(); i++ ) {
+      if ( i == keyIndex ) {
+        continue;
+      }
+      ValueMetaInterface current = inRowMeta.getValueMeta( i );
+      HBaseValueMetaInterface hbaseColMeta = columnsMappedByAlias.get( current.getName() );
+      if ( hbaseColMeta == null ) {
+        hbaseColMeta = columnsMappedByAlias.get( current.getName().trim() );
+      }
+      if ( hbaseColMeta == null ) {
+        throw new KettleException( BaseMessages.getString( HBaseOutputMeta.PKG,
+            "HBaseOutput.Error.CantFindIncomingField", current.getName(), mappingName ) );
+      }
+      compiled.add( new ColumnWriter( i, current, hbaseColMeta ) );
+    }
+
+    writers = compiled.toArray( new ColumnWriter[ compiled.size() ] );
+  }
+
+  /**
+   * Adds the non-null mapped values of the supplied row to a put operation
+   *
+   * @param kettleRow
+   *          the current incoming kettle row
+   * @param hBasePut
+   *          the put operation to add the columns to
+   * @throws KettleException
+   *           if a problem occurs when adding a column to the put operation
+   */
+  public void addColumnsToPut( Object[] kettleRow, HBasePut hBasePut ) throws KettleException {
+    for ( ColumnWriter writer : writers ) {
+      writer.write( kettleRow, hBasePut );
+    }
+  }
+
+  /**
+   * @return the number of columns written by this plan
+   */
+  public int size() {
+    return writers.length;
+  }
+
+  /**
+   * Strips the binary marker from a column name
+   *
+   * @param columnName
+   *          the column name as defined in the mapping
+   * @return the column name without the binary marker, or the column name itself if it is not binary
+   */
+  public static String stripBinaryPrefix( String columnName ) {
+    return isBinaryColumnName( columnName ) ? columnName.substring( BINARY_COLUMN_PREFIX.length() ) : columnName;
+  }
+
+  /**
+   * @param columnName
+   *          the column name as defined in the mapping
+   * @return true if the column name is a hex encoded (binary) column name
+   */
+  public static boolean isBinaryColumnName( String columnName ) {
+    return columnName.startsWith( BINARY_COLUMN_PREFIX );
+  }
+
+  /**
+   * Writes a single incoming field into a put. Everything that does not depend on the value itself is resolved up
+   * front.
+   */
+  static class ColumnWriter {
+    private final int index;
+    private final ValueMetaInterface inMeta;
+    private final HBaseValueMetaInterface colMeta;
+    private final String family;
+    private final String qualifier;
+    private final boolean binaryQualifier;
+
+    /**
+     * A Java null is the only null representation for normal storage non-string values, so the (virtual) isNull()
+     * check on the value meta can be skipped for those
+     */
+    private final boolean plainNullCheck;
+
+    ColumnWriter( int index, ValueMetaInterface inMeta, HBaseValueMetaInterface colMeta ) {
+      this.index = index;
+      this.inMeta = inMeta;
+      this.colMeta = colMeta;
+      this.family = colMeta.getColumnFamily();
+      this.binaryQualifier = isBinaryColumnName( colMeta.getColumnName() );
+      this.qualifier = stripBinaryPrefix( colMeta.getColumnName() );
+      this.plainNullCheck =
+          inMeta.getStorageType() == ValueMetaInterface.STORAGE_TYPE_NORMAL && !inMeta.isString();
+    }
+
+    void write( Object[] kettleRow, HBasePut hBasePut ) throws KettleException {
+      Object value = kettleRow[index];
+      if ( plainNullCheck ? value == null : inMeta.isNull( value ) ) {
+        return;
+      }
+      byte[] encoded = colMeta.encodeColumnValue( value, inMeta );
+
+      try {
+        hBasePut.addColumn( family, qualifier, binaryQualifier, encoded );
+      } catch ( Exception ex ) {
+        throw new KettleException( BaseMessages.getString( HBaseOutputMeta.PKG,
+            "HBaseOutput.Error.UnableToAddColumnToTargetTablePut" ), ex );
+      }
+    }
+  }
+}
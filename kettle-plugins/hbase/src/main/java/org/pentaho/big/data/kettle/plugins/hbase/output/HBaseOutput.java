@@ -19,7 +19,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.big.data.kettle.plugins.hbase.HBaseConnectionPool;
 import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingAdmin;
+import org.pentaho.big.data.kettle.plugins.hbase.mapping.MappingCache;
 import org.pentaho.big.data.kettle.plugins.hbase.output.KettleRowToHBaseTuple.FieldException;
 import org.pentaho.hadoop.shim.api.hbase.ByteConversionUtil;
 import org.pentaho.hadoop.shim.api.hbase.HBaseConnection;
@@ -34,6 +36,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -71,6 +74,9 @@ public class HBaseOutput extends BaseStep implements StepInterface {
   /** Byte utilities */
   protected ByteConversionUtil m_bytesUtil;
 
+  /** Key of the connection in the connection pool and mapping cache */
+  protected String m_connectionKey;
+
   /** The mapping admin object for interacting with mapping information */
   protected MappingAdmin m_mappingAdmin;
 
@@ -92,6 +98,9 @@ public class HBaseOutput extends BaseStep implements StepInterface {
   /** Object used when a tuple is supplied as the incoming fields */
   protected KettleRowToHBaseTuple tupleRowConverter;
 
+  /** Compiled encoders for the mapped (non-key) incoming fields */
+  protected ColumnWritePlan m_columnWritePlan;
+
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
 
@@ -151,9 +160,14 @@ public class HBaseOutput extends BaseStep implements StepInterface {
 
         List<String> connectionMessages = new ArrayList<String>();
         hBaseService = namedClusterServiceLocator.getService( m_meta.getNamedCluster(), HBaseService.class );
-        m_hbAdmin =
-            hBaseService.getHBaseConnection( this, environmentSubstitute( m_meta.getCoreConfigURL() ),
-                environmentSubstitute( m_meta.getDefaultConfigURL() ), log );
+        m_connectionKey = MappingCache.connectionKey( m_meta.getNamedCluster(), this, m_meta.getCoreConfigURL(),
+            m_meta.getDefaultConfigURL() );
+        VariableSpace connectionSpace = HBaseConnectionPool.detach( this );
+        m_hbAdmin = HBaseConnectionPool.getInstance().acquire( m_connectionKey,
+            () -> hBaseService.getHBaseConnection( connectionSpace,
+                connectionSpace.environmentSubstitute( m_meta.getCoreConfigURL() ),
+                connectionSpace.environmentSubstitute( m_meta.getDefaultConfigURL() ),
+                HBaseConnectionPool.newLogChannel() ) );
         m_bytesUtil = hBaseService.getByteConversionUtil();
 
         if ( connectionMessages.size() > 0 ) {
@@ -166,7 +180,7 @@ public class HBaseOutput extends BaseStep implements StepInterface {
             "HBaseOutput.Error.UnableToObtainConnection", ex.getMessage() ), ex );
       }
       try {
-        m_mappingAdmin = new MappingAdmin( m_hbAdmin );
+        m_mappingAdmin = new MappingAdmin( m_hbAdmin, m_connectionKey );
       } catch ( Exception ex ) {
         throw new KettleException( BaseMessages.getString( HBaseOutputMeta.PKG,
             "HBaseOutput.Error.UnableToObtainConnection", ex.getMessage() ), ex );
@@ -257,6 +271,11 @@ public class HBaseOutput extends BaseStep implements StepInterface {
                   .getMappingName() ) );
         }
 
+        if ( !m_meta.getDeleteRowKey() ) {
+          m_columnWritePlan =
+              new ColumnWritePlan( inMeta, m_incomingKeyIndex, m_columnsMappedByAlias, m_tableMapping.getMappingName() );
+        }
+
       }
 
       try {
@@ -371,8 +390,7 @@ public class HBaseOutput extends BaseStep implements StepInterface {
         }
 
         // now encode the rest of the fields. Nulls do not get inserted of course
-        HBaseOutputData.addColumnsToPut( getInputRowMeta(), r, m_incomingKeyIndex, m_columnsMappedByAlias, hBasePut,
-            m_bytesUtil );
+        m_columnWritePlan.addColumnsToPut( r, hBasePut );
       }
 
       try {
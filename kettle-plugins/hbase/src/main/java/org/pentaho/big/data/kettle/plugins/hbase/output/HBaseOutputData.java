@@ -22,7 +22,6 @@ import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
-import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -105,34 +104,13 @@ public class HBaseOutputData extends BaseStepData implements StepDataInterface {
    *          the byte util shim to use for conversion to and from byte arrays
    * @throws KettleException
    *           if a problem occurs when adding a column to the put operation
+   * @see ColumnWritePlan for a version that is compiled once and reused for every row
    */
   public static void addColumnsToPut( RowMetaInterface inRowMeta, Object[] kettleRow, int keyIndex,
       Map<String, HBaseValueMetaInterface> columnsMappedByAlias, HBasePut hBasePut, ByteConversionUtil bu )
     throws KettleException {
 
-    for ( int i = 0; i < inRowMeta.size(); i++ ) {
-      ValueMetaInterface current = inRowMeta.getValueMeta( i );
-      if ( i != keyIndex && !current.isNull( kettleRow[i] ) ) {
-        HBaseValueMetaInterface hbaseColMeta = columnsMappedByAlias.get( current.getName() );
-        String columnFamily = hbaseColMeta.getColumnFamily();
-        String columnName = hbaseColMeta.getColumnName();
-
-        boolean binaryColName = false;
-        if ( columnName.startsWith( "@@@binary@@@" ) ) {
-          // assume hex encoded column name
-          columnName = columnName.replace( "@@@binary@@@", "" );
-          binaryColName = true;
-        }
-        byte[] encoded = hbaseColMeta.encodeColumnValue( kettleRow[i], current );
-
-        try {
-          hBasePut.addColumn( columnFamily, columnName, binaryColName, encoded );
-        } catch ( Exception ex ) {
-          throw new KettleException( BaseMessages.getString( HBaseOutputMeta.PKG,
-              "HBaseOutput.Error.UnableToAddColumnToTargetTablePut" ), ex );
-        }
-      }
-    }
+    new ColumnWritePlan( inRowMeta, keyIndex, columnsMappedByAlias, null ).addColumnsToPut( kettleRow, hBasePut );
   }
 
   public static URL stringToURL( String pathOrURL ) throws MalformedURLException {
@@ -143,12 +143,11 @@ public class KettleRowToHBaseTuple {
     // Note: Families must always be string with the implementation of HBasePut
     String columnFamily = familyInMeta.getString( row[familyIndex] );
 
-    boolean binaryColName = false;
+    // assume hex encoded column name if it carries the binary marker
     String columnName = columnInMeta.getString( row[columnIndex] );
-    if ( columnName.startsWith( "@@@binary@@@" ) ) {
-      // assume hex encoded column name
-      columnName = columnName.replace( "@@@binary@@@", "" );
-      binaryColName = true;
+    boolean binaryColName = ColumnWritePlan.isBinaryColumnName( columnName );
+    if ( binaryColName ) {
+      columnName = ColumnWritePlan.stripBinaryPrefix( columnName );
     }
 
     byte[] encodedValue = valueMeta.encodeColumnValue( row[valueIndex], valueInMeta );
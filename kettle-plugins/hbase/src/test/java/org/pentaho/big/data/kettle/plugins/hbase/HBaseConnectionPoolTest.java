@@ -0,0 +1,171 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase;
+
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.hbase.HBaseConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class HBaseConnectionPoolTest {
+
+  @Test
+  public void testLeasesShareConnection() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 60000L );
+    HBaseConnection connection = mock( HBaseConnection.class );
+    int[] created = new int[ 1 ];
+    HBaseConnectionPool.ConnectionFactory factory = () -> {
+      created[ 0 ]++;
+      return connection;
+    };
+
+    HBaseConnection first = pool.acquire( "cluster", factory );
+    HBaseConnection second = pool.acquire( "cluster", factory );
+    assertEquals( 1, created[ 0 ] );
+    assertEquals( 2, pool.getReferenceCount( "cluster" ) );
+    assertNotSame( first, second );
+
+    first.getByteConversionUtil();
+    verify( connection ).getByteConversionUtil();
+
+    first.close();
+    first.close();
+    assertEquals( 1, pool.getReferenceCount( "cluster" ) );
+    second.close();
+    assertEquals( 0, pool.getReferenceCount( "cluster" ) );
+    verify( connection, never() ).close();
+
+    // still idle, so leasing again health checks and reuses the live connection
+    pool.acquire( "cluster", factory ).close();
+    assertEquals( 1, created[ 0 ] );
+    verify( connection ).checkHBaseAvailable();
+  }
+
+  @Test
+  public void testEvictIdle() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 1L );
+    HBaseConnection connection = mock( HBaseConnection.class );
+
+    HBaseConnection lease = pool.acquire( "cluster", () -> connection );
+    pool.evictIdle();
+    assertEquals( 1, pool.size() );
+
+    lease.close();
+    Thread.sleep( 5L );
+    pool.evictIdle();
+    assertEquals( 0, pool.size() );
+    verify( connection, times( 1 ) ).close();
+  }
+
+  @Test
+  public void testUnhealthyConnectionIsReplaced() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 60000L );
+    HBaseConnection broken = mock( HBaseConnection.class );
+    doThrow( new RuntimeException() ).when( broken ).checkHBaseAvailable();
+    HBaseConnection fresh = mock( HBaseConnection.class );
+
+    pool.acquire( "cluster", () -> broken ).close();
+    pool.acquire( "cluster", () -> fresh ).getMappingFactory();
+
+    verify( broken ).close();
+    verify( fresh ).getMappingFactory();
+  }
+
+  @Test
+  public void testPoolingDisabled() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 0L );
+    HBaseConnection connection = mock( HBaseConnection.class );
+    pool.acquire( "cluster", () -> connection ).close();
+    verify( connection ).close();
+    assertEquals( 0, pool.size() );
+  }
+
+  @Test
+  public void testConcurrentLeases() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 60000L );
+    HBaseConnection connection = mock( HBaseConnection.class );
+    AtomicInteger created = new AtomicInteger();
+    HBaseConnectionPool.ConnectionFactory factory = () -> {
+      created.incrementAndGet();
+      return connection;
+    };
+    int threads = 8;
+    int leasesPerThread = 200;
+    CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( threads );
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for ( int i = 0; i < threads; i++ ) {
+        futures.add( executor.submit( () -> {
+          start.await();
+          for ( int j = 0; j < leasesPerThread; j++ ) {
+            HBaseConnection lease = pool.acquire( "cluster", factory );
+            lease.getTable( "table" );
+            lease.close();
+          }
+          return null;
+        } ) );
+      }
+      start.countDown();
+      for ( Future<?> future : futures ) {
+        future.get( 30, TimeUnit.SECONDS );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals( 1, created.get() );
+    assertEquals( 0, pool.getReferenceCount( "cluster" ) );
+    verify( connection, times( threads * leasesPerThread ) ).getTable( "table" );
+    verify( connection, never() ).close();
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    HBaseConnectionPool pool = new HBaseConnectionPool( 60000L );
+    HBaseConnection idle = mock( HBaseConnection.class );
+    HBaseConnection leased = mock( HBaseConnection.class );
+    pool.acquire( "idle", () -> idle ).close();
+    HBaseConnection lease = pool.acquire( "leased", () -> leased );
+    assertTrue( pool.isEvictorRunning() );
+
+    pool.shutdown();
+    assertFalse( pool.isEvictorRunning() );
+    verify( idle ).close();
+    verify( leased, never() ).close();
+    assertEquals( 1, pool.size() );
+
+    lease.close();
+    pool.acquire( "idle", () -> idle ).close();
+    assertTrue( pool.isEvictorRunning() );
+    pool.shutdown();
+  }
+}
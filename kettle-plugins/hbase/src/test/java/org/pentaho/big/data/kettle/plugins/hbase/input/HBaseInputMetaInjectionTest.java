@@ -69,6 +69,21 @@ public class HBaseInputMetaInjectionTest extends BaseMetadataInjectionTest<HBase
         return meta.getKeyStopValue();
       }
     } );
+    check( "KEY_PREFIX", new StringGetter() {
+      public String get() {
+        return meta.getKeyPrefix();
+      }
+    } );
+    check( "KEY_RANGES", new StringGetter() {
+      public String get() {
+        return meta.getKeyRanges();
+      }
+    } );
+    check( "KEY_RANGES_FIELD", new StringGetter() {
+      public String get() {
+        return meta.getKeyRangesField();
+      }
+    } );
     check( "SCANNER_ROW_CACHE_SIZE", new StringGetter() {
       public String get() {
         return meta.getScannerCacheSize();
@@ -0,0 +1,152 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.input;
+
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScanner;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScanRangeTest {
+
+  @Test
+  public void testParseSingleKeyAndRanges() {
+    List<ScanRange> ranges = ScanRange.parseList( "k1; a..c\n..m ;x..;; k1" );
+    assertEquals( 4, ranges.size() );
+
+    assertTrue( ranges.get( 0 ).isSingleKey() );
+    assertEquals( "k1", ranges.get( 0 ).getStart() );
+    assertEquals( new ScanRange( "a", "c" ), ranges.get( 1 ) );
+    assertEquals( new ScanRange( null, "m" ), ranges.get( 2 ) );
+    assertEquals( new ScanRange( "x", null ), ranges.get( 3 ) );
+  }
+
+  @Test
+  public void testPrefixRange() {
+    ScanRange range = ScanRange.forPrefix( "user42|" );
+    assertEquals( "user42|", range.getStart() );
+    assertEquals( "user42}", range.getStop() );
+    assertNull( ScanRange.forPrefix( "" ) );
+  }
+
+  @Test
+  public void testPrefixSuccessorSkipsMaximalCodePoints() {
+    String max = new String( Character.toChars( Character.MAX_CODE_POINT ) );
+    assertEquals( "b", ScanRange.prefixSuccessor( "a" + max ) );
+    assertNull( ScanRange.prefixSuccessor( max ) );
+  }
+
+  @Test
+  public void testScanRangesFallBackToStartStop() {
+    List<ScanRange> ranges = HBaseInputData.getScanRanges( "a", "f", null, null, null );
+    assertEquals( Arrays.asList( new ScanRange( "a", "f" ) ), ranges );
+  }
+
+  @Test
+  public void testScanRangesCombineSources() {
+    List<ScanRange> ranges =
+      HBaseInputData.getScanRanges( "a", "f", "p", "k1;k2", Arrays.asList( "k2", "r..t", "" ) );
+    assertEquals( Arrays.asList( new ScanRange( "p", "q" ), new ScanRange( "k1", "k1" ), new ScanRange( "k2", "k2" ),
+      new ScanRange( "r", "t" ) ), ranges );
+  }
+
+  @Test
+  public void testNoRangesWithoutIncomingKeys() {
+    assertEquals( Collections.emptyList(),
+      HBaseInputData.getScanRanges( "a", "f", null, null, Collections.<String>emptyList() ) );
+    assertEquals( Collections.emptyList(), HBaseInputData.getScanRanges( null, null, null, " ; ", null ) );
+  }
+
+  @Test
+  public void testMergeStringRanges() {
+    List<ScanRange> merged = ScanRange.mergeStringRanges( Arrays.asList( ScanRange.forPrefix( "p" ),
+      new ScanRange( "pa", "pc" ), new ScanRange( "k1", "k1" ), new ScanRange( "k1", "k2" ), new ScanRange( "a", "b" ),
+      new ScanRange( "b", "c" ), new ScanRange( "x", "x" ), new ScanRange( null, "0" ) ) );
+
+    assertEquals( Arrays.asList( new ScanRange( null, "0" ), new ScanRange( "a", "c" ), new ScanRange( "k1", "k2" ),
+      new ScanRange( "p", "q" ), new ScanRange( "x", "x\u0000" ) ), merged );
+    assertEquals( Arrays.asList( new ScanRange( "a", null ) ),
+      ScanRange.mergeStringRanges( Arrays.asList( new ScanRange( "a", null ), new ScanRange( "b", "c" ) ) ) );
+  }
+
+  @Test
+  public void testKeyOrderFollowsCodePoints() {
+    // a supplementary character sorts after U+FFFD in UTF-8, not before it as with String.compareTo
+    String supplementary = new String( Character.toChars( 0x1F600 ) );
+    assertTrue( ScanRange.KEY_ORDER.compare( "\uFFFD", supplementary ) < 0 );
+    assertTrue( ScanRange.KEY_ORDER.compare( "k1", "k1\u0000" ) < 0 );
+    assertTrue( ScanRange.KEY_ORDER.compare( "k1\u0000", "k10" ) < 0 );
+  }
+
+  @Test
+  public void testSingleKeyScanReadsItsRow() throws Exception {
+    List<byte[]> rows = new ArrayList<>();
+    for ( String row : new String[] { "k0", "k1", "k10", "k2" } ) {
+      rows.add( row.getBytes( StandardCharsets.UTF_8 ) );
+    }
+    HBaseTable table = mock( HBaseTable.class );
+    ResultScannerBuilder scannerBuilder = mock( ResultScannerBuilder.class );
+    when( table.createScannerBuilder( any( byte[].class ), any( byte[].class ) ) ).thenAnswer( invocation -> {
+      // the rows a region server returns: from the start row included to the stop row excluded
+      byte[] start = invocation.getArgument( 0 );
+      byte[] stop = invocation.getArgument( 1 );
+      Iterator<byte[]> matching = rows.stream()
+        .filter( row -> compare( row, start ) >= 0 && compare( row, stop ) < 0 ).iterator();
+      ResultScanner scanner = mock( ResultScanner.class );
+      when( scanner.next() ).thenAnswer( next -> {
+        if ( !matching.hasNext() ) {
+          return null;
+        }
+        Result result = mock( Result.class );
+        when( result.getRow() ).thenReturn( matching.next() );
+        return result;
+      } );
+      when( scannerBuilder.build() ).thenReturn( scanner );
+      return scannerBuilder;
+    } );
+
+    ResultScanner scanner =
+      HBaseInputData.createKeyScannerBuilder( table, "k1".getBytes( StandardCharsets.UTF_8 ) ).build();
+
+    assertEquals( "k1", new String( scanner.next().getRow(), StandardCharsets.UTF_8 ) );
+    assertNull( scanner.next() );
+    verify( scannerBuilder ).setCaching( 1 );
+  }
+
+  private static int compare( byte[] a, byte[] b ) {
+    for ( int i = 0; i < Math.min( a.length, b.length ); i++ ) {
+      int cmp = ( a[ i ] & 0xff ) - ( b[ i ] & 0xff );
+      if ( cmp != 0 ) {
+        return cmp;
+      }
+    }
+    return a.length - b.length;
+  }
+}
@@ -0,0 +1,118 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.hadoop.shim.api.hbase.Result;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.hbase.table.HBaseTable;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScanner;
+import org.pentaho.hadoop.shim.api.hbase.table.ResultScannerBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HBaseLookupDataTest {
+
+  private HBaseLookupData data;
+  private HBaseTable table;
+  private ResultScannerBuilder scannerBuilder;
+  private ResultScanner scanner;
+
+  @Before
+  public void setUp() throws Exception {
+    HBaseValueMetaInterface column = mock( HBaseValueMetaInterface.class );
+    when( column.getColumnFamily() ).thenReturn( "f" );
+    when( column.getColumnName() ).thenReturn( "q" );
+    when( column.decodeColumnValue( any() ) ).thenAnswer( invocation -> {
+      byte[] value = invocation.getArgument( 0 );
+      return value == null ? null : new String( value );
+    } );
+
+    data = new HBaseLookupData();
+    data.setColumns( Collections.singletonList( column ) );
+
+    table = mock( HBaseTable.class );
+    scannerBuilder = mock( ResultScannerBuilder.class );
+    scanner = mock( ResultScanner.class );
+    when( table.createScannerBuilder( any( byte[].class ), any( byte[].class ) ) ).thenReturn( scannerBuilder );
+    when( scannerBuilder.build() ).thenReturn( scanner );
+  }
+
+  private static Result result( String key, String value ) throws Exception {
+    Result result = mock( Result.class );
+    when( result.getRow() ).thenReturn( key.getBytes() );
+    when( result.getValue( "f", "q", false ) ).thenReturn( value.getBytes() );
+    return result;
+  }
+
+  private static ByteBuffer key( String key ) {
+    return ByteBuffer.wrap( key.getBytes() );
+  }
+
+  @Test
+  public void testRangeScanFetchesBatchWithOneScan() throws Exception {
+    Result a = result( "a", "1" );
+    Result b = result( "b", "unwanted" );
+    Result c = result( "c", "3" );
+    Result z = result( "z", "26" );
+    when( scanner.next() ).thenReturn( a, b, c, z, null );
+
+    Map<ByteBuffer, Object[]> found = data.lookup( table, Arrays.asList( key( "c" ), key( "a" ), key( "z" ) ), true );
+
+    // the stop row is exclusive, so the scan must stop just after the last key
+    verify( table ).createScannerBuilder( "a".getBytes(), new byte[] { 'z', 0 } );
+    verify( scannerBuilder ).setCaching( 3 );
+    verify( scannerBuilder ).addColumnToScan( "f", "q", false );
+    assertEquals( 3, found.size() );
+    assertEquals( "1", found.get( key( "a" ) )[ 0 ] );
+    assertEquals( "3", found.get( key( "c" ) )[ 0 ] );
+    assertEquals( "26", found.get( key( "z" ) )[ 0 ] );
+    assertFalse( found.containsKey( key( "b" ) ) );
+  }
+
+  @Test
+  public void testPointReadsPerKey() throws Exception {
+    Result a = result( "a", "1" );
+    when( scanner.next() ).thenReturn( a, null, null );
+
+    Map<ByteBuffer, Object[]> found = data.lookup( table, Arrays.asList( key( "a" ), key( "b" ) ), false );
+
+    verify( table ).createScannerBuilder( "a".getBytes(), new byte[] { 'a', 0 } );
+    verify( table ).createScannerBuilder( "b".getBytes(), new byte[] { 'b', 0 } );
+    verify( scanner, times( 2 ) ).close();
+    assertEquals( 1, found.size() );
+    assertEquals( "1", found.get( key( "a" ) )[ 0 ] );
+  }
+
+  @Test
+  public void testKeyOrderIsUnsigned() {
+    ByteBuffer low = ByteBuffer.wrap( new byte[] { 0x01 } );
+    ByteBuffer high = ByteBuffer.wrap( new byte[] { (byte) 0xF0 } );
+    assertTrue( HBaseLookupData.KEY_ORDER.compare( low, high ) < 0 );
+    assertTrue( HBaseLookupData.KEY_ORDER.compare( key( "ab" ), key( "a" ) ) > 0 );
+  }
+}
@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.lookup;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LookupCacheTest {
+
+  private static ByteBuffer key( String key ) {
+    return ByteBuffer.wrap( key.getBytes() );
+  }
+
+  @Test
+  public void testDisabledCacheStoresNothing() {
+    LookupCache cache = new LookupCache( 0, 0 );
+    assertFalse( cache.isEnabled() );
+    cache.put( key( "a" ), new Object[] { "1" } );
+    assertNull( cache.get( key( "a" ) ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testHitsAndNegativeEntries() {
+    LookupCache cache = new LookupCache( 10, 0 );
+    Object[] values = { "1" };
+    cache.put( key( "a" ), values );
+    cache.put( key( "b" ), null );
+
+    assertArrayEquals( values, cache.get( key( "a" ) ) );
+    assertSame( LookupCache.NOT_FOUND, cache.get( key( "b" ) ) );
+    assertNull( cache.get( key( "c" ) ) );
+    assertEquals( 2, cache.getHits() );
+    assertEquals( 1, cache.getMisses() );
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    LookupCache cache = new LookupCache( 2, 0 );
+    cache.put( key( "a" ), new Object[] { "1" } );
+    cache.put( key( "b" ), new Object[] { "2" } );
+    cache.get( key( "a" ) );
+    cache.put( key( "c" ), new Object[] { "3" } );
+
+    assertEquals( 2, cache.size() );
+    assertNull( cache.get( key( "b" ) ) );
+    assertEquals( "1", cache.get( key( "a" ) )[ 0 ] );
+    assertEquals( "3", cache.get( key( "c" ) )[ 0 ] );
+  }
+
+  @Test
+  public void testExpiredEntriesAreDropped() throws InterruptedException {
+    LookupCache cache = new LookupCache( 10, 1 );
+    cache.put( key( "a" ), new Object[] { "1" } );
+    Thread.sleep( 20 );
+    assertNull( cache.get( key( "a" ) ) );
+    assertEquals( 0, cache.size() );
+  }
+}
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.mapping;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappingCacheTest {
+
+  private MappingCache cache;
+  private AtomicInteger loads;
+  private MappingCache.Loader loader;
+
+  @Before
+  public void setUp() {
+    cache = new MappingCache();
+    cache.setTtl( 60000L );
+    loads = new AtomicInteger();
+    loader = () -> {
+      loads.incrementAndGet();
+      Map<String, Map<String, MappingCache.MappingRow>> mappings = new HashMap<>();
+      mappings.put( "table", new HashMap<>() );
+      mappings.get( "table" ).put( "mapping", new MappingCache.MappingRow( null, null ) );
+      return mappings;
+    };
+  }
+
+  @Test
+  public void testLoadsOncePerNamespace() throws Exception {
+    Map<String, Map<String, MappingCache.MappingRow>> first = cache.getNamespaceMappings( "conn", "default", loader );
+    Map<String, Map<String, MappingCache.MappingRow>> second = cache.getNamespaceMappings( "conn", "default", loader );
+    assertEquals( 1, loads.get() );
+    assertTrue( second.get( "table" ).containsKey( "mapping" ) );
+    assertEquals( first, second );
+
+    cache.getNamespaceMappings( "conn", "other", loader );
+    cache.getNamespaceMappings( "conn2", "default", loader );
+    assertEquals( 3, loads.get() );
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    cache.getNamespaceMappings( "conn", "default", loader );
+    cache.getNamespaceMappings( "conn", "other", loader );
+    cache.invalidate( "conn", "default" );
+    cache.getNamespaceMappings( "conn", "default", loader );
+    cache.getNamespaceMappings( "conn", "other", loader );
+    assertEquals( 3, loads.get() );
+
+    cache.invalidate( null, "other" );
+    cache.getNamespaceMappings( "conn", "other", loader );
+    assertEquals( 4, loads.get() );
+
+    cache.invalidateAll();
+    cache.getNamespaceMappings( "conn", "default", loader );
+    assertEquals( 5, loads.get() );
+  }
+
+  @Test
+  public void testWriteDuringLoadIsNotCached() throws Exception {
+    cache.getNamespaceMappings( "conn", "default", () -> {
+      cache.invalidate( "conn", "default" );
+      return loader.load();
+    } );
+    cache.getNamespaceMappings( "conn", "default", loader );
+    assertEquals( 2, loads.get() );
+  }
+
+  @Test
+  public void testTtl() throws Exception {
+    cache.setTtl( 0 );
+    cache.getNamespaceMappings( "conn", "default", loader );
+    cache.getNamespaceMappings( "conn", "default", loader );
+    assertEquals( 2, loads.get() );
+  }
+
+  @Test
+  public void testConnectionKey() {
+    assertEquals( MappingCache.connectionKey( "a", null ), MappingCache.connectionKey( "a", "" ) );
+    assertNotEquals( MappingCache.connectionKey( "ab", "c" ), MappingCache.connectionKey( "a", "bc" ) );
+  }
+
+  @Test
+  public void testConnectionKeyIsSubstituted() {
+    NamedCluster namedCluster = mock( NamedCluster.class );
+    when( namedCluster.getName() ).thenReturn( "cluster" );
+    when( namedCluster.getZooKeeperHost() ).thenReturn( "${ZK_HOST}" );
+    when( namedCluster.getZooKeeperPort() ).thenReturn( "2181" );
+    Variables dev = new Variables();
+    dev.setVariable( "ZK_HOST", "dev-zk" );
+    dev.setVariable( "SITE", "file:///dev/hbase-site.xml" );
+    Variables prod = new Variables();
+    prod.setVariable( "ZK_HOST", "prod-zk" );
+    prod.setVariable( "SITE", "file:///dev/hbase-site.xml" );
+
+    assertEquals( MappingCache.connectionKey( "cluster", "dev-zk", "2181", "file:///dev/hbase-site.xml", null ),
+      MappingCache.connectionKey( namedCluster, dev, "${SITE}", null ) );
+    assertNotEquals( MappingCache.connectionKey( namedCluster, dev, "${SITE}", null ),
+      MappingCache.connectionKey( namedCluster, prod, "${SITE}", null ) );
+  }
+}
@@ -0,0 +1,116 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hbase.output;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.hadoop.shim.api.hbase.meta.HBaseValueMetaInterface;
+import org.pentaho.hadoop.shim.api.hbase.table.HBasePut;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ColumnWritePlanTest {
+
+  private RowMetaInterface inRowMeta;
+  private Map<String, HBaseValueMetaInterface> columns;
+  private HBaseValueMetaInterface countColumn;
+  private HBaseValueMetaInterface nameColumn;
+
+  @Before
+  public void setup() {
+    inRowMeta = new RowMeta();
+    inRowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    inRowMeta.addValueMeta( new ValueMetaInteger( "count" ) );
+    inRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    countColumn = mock( HBaseValueMetaInterface.class );
+    when( countColumn.getColumnFamily() ).thenReturn( "f" );
+    when( countColumn.getColumnName() ).thenReturn( "cnt" );
+    nameColumn = mock( HBaseValueMetaInterface.class );
+    when( nameColumn.getColumnFamily() ).thenReturn( "f" );
+    when( nameColumn.getColumnName() ).thenReturn( ColumnWritePlan.BINARY_COLUMN_PREFIX + "6e616d65" );
+
+    columns = new HashMap<>();
+    columns.put( "count", countColumn );
+    columns.put( "name", nameColumn );
+  }
+
+  @Test
+  public void testAddColumnsSkipsKeyAndNulls() throws Exception {
+    ColumnWritePlan plan = new ColumnWritePlan( inRowMeta, 0, columns, "mapping" );
+    Assert.assertEquals( 2, plan.size() );
+
+    byte[] encodedCount = new byte[] { 1 };
+    when( countColumn.encodeColumnValue( eq( 5L ), any() ) ).thenReturn( encodedCount );
+
+    HBasePut put = mock( HBasePut.class );
+    plan.addColumnsToPut( new Object[] { "k", 5L, null }, put );
+
+    verify( put, times( 1 ) ).addColumn( "f", "cnt", false, encodedCount );
+    verify( put, never() ).addColumn( eq( "f" ), eq( "6e616d65" ), anyBoolean(), any() );
+  }
+
+  @Test
+  public void testBinaryColumnName() throws Exception {
+    ColumnWritePlan plan = new ColumnWritePlan( inRowMeta, 0, columns, "mapping" );
+
+    byte[] encodedName = new byte[] { 2 };
+    when( nameColumn.encodeColumnValue( eq( "bob" ), any() ) ).thenReturn( encodedName );
+
+    HBasePut put = mock( HBasePut.class );
+    plan.addColumnsToPut( new Object[] { "k", null, "bob" }, put );
+
+    verify( put, times( 1 ) ).addColumn( "f", "6e616d65", true, encodedName );
+    verify( put, never() ).addColumn( eq( "f" ), eq( "cnt" ), anyBoolean(), any() );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testUnmappedField() throws Exception {
+    columns.remove( "name" );
+    new ColumnWritePlan( inRowMeta, 0, columns, "mapping" );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testAddColumnFailure() throws Exception {
+    ColumnWritePlan plan = new ColumnWritePlan( inRowMeta, 0, columns, "mapping" );
+    HBasePut put = mock( HBasePut.class );
+    doThrow( new RuntimeException() ).when( put )
+      .addColumn( anyString(), anyString(), anyBoolean(), any() );
+    plan.addColumnsToPut( new Object[] { "k", 5L, null }, put );
+  }
+
+  @Test
+  public void testStripBinaryPrefix() {
+    Assert.assertEquals( "abc", ColumnWritePlan.stripBinaryPrefix( ColumnWritePlan.BINARY_COLUMN_PREFIX + "abc" ) );
+    Assert.assertEquals( "abc", ColumnWritePlan.stripBinaryPrefix( "abc" ) );
+  }
+}
@@ -14,8 +14,16 @@
 package org.pentaho.big.data.kettle.plugins.hdfs.job;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Result;
+import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.annotations.JobEntry;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.job.entries.copyfiles.JobEntryCopyFiles;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
@@ -23,9 +31,11 @@ import org.pentaho.metastore.api.IMetaStore;
 import org.pentaho.runtime.test.RuntimeTester;
 import org.pentaho.runtime.test.action.RuntimeTestActionService;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 @JobEntry( id = "HadoopCopyFilesPlugin", image = "HDM.svg", name = "HadoopCopyFilesPlugin.Name",
   description = "HadoopCopyFilesPlugin.Description",
@@ -34,8 +44,17 @@ import java.util.Objects;
   documentationUrl = "mk-95pdia003/pdi-job-entries/hadoop-copy-files" )
 public class JobEntryHadoopCopyFiles extends JobEntryCopyFiles {
 
+  private static final Class<?> PKG = JobEntryHadoopCopyFiles.class;
+
   public static final String S3_SOURCE_FILE = "S3-SOURCE-FILE-";
   public static final String S3_DEST_FILE = "S3-DEST-FILE-";
+
+  /**
+   * Variables tuning the copy: above one worker the files are copied in parallel by {@link ParallelFileCopier}
+   */
+  public static final String COPY_THREADS_VARIABLE = "KETTLE_HADOOP_COPY_THREADS";
+  public static final String COPY_CHUNK_SIZE_VARIABLE = "KETTLE_HADOOP_COPY_CHUNK_SIZE";
+  public static final String COPY_VERIFY_CHECKSUM_VARIABLE = "KETTLE_HADOOP_COPY_VERIFY_CHECKSUM";
   private final NamedClusterService namedClusterService;
   private final RuntimeTestActionService runtimeTestActionService;
   private final RuntimeTester runtimeTester;
@@ -109,6 +128,125 @@ public class JobEntryHadoopCopyFiles extends JobEntryCopyFiles {
       : super.saveURL( url, ncName, metastore, mappings );
   }
 
+  /**
+   * Copies with a pool of workers when {@link #COPY_THREADS_VARIABLE} asks for more than one, otherwise (or when the
+   * files come from the previous result) copies like the regular Copy Files job entry.
+   */
+  @Override
+  public Result execute( Result previousResult, int nr ) throws KettleException {
+    int workers = Const.toInt( environmentSubstitute( getVariable( COPY_THREADS_VARIABLE ) ), 1 );
+    if ( workers <= 1 || arg_from_previous || source_filefolder == null ) {
+      return super.execute( previousResult, nr );
+    }
+
+    Result result = previousResult;
+    result.setNrErrors( 1 );
+    result.setResult( false );
+
+    ParallelFileCopier copier = new ParallelFileCopier( workers,
+      Const.toInt( environmentSubstitute( getVariable( COPY_CHUNK_SIZE_VARIABLE ) ),
+        ParallelFileCopier.DEFAULT_CHUNK_SIZE ), log );
+    copier.setOverwrite( overwrite_files );
+    copier.setMove( remove_source_files );
+    copier.setIncludeSubfolders( include_subfolders );
+    copier.setCopyEmptyFolders( copy_empty_folders );
+    copier.setVerifyChecksum( "Y".equalsIgnoreCase( environmentSubstitute( getVariable(
+      COPY_VERIFY_CHECKSUM_VARIABLE ) ) ) );
+
+    long errors = 0;
+    for ( int i = 0; i < source_filefolder.length && !parentJob.isStopped(); i++ ) {
+      String source = environmentSubstitute( stripUrlPrefix( source_filefolder[ i ] ) );
+      String destination = environmentSubstitute( stripUrlPrefix( destination_filefolder[ i ] ) );
+      if ( Utils.isEmpty( source ) || Utils.isEmpty( destination ) ) {
+        continue;
+      }
+      String wildcardValue = wildcard == null ? null : environmentSubstitute( wildcard[ i ] );
+      try {
+        if ( !plan( copier, source, destination,
+          Utils.isEmpty( wildcardValue ) ? null : Pattern.compile( wildcardValue ) ) ) {
+          errors++;
+        }
+      } catch ( IOException e ) {
+        errors++;
+        logError( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Error.Exception.CopyProcess", source,
+          destination, e.getMessage() ), e );
+      }
+    }
+
+    logBasic( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.ParallelCopy", copier.getTaskCount(), workers ) );
+    ParallelFileCopier.CopyReport report;
+    try {
+      report = copier.run( parentJob::isStopped );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    logBasic( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.Report", report.getElapsedMillis(),
+      report.getFilesCopied(), report.getFilesMoved(), report.getFilesSkipped(), report.getFilesFailed(),
+      report.getBytes(), report.getThroughput() ) );
+
+    if ( add_result_filesname ) {
+      for ( FileObject target : copier.getTargets() ) {
+        ResultFile resultFile =
+          new ResultFile( ResultFile.FILE_TYPE_GENERAL, target, parentJob.getJobname(), toString() );
+        result.getResultFiles().put( resultFile.getFile().toString(), resultFile );
+      }
+    }
+    errors += report.getFilesFailed();
+    result.setNrFilesRetrieved( report.getFilesCopied() + report.getFilesMoved() );
+    result.setNrErrors( errors );
+    result.setResult( errors == 0 && !parentJob.isStopped() );
+    return result;
+  }
+
+  /**
+   * Resolves the source and the target of one row of the entry the way the regular Copy Files does and plans the copy
+   *
+   * @return false if the row can't be copied
+   */
+  private boolean plan( ParallelFileCopier copier, String source, String destination, Pattern wildcard )
+    throws IOException {
+    FileObject sourceFile = KettleVFS.getFileObject( source, this );
+    FileObject destinationFile = KettleVFS.getFileObject( destination, this );
+    if ( !sourceFile.exists() ) {
+      logError( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Error.SourceFileNotExists", source ) );
+      return false;
+    }
+    if ( sourceFile.isFile() && destination_is_a_file ) {
+      copier.add( sourceFile, destinationFile, wildcard );
+      return true;
+    }
+    if ( !destinationFile.exists() ) {
+      if ( !create_destination_folder ) {
+        logError( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Error.DestinationFolderNotFound" ) );
+        return false;
+      }
+      if ( sourceFile.isFile() || !remove_source_files ) {
+        destinationFile.createFolder();
+      }
+    }
+    copier.add( sourceFile, sourceFile.isFile()
+      ? destinationFile.resolveFile( sourceFile.getName().getBaseName() ) : destinationFile, wildcard );
+    return true;
+  }
+
+  /**
+   * @return the URL without the row prefix ({@link #SOURCE_URL} or {@link #DEST_URL} and the row number) the dialog
+   *         puts in front of it
+   */
+  static String stripUrlPrefix( String url ) {
+    if ( url == null ) {
+      return null;
+    }
+    for ( String prefix : new String[] { SOURCE_URL, DEST_URL } ) {
+      int index = url.indexOf( prefix );
+      if ( index > -1 ) {
+        return url.substring( url.indexOf( "-", index + prefix.length() ) + 1 );
+      }
+    }
+    return url;
+  }
+
   @VisibleForTesting
   @Override protected VariableSpace getVariables() {
     return super.getVariables();
@@ -0,0 +1,427 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hdfs.job;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Copies (or moves) files between two VFS locations with a pool of workers, so that copying many files between
+ * clusters isn't bound by the latency of one file at a time.
+ * <p>
+ * Sources are first planned with {@link #add(FileObject, FileObject, Pattern)}, then copied by {@link #run(BooleanSupplier)}.
+ * Files larger than a chunk are copied chunk by chunk with the next chunk read while the current one is written.
+ * A file whose target already exists is skipped unless overwriting is enabled, and even then it is skipped when it is
+ * unchanged: same size and, depending on the settings, same checksum or same modification time. Moves within one file
+ * system are renames rather than copies.
+ */
+public class ParallelFileCopier {
+
+  private static final Class<?> PKG = JobEntryHadoopCopyFiles.class;
+
+  public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  public static final long PROGRESS_INTERVAL = 10000L;
+
+  private final int workers;
+  private final int chunkSize;
+  private final LogChannelInterface log;
+
+  private boolean overwrite;
+  private boolean move;
+  private boolean includeSubfolders;
+  private boolean copyEmptyFolders;
+  private boolean verifyChecksum;
+
+  private final List<CopyTask> tasks = new ArrayList<>();
+  private final List<FileObject> targets = Collections.synchronizedList( new ArrayList<>() );
+  private final CopyReport report = new CopyReport();
+
+  public ParallelFileCopier( int workers, int chunkSize, LogChannelInterface log ) {
+    this.workers = Math.max( 1, workers );
+    this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    this.log = log;
+  }
+
+  public void setOverwrite( boolean overwrite ) {
+    this.overwrite = overwrite;
+  }
+
+  public void setMove( boolean move ) {
+    this.move = move;
+  }
+
+  public void setIncludeSubfolders( boolean includeSubfolders ) {
+    this.includeSubfolders = includeSubfolders;
+  }
+
+  public void setCopyEmptyFolders( boolean copyEmptyFolders ) {
+    this.copyEmptyFolders = copyEmptyFolders;
+  }
+
+  public void setVerifyChecksum( boolean verifyChecksum ) {
+    this.verifyChecksum = verifyChecksum;
+  }
+
+  /**
+   * Plans the copy of a file or of the content of a folder
+   *
+   * @param source
+   *          the existing source file or folder
+   * @param target
+   *          the target file, or the folder to copy the content of the source folder into
+   * @param wildcard
+   *          the pattern the base names of copied files have to match, or null for all files
+   */
+  public void add( FileObject source, FileObject target, Pattern wildcard ) throws FileSystemException {
+    if ( source.isFile() ) {
+      tasks.add( new CopyTask( source, target ) );
+    } else if ( move && wildcard == null && includeSubfolders && !target.exists() && source.canRenameTo( target ) ) {
+      tasks.add( new CopyTask( source, target ) );
+    } else {
+      addFolder( source, target, wildcard );
+    }
+  }
+
+  private void addFolder( FileObject folder, FileObject target, Pattern wildcard ) throws FileSystemException {
+    for ( FileObject child : folder.getChildren() ) {
+      String name = child.getName().getBaseName();
+      if ( child.isFolder() ) {
+        if ( includeSubfolders ) {
+          FileObject childTarget = target.resolveFile( name );
+          if ( copyEmptyFolders && !childTarget.exists() ) {
+            childTarget.createFolder();
+          }
+          addFolder( child, childTarget, wildcard );
+        }
+      } else if ( wildcard == null || wildcard.matcher( name ).matches() ) {
+        tasks.add( new CopyTask( child, target.resolveFile( name ) ) );
+      }
+    }
+  }
+
+  /**
+   * @return the number of planned files (or renamed folders)
+   */
+  public int getTaskCount() {
+    return tasks.size();
+  }
+
+  /**
+   * @return the files written (or moved) so far
+   */
+  public List<FileObject> getTargets() {
+    synchronized ( targets ) {
+      return new ArrayList<>( targets );
+    }
+  }
+
+  /**
+   * Copies the planned files, logging the progress periodically
+   *
+   * @param stopped
+   *          tells whether the copy should be abandoned
+   * @return the report of the copy
+   */
+  public CopyReport run( BooleanSupplier stopped ) throws InterruptedException {
+    ExecutorService copiers = Executors.newFixedThreadPool( workers, daemonThreads( "hadoop-copy" ) );
+    ExecutorService readers = Executors.newCachedThreadPool( daemonThreads( "hadoop-copy-read" ) );
+    report.start( tasks.size() );
+    try {
+      for ( CopyTask task : tasks ) {
+        copiers.execute( () -> {
+          if ( !stopped.getAsBoolean() ) {
+            task.run( readers );
+          }
+        } );
+      }
+      copiers.shutdown();
+      while ( !copiers.awaitTermination( PROGRESS_INTERVAL, TimeUnit.MILLISECONDS ) ) {
+        if ( stopped.getAsBoolean() ) {
+          copiers.shutdownNow();
+        } else if ( log.isBasic() ) {
+          log.logBasic( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.Progress", report.getFilesDone(),
+            report.getFilesPlanned(), report.getBytes(), report.getThroughput() ) );
+        }
+      }
+    } finally {
+      copiers.shutdownNow();
+      readers.shutdownNow();
+      report.finish();
+    }
+    return report;
+  }
+
+  private static ThreadFactory daemonThreads( String name ) {
+    return r -> {
+      Thread thread = new Thread( r, name );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+
+  /**
+   * @return true if the target has the same size as the source and either the same checksum or (without checksum
+   *         verification) the same modification time
+   */
+  boolean isUnchanged( FileObject source, FileObject target ) throws IOException {
+    if ( source.getContent().getSize() != target.getContent().getSize() ) {
+      return false;
+    }
+    if ( verifyChecksum ) {
+      return checksum( source ) == checksum( target );
+    }
+    return source.getContent().getLastModifiedTime() == target.getContent().getLastModifiedTime();
+  }
+
+  private long checksum( FileObject file ) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[ Math.min( chunkSize, 64 * 1024 ) ];
+    try ( InputStream in = file.getContent().getInputStream() ) {
+      int n;
+      while ( ( n = in.read( buffer ) ) >= 0 ) {
+        crc.update( buffer, 0, n );
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Copies the content of a file. Above one chunk the next chunk is read on another thread while the current one is
+   * written, which keeps both the source and the target cluster busy.
+   */
+  long copyContent( FileObject source, FileObject target, ExecutorService readers ) throws IOException {
+    FileObject parent = target.getParent();
+    if ( parent != null && !parent.exists() ) {
+      parent.createFolder();
+    }
+    long size = source.getContent().getSize();
+    long copied = 0;
+    try ( InputStream in = source.getContent().getInputStream();
+          OutputStream out = target.getContent().getOutputStream() ) {
+      byte[] current = new byte[ (int) Math.max( 1, Math.min( chunkSize, size ) ) ];
+      if ( size <= chunkSize ) {
+        int n;
+        while ( ( n = in.read( current ) ) >= 0 ) {
+          out.write( current, 0, n );
+          copied += n;
+        }
+      } else {
+        byte[] next = new byte[ chunkSize ];
+        int n = readChunk( in, current );
+        while ( n > 0 ) {
+          byte[] buffer = next;
+          Future<Integer> ahead = readers.submit( () -> readChunk( in, buffer ) );
+          out.write( current, 0, n );
+          copied += n;
+          report.addBytes( n );
+          n = await( ahead );
+          next = current;
+          current = buffer;
+        }
+        return copied;
+      }
+    }
+    report.addBytes( copied );
+    return copied;
+  }
+
+  private static int readChunk( InputStream in, byte[] chunk ) throws IOException {
+    int filled = 0;
+    int n;
+    while ( filled < chunk.length && ( n = in.read( chunk, filled, chunk.length - filled ) ) >= 0 ) {
+      filled += n;
+    }
+    return filled;
+  }
+
+  private static int await( Future<Integer> chunk ) throws IOException {
+    try {
+      return chunk.get();
+    } catch ( InterruptedException e ) {
+      chunk.cancel( true );
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( e.getMessage() );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+
+  private class CopyTask {
+    private final FileObject source;
+    private final FileObject target;
+
+    private CopyTask( FileObject source, FileObject target ) {
+      this.source = source;
+      this.target = target;
+    }
+
+    private void run( ExecutorService readers ) {
+      try {
+        if ( target.exists() && source.isFile() ) {
+          if ( !overwrite ) {
+            log.logDetailed( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.FileExists", target ) );
+            report.skipped();
+            return;
+          }
+          if ( isUnchanged( source, target ) ) {
+            log.logDetailed( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.FileUnchanged", source, target ) );
+            report.skipped();
+            if ( move ) {
+              source.delete();
+            }
+            return;
+          }
+        }
+        if ( move && source.canRenameTo( target ) ) {
+          FileObject parent = target.getParent();
+          if ( parent != null && !parent.exists() ) {
+            parent.createFolder();
+          }
+          source.moveTo( target );
+          report.moved();
+          log.logDetailed( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.FileMoved", source, target ) );
+        } else {
+          copyContent( source, target, readers );
+          preserveModificationTime();
+          if ( move ) {
+            source.delete();
+          }
+          report.copied();
+          log.logDetailed( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Log.FileCopied", source, target ) );
+        }
+        targets.add( target );
+      } catch ( IOException e ) {
+        report.failed();
+        log.logError( BaseMessages.getString( PKG, "JobHadoopCopyFiles.Error.Exception.CopyProcessError", source,
+          target, e.getMessage() ), e );
+      }
+    }
+
+    private void preserveModificationTime() {
+      try {
+        target.getContent().setLastModifiedTime( source.getContent().getLastModifiedTime() );
+      } catch ( FileSystemException e ) {
+        // not every file system supports it, unchanged files are then only detected with checksums
+        log.logDebug( e.getMessage() );
+      }
+    }
+  }
+
+  /**
+   * Counters of a copy, safe to read while the copy is running
+   */
+  public static class CopyReport {
+    private final AtomicLong filesCopied = new AtomicLong();
+    private final AtomicLong filesMoved = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile long filesPlanned;
+    private volatile long started;
+    private volatile long finished;
+
+    void start( long planned ) {
+      filesPlanned = planned;
+      started = System.currentTimeMillis();
+    }
+
+    void finish() {
+      finished = System.currentTimeMillis();
+    }
+
+    void copied() {
+      filesCopied.incrementAndGet();
+    }
+
+    void moved() {
+      filesMoved.incrementAndGet();
+    }
+
+    void skipped() {
+      filesSkipped.incrementAndGet();
+    }
+
+    void failed() {
+      filesFailed.incrementAndGet();
+    }
+
+    void addBytes( long n ) {
+      bytes.addAndGet( n );
+    }
+
+    public long getFilesPlanned() {
+      return filesPlanned;
+    }
+
+    public long getFilesCopied() {
+      return filesCopied.get();
+    }
+
+    public long getFilesMoved() {
+      return filesMoved.get();
+    }
+
+    public long getFilesSkipped() {
+      return filesSkipped.get();
+    }
+
+    public long getFilesFailed() {
+      return filesFailed.get();
+    }
+
+    public long getFilesDone() {
+      return getFilesCopied() + getFilesMoved() + getFilesSkipped() + getFilesFailed();
+    }
+
+    public long getBytes() {
+      return bytes.get();
+    }
+
+    public long getElapsedMillis() {
+      return ( finished > 0 ? finished : System.currentTimeMillis() ) - started;
+    }
+
+    /**
+     * @return the copied bytes per second
+     */
+    public long getThroughput() {
+      long elapsed = Math.max( 1, getElapsedMillis() );
+      return getBytes() * 1000 / elapsed;
+    }
+  }
+}
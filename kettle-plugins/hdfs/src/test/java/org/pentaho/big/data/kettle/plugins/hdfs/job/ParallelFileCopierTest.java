@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.hdfs.job;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.logging.LogChannelInterface;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ParallelFileCopierTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private LogChannelInterface log;
+  private File source;
+  private File target;
+
+  @Before
+  public void setup() throws IOException {
+    log = mock( LogChannelInterface.class );
+    source = temporaryFolder.newFolder( "source" );
+    target = temporaryFolder.newFolder( "target" );
+    write( new File( source, "a.txt" ), "a" );
+    write( new File( source, "b.csv" ), "bb" );
+    write( new File( source, "sub/c.txt" ), "ccc" );
+  }
+
+  @Test
+  public void testCopiesFolderWithSubfolders() throws Exception {
+    ParallelFileCopier copier = newCopier( 4 );
+    copier.setIncludeSubfolders( true );
+    copier.add( resolve( source ), resolve( target ), null );
+    assertEquals( 3, copier.getTaskCount() );
+
+    ParallelFileCopier.CopyReport report = copier.run( () -> false );
+
+    assertEquals( 3, report.getFilesCopied() );
+    assertEquals( 0, report.getFilesFailed() );
+    assertEquals( 6, report.getBytes() );
+    assertEquals( "ccc", read( new File( target, "sub/c.txt" ) ) );
+    assertEquals( 3, copier.getTargets().size() );
+  }
+
+  @Test
+  public void testWildcardAndNoSubfolders() throws Exception {
+    ParallelFileCopier copier = newCopier( 2 );
+    copier.add( resolve( source ), resolve( target ), Pattern.compile( ".*\\.txt" ) );
+
+    copier.run( () -> false );
+
+    assertTrue( new File( target, "a.txt" ).exists() );
+    assertFalse( new File( target, "b.csv" ).exists() );
+    assertFalse( new File( target, "sub" ).exists() );
+  }
+
+  @Test
+  public void testChunkedCopyOfLargeFile() throws Exception {
+    byte[] content = new byte[ 10000 ];
+    for ( int i = 0; i < content.length; i++ ) {
+      content[ i ] = (byte) i;
+    }
+    File large = new File( source, "large.bin" );
+    Files.write( large.toPath(), content );
+    ParallelFileCopier copier = new ParallelFileCopier( 2, 1024, log );
+    copier.add( resolve( large ), resolve( new File( target, "large.bin" ) ), null );
+
+    ParallelFileCopier.CopyReport report = copier.run( () -> false );
+
+    assertEquals( content.length, report.getBytes() );
+    assertArrayEquals( content, Files.readAllBytes( new File( target, "large.bin" ).toPath() ) );
+  }
+
+  @Test
+  public void testSkipsExistingWithoutOverwrite() throws Exception {
+    write( new File( target, "a.txt" ), "old" );
+    ParallelFileCopier copier = newCopier( 2 );
+    copier.add( resolve( source ), resolve( target ), null );
+
+    ParallelFileCopier.CopyReport report = copier.run( () -> false );
+
+    assertEquals( 1, report.getFilesSkipped() );
+    assertEquals( "old", read( new File( target, "a.txt" ) ) );
+  }
+
+  @Test
+  public void testSkipsUnchangedFilesOnRerun() throws Exception {
+    ParallelFileCopier first = newCopier( 2 );
+    first.setOverwrite( true );
+    first.add( resolve( source ), resolve( target ), null );
+    first.run( () -> false );
+
+    ParallelFileCopier second = newCopier( 2 );
+    second.setOverwrite( true );
+    second.add( resolve( source ), resolve( target ), null );
+    ParallelFileCopier.CopyReport report = second.run( () -> false );
+
+    assertEquals( 2, report.getFilesSkipped() );
+    assertEquals( 0, report.getFilesCopied() );
+  }
+
+  @Test
+  public void testChecksumDetectsChangedContentOfSameSize() throws Exception {
+    write( new File( target, "a.txt" ), "z" );
+    ParallelFileCopier copier = newCopier( 2 );
+    copier.setOverwrite( true );
+    copier.setVerifyChecksum( true );
+    assertFalse( copier.isUnchanged( resolve( new File( source, "a.txt" ) ), resolve( new File( target, "a.txt" ) ) ) );
+
+    write( new File( target, "a.txt" ), "a" );
+    assertTrue( copier.isUnchanged( resolve( new File( source, "a.txt" ) ), resolve( new File( target, "a.txt" ) ) ) );
+  }
+
+  @Test
+  public void testMoveRenamesWholeFolder() throws Exception {
+    File moved = new File( target, "moved" );
+    ParallelFileCopier copier = newCopier( 2 );
+    copier.setMove( true );
+    copier.setIncludeSubfolders( true );
+    copier.add( resolve( source ), resolve( moved ), null );
+    assertEquals( 1, copier.getTaskCount() );
+
+    ParallelFileCopier.CopyReport report = copier.run( () -> false );
+
+    assertEquals( 1, report.getFilesMoved() );
+    assertFalse( source.exists() );
+    assertEquals( "ccc", read( new File( moved, "sub/c.txt" ) ) );
+  }
+
+  @Test
+  public void testStoppedCopyDoesNothing() throws Exception {
+    ParallelFileCopier copier = newCopier( 2 );
+    copier.add( resolve( source ), resolve( target ), null );
+
+    ParallelFileCopier.CopyReport report = copier.run( () -> true );
+
+    assertEquals( 0, report.getFilesDone() );
+    assertFalse( new File( target, "a.txt" ).exists() );
+  }
+
+  @Test
+  public void testStripUrlPrefix() {
+    assertEquals( "hdfs://host/path",
+      JobEntryHadoopCopyFiles.stripUrlPrefix( JobEntryHadoopCopyFiles.SOURCE_URL + 3 + "-hdfs://host/path" ) );
+    assertEquals( "/tmp/a-b",
+      JobEntryHadoopCopyFiles.stripUrlPrefix( JobEntryHadoopCopyFiles.DEST_URL + 12 + "-/tmp/a-b" ) );
+    assertEquals( "/tmp/a-b", JobEntryHadoopCopyFiles.stripUrlPrefix( "/tmp/a-b" ) );
+  }
+
+  private ParallelFileCopier newCopier( int workers ) {
+    return new ParallelFileCopier( workers, ParallelFileCopier.DEFAULT_CHUNK_SIZE, log );
+  }
+
+  private static FileObject resolve( File file ) throws IOException {
+    return VFS.getManager().resolveFile( file.toURI().toString() );
+  }
+
+  private static void write( File file, String content ) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+  }
+
+  private static String read( File file ) throws IOException {
+    return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+  }
+}
@@ -13,10 +13,14 @@
 
 package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr;
 
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.big.data.kettle.plugins.job.JobCompletionTracker;
 import org.pentaho.big.data.kettle.plugins.mapreduce.DialogClassUtil;
 import org.pentaho.big.data.kettle.plugins.mapreduce.entry.NamedClusterLoadSaveUtil;
 import org.pentaho.big.data.kettle.plugins.mapreduce.entry.UserDefinedItem;
-import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitMeta;
+import org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local.LocalMapReduceCounters;
+import org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local.LocalMapReduceJob;
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExit;
 import org.pentaho.di.cluster.SlaveServer;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.ObjectLocationSpecificationMethod;
@@ -32,6 +36,7 @@ import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.CurrentDirectoryResolver;
 import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.job.entry.JobEntryBase;
@@ -44,11 +49,10 @@ import org.pentaho.di.repository.RepositoryDirectoryInterface;
 import org.pentaho.di.repository.StringObjectId;
 import org.pentaho.di.resource.ResourceDefinition;
 import org.pentaho.di.resource.ResourceNamingInterface;
-import org.pentaho.di.trans.TransConfiguration;
-import org.pentaho.di.trans.TransExecutionConfiguration;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.TransMeta.TransformationType;
 import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.version.BuildVersion;
 import org.pentaho.hadoop.shim.api.cluster.NamedCluster;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
@@ -62,10 +66,12 @@ import org.pentaho.runtime.test.RuntimeTester;
 import org.pentaho.runtime.test.action.RuntimeTestActionService;
 import org.w3c.dom.Node;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -86,6 +92,10 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
   public static final String PENTAHO_MAPREDUCE_PROPERTY_KETTLE_HDFS_INSTALL_DIR = "pmr.kettle.dfs.install.dir";
   public static final String PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID = "pmr.kettle.installation.id";
   public static final String PENTAHO_MAPREDUCE_PROPERTY_ADDITIONAL_PLUGINS = "pmr.kettle.additional.plugins";
+  public static final String KETTLE_PMR_CONTENT_ADDRESSED_INSTALLATION = "KETTLE_PMR_CONTENT_ADDRESSED_INSTALLATION";
+  public static final String KETTLE_PMR_PLAN_CACHE = "KETTLE_PMR_PLAN_CACHE";
+  public static final String KETTLE_PMR_LOCAL_MODE = "KETTLE_PMR_LOCAL_MODE";
+  public static final String KETTLE_PMR_LOCAL_SORT_BUFFER_RECORDS = "KETTLE_PMR_LOCAL_SORT_BUFFER_RECORDS";
   private static Class<?> PKG = JobEntryHadoopTransJobExecutor.class; // for i18n purposes, needed by Translator2!!
   public static final String DIALOG_NAME = DialogClassUtil.getDialogClassName( PKG );
   private final NamedClusterService namedClusterService;
@@ -540,8 +550,14 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
 
     result.setNrErrors( 0 );
 
+    TransPlan plan = null;
     try {
 
+      if ( Boolean.parseBoolean( getVariable( KETTLE_PMR_LOCAL_MODE, "false" ) ) ) {
+        executeLocally( result );
+        return result;
+      }
+
       MapReduceService mapReduceService = namedClusterServiceLocator.getService( namedCluster, MapReduceService.class );
       PentahoMapReduceJobBuilder jobBuilder = mapReduceService.createPentahoMapReduceJobBuilder( log, variables );
 
@@ -549,25 +565,22 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
       jobBuilder.setHadoopJobName( hadoopJobNameS );
 
       // mapper
-      TransExecutionConfiguration transExecConfig = new TransExecutionConfiguration();
-      TransMeta transMeta =
-        loadTransMeta( this, rep, mapTrans, mapRepositoryReference, mapRepositoryDir, mapRepositoryFile );
-      TransConfiguration transConfig = new TransConfiguration( transMeta, transExecConfig );
+      plan = loadTransPlan( mapTrans, mapRepositoryReference, mapRepositoryDir, mapRepositoryFile );
+      if ( plan == null ) {
+        // no mapper, let the job builder report it
+        plan = new TransPlan( null );
+      }
       String mapInputStepNameS = environmentSubstitute( mapInputStepName );
       String mapOutputStepNameS = environmentSubstitute( mapOutputStepName );
 
       try {
-        jobBuilder.verifyTransMeta( transMeta, mapInputStepNameS, mapOutputStepNameS );
+        plan.verify( jobBuilder, mapInputStepNameS, mapOutputStepNameS );
       } catch ( Exception ex ) {
         throw new KettleException( BaseMessages
           .getString( PKG, "JobEntryHadoopTransJobExecutor.MapConfiguration.Error" ), ex );
-      } finally {
-        if ( transMeta != null ) {
-          transMeta.disposeEmbeddedMetastoreProvider();
-        }
       }
 
-      jobBuilder.setMapperInfo( transConfig.getXML(), mapInputStepNameS, mapOutputStepNameS );
+      jobBuilder.setMapperInfo( plan.getXML(), mapInputStepNameS, mapOutputStepNameS );
 
       jobBuilder.set( MapReduceJobBuilder.STRING_COMBINE_SINGLE_THREADED, combiningSingleThreaded ? "true" : "false" );
 
@@ -575,6 +588,12 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
       //
       jobBuilder.set( MapReduceJobBuilder.STRING_REDUCE_SINGLE_THREADED, reducingSingleThreaded ? "true" : "false" );
 
+      // The output collector of the tasks converts each key/value row before putRow returns, so the MapReduce Output
+      // steps can reuse their row. A user defined property overrides it.
+      //
+      jobBuilder.set( HadoopExit.KETTLE_HADOOP_EXIT_REUSE_ROW,
+        getVariable( HadoopExit.KETTLE_HADOOP_EXIT_REUSE_ROW, "true" ) );
+
       if ( getSuppressOutputOfMapKey() ) {
         jobBuilder.setMapOutputKeyClass( jobBuilder.getHadoopWritableCompatibleClassName( null ) );
       }
@@ -583,12 +602,12 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
       }
 
       // auto configure the output mapper key and value classes
-      if ( !getSuppressOutputOfMapKey() || !getSuppressOutputOfMapValue() && transMeta != null ) {
-        StepMeta mapOut = transMeta.findStep( mapOutputStepNameS );
-        if ( mapOut.getStepMetaInterface() instanceof HadoopExitMeta ) {
-          RowMetaInterface prevStepFields = transMeta.getPrevStepFields( mapOut );
+      if ( !getSuppressOutputOfMapKey() || !getSuppressOutputOfMapValue() ) {
+        TransPlan.ExitFields mapOut = plan.getExitFields( mapOutputStepNameS );
+        if ( mapOut != null ) {
+          RowMetaInterface prevStepFields = mapOut.getPrevStepFields();
           if ( !getSuppressOutputOfMapKey() ) {
-            String keyName = ( (HadoopExitMeta) mapOut.getStepMetaInterface() ).getOutKeyFieldname();
+            String keyName = mapOut.getKeyFieldname();
             int keyI = prevStepFields.indexOfValue( keyName );
             ValueMetaInterface keyVM = ( keyI >= 0 ) ? prevStepFields.getValueMeta( keyI ) : null;
             if ( keyVM == null ) {
@@ -602,7 +621,7 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
           }
 
           if ( !getSuppressOutputOfMapValue() ) {
-            String valName = ( (HadoopExitMeta) mapOut.getStepMetaInterface() ).getOutValueFieldname();
+            String valName = mapOut.getValueFieldname();
             int valI = prevStepFields.indexOfValue( valName );
             ValueMetaInterface valueVM = ( valI >= 0 ) ? prevStepFields.getValueMeta( valI ) : null;
             if ( valueVM == null ) {
@@ -617,58 +636,48 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
         }
       }
 
+      plan.release();
+
       // combiner
-      transMeta =
-        loadTransMeta( this, rep, combinerTrans, combinerRepositoryReference, combinerRepositoryDir,
-          combinerRepositoryFile );
-      if ( transMeta != null ) {
+      plan = loadTransPlan( combinerTrans, combinerRepositoryReference, combinerRepositoryDir, combinerRepositoryFile );
+      if ( plan != null ) {
 
         if ( combiningSingleThreaded ) {
-          verifySingleThreadingValidity( transMeta );
+          verifySingleThreadingValidity( plan );
         }
 
         String combinerInputStepNameS = environmentSubstitute( combinerInputStepName );
         String combinerOutputStepNameS = environmentSubstitute( combinerOutputStepName );
-        transConfig = new TransConfiguration( transMeta, transExecConfig );
-        jobBuilder.setCombinerInfo( transConfig.getXML(), combinerInputStepNameS, combinerOutputStepNameS );
+        jobBuilder.setCombinerInfo( plan.getXML(), combinerInputStepNameS, combinerOutputStepNameS );
         try {
-          jobBuilder.verifyTransMeta( transMeta, combinerInputStepNameS, combinerOutputStepNameS );
+          plan.verify( jobBuilder, combinerInputStepNameS, combinerOutputStepNameS );
         } catch ( Exception ex ) {
           throw new KettleException( BaseMessages.getString( PKG,
             "JobEntryHadoopTransJobExecutor.CombinerConfiguration.Error" ), ex );
-        } finally {
-          if ( transMeta != null ) {
-            transMeta.disposeEmbeddedMetastoreProvider();
-          }
         }
+        plan.release();
       }
 
       // reducer
-      transMeta =
-        loadTransMeta( this, rep, reduceTrans, reduceRepositoryReference, reduceRepositoryDir, reduceRepositoryFile );
+      plan = loadTransPlan( reduceTrans, reduceRepositoryReference, reduceRepositoryDir, reduceRepositoryFile );
 
-      if ( transMeta != null ) {
+      if ( plan != null ) {
 
         // See if this is a valid single threading reducer
         //
         if ( reducingSingleThreaded ) {
-          verifySingleThreadingValidity( transMeta );
+          verifySingleThreadingValidity( plan );
         }
 
         String reduceInputStepNameS = environmentSubstitute( reduceInputStepName );
         String reduceOutputStepNameS = environmentSubstitute( reduceOutputStepName );
-        transConfig = new TransConfiguration( transMeta, transExecConfig );
-        jobBuilder.setReducerInfo( transConfig.getXML(), reduceInputStepNameS, reduceOutputStepNameS );
+        jobBuilder.setReducerInfo( plan.getXML(), reduceInputStepNameS, reduceOutputStepNameS );
 
         try {
-          jobBuilder.verifyTransMeta( transMeta, reduceInputStepNameS, reduceOutputStepNameS );
+          plan.verify( jobBuilder, reduceInputStepNameS, reduceOutputStepNameS );
         } catch ( Exception ex ) {
           throw new KettleException( BaseMessages.getString( PKG,
             "JobEntryHadoopTransJobExecutor.ReducerConfiguration.Error" ), ex );
-        } finally {
-          if ( transMeta != null ) {
-            transMeta.disposeEmbeddedMetastoreProvider();
-          }
         }
 
         if ( getSuppressOutputOfKey() ) {
@@ -680,11 +689,11 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
 
         // auto configure the output reduce key and value classes
         if ( !getSuppressOutputOfKey() || !getSuppressOutputOfValue() ) {
-          StepMeta reduceOut = transMeta.findStep( reduceOutputStepNameS );
-          RowMetaInterface prevStepFields = transMeta.getPrevStepFields( reduceOut );
-          if ( reduceOut.getStepMetaInterface() instanceof HadoopExitMeta ) {
-            String keyName = ( (HadoopExitMeta) reduceOut.getStepMetaInterface() ).getOutKeyFieldname();
-            String valName = ( (HadoopExitMeta) reduceOut.getStepMetaInterface() ).getOutValueFieldname();
+          TransPlan.ExitFields reduceOut = plan.getExitFields( reduceOutputStepNameS );
+          if ( reduceOut != null ) {
+            RowMetaInterface prevStepFields = reduceOut.getPrevStepFields();
+            String keyName = reduceOut.getKeyFieldname();
+            String valName = reduceOut.getValueFieldname();
             int keyI = prevStepFields.indexOfValue( keyName );
             ValueMetaInterface keyVM = ( keyI >= 0 ) ? prevStepFields.getValueMeta( keyI ) : null;
             int valI = prevStepFields.indexOfValue( valName );
@@ -714,6 +723,7 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
             }
           }
         }
+        plan.release();
       }
 
       jobBuilder.setInputFormatClass( inputFormatClass );
@@ -733,6 +743,8 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
         }
       }
 
+      setContentAddressedInstallationId( jobBuilder );
+
       String numMapTasksS = environmentSubstitute( numMapTasks );
       try {
         if ( Integer.parseInt( numMapTasksS ) < 0 ) {
@@ -777,14 +789,24 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
       if ( blocking ) {
         try {
           int taskCompletionEventIndex = 0;
-          while ( !parentJob.isStopped() && !runningJob.isComplete() ) {
-            if ( logIntv >= 1 ) {
-              printJobStatus( runningJob );
-              taskCompletionEventIndex += logTaskMessages( runningJob, taskCompletionEventIndex );
-              Thread.sleep( logIntv * 1000 );
-            } else {
-              Thread.sleep( 60000 );
+          long logIntervalMillis = ( logIntv >= 1 ? logIntv : 60 ) * 1000L;
+          JobCompletionTracker.Completion completion = JobCompletionTracker.getInstance()
+            .track( runningJob::isComplete, parentJob::isStopped, logIntervalMillis );
+          try {
+            long nextLog = 0L;
+            while ( !completion.isDone() && !parentJob.isStopped() ) {
+              if ( logIntv >= 1 && System.currentTimeMillis() >= nextLog ) {
+                printJobStatus( runningJob );
+                taskCompletionEventIndex += logTaskMessages( runningJob, taskCompletionEventIndex );
+                nextLog = System.currentTimeMillis() + logIntervalMillis;
+              }
+              completion.await( JobCompletionTracker.STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS );
             }
+          } finally {
+            completion.cancel();
+          }
+          if ( completion.getFailure() != null ) {
+            throw completion.getFailure();
           }
 
           if ( parentJob.isStopped() && !runningJob.isComplete() ) {
@@ -811,11 +833,90 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
       result.setNrErrors( 1 );
       result.setResult( false );
       logError( Const.NVL( t.getMessage(), "" ), t );
+    } finally {
+      if ( plan != null ) {
+        // releases the transformation of a stage that failed
+        plan.release();
+      }
     }
 
     return result;
   }
 
+  /**
+   * Runs the job in this JVM on local files instead of submitting it, when KETTLE_PMR_LOCAL_MODE is true. The number of
+   * map tasks is the number of map tasks run in parallel; a single reducer runs unless the number of reduce tasks is 0.
+   */
+  private void executeLocally( Result result ) throws KettleException {
+    TransMeta mapper = null;
+    TransMeta combiner = null;
+    TransMeta reducer = null;
+    try {
+      LocalMapReduceJob job = new LocalMapReduceJob( this );
+      mapper = loadTransMeta( this, rep, mapTrans, mapRepositoryReference, mapRepositoryDir, mapRepositoryFile );
+      job.setMapper( mapper, environmentSubstitute( mapInputStepName ), environmentSubstitute( mapOutputStepName ) );
+      combiner = loadTransMeta( this, rep, combinerTrans, combinerRepositoryReference, combinerRepositoryDir,
+        combinerRepositoryFile );
+      if ( combiner != null ) {
+        job.setCombiner( combiner, environmentSubstitute( combinerInputStepName ),
+          environmentSubstitute( combinerOutputStepName ) );
+      }
+      if ( Const.toInt( environmentSubstitute( numReduceTasks ), 1 ) == 0 ) {
+        job.setMapOnly( true );
+      } else {
+        reducer = loadTransMeta( this, rep, reduceTrans, reduceRepositoryReference, reduceRepositoryDir,
+          reduceRepositoryFile );
+        job.setReducer( reducer, environmentSubstitute( reduceInputStepName ),
+          environmentSubstitute( reduceOutputStepName ) );
+      }
+      job.setMapTasks( Math.max( 1, Const.toInt( environmentSubstitute( numMapTasks ), 1 ) ) );
+      job.setSortBufferRecords( Const.toInt( getVariable( KETTLE_PMR_LOCAL_SORT_BUFFER_RECORDS ),
+        LocalMapReduceJob.DEFAULT_SORT_BUFFER_RECORDS ) );
+
+      List<File> inputFiles = new ArrayList<>();
+      for ( String path : splitInputPaths( inputPath, variables ) ) {
+        File file = getLocalFile( path.trim() );
+        File[] children = file.listFiles( ( dir, name ) -> !name.startsWith( "_" ) && !name.startsWith( "." ) );
+        if ( children != null ) {
+          for ( File child : children ) {
+            if ( child.isFile() ) {
+              inputFiles.add( child );
+            }
+          }
+        } else {
+          inputFiles.add( file );
+        }
+      }
+      job.setInputFiles( inputFiles );
+      job.setOutputFolder( getLocalFile( environmentSubstitute( outputPath ) ) );
+
+      job.setStopCondition( () -> parentJob != null && parentJob.isStopped() );
+
+      LocalMapReduceCounters counters = job.run();
+      if ( parentJob != null && parentJob.isStopped() ) {
+        // Indicate this job entry did not complete
+        result.setResult( false );
+        return;
+      }
+      logBasic( "Local MapReduce job finished" + Const.CR + counters );
+      result.setResult( true );
+    } finally {
+      for ( TransMeta transMeta : new TransMeta[] { mapper, combiner, reducer } ) {
+        if ( transMeta != null ) {
+          transMeta.disposeEmbeddedMetastoreProvider();
+        }
+      }
+    }
+  }
+
+  private File getLocalFile( String path ) throws KettleException {
+    FileObject file = KettleVFS.getFileObject( path, this );
+    if ( !"file".equals( file.getName().getScheme() ) ) {
+      throw new KettleException( "Local MapReduce jobs only read and write local files: " + path );
+    }
+    return new File( file.getName().getPath() );
+  }
+
   /**
    * Log messages indicating completion (success/failure) of component tasks for the provided running job.
    *
@@ -872,6 +973,35 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
     return tcEvents.length;
   }
 
+  /**
+   * Names the Kettle runtime staged on the cluster after its contents, unless an installation id is set by the plugin
+   * properties or a user defined property, or KETTLE_PMR_CONTENT_ADDRESSED_INSTALLATION is false.
+   */
+  private void setContentAddressedInstallationId( PentahoMapReduceJobBuilder jobBuilder ) {
+    if ( !Boolean.parseBoolean( getVariable( KETTLE_PMR_CONTENT_ADDRESSED_INSTALLATION, "true" ) ) ) {
+      return;
+    }
+    for ( UserDefinedItem item : userDefined ) {
+      if ( PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID.equals( environmentSubstitute( item.getName() ) )
+        && !Const.isEmpty( environmentSubstitute( item.getValue() ) ) ) {
+        return;
+      }
+    }
+    try {
+      PmrRuntimeFingerprint fingerprint = PmrRuntimeFingerprint.forBigDataPlugin();
+      if ( fingerprint != null ) {
+        String installationId = fingerprint.getInstallationId( BuildVersion.getInstance().getVersion() );
+        jobBuilder.set( PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID, installationId );
+        logDetailed( PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID + "=" + installationId );
+        if ( log.isDebug() ) {
+          logDebug( fingerprint.getManifest() );
+        }
+      }
+    } catch ( IOException e ) {
+      logError( "Can't fingerprint the Pentaho MapReduce runtime, using the default installation id", e );
+    }
+  }
+
   /**
    * @return the plugin interface for this job entry.
    */
@@ -880,6 +1010,29 @@ public class JobEntryHadoopTransJobExecutor extends JobEntryBase implements Clon
     return PluginRegistry.getInstance().findPluginWithId( JobEntryPluginType.class, pluginId );
   }
 
+  /**
+   * @return the plan of a mapper, combiner or reducer transformation, null if none is configured. The verifications of
+   *         files are shared between submits while the file doesn't change, unless KETTLE_PMR_PLAN_CACHE is false.
+   */
+  private TransPlan loadTransPlan( String filename, ObjectId transformationId, String repositoryDir,
+                                   String repositoryFile ) throws KettleException {
+    TransPlan.Loader loader =
+      () -> loadTransMeta( this, rep, filename, transformationId, repositoryDir, repositoryFile );
+    if ( rep == null && !Const.isEmpty( filename )
+      && Boolean.parseBoolean( getVariable( KETTLE_PMR_PLAN_CACHE, "true" ) ) ) {
+      return TransPlan.forFile( environmentSubstitute( filename ), loader );
+    }
+    TransMeta transMeta = loader.load();
+    return transMeta == null ? null : new TransPlan( () -> transMeta );
+  }
+
+  private void verifySingleThreadingValidity( TransPlan plan ) throws KettleException {
+    if ( !plan.isSingleThreadingVerified() ) {
+      verifySingleThreadingValidity( plan.getTransMeta() );
+      plan.setSingleThreadingVerified();
+    }
+  }
+
   private void verifySingleThreadingValidity( TransMeta transMeta ) throws KettleException {
     for ( StepMeta stepMeta : transMeta.getSteps() ) {
       TransformationType[] types = stepMeta.getStepMetaInterface().getSupportedTransformationTypes();
@@ -0,0 +1,273 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.plugins.LifecyclePluginType;
+import org.pentaho.di.core.plugins.PluginInterface;
+import org.pentaho.di.core.plugins.PluginRegistry;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fingerprint of the Kettle runtime Pentaho MapReduce stages on the cluster: the big data plugin folder (holding the
+ * runtime archive) and the additional plugins of pmr.kettle.additional.plugins, minus the files excluded by
+ * pmr.kettle.exclude.plugin.files.
+ * <p>
+ * Each file is hashed with SHA-256, on several threads, and the digests are kept for as long as the size and
+ * modification time of the file don't change. The manifest lists the digest, size and path of every file, and the
+ * installation id, the Kettle version followed by the start of that digest, names the staged runtime after its
+ * contents: submitters with the same Kettle version and runtime share the same directory of pmr.kettle.dfs.install.dir,
+ * and a changed plugin gets a directory of its own instead of running with a stale copy.
+ */
+class PmrRuntimeFingerprint {
+
+  static final String BIG_DATA_PLUGIN_ID = "HadoopSpoonPlugin";
+  static final String PLUGIN_PROPERTIES_FILE = "plugin.properties";
+  static final String PROPERTY_EXCLUDE_PLUGIN_FILES = "pmr.kettle.exclude.plugin.files";
+
+  private static final String ALGORITHM = "SHA-256";
+  private static final int ID_DIGEST_LENGTH = 16;
+  private static final Map<String, FileDigest> DIGESTS = new ConcurrentHashMap<>();
+
+  private final File pluginsFolder;
+  private final List<File> roots = new ArrayList<>();
+  private final List<String> excludedPrefixes = new ArrayList<>();
+  private String manifest;
+  private String digest;
+
+  /**
+   * @param pluginFolder
+   *          the folder of the big data plugin
+   * @param pluginProperties
+   *          the properties of the big data plugin
+   */
+  PmrRuntimeFingerprint( File pluginFolder, Properties pluginProperties ) {
+    pluginsFolder = pluginFolder.getParentFile();
+    roots.add( pluginFolder );
+    for ( String plugin : split( pluginProperties.getProperty(
+      JobEntryHadoopTransJobExecutor.PENTAHO_MAPREDUCE_PROPERTY_ADDITIONAL_PLUGINS ) ) ) {
+      roots.add( new File( pluginsFolder, plugin ) );
+    }
+    excludedPrefixes.addAll( split( pluginProperties.getProperty( PROPERTY_EXCLUDE_PLUGIN_FILES ) ) );
+  }
+
+  /**
+   * @return the fingerprint of the runtime of the big data plugin, or null if the plugin can't be found or if its
+   *         properties set the installation id explicitly
+   */
+  static PmrRuntimeFingerprint forBigDataPlugin() throws IOException {
+    PluginInterface plugin =
+      PluginRegistry.getInstance().findPluginWithId( LifecyclePluginType.class, BIG_DATA_PLUGIN_ID );
+    URL pluginDirectory = plugin == null ? null : plugin.getPluginDirectory();
+    if ( pluginDirectory == null ) {
+      return null;
+    }
+    File pluginFolder = new File( pluginDirectory.getPath() );
+    File propertiesFile = new File( pluginFolder, PLUGIN_PROPERTIES_FILE );
+    Properties properties = new Properties();
+    if ( propertiesFile.isFile() ) {
+      try ( InputStream in = new FileInputStream( propertiesFile ) ) {
+        properties.load( in );
+      }
+    }
+    if ( !Const.isEmpty( properties.getProperty(
+      JobEntryHadoopTransJobExecutor.PENTAHO_MAPREDUCE_PROPERTY_KETTLE_INSTALLATION_ID, "" ).trim() ) ) {
+      return null;
+    }
+    return new PmrRuntimeFingerprint( pluginFolder, properties );
+  }
+
+  /**
+   * @param prefix
+   *          the prefix of the id, typically the Kettle version
+   * @return an installation id naming the runtime after its contents
+   */
+  String getInstallationId( String prefix ) throws IOException {
+    String id = getDigest().substring( 0, ID_DIGEST_LENGTH );
+    return Const.isEmpty( prefix ) ? id : prefix.replaceAll( "[^A-Za-z0-9._-]", "_" ) + "-" + id;
+  }
+
+  /**
+   * @return one line per file of the runtime, sorted by path: digest, size and path relative to the plugins folder
+   */
+  synchronized String getManifest() throws IOException {
+    if ( manifest == null ) {
+      List<File> files = new ArrayList<>();
+      for ( File root : roots ) {
+        collect( root, files );
+      }
+      List<String> lines = hash( files );
+      Collections.sort( lines, ( a, b ) -> path( a ).compareTo( path( b ) ) );
+      StringBuilder sb = new StringBuilder();
+      for ( String line : lines ) {
+        sb.append( line ).append( '\n' );
+      }
+      manifest = sb.toString();
+    }
+    return manifest;
+  }
+
+  synchronized String getDigest() throws IOException {
+    if ( digest == null ) {
+      MessageDigest messageDigest = newDigest();
+      digest = toHex( messageDigest.digest( getManifest().getBytes( "UTF-8" ) ) );
+    }
+    return digest;
+  }
+
+  private void collect( File file, List<File> files ) {
+    if ( isExcluded( file.getName() ) ) {
+      return;
+    }
+    if ( file.isDirectory() ) {
+      File[] children = file.listFiles();
+      if ( children != null ) {
+        for ( File child : children ) {
+          collect( child, files );
+        }
+      }
+    } else if ( file.isFile() ) {
+      files.add( file );
+    }
+  }
+
+  private boolean isExcluded( String name ) {
+    for ( String prefix : excludedPrefixes ) {
+      if ( name.startsWith( prefix ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<String> hash( List<File> files ) throws IOException {
+    int threads = Math.max( 1, Math.min( files.size(), Runtime.getRuntime().availableProcessors() ) );
+    ExecutorService executor = Executors.newFixedThreadPool( threads, r -> {
+      Thread thread = new Thread( r, "PMR runtime fingerprint" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    try {
+      List<Future<String>> lines = new ArrayList<>();
+      for ( final File file : files ) {
+        lines.add( executor.submit( (Callable<String>) () ->
+          digest( file ) + " " + file.length() + " " + relativePath( file ) ) );
+      }
+      List<String> result = new ArrayList<>();
+      for ( Future<String> line : lines ) {
+        result.add( line.get() );
+      }
+      return result;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IOException( e );
+    } catch ( ExecutionException e ) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException( e.getCause() );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String relativePath( File file ) {
+    String path = file.getAbsolutePath();
+    String base = pluginsFolder == null ? "" : pluginsFolder.getAbsolutePath() + File.separator;
+    return ( path.startsWith( base ) ? path.substring( base.length() ) : path ).replace( File.separatorChar, '/' );
+  }
+
+  private static String path( String line ) {
+    return line.substring( line.indexOf( ' ', line.indexOf( ' ' ) + 1 ) + 1 );
+  }
+
+  /**
+   * @return the digest of the file, computed again only if its size or modification time changed
+   */
+  static String digest( File file ) throws IOException {
+    String key = file.getAbsolutePath();
+    long length = file.length();
+    long lastModified = file.lastModified();
+    FileDigest cached = DIGESTS.get( key );
+    if ( cached != null && cached.length == length && cached.lastModified == lastModified ) {
+      return cached.digest;
+    }
+    MessageDigest messageDigest = newDigest();
+    byte[] buffer = new byte[ 64 * 1024 ];
+    try ( InputStream in = new FileInputStream( file ) ) {
+      int read;
+      while ( ( read = in.read( buffer ) ) >= 0 ) {
+        messageDigest.update( buffer, 0, read );
+      }
+    }
+    String digest = toHex( messageDigest.digest() );
+    DIGESTS.put( key, new FileDigest( length, lastModified, digest ) );
+    return digest;
+  }
+
+  private static MessageDigest newDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance( ALGORITHM );
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IOException( e );
+    }
+  }
+
+  private static String toHex( byte[] bytes ) {
+    StringBuilder sb = new StringBuilder( bytes.length * 2 );
+    for ( byte b : bytes ) {
+      sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+    }
+    return sb.toString();
+  }
+
+  private static List<String> split( String list ) {
+    List<String> values = new ArrayList<>();
+    if ( list != null ) {
+      for ( String value : list.split( "," ) ) {
+        if ( !value.trim().isEmpty() ) {
+          values.add( value.trim() );
+        }
+      }
+    }
+    return values;
+  }
+
+  private static class FileDigest {
+    private final long length;
+    private final long lastModified;
+    private final String digest;
+
+    private FileDigest( long length, long lastModified, String digest ) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.digest = digest;
+    }
+  }
+}
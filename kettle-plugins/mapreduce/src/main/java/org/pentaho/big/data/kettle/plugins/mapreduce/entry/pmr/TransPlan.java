@@ -0,0 +1,278 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.trans.TransConfiguration;
+import org.pentaho.di.trans.TransExecutionConfiguration;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.hadoop.shim.api.mapreduce.PentahoMapReduceJobBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What Pentaho MapReduce needs from the mapper, combiner or reducer transformation at submit time: its XML, the
+ * input/output step pairs verified by the job builder and the fields reaching its Hadoop Exit steps.
+ * <p>
+ * The transformation is loaded only when something isn't known yet. For transformation files, the verifications (step
+ * pairs accepted by the job builder, single threading validity) are cached, keyed by file and content: a file whose
+ * size and modification time are unchanged is not read again, and a touched file with the same SHA-256 digest keeps
+ * its verifications. The XML and the exit fields are not cached across submits, as they also depend on the shared
+ * objects and the variables the transformation is loaded with. Verifications of repository transformations are not
+ * cached.
+ */
+class TransPlan {
+
+  static final int CACHE_SIZE = 64;
+
+  /**
+   * Loads the transformation of a plan
+   */
+  interface Loader {
+    TransMeta load() throws KettleException;
+  }
+
+  /**
+   * The fields of a Hadoop Exit step
+   */
+  static class ExitFields {
+    private final String keyFieldname;
+    private final String valueFieldname;
+    private final RowMetaInterface prevStepFields;
+
+    ExitFields( String keyFieldname, String valueFieldname, RowMetaInterface prevStepFields ) {
+      this.keyFieldname = keyFieldname;
+      this.valueFieldname = valueFieldname;
+      this.prevStepFields = prevStepFields;
+    }
+
+    String getKeyFieldname() {
+      return keyFieldname;
+    }
+
+    String getValueFieldname() {
+      return valueFieldname;
+    }
+
+    /**
+     * @return the fields entering the exit step, not to be modified
+     */
+    RowMetaInterface getPrevStepFields() {
+      return prevStepFields;
+    }
+  }
+
+  private static final ExitFields NOT_AN_EXIT = new ExitFields( null, null, null );
+
+  private static final String SINGLE_THREADING = "\u0000single threading";
+
+  private static final Map<String, CachedVerification> CACHE =
+    new LinkedHashMap<String, CachedVerification>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, CachedVerification> eldest ) {
+        return size() > CACHE_SIZE;
+      }
+    };
+
+  private final Loader loader;
+  private final Verification verification;
+  private TransMeta transMeta;
+  private String xml;
+  private final Map<String, ExitFields> exits = new HashMap<>();
+
+  TransPlan( Loader loader ) {
+    this( loader, new Verification() );
+  }
+
+  private TransPlan( Loader loader, Verification verification ) {
+    this.loader = loader;
+    this.verification = verification;
+  }
+
+  /**
+   * @return the plan of a transformation file, with the verifications done by previous submits when the file didn't
+   *         change
+   */
+  static TransPlan forFile( String filename, Loader loader ) throws KettleException {
+    long size;
+    long lastModified;
+    try {
+      FileObject file = KettleVFS.getFileObject( filename );
+      if ( !file.exists() ) {
+        return new TransPlan( loader );
+      }
+      FileContent content = file.getContent();
+      size = content.getSize();
+      lastModified = content.getLastModifiedTime();
+    } catch ( IOException e ) {
+      return new TransPlan( loader );
+    }
+
+    CachedVerification cached;
+    synchronized ( CACHE ) {
+      cached = CACHE.get( filename );
+    }
+    if ( cached != null && cached.size == size && cached.lastModified == lastModified ) {
+      return new TransPlan( loader, cached.verification );
+    }
+    byte[] digest = digest( filename );
+    if ( cached != null && digest != null && Arrays.equals( cached.digest, digest ) ) {
+      cached = new CachedVerification( size, lastModified, digest, cached.verification );
+    } else {
+      cached = new CachedVerification( size, lastModified, digest, new Verification() );
+    }
+    if ( digest != null ) {
+      synchronized ( CACHE ) {
+        CACHE.put( filename, cached );
+      }
+    }
+    return new TransPlan( loader, cached.verification );
+  }
+
+  static void clearCache() {
+    synchronized ( CACHE ) {
+      CACHE.clear();
+    }
+  }
+
+  /**
+   * @return the transformation, loaded if needed
+   */
+  synchronized TransMeta getTransMeta() throws KettleException {
+    if ( transMeta == null && loader != null ) {
+      transMeta = loader.load();
+    }
+    return transMeta;
+  }
+
+  /**
+   * @return the XML of the transformation configuration sent to the cluster
+   */
+  synchronized String getXML() throws IOException, KettleException {
+    if ( xml == null ) {
+      xml = new TransConfiguration( getTransMeta(), new TransExecutionConfiguration() ).getXML();
+    }
+    return xml;
+  }
+
+  /**
+   * Verifies the input and output steps with the job builder, unless this pair was already verified
+   */
+  synchronized void verify( PentahoMapReduceJobBuilder jobBuilder, String inputStepName, String outputStepName )
+    throws Exception {
+    String key = inputStepName + '\u0000' + outputStepName;
+    if ( verification.isVerified( key ) ) {
+      return;
+    }
+    jobBuilder.verifyTransMeta( getTransMeta(), inputStepName, outputStepName );
+    verification.setVerified( key );
+  }
+
+  boolean isSingleThreadingVerified() {
+    return verification.isVerified( SINGLE_THREADING );
+  }
+
+  void setSingleThreadingVerified() {
+    verification.setVerified( SINGLE_THREADING );
+  }
+
+  /**
+   * @return the fields of the Hadoop Exit step, null if there is no such step or it isn't a Hadoop Exit
+   */
+  synchronized ExitFields getExitFields( String stepName ) throws KettleException {
+    ExitFields exit = exits.get( stepName );
+    if ( exit == null ) {
+      TransMeta meta = getTransMeta();
+      StepMeta step = meta.findStep( stepName );
+      if ( step != null && step.getStepMetaInterface() instanceof HadoopExitMeta ) {
+        HadoopExitMeta exitMeta = (HadoopExitMeta) step.getStepMetaInterface();
+        exit = new ExitFields( exitMeta.getOutKeyFieldname(), exitMeta.getOutValueFieldname(),
+          meta.getPrevStepFields( step ).clone() );
+      } else {
+        exit = NOT_AN_EXIT;
+      }
+      exits.put( stepName, exit );
+    }
+    return exit == NOT_AN_EXIT ? null : exit;
+  }
+
+  /**
+   * Drops the transformation once the submit is done, disposing of its embedded metastore provider, what was computed
+   * from it is kept
+   */
+  synchronized void release() {
+    if ( transMeta != null ) {
+      transMeta.disposeEmbeddedMetastoreProvider();
+      transMeta = null;
+    }
+  }
+
+  private static byte[] digest( String filename ) {
+    try ( InputStream in = KettleVFS.getInputStream( filename ) ) {
+      MessageDigest messageDigest = MessageDigest.getInstance( "SHA-256" );
+      byte[] buffer = new byte[ 64 * 1024 ];
+      int read;
+      while ( ( read = in.read( buffer ) ) >= 0 ) {
+        messageDigest.update( buffer, 0, read );
+      }
+      return messageDigest.digest();
+    } catch ( IOException | KettleException | NoSuchAlgorithmException e ) {
+      return null;
+    }
+  }
+
+  /**
+   * What was verified on a transformation, shared by the plans of a file while its content doesn't change
+   */
+  private static class Verification {
+    private final Set<String> verified = new HashSet<>();
+
+    synchronized boolean isVerified( String key ) {
+      return verified.contains( key );
+    }
+
+    synchronized void setVerified( String key ) {
+      verified.add( key );
+    }
+  }
+
+  private static class CachedVerification {
+    private final long size;
+    private final long lastModified;
+    private final byte[] digest;
+    private final Verification verification;
+
+    private CachedVerification( long size, long lastModified, byte[] digest, Verification verification ) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+      this.verification = verification;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range of a text file read as lines, like a Hadoop text input split: a line belongs to the split holding its
+ * first byte, so the lines of a file are read exactly once whatever the split size.
+ */
+class LineSplit {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final long start;
+  private final long end;
+
+  LineSplit( File file, long start, long end ) {
+    this.file = file;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Cuts files into splits of at most splitSize bytes
+   */
+  static List<LineSplit> split( List<File> files, long splitSize ) {
+    List<LineSplit> splits = new ArrayList<>();
+    for ( File file : files ) {
+      long length = file.length();
+      if ( length == 0 ) {
+        continue;
+      }
+      for ( long position = 0; position < length; position += splitSize ) {
+        splits.add( new LineSplit( file, position, Math.min( position + splitSize, length ) ) );
+      }
+    }
+    return splits;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  long getStart() {
+    return start;
+  }
+
+  long getEnd() {
+    return end;
+  }
+
+  Reader open() throws IOException {
+    return new Reader();
+  }
+
+  /**
+   * Reads the lines of the split along with the offset of their first byte in the file
+   */
+  class Reader implements Closeable {
+    private final InputStream in;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream( 256 );
+    private long position;
+    private long lineOffset;
+
+    private Reader() throws IOException {
+      in = new BufferedInputStream( new FileInputStream( file ), BUFFER_SIZE );
+      if ( start > 0 ) {
+        // the line running into the split belongs to the previous one
+        skip( start - 1 );
+        position = start - 1;
+        int b;
+        while ( ( b = in.read() ) >= 0 ) {
+          position++;
+          if ( b == '\n' ) {
+            break;
+          }
+        }
+      }
+    }
+
+    private void skip( long bytes ) throws IOException {
+      long left = bytes;
+      while ( left > 0 ) {
+        long skipped = in.skip( left );
+        if ( skipped <= 0 ) {
+          if ( in.read() < 0 ) {
+            return;
+          }
+          skipped = 1;
+        }
+        left -= skipped;
+      }
+    }
+
+    /**
+     * @return the next line without its line terminator, null at the end of the split
+     */
+    String next() throws IOException {
+      if ( position >= end ) {
+        return null;
+      }
+      lineOffset = position;
+      line.reset();
+      int b;
+      while ( ( b = in.read() ) >= 0 ) {
+        position++;
+        if ( b == '\n' ) {
+          break;
+        }
+        line.write( b );
+      }
+      if ( b < 0 && line.size() == 0 ) {
+        return null;
+      }
+      byte[] bytes = line.toByteArray();
+      int length = bytes.length;
+      if ( length > 0 && bytes[ length - 1 ] == '\r' ) {
+        length--;
+      }
+      return new String( bytes, 0, length, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * @return the offset of the line last returned by {@link #next()}
+     */
+    long getLineOffset() {
+      return lineOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
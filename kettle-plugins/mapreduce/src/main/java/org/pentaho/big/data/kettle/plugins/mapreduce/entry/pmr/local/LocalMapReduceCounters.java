@@ -0,0 +1,102 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and record counters of a {@link LocalMapReduceJob}.
+ * <p>
+ * The map and reduce times are elapsed times of the phases. Map outputs are sorted, spilled and combined within the map
+ * tasks, so the sort and combine times are the sums of the time the tasks spent on them.
+ */
+public class LocalMapReduceCounters {
+
+  public enum Phase {
+    MAP, SORT, COMBINE, REDUCE
+  }
+
+  public enum Counter {
+    MAP_INPUT_RECORDS, MAP_OUTPUT_RECORDS, SPILLED_RECORDS, COMBINE_INPUT_RECORDS, COMBINE_OUTPUT_RECORDS,
+    REDUCE_INPUT_GROUPS, REDUCE_INPUT_RECORDS, REDUCE_OUTPUT_RECORDS
+  }
+
+  private final Map<Phase, AtomicLong> nanos = new EnumMap<>( Phase.class );
+  private final Map<Counter, AtomicLong> counters = new EnumMap<>( Counter.class );
+
+  public LocalMapReduceCounters() {
+    for ( Phase phase : Phase.values() ) {
+      nanos.put( phase, new AtomicLong() );
+    }
+    for ( Counter counter : Counter.values() ) {
+      counters.put( counter, new AtomicLong() );
+    }
+  }
+
+  void addNanos( Phase phase, long elapsed ) {
+    nanos.get( phase ).addAndGet( elapsed );
+  }
+
+  void increment( Counter counter, long delta ) {
+    counters.get( counter ).addAndGet( delta );
+  }
+
+  public long getNanos( Phase phase ) {
+    return nanos.get( phase ).get();
+  }
+
+  public long get( Counter counter ) {
+    return counters.get( counter ).get();
+  }
+
+  /**
+   * @return the records processed per second by a phase: map inputs, sorted map outputs, combine inputs or reduce
+   *         inputs
+   */
+  public double getRecordsPerSecond( Phase phase ) {
+    long elapsed = getNanos( phase );
+    if ( elapsed <= 0 ) {
+      return 0;
+    }
+    return get( getRecordCounter( phase ) ) * 1000000000d / elapsed;
+  }
+
+  private static Counter getRecordCounter( Phase phase ) {
+    switch ( phase ) {
+      case MAP:
+        return Counter.MAP_INPUT_RECORDS;
+      case SORT:
+        return Counter.MAP_OUTPUT_RECORDS;
+      case COMBINE:
+        return Counter.COMBINE_INPUT_RECORDS;
+      default:
+        return Counter.REDUCE_INPUT_RECORDS;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for ( Phase phase : Phase.values() ) {
+      builder.append( String.format( "%-8s %,10d ms %,14.0f records/s%n", phase, getNanos( phase ) / 1000000L,
+        getRecordsPerSecond( phase ) ) );
+    }
+    for ( Counter counter : Counter.values() ) {
+      builder.append( String.format( "%-24s %,14d%n", counter, get( counter ) ) );
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,446 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.trans.TransMeta;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a Pentaho MapReduce job in the current JVM, to try out and profile mapper, combiner and reducer transformations
+ * without a cluster.
+ * <p>
+ * The input files are read as text, cut in splits of splitSize bytes: the mapper receives the offset of each line as
+ * key and the line as value. Up to mapTasks map tasks run in parallel. Their output is sorted on the key in buffers of
+ * sortBufferRecords pairs, combined and spilled to disk, then merged into a single reducer. Only the tasks of the last
+ * wave keep their last sorted run in memory for the reducer, the others spill it when they end. Output pairs are
+ * written as "key TAB value" lines to part-r-00000 of the output folder, or to one part-m-NNNNN file per map task for
+ * map only jobs. Timings and record counts of the phases are returned as {@link LocalMapReduceCounters}. The job can
+ * be stopped through {@link #setStopCondition(BooleanSupplier)}.
+ */
+public class LocalMapReduceJob {
+
+  public static final int DEFAULT_SORT_BUFFER_RECORDS = 1000000;
+
+  public static final long DEFAULT_SPLIT_SIZE = 32L * 1024 * 1024;
+
+  private final VariableSpace space;
+
+  private TransMeta mapper;
+  private String mapInputStepName;
+  private String mapOutputStepName;
+  private TransMeta combiner;
+  private String combinerInputStepName;
+  private String combinerOutputStepName;
+  private TransMeta reducer;
+  private String reduceInputStepName;
+  private String reduceOutputStepName;
+  private boolean mapOnly;
+
+  private List<File> inputFiles = new ArrayList<>();
+  private File outputFolder;
+  private File tempFolder;
+  private int mapTasks = 1;
+  private int sortBufferRecords = DEFAULT_SORT_BUFFER_RECORDS;
+  private long splitSize = DEFAULT_SPLIT_SIZE;
+  private BooleanSupplier stopCondition = () -> false;
+
+  /**
+   * @param space
+   *          the variables of the transformations, can be null
+   */
+  public LocalMapReduceJob( VariableSpace space ) {
+    this.space = space;
+  }
+
+  public void setMapper( TransMeta mapper, String inputStepName, String outputStepName ) {
+    this.mapper = mapper;
+    this.mapInputStepName = inputStepName;
+    this.mapOutputStepName = outputStepName;
+  }
+
+  public void setCombiner( TransMeta combiner, String inputStepName, String outputStepName ) {
+    this.combiner = combiner;
+    this.combinerInputStepName = inputStepName;
+    this.combinerOutputStepName = outputStepName;
+  }
+
+  /**
+   * @param reducer
+   *          the reducer, null to write the sorted map output as is
+   */
+  public void setReducer( TransMeta reducer, String inputStepName, String outputStepName ) {
+    this.reducer = reducer;
+    this.reduceInputStepName = inputStepName;
+    this.reduceOutputStepName = outputStepName;
+  }
+
+  /**
+   * @param mapOnly
+   *          true to write the output of the mapper unsorted, without combiner nor reducer
+   */
+  public void setMapOnly( boolean mapOnly ) {
+    this.mapOnly = mapOnly;
+  }
+
+  public void setInputFiles( List<File> inputFiles ) {
+    this.inputFiles = new ArrayList<>( inputFiles );
+  }
+
+  public void setOutputFolder( File outputFolder ) {
+    this.outputFolder = outputFolder;
+  }
+
+  /**
+   * @param tempFolder
+   *          where the map output is spilled, null for the default temporary folder
+   */
+  public void setTempFolder( File tempFolder ) {
+    this.tempFolder = tempFolder;
+  }
+
+  /**
+   * @param mapTasks
+   *          the number of map tasks running in parallel
+   */
+  public void setMapTasks( int mapTasks ) {
+    this.mapTasks = mapTasks;
+  }
+
+  public void setSortBufferRecords( int sortBufferRecords ) {
+    this.sortBufferRecords = sortBufferRecords;
+  }
+
+  public void setSplitSize( long splitSize ) {
+    this.splitSize = splitSize;
+  }
+
+  /**
+   * @param stopCondition
+   *          checked while reading the splits, before each map task and before the reduce phase. Once it is true the
+   *          running tasks are stopped, the queued ones are skipped and {@link #run()} returns without reducing
+   */
+  public void setStopCondition( BooleanSupplier stopCondition ) {
+    this.stopCondition = stopCondition;
+  }
+
+  public LocalMapReduceCounters run() throws KettleException {
+    if ( mapper == null ) {
+      throw new KettleException( "No mapper transformation" );
+    }
+    if ( outputFolder == null || !outputFolder.isDirectory() && !outputFolder.mkdirs() ) {
+      throw new KettleException( "Can't create output folder " + outputFolder );
+    }
+    LocalMapReduceCounters counters = new LocalMapReduceCounters();
+    File spillFolder;
+    try {
+      spillFolder = tempFolder == null ? Files.createTempDirectory( "pmr-local" ).toFile()
+        : Files.createTempDirectory( tempFolder.toPath(), "pmr-local" ).toFile();
+    } catch ( IOException e ) {
+      throw new KettleException( e );
+    }
+    try {
+      List<MapOutputBuffer> outputs = map( spillFolder, counters );
+      if ( !mapOnly && !stopCondition.getAsBoolean() ) {
+        reduce( outputs, counters );
+      }
+      return counters;
+    } finally {
+      delete( spillFolder );
+    }
+  }
+
+  private List<MapOutputBuffer> map( File spillFolder, LocalMapReduceCounters counters ) throws KettleException {
+    List<LineSplit> splits = LineSplit.split( inputFiles, Math.max( 1, splitSize ) );
+    int parallelTasks = Math.max( 1, Math.min( mapTasks, splits.size() ) );
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool( parallelTasks, r -> {
+      Thread thread = new Thread( r, "PMR local map task " + threads.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    long start = System.nanoTime();
+    try {
+      List<Future<MapOutputBuffer>> futures = new ArrayList<>();
+      for ( int i = 0; i < splits.size(); i++ ) {
+        int index = i;
+        // the tasks are run in order, the output of the last wave is merged without going through the disk
+        boolean lastWave = i >= splits.size() - parallelTasks;
+        futures.add(
+          executor.submit( () -> mapTask( index, splits.get( index ), spillFolder, counters, !lastWave ) ) );
+      }
+      List<MapOutputBuffer> outputs = new ArrayList<>();
+      for ( Future<MapOutputBuffer> future : futures ) {
+        outputs.add( future.get() );
+      }
+      return outputs;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof KettleException ) {
+        throw (KettleException) e.getCause();
+      }
+      throw new KettleException( e.getCause() );
+    } finally {
+      executor.shutdownNow();
+      counters.addNanos( LocalMapReduceCounters.Phase.MAP, System.nanoTime() - start );
+    }
+  }
+
+  /**
+   * @param spillRemaining
+   *          true to spill all the output of the task when it ends, false to keep its last sorted run in memory
+   * @return the output of the task, null for map only jobs or if the job was stopped before the task started
+   */
+  private MapOutputBuffer mapTask( int index, LineSplit split, File spillFolder, LocalMapReduceCounters counters,
+                                   boolean spillRemaining ) throws KettleException {
+    if ( stopCondition.getAsBoolean() ) {
+      return null;
+    }
+    RowMetaInterface lineMeta = new RowMeta();
+    lineMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    lineMeta.addValueMeta( new ValueMetaString( "value" ) );
+
+    MapOutputBuffer buffer = null;
+    PartWriter writer = null;
+    TransTask.Collector collector;
+    if ( mapOnly ) {
+      writer = new PartWriter( new File( outputFolder, String.format( "part-m-%05d", index ) ) );
+      collector = writer;
+    } else {
+      buffer = new MapOutputBuffer( sortBufferRecords, spillFolder, combiner == null ? null : this::combine,
+        counters );
+      collector = buffer;
+    }
+    try {
+      TransTask task = new TransTask( mapper, space, mapInputStepName, mapOutputStepName, collector );
+      task.start();
+      long records = 0;
+      try ( LineSplit.Reader reader = split.open() ) {
+        String line;
+        while ( !stopCondition.getAsBoolean() && ( line = reader.next() ) != null ) {
+          task.put( lineMeta, new Object[] { reader.getLineOffset(), line } );
+          records++;
+        }
+      } catch ( IOException | KettleException e ) {
+        task.stop();
+        throw e instanceof KettleException ? (KettleException) e : new KettleException( e );
+      }
+      counters.increment( LocalMapReduceCounters.Counter.MAP_INPUT_RECORDS, records );
+      if ( stopCondition.getAsBoolean() ) {
+        task.stop();
+        return buffer;
+      }
+      counters.increment( LocalMapReduceCounters.Counter.MAP_OUTPUT_RECORDS, task.finish() );
+      if ( buffer != null && spillRemaining ) {
+        buffer.spillRemaining();
+      }
+      return buffer;
+    } finally {
+      if ( writer != null ) {
+        writer.close();
+      }
+    }
+  }
+
+  private List<Object[]> combine( RowMetaInterface pairMeta, List<Object[]> sorted ) throws KettleException {
+    List<Object[]> combined = new ArrayList<>();
+    TransTask task = new TransTask( combiner, space, combinerInputStepName, combinerOutputStepName,
+      ( meta, pair ) -> {
+        Object[] converted = convert( meta, pair, pairMeta );
+        synchronized ( combined ) {
+          combined.add( converted );
+        }
+      } );
+    task.start();
+    try {
+      for ( Object[] pair : sorted ) {
+        task.put( pairMeta, pair );
+      }
+    } catch ( KettleException e ) {
+      task.stop();
+      throw e;
+    }
+    task.finish();
+    MapOutputBuffer.sort( pairMeta, combined );
+    return combined;
+  }
+
+  /**
+   * Converts the output of a combiner to the types of the map output
+   */
+  private static Object[] convert( RowMetaInterface meta, Object[] pair, RowMetaInterface pairMeta )
+    throws KettleException {
+    Object[] converted = new Object[ 2 ];
+    for ( int i = 0; i < 2; i++ ) {
+      ValueMetaInterface source = meta.getValueMeta( i );
+      ValueMetaInterface target = pairMeta.getValueMeta( i );
+      converted[ i ] = source.getType() == target.getType() ? pair[ i ] : target.convertData( source, pair[ i ] );
+    }
+    return converted;
+  }
+
+  private void reduce( List<MapOutputBuffer> outputs, LocalMapReduceCounters counters ) throws KettleException {
+    long start = System.nanoTime();
+    RowMetaInterface pairMeta = null;
+    List<SortedRun> runs = new ArrayList<>();
+    for ( MapOutputBuffer output : outputs ) {
+      if ( output == null ) {
+        continue;
+      }
+      if ( pairMeta == null ) {
+        pairMeta = output.getPairMeta();
+      }
+      runs.addAll( output.finish() );
+    }
+
+    PartWriter writer = new PartWriter( new File( outputFolder, "part-r-00000" ) );
+    SortedRun merged = null;
+    try {
+      if ( pairMeta == null ) {
+        return;
+      }
+      Comparator<Object[]> comparator = SortedRun.keyComparator( pairMeta );
+      TransTask task = null;
+      if ( reducer != null ) {
+        task = new TransTask( reducer, space, reduceInputStepName, reduceOutputStepName, writer );
+        task.start();
+      }
+      long records = 0;
+      long groups = 0;
+      Object[] previous = null;
+      try {
+        merged = SortedRun.merge( runs, comparator );
+        Object[] pair;
+        while ( ( pair = merged.next() ) != null ) {
+          if ( stopCondition.getAsBoolean() ) {
+            if ( task != null ) {
+              task.stop();
+            }
+            return;
+          }
+          records++;
+          if ( previous == null || comparator.compare( previous, pair ) != 0 ) {
+            groups++;
+          }
+          previous = pair;
+          if ( task != null ) {
+            task.put( pairMeta, pair );
+          } else {
+            writer.collect( pairMeta, pair );
+          }
+        }
+      } catch ( IllegalStateException e ) {
+        if ( task != null ) {
+          task.stop();
+        }
+        throw new KettleException( e.getCause() != null ? e.getCause() : e );
+      } catch ( KettleException e ) {
+        if ( task != null ) {
+          task.stop();
+        }
+        throw e;
+      }
+      counters.increment( LocalMapReduceCounters.Counter.REDUCE_INPUT_RECORDS, records );
+      counters.increment( LocalMapReduceCounters.Counter.REDUCE_INPUT_GROUPS, groups );
+      counters.increment( LocalMapReduceCounters.Counter.REDUCE_OUTPUT_RECORDS,
+        task != null ? task.finish() : records );
+    } finally {
+      if ( merged != null ) {
+        merged.close();
+      } else {
+        for ( SortedRun run : runs ) {
+          run.close();
+        }
+      }
+      writer.close();
+      counters.addNanos( LocalMapReduceCounters.Phase.REDUCE, System.nanoTime() - start );
+    }
+  }
+
+  private static void delete( File file ) {
+    File[] children = file.listFiles();
+    if ( children != null ) {
+      for ( File child : children ) {
+        delete( child );
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * Writes pairs as "key TAB value" lines
+   */
+  private static class PartWriter implements TransTask.Collector {
+    private final File file;
+    private Writer writer;
+
+    private PartWriter( File file ) throws KettleException {
+      this.file = file;
+      try {
+        writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ),
+          64 * 1024 );
+      } catch ( IOException e ) {
+        throw new KettleException( e );
+      }
+    }
+
+    @Override
+    public synchronized void collect( RowMetaInterface pairMeta, Object[] pair ) throws KettleException {
+      try {
+        String key = pairMeta.getValueMeta( 0 ).getString( pair[ 0 ] );
+        String value = pairMeta.getValueMeta( 1 ).getString( pair[ 1 ] );
+        writer.write( key == null ? "" : key );
+        writer.write( '\t' );
+        writer.write( value == null ? "" : value );
+        writer.write( '\n' );
+      } catch ( IOException e ) {
+        throw new KettleException( "Can't write to " + file, e );
+      }
+    }
+
+    private synchronized void close() throws KettleException {
+      try {
+        writer.close();
+      } catch ( IOException e ) {
+        throw new KettleException( "Can't write to " + file, e );
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the output of a map task in memory. Each time the buffer is full its pairs are sorted on their key, combined
+ * if the job has a combiner, and spilled to disk. The last sorted run stays in memory unless
+ * {@link #spillRemaining()} is called.
+ */
+class MapOutputBuffer implements TransTask.Collector {
+
+  /**
+   * Combines a sorted run
+   */
+  interface Combiner {
+    /**
+     * @return the combined pairs, sorted on their key and with the types of the input pairs
+     */
+    List<Object[]> combine( RowMetaInterface pairMeta, List<Object[]> sorted ) throws KettleException;
+  }
+
+  private final int capacity;
+  private final File spillFolder;
+  private final Combiner combiner;
+  private final LocalMapReduceCounters counters;
+  private final List<SortedRun.SpillFile> spills = new ArrayList<>();
+
+  private List<Object[]> buffer;
+  private RowMetaInterface pairMeta;
+
+  /**
+   * @param capacity
+   *          the number of pairs held in memory before a spill
+   * @param combiner
+   *          the combiner of the job, null if none
+   */
+  MapOutputBuffer( int capacity, File spillFolder, Combiner combiner, LocalMapReduceCounters counters ) {
+    this.capacity = Math.max( 1, capacity );
+    this.spillFolder = spillFolder;
+    this.combiner = combiner;
+    this.counters = counters;
+    buffer = new ArrayList<>( Math.min( this.capacity, 1024 ) );
+  }
+
+  @Override
+  public synchronized void collect( RowMetaInterface pairMeta, Object[] pair ) throws KettleException {
+    if ( this.pairMeta == null ) {
+      this.pairMeta = pairMeta;
+    }
+    buffer.add( pair );
+    if ( buffer.size() >= capacity ) {
+      spill();
+      buffer = new ArrayList<>( Math.min( capacity, 1024 ) );
+    }
+  }
+
+  /**
+   * Spills the pairs left in memory, so that a finished task doesn't hold up to capacity pairs until the reduce phase
+   */
+  synchronized void spillRemaining() throws KettleException {
+    if ( !buffer.isEmpty() ) {
+      spill();
+      buffer = new ArrayList<>();
+    }
+  }
+
+  /**
+   * @return the types of the pairs, null if the task had no output
+   */
+  synchronized RowMetaInterface getPairMeta() {
+    return pairMeta;
+  }
+
+  /**
+   * @return the sorted runs of the task: its spill files, in spill order, followed by the pairs left in memory
+   */
+  synchronized List<SortedRun> finish() throws KettleException {
+    List<SortedRun> runs = new ArrayList<>();
+    for ( SortedRun.SpillFile spill : spills ) {
+      runs.add( spill.open() );
+    }
+    if ( !buffer.isEmpty() ) {
+      runs.add( SortedRun.of( sortAndCombine() ) );
+    }
+    buffer = null;
+    return runs;
+  }
+
+  private void spill() throws KettleException {
+    List<Object[]> sorted = sortAndCombine();
+    long start = System.nanoTime();
+    spills.add( SortedRun.spill( spillFolder, pairMeta, sorted ) );
+    counters.addNanos( LocalMapReduceCounters.Phase.SORT, System.nanoTime() - start );
+    counters.increment( LocalMapReduceCounters.Counter.SPILLED_RECORDS, sorted.size() );
+  }
+
+  private List<Object[]> sortAndCombine() throws KettleException {
+    long start = System.nanoTime();
+    sort( pairMeta, buffer );
+    counters.addNanos( LocalMapReduceCounters.Phase.SORT, System.nanoTime() - start );
+    if ( combiner == null ) {
+      return buffer;
+    }
+    start = System.nanoTime();
+    List<Object[]> combined = combiner.combine( pairMeta, buffer );
+    counters.addNanos( LocalMapReduceCounters.Phase.COMBINE, System.nanoTime() - start );
+    counters.increment( LocalMapReduceCounters.Counter.COMBINE_INPUT_RECORDS, buffer.size() );
+    counters.increment( LocalMapReduceCounters.Counter.COMBINE_OUTPUT_RECORDS, combined.size() );
+    return combined;
+  }
+
+  /**
+   * Stable sort of pairs on their key
+   */
+  static void sort( RowMetaInterface pairMeta, List<Object[]> pairs ) throws KettleException {
+    try {
+      pairs.sort( SortedRun.keyComparator( pairMeta ) );
+    } catch ( IllegalStateException e ) {
+      if ( e.getCause() instanceof KettleException ) {
+        throw (KettleException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Key/value pairs sorted on their key, read one at a time: a sorted buffer, a spill file or the merge of other runs.
+ */
+abstract class SortedRun {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * @return the next pair, null at the end of the run
+   */
+  abstract Object[] next() throws KettleException;
+
+  void close() {
+  }
+
+  /**
+   * Orders pairs on their key. Comparing keys that can't be compared throws an IllegalStateException
+   */
+  static Comparator<Object[]> keyComparator( RowMetaInterface pairMeta ) {
+    ValueMetaInterface keyMeta = pairMeta.getValueMeta( 0 );
+    return ( a, b ) -> {
+      try {
+        return keyMeta.compare( a[ 0 ], b[ 0 ] );
+      } catch ( KettleValueException e ) {
+        throw new IllegalStateException( e );
+      }
+    };
+  }
+
+  static SortedRun of( List<Object[]> pairs ) {
+    Iterator<Object[]> iterator = pairs.iterator();
+    return new SortedRun() {
+      @Override
+      Object[] next() {
+        return iterator.hasNext() ? iterator.next() : null;
+      }
+    };
+  }
+
+  /**
+   * Writes sorted pairs to a new file of the folder
+   */
+  static SpillFile spill( File folder, RowMetaInterface pairMeta, List<Object[]> pairs ) throws KettleException {
+    try {
+      File file = File.createTempFile( "spill", ".bin", folder );
+      file.deleteOnExit();
+      try ( DataOutputStream out =
+              new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ), BUFFER_SIZE ) ) ) {
+        for ( Object[] pair : pairs ) {
+          out.writeBoolean( true );
+          pairMeta.writeData( out, pair );
+        }
+        out.writeBoolean( false );
+      }
+      return new SpillFile( file, pairMeta );
+    } catch ( IOException e ) {
+      throw new KettleException( e );
+    }
+  }
+
+  /**
+   * Merges sorted runs into a single one, pairs with equal keys keep the order of the runs
+   */
+  static SortedRun merge( List<SortedRun> runs, Comparator<Object[]> comparator ) throws KettleException {
+    if ( runs.size() == 1 ) {
+      return runs.get( 0 );
+    }
+    PriorityQueue<Head> heads = new PriorityQueue<>( Math.max( 1, runs.size() ), ( a, b ) -> {
+      int cmp = comparator.compare( a.pair, b.pair );
+      return cmp != 0 ? cmp : Integer.compare( a.index, b.index );
+    } );
+    for ( int i = 0; i < runs.size(); i++ ) {
+      Object[] pair = runs.get( i ).next();
+      if ( pair != null ) {
+        heads.add( new Head( runs.get( i ), i, pair ) );
+      } else {
+        runs.get( i ).close();
+      }
+    }
+    return new SortedRun() {
+      @Override
+      Object[] next() throws KettleException {
+        Head head = heads.poll();
+        if ( head == null ) {
+          return null;
+        }
+        Object[] pair = head.pair;
+        head.pair = head.run.next();
+        if ( head.pair != null ) {
+          heads.add( head );
+        } else {
+          head.run.close();
+        }
+        return pair;
+      }
+
+      @Override
+      void close() {
+        for ( Head head : heads ) {
+          head.run.close();
+        }
+        heads.clear();
+      }
+    };
+  }
+
+  private static class Head {
+    private final SortedRun run;
+    private final int index;
+    private Object[] pair;
+
+    private Head( SortedRun run, int index, Object[] pair ) {
+      this.run = run;
+      this.index = index;
+      this.pair = pair;
+    }
+  }
+
+  /**
+   * A sorted run written to disk
+   */
+  static class SpillFile {
+    private final File file;
+    private final RowMetaInterface pairMeta;
+
+    private SpillFile( File file, RowMetaInterface pairMeta ) {
+      this.file = file;
+      this.pairMeta = pairMeta;
+    }
+
+    File getFile() {
+      return file;
+    }
+
+    /**
+     * @return the pairs of the file, which is deleted once they have all been read or the run is closed
+     */
+    SortedRun open() throws KettleException {
+      DataInputStream in;
+      try {
+        in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), BUFFER_SIZE ) );
+      } catch ( IOException e ) {
+        throw new KettleException( e );
+      }
+      return new SortedRun() {
+        private boolean closed;
+
+        @Override
+        Object[] next() throws KettleException {
+          if ( closed ) {
+            return null;
+          }
+          try {
+            if ( in.readBoolean() ) {
+              return pairMeta.readData( in );
+            }
+          } catch ( IOException e ) {
+            throw new KettleException( e );
+          }
+          close();
+          return null;
+        }
+
+        @Override
+        void close() {
+          if ( !closed ) {
+            closed = true;
+            try {
+              in.close();
+            } catch ( IOException e ) {
+              // only read from
+            }
+            file.delete();
+          }
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepInterface;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a mapper, combiner or reducer transformation in process: key/value pairs are injected into its MapReduce Input
+ * step and the key/value pairs written by its MapReduce Output step are handed to a collector, as a task of a Pentaho
+ * MapReduce job does.
+ */
+class TransTask {
+
+  /**
+   * Receives the output pairs, in normal storage. Called from the thread of the output step.
+   */
+  interface Collector {
+    void collect( RowMetaInterface pairMeta, Object[] pair ) throws KettleException;
+  }
+
+  private final TransMeta transMeta;
+  private final VariableSpace space;
+  private final String inputStepName;
+  private final String outputStepName;
+  private final Collector collector;
+
+  private Trans trans;
+  private RowProducer producer;
+  private RowMetaInterface inputRowMeta;
+  private volatile KettleException failure;
+  private long outputRecords;
+
+  /**
+   * @param transMeta
+   *          the transformation, a copy of it is run
+   */
+  TransTask( TransMeta transMeta, VariableSpace space, String inputStepName, String outputStepName,
+             Collector collector ) {
+    this.transMeta = (TransMeta) transMeta.clone();
+    this.space = space;
+    this.inputStepName = inputStepName;
+    this.outputStepName = outputStepName;
+    this.collector = collector;
+  }
+
+  void start() throws KettleException {
+    inputRowMeta = transMeta.getStepFields( inputStepName );
+    trans = new Trans( transMeta );
+    if ( space != null ) {
+      trans.copyVariablesFrom( space );
+    }
+    trans.prepareExecution( null );
+    producer = trans.addRowProducer( inputStepName, 0 );
+    StepInterface output = trans.findRunThread( outputStepName );
+    if ( output == null ) {
+      throw new KettleException( "Step '" + outputStepName + "' not found in transformation '"
+        + transMeta.getName() + "'" );
+    }
+    output.addRowListener( new RowAdapter() {
+      private RowMetaInterface pairMeta;
+      private int keyIndex;
+      private int valueIndex;
+
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+        try {
+          if ( pairMeta == null ) {
+            keyIndex = rowMeta.indexOfValue( HadoopExitMeta.OUT_KEY );
+            valueIndex = rowMeta.indexOfValue( HadoopExitMeta.OUT_VALUE );
+            if ( keyIndex < 0 || valueIndex < 0 ) {
+              throw new KettleException( "Step '" + outputStepName + "' doesn't write "
+                + HadoopExitMeta.OUT_KEY + " and " + HadoopExitMeta.OUT_VALUE + " fields" );
+            }
+            pairMeta = new RowMeta();
+            pairMeta.addValueMeta( normal( rowMeta.getValueMeta( keyIndex ) ) );
+            pairMeta.addValueMeta( normal( rowMeta.getValueMeta( valueIndex ) ) );
+          }
+          Object key = rowMeta.getValueMeta( keyIndex ).convertToNormalStorageType( row[ keyIndex ] );
+          Object value = rowMeta.getValueMeta( valueIndex ).convertToNormalStorageType( row[ valueIndex ] );
+          outputRecords++;
+          collector.collect( pairMeta, new Object[] { key, value } );
+        } catch ( KettleException e ) {
+          failure = e;
+          throw new KettleStepException( e );
+        }
+      }
+    } );
+    trans.startThreads();
+  }
+
+  private static ValueMetaInterface normal( ValueMetaInterface valueMeta ) {
+    ValueMetaInterface clone = valueMeta.clone();
+    clone.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+    clone.setStorageMetadata( null );
+    return clone;
+  }
+
+  /**
+   * Injects a pair into the input step, converting it to the key and value types of the step
+   *
+   * @param pairMeta
+   *          the types of the pair
+   */
+  void put( RowMetaInterface pairMeta, Object[] pair ) throws KettleException {
+    Object[] row = new Object[ Math.max( 2, inputRowMeta.size() ) ];
+    for ( int i = 0; i < 2 && i < inputRowMeta.size(); i++ ) {
+      ValueMetaInterface target = inputRowMeta.getValueMeta( i );
+      ValueMetaInterface source = pairMeta.getValueMeta( i );
+      row[ i ] = target.getType() == source.getType() ? pair[ i ] : target.convertData( source, pair[ i ] );
+    }
+    while ( !producer.putRowWait( inputRowMeta, row, 100, TimeUnit.MILLISECONDS ) ) {
+      checkRunning();
+    }
+  }
+
+  private void checkRunning() throws KettleException {
+    if ( failure != null ) {
+      throw failure;
+    }
+    if ( trans.isFinished() || trans.isStopped() || trans.getErrors() > 0 ) {
+      throw new KettleException( "Transformation '" + transMeta.getName() + "' stopped before reading all its input" );
+    }
+  }
+
+  /**
+   * Signals the end of the input and waits for the transformation to finish
+   *
+   * @return the number of pairs written by the output step
+   */
+  long finish() throws KettleException {
+    producer.finished();
+    trans.waitUntilFinished();
+    if ( failure != null ) {
+      throw failure;
+    }
+    if ( trans.getErrors() > 0 ) {
+      throw new KettleException( "Transformation '" + transMeta.getName() + "' finished with " + trans.getErrors()
+        + " error(s)" );
+    }
+    return outputRecords;
+  }
+
+  /**
+   * Stops a transformation whose input failed
+   */
+  void stop() {
+    if ( trans != null ) {
+      trans.stopAll();
+    }
+  }
+}
@@ -26,8 +26,24 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class HadoopExit extends BaseStep implements StepInterface {
   private static final Class<?> PKG = HadoopExit.class;
 
+  /**
+   * When "true", the key/value rows of a step without output hops are written into a single reused row. Only to be
+   * set when the row listeners consume the rows before putRow returns, as the Pentaho MapReduce output collector does.
+   */
+  public static final String KETTLE_HADOOP_EXIT_REUSE_ROW = "KETTLE_HADOOP_EXIT_REUSE_ROW";
+
+  /**
+   * Receives the key/value pairs of the step directly, without a row being built for them
+   */
+  public interface KeyValueSink {
+    void write( Object key, Object value ) throws KettleException;
+  }
+
   private HadoopExitMeta meta;
   private HadoopExitData data;
+  private Object[] reusedOutputRow;
+  private KeyValueSink keyValueSink;
+  private boolean sinkOnly;
 
   public HadoopExit( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
       Trans trans ) {
@@ -36,6 +52,19 @@ public class HadoopExit extends BaseStep implements StepInterface {
 
   public void runtimeInit() throws KettleException {
     data.init( getInputRowMeta(), meta, this );
+    boolean noHops = getOutputRowSets().isEmpty();
+    if ( noHops && Boolean.parseBoolean( getVariable( KETTLE_HADOOP_EXIT_REUSE_ROW, "false" ) ) ) {
+      reusedOutputRow = new Object[2];
+    }
+    sinkOnly = keyValueSink != null && noHops && getRowListeners().isEmpty();
+  }
+
+  /**
+   * Sends the key/value pairs to a sink, e.g. one writing them into reused Writables. Rows are still passed on to
+   * output hops and row listeners, if any. To be set before the step processes its first row.
+   */
+  public void setKeyValueSink( KeyValueSink keyValueSink ) {
+    this.keyValueSink = keyValueSink;
   }
 
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
@@ -54,11 +83,21 @@ public class HadoopExit extends BaseStep implements StepInterface {
       first = false;
     }
 
-    Object[] outputRow = new Object[2];
-    outputRow[HadoopExitData.getOutKeyOrdinal()] = r[data.getInKeyOrdinal()];
-    outputRow[HadoopExitData.getOutValueOrdinal()] = r[data.getInValueOrdinal()];
+    Object key = r[data.getInKeyOrdinal()];
+    Object value = r[data.getInValueOrdinal()];
+
+    if ( keyValueSink != null ) {
+      keyValueSink.write( key, value );
+    }
+    if ( sinkOnly ) {
+      incrementLinesWritten();
+    } else {
+      Object[] outputRow = reusedOutputRow != null ? reusedOutputRow : new Object[2];
+      outputRow[HadoopExitData.getOutKeyOrdinal()] = key;
+      outputRow[HadoopExitData.getOutValueOrdinal()] = value;
 
-    putRow( data.getOutputRowMeta(), outputRow );
+      putRow( data.getOutputRowMeta(), outputRow );
+    }
 
     if ( checkFeedback( getLinesRead() ) ) {
       logBasic( BaseMessages.getString( PKG, "HadoopExit.Linenr", getLinesRead() ) );
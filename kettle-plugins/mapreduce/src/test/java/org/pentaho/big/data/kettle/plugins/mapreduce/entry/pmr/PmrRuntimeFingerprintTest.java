@@ -0,0 +1,90 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PmrRuntimeFingerprintTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File pluginFolder;
+  private Properties properties;
+
+  @Before
+  public void setup() throws IOException {
+    File plugins = temporaryFolder.newFolder( "plugins" );
+    pluginFolder = new File( plugins, "pentaho-big-data-plugin" );
+    write( new File( pluginFolder, "pentaho-mapreduce-libraries.zip" ), "archive" );
+    write( new File( pluginFolder, "lib/kettle-engine.jar" ), "engine" );
+    write( new File( pluginFolder, "lib/pdi-core-plugins-ui.jar" ), "ui" );
+    write( new File( plugins, "my-plugin/my-plugin.jar" ), "mine" );
+    write( new File( plugins, "other-plugin/other-plugin.jar" ), "other" );
+
+    properties = new Properties();
+    properties.setProperty( JobEntryHadoopTransJobExecutor.PENTAHO_MAPREDUCE_PROPERTY_ADDITIONAL_PLUGINS,
+      "my-plugin, missing-plugin" );
+    properties.setProperty( PmrRuntimeFingerprint.PROPERTY_EXCLUDE_PLUGIN_FILES, "pdi-core-plugins-ui" );
+  }
+
+  @Test
+  public void testManifestListsTheRuntimeFiles() throws IOException {
+    String manifest = new PmrRuntimeFingerprint( pluginFolder, properties ).getManifest();
+    String[] lines = manifest.split( "\n" );
+
+    assertEquals( 3, lines.length );
+    assertTrue( lines[ 0 ].endsWith( " 4 my-plugin/my-plugin.jar" ) );
+    assertTrue( lines[ 1 ].endsWith( " 6 pentaho-big-data-plugin/lib/kettle-engine.jar" ) );
+    assertTrue( lines[ 2 ].endsWith( " 7 pentaho-big-data-plugin/pentaho-mapreduce-libraries.zip" ) );
+    assertFalse( manifest.contains( "pdi-core-plugins-ui" ) );
+    assertFalse( manifest.contains( "other-plugin" ) );
+  }
+
+  @Test
+  public void testInstallationIdFollowsTheContents() throws IOException {
+    String id = new PmrRuntimeFingerprint( pluginFolder, properties ).getInstallationId( "10.3.0.0 SNAPSHOT" );
+    assertTrue( id.startsWith( "10.3.0.0_SNAPSHOT-" ) );
+    assertEquals( id, new PmrRuntimeFingerprint( pluginFolder, properties ).getInstallationId( "10.3.0.0 SNAPSHOT" ) );
+
+    // excluded and unrelated files don't matter
+    write( new File( pluginFolder, "lib/pdi-core-plugins-ui.jar" ), "changed ui" );
+    write( new File( pluginFolder.getParentFile(), "other-plugin/other-plugin.jar" ), "changed other" );
+    assertEquals( id, new PmrRuntimeFingerprint( pluginFolder, properties ).getInstallationId( "10.3.0.0 SNAPSHOT" ) );
+
+    File jar = new File( pluginFolder.getParentFile(), "my-plugin/my-plugin.jar" );
+    write( jar, "changed mine" );
+    assertTrue( jar.setLastModified( jar.lastModified() + 2000 ) );
+    assertNotEquals( id,
+      new PmrRuntimeFingerprint( pluginFolder, properties ).getInstallationId( "10.3.0.0 SNAPSHOT" ) );
+  }
+
+  private static void write( File file, String content ) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
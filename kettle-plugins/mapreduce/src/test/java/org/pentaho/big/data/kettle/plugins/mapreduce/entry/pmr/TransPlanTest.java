@@ -0,0 +1,170 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitMeta;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.hadoop.shim.api.mapreduce.PentahoMapReduceJobBuilder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TransPlanTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private TransMeta transMeta;
+  private TransPlan.Loader loader;
+
+  @Before
+  public void setup() throws Exception {
+    TransPlan.clearCache();
+    transMeta = mock( TransMeta.class );
+    loader = mock( TransPlan.Loader.class );
+    when( loader.load() ).thenReturn( transMeta );
+  }
+
+  @After
+  public void tearDown() {
+    TransPlan.clearCache();
+  }
+
+  @Test
+  public void testVerifiesEachStepPairOnce() throws Exception {
+    PentahoMapReduceJobBuilder jobBuilder = mock( PentahoMapReduceJobBuilder.class );
+    TransPlan plan = new TransPlan( loader );
+
+    plan.verify( jobBuilder, "in", "out" );
+    plan.verify( jobBuilder, "in", "out" );
+    plan.verify( jobBuilder, "in", "other" );
+    plan.release();
+
+    verify( jobBuilder, times( 1 ) ).verifyTransMeta( transMeta, "in", "out" );
+    verify( jobBuilder, times( 1 ) ).verifyTransMeta( transMeta, "in", "other" );
+    verify( transMeta, times( 1 ) ).disposeEmbeddedMetastoreProvider();
+    verify( loader, times( 1 ) ).load();
+  }
+
+  @Test
+  public void testExitFields() throws Exception {
+    HadoopExitMeta exitMeta = mock( HadoopExitMeta.class );
+    when( exitMeta.getOutKeyFieldname() ).thenReturn( "key" );
+    when( exitMeta.getOutValueFieldname() ).thenReturn( "value" );
+    StepMeta exit = mock( StepMeta.class );
+    when( exit.getStepMetaInterface() ).thenReturn( exitMeta );
+    when( transMeta.findStep( "exit" ) ).thenReturn( exit );
+    when( transMeta.getPrevStepFields( exit ) ).thenReturn( new RowMeta() );
+
+    TransPlan plan = new TransPlan( loader );
+    TransPlan.ExitFields fields = plan.getExitFields( "exit" );
+    plan.release();
+
+    assertSame( fields, plan.getExitFields( "exit" ) );
+    assertEquals( "key", fields.getKeyFieldname() );
+    assertEquals( "value", fields.getValueFieldname() );
+    assertEquals( 0, fields.getPrevStepFields().size() );
+    assertNull( plan.getExitFields( "missing" ) );
+  }
+
+  @Test
+  public void testFileVerificationsAreCachedUntilTheContentChanges() throws Exception {
+    File file = temporaryFolder.newFile( "mapper.ktr" );
+    Files.write( file.toPath(), "<transformation/>".getBytes( StandardCharsets.UTF_8 ) );
+    String filename = file.getAbsolutePath();
+
+    TransPlan.forFile( filename, loader ).setSingleThreadingVerified();
+    assertTrue( TransPlan.forFile( filename, loader ).isSingleThreadingVerified() );
+
+    // same content, new modification time
+    assertTrue( file.setLastModified( file.lastModified() - 10000L ) );
+    assertTrue( TransPlan.forFile( filename, loader ).isSingleThreadingVerified() );
+
+    Files.write( file.toPath(), "<transformation></transformation>".getBytes( StandardCharsets.UTF_8 ) );
+    assertFalse( TransPlan.forFile( filename, loader ).isSingleThreadingVerified() );
+  }
+
+  @Test
+  public void testFilePlansShareVerificationsButReloadTheTransformation() throws Exception {
+    File file = temporaryFolder.newFile( "reducer.ktr" );
+    Files.write( file.toPath(), "<transformation/>".getBytes( StandardCharsets.UTF_8 ) );
+    String filename = file.getAbsolutePath();
+    PentahoMapReduceJobBuilder jobBuilder = mock( PentahoMapReduceJobBuilder.class );
+
+    TransPlan first = TransPlan.forFile( filename, loader );
+    first.verify( jobBuilder, "in", "out" );
+    TransPlan second = TransPlan.forFile( filename, loader );
+    assertNotSame( first, second );
+    second.verify( jobBuilder, "in", "out" );
+    verify( jobBuilder, times( 1 ) ).verifyTransMeta( transMeta, "in", "out" );
+    verify( loader, times( 1 ) ).load();
+
+    // shared objects and variables may differ between submits, so the transformation the XML and the exit fields
+    // come from is loaded again
+    TransMeta reloaded = mock( TransMeta.class );
+    when( loader.load() ).thenReturn( reloaded );
+    assertSame( reloaded, second.getTransMeta() );
+  }
+
+  @Test
+  public void testCachedSubmitsDisposeTheEmbeddedMetastoreProvider() throws Exception {
+    File file = temporaryFolder.newFile( "combiner.ktr" );
+    Files.write( file.toPath(), "<transformation/>".getBytes( StandardCharsets.UTF_8 ) );
+    String filename = file.getAbsolutePath();
+    PentahoMapReduceJobBuilder jobBuilder = mock( PentahoMapReduceJobBuilder.class );
+
+    TransPlan first = TransPlan.forFile( filename, loader );
+    first.verify( jobBuilder, "in", "out" );
+    first.getExitFields( "out" );
+    first.release();
+    verify( transMeta, times( 1 ) ).disposeEmbeddedMetastoreProvider();
+
+    // the verification is cached, the exit fields still load the transformation
+    TransPlan second = TransPlan.forFile( filename, loader );
+    second.verify( jobBuilder, "in", "out" );
+    second.getExitFields( "out" );
+    second.release();
+    verify( jobBuilder, times( 1 ) ).verifyTransMeta( transMeta, "in", "out" );
+    verify( loader, times( 2 ) ).load();
+    verify( transMeta, times( 2 ) ).disposeEmbeddedMetastoreProvider();
+
+    // nothing loaded, nothing to dispose
+    second.release();
+    verify( transMeta, times( 2 ) ).disposeEmbeddedMetastoreProvider();
+  }
+
+  @Test
+  public void testMissingFilesAreNotCached() throws Exception {
+    String filename = new File( temporaryFolder.getRoot(), "missing.ktr" ).getAbsolutePath();
+    assertNotSame( TransPlan.forFile( filename, loader ), TransPlan.forFile( filename, loader ) );
+  }
+}
@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineSplitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testEachLineIsReadOnceWhateverTheSplitSize() throws IOException {
+    List<String> lines = Arrays.asList( "first", "", "third line", "fourth\r", "5", "", "last" );
+    File file = temporaryFolder.newFile( "input.txt" );
+    Files.write( file.toPath(), "first\n\nthird line\nfourth\r\r\n5\n\nlast".getBytes( StandardCharsets.UTF_8 ) );
+
+    for ( long splitSize = 1; splitSize <= file.length() + 1; splitSize++ ) {
+      List<String> read = new ArrayList<>();
+      for ( LineSplit split : LineSplit.split( Collections.singletonList( file ), splitSize ) ) {
+        try ( LineSplit.Reader reader = split.open() ) {
+          String line;
+          while ( ( line = reader.next() ) != null ) {
+            read.add( line );
+          }
+        }
+      }
+      assertEquals( "split size " + splitSize, lines, read );
+    }
+  }
+
+  @Test
+  public void testLineOffsets() throws IOException {
+    File file = temporaryFolder.newFile( "input.txt" );
+    Files.write( file.toPath(), "ab\ncde\nf\n".getBytes( StandardCharsets.UTF_8 ) );
+
+    List<Long> offsets = new ArrayList<>();
+    for ( LineSplit split : LineSplit.split( Collections.singletonList( file ), 4 ) ) {
+      try ( LineSplit.Reader reader = split.open() ) {
+        while ( reader.next() != null ) {
+          offsets.add( reader.getLineOffset() );
+        }
+      }
+    }
+    assertEquals( Arrays.asList( 0L, 3L, 7L ), offsets );
+  }
+
+  @Test
+  public void testEmptyFilesHaveNoSplits() throws IOException {
+    File empty = temporaryFolder.newFile( "empty.txt" );
+    assertEquals( 0, LineSplit.split( Collections.singletonList( empty ), 10 ).size() );
+  }
+}
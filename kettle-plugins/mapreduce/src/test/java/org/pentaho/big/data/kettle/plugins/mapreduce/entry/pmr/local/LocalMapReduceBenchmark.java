@@ -0,0 +1,163 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.enter.HadoopEnterMeta;
+import org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitMeta;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.annotations.Step;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.core.plugins.StepPluginType;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.groupby.GroupByMeta;
+import org.pentaho.di.trans.steps.splitfieldtorows.SplitFieldToRowsMeta;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Runs sample Pentaho MapReduce jobs with {@link LocalMapReduceJob} on a generated text file and reports the records per
+ * second of each phase, for 1, 2 and 4 parallel map tasks. Run by hand (it is not picked up by the test runner):
+ * <pre>
+ *   java -cp ... org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local.LocalMapReduceBenchmark [lines]
+ * </pre>
+ * The samples are a word count (split lines into words, count them in the reducer) and a sort of the lines.
+ */
+public class LocalMapReduceBenchmark {
+
+  private static final int WORDS = 5000;
+
+  public static void main( String[] args ) throws Throwable {
+    int lines = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 1000000;
+    KettleEnvironment.init();
+    PluginRegistry registry = PluginRegistry.getInstance();
+    registry.registerPluginClass( HadoopEnterMeta.class.getName(), StepPluginType.class, Step.class );
+    registry.registerPluginClass( HadoopExitMeta.class.getName(), StepPluginType.class, Step.class );
+
+    File folder = Files.createTempDirectory( "pmr-benchmark" ).toFile();
+    File input = new File( folder, "input.txt" );
+    writeInput( input, lines );
+
+    for ( int mapTasks : new int[] { 1, 2, 4 } ) {
+      LocalMapReduceJob wordCount = new LocalMapReduceJob( new Variables() );
+      wordCount.setMapper( wordCountMapper(), "MapReduce Input", "MapReduce Output" );
+      wordCount.setReducer( wordCountReducer(), "MapReduce Input", "MapReduce Output" );
+      run( "word count", wordCount, input, new File( folder, "wordcount-" + mapTasks ), mapTasks );
+
+      LocalMapReduceJob sort = new LocalMapReduceJob( new Variables() );
+      sort.setMapper( sortMapper(), "MapReduce Input", "MapReduce Output" );
+      sort.setReducer( null, null, null );
+      run( "sort", sort, input, new File( folder, "sort-" + mapTasks ), mapTasks );
+    }
+  }
+
+  private static void run( String name, LocalMapReduceJob job, File input, File output, int mapTasks )
+    throws Exception {
+    job.setInputFiles( Collections.singletonList( input ) );
+    job.setOutputFolder( output );
+    job.setMapTasks( mapTasks );
+    job.setSplitSize( Math.max( 1, input.length() / 4 + 1 ) );
+    LocalMapReduceCounters counters = job.run();
+    System.out.printf( "%s, %d map task(s)%n%s%n", name, mapTasks, counters );
+  }
+
+  private static void writeInput( File input, int lines ) throws IOException {
+    Random random = new Random( 42 );
+    try ( BufferedWriter writer = Files.newBufferedWriter( input.toPath(), StandardCharsets.UTF_8 ) ) {
+      for ( int i = 0; i < lines; i++ ) {
+        int words = 1 + random.nextInt( 12 );
+        for ( int j = 0; j < words; j++ ) {
+          if ( j > 0 ) {
+            writer.write( ' ' );
+          }
+          writer.write( "w" + random.nextInt( WORDS ) );
+        }
+        writer.write( '\n' );
+      }
+    }
+  }
+
+  /**
+   * MapReduce Input (offset, line) - Split field to rows (word) - MapReduce Output (word, offset)
+   */
+  private static TransMeta wordCountMapper() throws Throwable {
+    SplitFieldToRowsMeta split = new SplitFieldToRowsMeta();
+    split.setDefault();
+    split.setSplitField( "value" );
+    split.setDelimiter( " " );
+    split.setNewFieldname( "word" );
+    return transformation( "word count mapper", input( ValueMetaInterface.TYPE_INTEGER ),
+      new StepMeta( "Split words", split ), output( "word", "key" ) );
+  }
+
+  /**
+   * MapReduce Input (word, offset) - Group by (word, count) - MapReduce Output (word, count)
+   */
+  private static TransMeta wordCountReducer() throws Throwable {
+    GroupByMeta groupBy = new GroupByMeta();
+    groupBy.setDefault();
+    groupBy.allocate( 1, 1 );
+    groupBy.getGroupField()[ 0 ] = "key";
+    groupBy.getAggregateField()[ 0 ] = "count";
+    groupBy.getSubjectField()[ 0 ] = "value";
+    groupBy.getAggregateType()[ 0 ] = GroupByMeta.TYPE_GROUP_COUNT_ALL;
+    HadoopEnterMeta enter = new HadoopEnterMeta();
+    enter.setKeyType( ValueMetaInterface.TYPE_STRING );
+    enter.setValueType( ValueMetaInterface.TYPE_INTEGER );
+    return transformation( "word count reducer", new StepMeta( "MapReduce Input", enter ),
+      new StepMeta( "Count", groupBy ), output( "key", "count" ) );
+  }
+
+  /**
+   * MapReduce Input (offset, line) - MapReduce Output (line, offset)
+   */
+  private static TransMeta sortMapper() throws Throwable {
+    return transformation( "sort mapper", input( ValueMetaInterface.TYPE_INTEGER ), output( "value", "key" ) );
+  }
+
+  private static StepMeta input( int keyType ) throws Throwable {
+    HadoopEnterMeta enter = new HadoopEnterMeta();
+    enter.setKeyType( keyType );
+    enter.setValueType( ValueMetaInterface.TYPE_STRING );
+    return new StepMeta( "MapReduce Input", enter );
+  }
+
+  private static StepMeta output( String keyField, String valueField ) throws Throwable {
+    HadoopExitMeta exit = new HadoopExitMeta();
+    exit.setOutKeyFieldname( keyField );
+    exit.setOutValueFieldname( valueField );
+    return new StepMeta( "MapReduce Output", exit );
+  }
+
+  private static TransMeta transformation( String name, StepMeta... steps ) {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( name );
+    for ( int i = 0; i < steps.length; i++ ) {
+      transMeta.addStep( steps[ i ] );
+      if ( i > 0 ) {
+        transMeta.addTransHop( new TransHopMeta( steps[ i - 1 ], steps[ i ] ) );
+      }
+    }
+    return transMeta;
+  }
+}
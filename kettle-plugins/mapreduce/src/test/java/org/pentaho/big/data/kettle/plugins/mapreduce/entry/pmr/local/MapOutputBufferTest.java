@@ -0,0 +1,123 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.entry.pmr.local;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MapOutputBufferTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private RowMetaInterface pairMeta;
+  private LocalMapReduceCounters counters;
+  private File spillFolder;
+
+  @Before
+  public void setup() throws Exception {
+    pairMeta = new RowMeta();
+    pairMeta.addValueMeta( new ValueMetaString( "outKey" ) );
+    pairMeta.addValueMeta( new ValueMetaInteger( "outValue" ) );
+    counters = new LocalMapReduceCounters();
+    spillFolder = temporaryFolder.newFolder( "spill" );
+  }
+
+  @Test
+  public void testSpillsAndMergesSortedRuns() throws KettleException {
+    MapOutputBuffer buffer = new MapOutputBuffer( 3, spillFolder, null, counters );
+    String[] words = { "pear", "apple", "fig", "apple", "kiwi", "fig", "banana" };
+    for ( int i = 0; i < words.length; i++ ) {
+      buffer.collect( pairMeta, new Object[] { words[ i ], (long) i } );
+    }
+
+    List<SortedRun> runs = buffer.finish();
+    assertEquals( 3, runs.size() );
+    assertEquals( 2, spillFolder.listFiles().length );
+    assertEquals( 6, counters.get( LocalMapReduceCounters.Counter.SPILLED_RECORDS ) );
+
+    List<String> pairs = read( SortedRun.merge( runs, SortedRun.keyComparator( pairMeta ) ) );
+    // equal keys keep the order they were written in
+    assertEquals( Arrays.asList( "apple=1", "apple=3", "banana=6", "fig=2", "fig=5", "kiwi=4", "pear=0" ), pairs );
+    assertEquals( 0, spillFolder.listFiles().length );
+  }
+
+  @Test
+  public void testSpillRemaining() throws KettleException {
+    MapOutputBuffer buffer = new MapOutputBuffer( 3, spillFolder, null, counters );
+    String[] words = { "pear", "apple", "fig", "kiwi", "banana" };
+    for ( int i = 0; i < words.length; i++ ) {
+      buffer.collect( pairMeta, new Object[] { words[ i ], (long) i } );
+    }
+    buffer.spillRemaining();
+
+    // nothing is left in memory once the task ended
+    assertEquals( 2, spillFolder.listFiles().length );
+    assertEquals( 5, counters.get( LocalMapReduceCounters.Counter.SPILLED_RECORDS ) );
+
+    List<SortedRun> runs = buffer.finish();
+    assertEquals( 2, runs.size() );
+    List<String> pairs = read( SortedRun.merge( runs, SortedRun.keyComparator( pairMeta ) ) );
+    assertEquals( Arrays.asList( "apple=1", "banana=4", "fig=2", "kiwi=3", "pear=0" ), pairs );
+  }
+
+  @Test
+  public void testCombinesEachRun() throws KettleException {
+    MapOutputBuffer.Combiner sum = ( meta, sorted ) -> {
+      List<Object[]> combined = new ArrayList<>();
+      for ( Object[] pair : sorted ) {
+        Object[] last = combined.isEmpty() ? null : combined.get( combined.size() - 1 );
+        if ( last != null && last[ 0 ].equals( pair[ 0 ] ) ) {
+          last[ 1 ] = (Long) last[ 1 ] + (Long) pair[ 1 ];
+        } else {
+          combined.add( new Object[] { pair[ 0 ], pair[ 1 ] } );
+        }
+      }
+      return combined;
+    };
+    MapOutputBuffer buffer = new MapOutputBuffer( 4, spillFolder, sum, counters );
+    for ( String word : new String[] { "b", "a", "b", "a", "a", "c" } ) {
+      buffer.collect( pairMeta, new Object[] { word, 1L } );
+    }
+
+    List<String> pairs = read( SortedRun.merge( buffer.finish(), SortedRun.keyComparator( pairMeta ) ) );
+    assertEquals( Arrays.asList( "a=2", "a=1", "b=2", "c=1" ), pairs );
+    assertEquals( 6, counters.get( LocalMapReduceCounters.Counter.COMBINE_INPUT_RECORDS ) );
+    assertEquals( 4, counters.get( LocalMapReduceCounters.Counter.COMBINE_OUTPUT_RECORDS ) );
+  }
+
+  private static List<String> read( SortedRun run ) throws KettleException {
+    List<String> pairs = new ArrayList<>();
+    Object[] pair;
+    while ( ( pair = run.next() ) != null ) {
+      pairs.add( pair[ 0 ] + "=" + pair[ 1 ] );
+    }
+    run.close();
+    return pairs;
+  }
+}
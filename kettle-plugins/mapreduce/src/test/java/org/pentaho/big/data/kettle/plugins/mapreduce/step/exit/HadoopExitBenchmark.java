@@ -0,0 +1,127 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.mapreduce.step.exit;
+
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepMeta;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Simulates the output side of a word count mapper: the MapReduce Output step receives (word, count) rows and an
+ * output collector converts each pair into reused key and value holders, as the task writes them into reused
+ * Writables. Compares a new row per pair, the reused row and the key/value sink. Run by hand (it is not picked up by
+ * the test runner):
+ * <pre>
+ *   java -cp ... org.pentaho.big.data.kettle.plugins.mapreduce.step.exit.HadoopExitBenchmark [pairs]
+ * </pre>
+ */
+public class HadoopExitBenchmark {
+
+  private static final int WORDS = 1000;
+
+  /**
+   * Stands for a Text/LongWritable pair reused by the collector
+   */
+  private static class Holders {
+    private byte[] text = new byte[ 0 ];
+    private long count;
+    private long checksum;
+
+    private void set( String word, long value ) {
+      text = word.getBytes( StandardCharsets.UTF_8 );
+      count = value;
+      checksum += text.length + count;
+    }
+  }
+
+  public static void main( String[] args ) throws Throwable {
+    long pairs = args.length > 0 ? Long.parseLong( args[ 0 ] ) : 100000000L;
+    KettleClientEnvironment.init();
+
+    for ( String mode : new String[] { "new row", "reused row", "sink" } ) {
+      // warm up
+      run( mode, pairs / 10 );
+      long start = System.nanoTime();
+      long checksum = run( mode, pairs );
+      long elapsed = System.nanoTime() - start;
+      System.out.printf( "%-12s %,d pairs in %,d ms, %6.1f ns/pair (%d)%n", mode, pairs, elapsed / 1000000L,
+        (double) elapsed / pairs, checksum );
+    }
+  }
+
+  private static long run( String mode, final long pairs ) throws Throwable {
+    final RowMetaInterface inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "word" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "count" ) );
+    final Object[][] input = new Object[ WORDS ][];
+    for ( int i = 0; i < WORDS; i++ ) {
+      input[ i ] = new Object[] { "word" + i, 1L };
+    }
+
+    HadoopExitMeta meta = new HadoopExitMeta();
+    meta.setOutKeyFieldname( "word" );
+    meta.setOutValueFieldname( "count" );
+    StepMeta stepMeta = new StepMeta( "MapReduce Output", meta );
+    TransMeta transMeta = new TransMeta();
+    transMeta.addStep( stepMeta );
+    Trans trans = new Trans( transMeta );
+    HadoopExitData data = new HadoopExitData();
+
+    HadoopExit exit = new HadoopExit( stepMeta, data, 0, transMeta, trans ) {
+      private long emitted;
+
+      @Override
+      public Object[] getRow() throws KettleException {
+        return emitted < pairs ? input[ (int) ( emitted++ % WORDS ) ] : null;
+      }
+
+      @Override
+      public RowMetaInterface getInputRowMeta() {
+        return inputRowMeta;
+      }
+    };
+    final Holders holders = new Holders();
+    if ( "sink".equals( mode ) ) {
+      exit.setKeyValueSink( ( key, value ) -> holders.set( (String) key, (Long) value ) );
+    } else {
+      exit.setVariable( HadoopExit.KETTLE_HADOOP_EXIT_REUSE_ROW, Boolean.toString( "reused row".equals( mode ) ) );
+      exit.addRowListener( new RowAdapter() {
+        @Override
+        public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+          try {
+            holders.set( rowMeta.getString( row, HadoopExitData.getOutKeyOrdinal() ),
+              rowMeta.getInteger( row, HadoopExitData.getOutValueOrdinal() ) );
+          } catch ( KettleException e ) {
+            throw new KettleStepException( e );
+          }
+        }
+      } );
+    }
+
+    while ( exit.processRow( meta, data ) ) {
+      // all pairs
+    }
+    return holders.checksum;
+  }
+}
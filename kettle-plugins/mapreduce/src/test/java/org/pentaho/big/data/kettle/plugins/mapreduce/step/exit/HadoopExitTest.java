@@ -18,12 +18,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.step.RowAdapter;
 import org.pentaho.di.trans.steps.mock.StepMockHelper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.any;
@@ -82,4 +90,50 @@ public class HadoopExitTest {
     verify( outputRowSet ).putRow( eq( rowMetaInterface ), aryEq( row1 ) );
     verify( outputRowSet ).putRow( eq( rowMetaInterface ), aryEq( row2 ) );
   }
+
+  @Test( timeout = 5000 )
+  public void testReusesTheOutputRowWithoutHops() throws KettleException {
+    when( stepMockHelper.processRowsStepDataInterface.getInValueOrdinal() ).thenReturn( 1 );
+    hadoopExit.addRowSetToInputRowSets( stepMockHelper.getMockInputRowSet( new Object[] { 0, 1 },
+      new Object[] { 1, 0 } ) );
+    hadoopExit.setVariable( HadoopExit.KETTLE_HADOOP_EXIT_REUSE_ROW, "true" );
+    final List<Object[]> rows = new ArrayList<>();
+    final List<Object> keys = new ArrayList<>();
+    hadoopExit.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+        rows.add( row );
+        keys.add( row[ HadoopExitData.getOutKeyOrdinal() ] );
+      }
+    } );
+
+    while ( hadoopExit
+      .processRow( stepMockHelper.processRowsStepMetaInterface, stepMockHelper.processRowsStepDataInterface ) ) {
+      // all rows
+    }
+
+    assertEquals( 2, rows.size() );
+    assertSame( rows.get( 0 ), rows.get( 1 ) );
+    assertEquals( Arrays.<Object>asList( 0, 1 ), keys );
+  }
+
+  @Test( timeout = 5000 )
+  public void testKeyValueSink() throws KettleException {
+    when( stepMockHelper.processRowsStepDataInterface.getInValueOrdinal() ).thenReturn( 1 );
+    hadoopExit.addRowSetToInputRowSets( stepMockHelper.getMockInputRowSet( new Object[] { 0, 1 },
+      new Object[] { 1, 0 } ) );
+    final List<Object> pairs = new ArrayList<>();
+    hadoopExit.setKeyValueSink( ( key, value ) -> {
+      pairs.add( key );
+      pairs.add( value );
+    } );
+
+    while ( hadoopExit
+      .processRow( stepMockHelper.processRowsStepMetaInterface, stepMockHelper.processRowsStepDataInterface ) ) {
+      // all rows
+    }
+
+    assertEquals( Arrays.<Object>asList( 0, 1, 1, 0 ), pairs );
+    assertEquals( 2, hadoopExit.getLinesWritten() );
+  }
 }
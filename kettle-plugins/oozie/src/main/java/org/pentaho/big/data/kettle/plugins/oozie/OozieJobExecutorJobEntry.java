@@ -20,9 +20,11 @@ import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang.StringUtils;
+import org.pentaho.big.data.kettle.plugins.job.JobCompletionTracker;
 import org.pentaho.big.data.kettle.plugins.job.JobEntryUtils;
 import org.pentaho.hadoop.shim.api.HadoopClientServices;
 import org.pentaho.hadoop.shim.api.HadoopClientServicesException;
@@ -317,9 +319,27 @@ public class OozieJobExecutorJobEntry extends AbstractJobEntry<OozieJobExecutorC
 
           OozieJobInfo job = hadoopClientServices.runOozie( jobProps );
           if ( JobEntryUtils.asBoolean( getJobConfig().getBlockingExecution(), variables ) ) {
-            while ( job.isRunning() ) {
-              long interval = JobEntryUtils.asLong( jobConfig.getBlockingPollingInterval(), variables );
-              Thread.sleep( interval );
+            long interval = JobEntryUtils.asLong( jobConfig.getBlockingPollingInterval(), variables );
+            JobCompletionTracker.Completion completion = JobCompletionTracker.getInstance()
+              .track( () -> !job.isRunning(), () -> parentJob != null && parentJob.isStopped(), interval );
+            try {
+              while ( !completion.await( JobCompletionTracker.STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS ) ) {
+                if ( parentJob != null && parentJob.isStopped() ) {
+                  completion.cancel();
+                }
+              }
+            } finally {
+              completion.cancel();
+            }
+            if ( completion.getState() == JobCompletionTracker.State.STOPPED ) {
+              setJobResultFailed( jobResult );
+              return;
+            }
+            if ( completion.getState() == JobCompletionTracker.State.FAILED ) {
+              setJobResultFailed( jobResult );
+              logError( BaseMessages.getString( OozieJobExecutorJobEntry.class, "Oozie.JobExecutor.ERROR.OozieClient" ),
+                completion.getFailure() );
+              return;
             }
             String logDetail = job.getJobLog();
             if ( job.didSucceed() ) {
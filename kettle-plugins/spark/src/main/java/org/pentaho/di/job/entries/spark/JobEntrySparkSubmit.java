@@ -24,10 +24,12 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.sun.jna.Platform;
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.big.data.kettle.plugins.job.JobCompletionTracker;
 import org.pentaho.di.cluster.SlaveServer;
 import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.Const;
@@ -78,6 +80,26 @@ public class JobEntrySparkSubmit extends JobEntryBase implements Cloneable, JobE
   public static final String JOB_TYPE_PYTHON = "Python";
   public static final String HADOOP_CLUSTER_PREFIX = "hc://";
 
+  /**
+   * Logs one line in N of the output of spark-submit once the job is submitted (default 1, every line)
+   */
+  public static final String KETTLE_SPARK_SUBMIT_LOG_SAMPLING = "KETTLE_SPARK_SUBMIT_LOG_SAMPLING";
+
+  /**
+   * When blocking on a job submitted to YARN in cluster mode, poll the ResourceManager for its completion and stop
+   * spark-submit once the job is submitted (default true)
+   */
+  public static final String KETTLE_SPARK_SUBMIT_REST_COMPLETION = "KETTLE_SPARK_SUBMIT_REST_COMPLETION";
+
+  /**
+   * Base URL of the ResourceManager web services, by default the host of the tracking URL of the application
+   */
+  public static final String KETTLE_SPARK_SUBMIT_RESOURCE_MANAGER_URL = "KETTLE_SPARK_SUBMIT_RESOURCE_MANAGER_URL";
+
+  static final long PROCESS_POLL_INTERVAL = 1000L;
+  static final long STATUS_POLL_INTERVAL = 5000L;
+  static final long STREAM_DRAIN_TIMEOUT = 10000L;
+
   private static Class<?> PKG = JobEntrySparkSubmit.class; // for i18n purposes, needed by Translator2!!
 
   private String jobType = JOB_TYPE_JAVA_SCALA;
@@ -584,60 +606,70 @@ public class JobEntrySparkSubmit extends JobEntryBase implements Cloneable, JobE
         env.put( variable, getVariable( variable ) );
       }
       proc = procBuilder.start();
+      final Process process = proc;
 
       String[] jobSubmittedPatterns = new String[] { "tracking URL:" };
 
       final AtomicBoolean jobSubmitted = new AtomicBoolean( false );
+      final boolean restCompletion = blockExecution && isClusterMode()
+        && Boolean.parseBoolean( getVariable( KETTLE_SPARK_SUBMIT_REST_COMPLETION, "true" ) );
+
+      // completes when spark-submit exits, or as soon as the job is submitted when its status can be read from YARN
+      JobCompletionTracker tracker = JobCompletionTracker.getInstance();
+      JobCompletionTracker.StopCondition stopped = () -> getParentJob().isStopped();
+      final JobCompletionTracker.Completion processCompletion =
+        tracker.track( () -> !process.isAlive(), stopped, PROCESS_POLL_INTERVAL );
+
+      SparkSubmitOutput output = new SparkSubmitOutput( log, jobSubmittedPatterns,
+        Const.toInt( getVariable( KETTLE_SPARK_SUBMIT_LOG_SAMPLING ), 1 ), pattern -> {
+          jobSubmitted.set( true );
+          if ( !blockExecution ) {
+            log.logDebug( "Found match in output, considering job submitted, stopping spark-submit" );
+            process.destroy();
+          } else if ( restCompletion ) {
+            processCompletion.complete();
+          }
+        } );
+
+      // any error message or output? Both streams are read by the shared reader threads
+      ProcessOutputPump pump = ProcessOutputPump.getInstance();
+      ProcessOutputPump.Registration errorOutput = pump.register( process, process.getErrorStream(), output );
+      ProcessOutputPump.Registration standardOutput = pump.register( process, process.getInputStream(), output );
+
+      JobCompletionTracker.State state = processCompletion.await();
 
-      // any error message?
-      PatternMatchingStreamLogger errorLogger =
-        new PatternMatchingStreamLogger( log, proc.getErrorStream(), jobSubmittedPatterns, jobSubmitted );
-
-      // any output?
-      PatternMatchingStreamLogger outputLogger =
-        new PatternMatchingStreamLogger( log, proc.getInputStream(), jobSubmittedPatterns, jobSubmitted );
-
-      if ( !blockExecution ) {
-        PatternMatchingStreamLogger.PatternMatchedListener cb =
-          new PatternMatchingStreamLogger.PatternMatchedListener() {
-            @Override
-            public void onPatternFound( String pattern ) {
-              log.logDebug( "Found match in output, considering job submitted, stopping spark-submit" );
-              jobSubmitted.set( true );
-              proc.destroy();
-            }
-          };
-        errorLogger.addPatternMatchedListener( cb );
-        outputLogger.addPatternMatchedListener( cb );
+      YarnApplicationStatus status = null;
+      if ( state == JobCompletionTracker.State.COMPLETE && process.isAlive() ) {
+        status = getApplicationStatus( output );
+        if ( status == null ) {
+          state = tracker.track( () -> !process.isAlive(), stopped, PROCESS_POLL_INTERVAL ).await();
+        }
       }
 
-      // kick them off
-      Thread errorLoggerThread = new Thread( errorLogger );
-      errorLoggerThread.start();
-      Thread outputLoggerThread = new Thread( outputLogger );
-      outputLoggerThread.start();
-
-      // Stop on job stop
-      final AtomicBoolean processFinished = new AtomicBoolean( false );
-      new Thread( new Runnable() {
-        @Override
-        public void run() {
-          while ( !getParentJob().isStopped() && !processFinished.get() ) {
-            try {
-              Thread.sleep( 5000 );
-            } catch ( InterruptedException e ) {
-              e.printStackTrace();
-            }
+      if ( status != null ) {
+        logBasic( "Spark application " + output.getApplicationId() + " submitted, tracking its status at "
+          + status.getStatusUrl() );
+        process.destroy();
+        JobCompletionTracker.Completion applicationCompletion = tracker.track( status, stopped, STATUS_POLL_INTERVAL );
+        state = applicationCompletion.await();
+        if ( state == JobCompletionTracker.State.STOPPED ) {
+          try {
+            status.kill();
+          } catch ( IOException e ) {
+            logError( "Unable to kill Spark application " + output.getApplicationId() + ": " + e.getMessage() );
           }
-          proc.destroy();
+        } else if ( state == JobCompletionTracker.State.FAILED ) {
+          logError( "Unable to read the status of Spark application " + output.getApplicationId() + ": "
+            + applicationCompletion.getFailure().getMessage() );
+        } else if ( log.isDetailed() ) {
+          logDetailed( "Spark application " + output.getApplicationId() + " " + status.getState() + ", "
+            + status.getFinalStatus() );
         }
-      } ).start();
-
-      proc.waitFor();
-
-      processFinished.set( true );
+      } else if ( state == JobCompletionTracker.State.STOPPED ) {
+        process.destroy();
+      }
 
-      prepareProcessThreadsToStop( proc, errorLoggerThread, outputLoggerThread );
+      prepareProcessStreamsToStop( process, errorOutput, standardOutput, blockExecution && status == null );
 
       if ( log.isDetailed() ) {
         logDetailed( "Spark submit finished" );
@@ -645,10 +677,12 @@ public class JobEntrySparkSubmit extends JobEntryBase implements Cloneable, JobE
 
       // What's the exit status?
       int exitCode;
-      if ( blockExecution ) {
-        exitCode = proc.exitValue();
+      if ( status != null ) {
+        exitCode = state == JobCompletionTracker.State.COMPLETE && status.isSucceeded() ? 0 : 1;
+      } else if ( blockExecution ) {
+        exitCode = process.waitFor();
       } else {
-        exitCode = jobSubmitted.get() ? 0 : proc.exitValue();
+        exitCode = jobSubmitted.get() ? 0 : process.waitFor();
       }
 
       result.setExitStatus( exitCode );
@@ -671,19 +705,17 @@ public class JobEntrySparkSubmit extends JobEntryBase implements Cloneable, JobE
     return result;
   }
 
-  private void waitForThreadsFinishToRead( Thread errorLoggerThread, Thread outputLoggerThread )
-    throws InterruptedException {
-    // wait until loggers read all data from stdout and stderr
-    errorLoggerThread.join();
-    outputLoggerThread.join();
-  }
-
-  private void prepareProcessThreadsToStop( Process proc, Thread errorLoggerThread, Thread outputLoggerThread )
+  private void prepareProcessStreamsToStop( Process proc, ProcessOutputPump.Registration errorOutput,
+                                            ProcessOutputPump.Registration standardOutput, boolean drain )
     throws Exception {
-    if ( blockExecution ) {
-      waitForThreadsFinishToRead( errorLoggerThread, outputLoggerThread );
+    if ( drain ) {
+      // wait until all data from stdout and stderr was read
+      errorOutput.awaitEnd( STREAM_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS );
+      standardOutput.awaitEnd( STREAM_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS );
     } else {
       killChildProcesses();
+      errorOutput.close();
+      standardOutput.close();
     }
     // close the streams
     // otherwise you get "Too many open files, java.io.IOException" after a lot of iterations
@@ -691,6 +723,47 @@ public class JobEntrySparkSubmit extends JobEntryBase implements Cloneable, JobE
     proc.getOutputStream().close();
   }
 
+  /**
+   * @return true if the driver runs on the YARN cluster, so spark-submit isn't needed once the job is submitted
+   */
+  boolean isClusterMode() {
+    String resolvedMaster = environmentSubstitute( master );
+    if ( "yarn-cluster".equals( resolvedMaster ) ) {
+      return true;
+    }
+    if ( resolvedMaster == null || !resolvedMaster.startsWith( "yarn" ) ) {
+      return false;
+    }
+    for ( String confParam : configParams ) {
+      if ( "spark.submit.deployMode=cluster".equals( environmentSubstitute( confParam ).replace( " ", "" ) ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the status of the submitted application if it can be read from the ResourceManager, null otherwise
+   */
+  private YarnApplicationStatus getApplicationStatus( SparkSubmitOutput output ) {
+    String statusUrl = YarnApplicationStatus.getStatusUrl( getVariable( KETTLE_SPARK_SUBMIT_RESOURCE_MANAGER_URL ),
+      output.getTrackingUrl(), output.getApplicationId() );
+    if ( statusUrl == null ) {
+      return null;
+    }
+    YarnApplicationStatus status = new YarnApplicationStatus( statusUrl );
+    try {
+      status.isComplete();
+      return status;
+    } catch ( IOException e ) {
+      if ( log.isDetailed() ) {
+        logDetailed( "Unable to read the status of the application at " + statusUrl + ", waiting for spark-submit: "
+          + e.getMessage() );
+      }
+      return null;
+    }
+  }
+
   @VisibleForTesting
   void killChildProcesses() {
     if ( Platform.isWindows() ) {
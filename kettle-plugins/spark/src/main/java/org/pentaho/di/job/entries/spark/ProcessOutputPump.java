@@ -0,0 +1,237 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.spark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pentaho.di.core.Const;
+
+/**
+ * Reads the output streams of external processes on a small shared pool of threads instead of a thread per stream.
+ * <p>
+ * The streams are serviced in turn: whatever bytes are available are read without blocking and handed to the stream's
+ * handler line by line. A stream ends once its process has exited and its remaining bytes have been read. The pool has
+ * KETTLE_SPARK_SUBMIT_READER_THREADS threads (default 2), which sleep a little when none of the streams had output.
+ */
+public class ProcessOutputPump {
+
+  public static final String READER_THREADS_PROPERTY = "KETTLE_SPARK_SUBMIT_READER_THREADS";
+
+  public static final int DEFAULT_READER_THREADS = 2;
+
+  static final long MAX_IDLE_WAIT = 50L;
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * Receives the lines of a stream, from a thread of the pump
+   */
+  public interface LineHandler {
+    void onLine( String line );
+  }
+
+  private static ProcessOutputPump instance;
+
+  private final BlockingQueue<Source> sources = new LinkedBlockingQueue<>();
+  private final AtomicInteger idle = new AtomicInteger();
+
+  ProcessOutputPump( int threads ) {
+    for ( int i = 0; i < Math.max( 1, threads ); i++ ) {
+      Thread thread = new Thread( this::pump, "Spark submit output reader " + ( i + 1 ) );
+      thread.setDaemon( true );
+      thread.start();
+    }
+  }
+
+  public static synchronized ProcessOutputPump getInstance() {
+    if ( instance == null ) {
+      instance = new ProcessOutputPump(
+        Const.toInt( System.getProperty( READER_THREADS_PROPERTY ), DEFAULT_READER_THREADS ) );
+    }
+    return instance;
+  }
+
+  /**
+   * Starts reading a stream of a process
+   *
+   * @return the stream registration, to wait for the end of the stream
+   */
+  public Registration register( Process process, InputStream in, LineHandler handler ) {
+    Source source = new Source( process, in, handler );
+    sources.add( source );
+    return source;
+  }
+
+  /**
+   * @return the number of streams being read
+   */
+  int getSourceCount() {
+    return sources.size();
+  }
+
+  private void pump() {
+    byte[] buffer = new byte[ BUFFER_SIZE ];
+    long wait = 1L;
+    while ( true ) {
+      Source source;
+      try {
+        source = sources.take();
+      } catch ( InterruptedException e ) {
+        return;
+      }
+      boolean read = source.service( buffer );
+      if ( !source.isEnded() ) {
+        sources.add( source );
+      }
+      if ( read ) {
+        idle.set( 0 );
+        wait = 1L;
+      } else if ( idle.incrementAndGet() >= sources.size() + 1 ) {
+        // a whole round without output
+        idle.set( 0 );
+        try {
+          Thread.sleep( wait );
+        } catch ( InterruptedException e ) {
+          return;
+        }
+        wait = Math.min( wait * 2, MAX_IDLE_WAIT );
+      }
+    }
+  }
+
+  /**
+   * A stream being read
+   */
+  public interface Registration {
+    /**
+     * Waits until the whole stream has been read
+     *
+     * @return false if the timeout elapsed first
+     */
+    boolean awaitEnd( long timeout, TimeUnit unit ) throws InterruptedException;
+
+    boolean isEnded();
+
+    /**
+     * Stops reading the stream and closes it
+     */
+    void close();
+  }
+
+  private static class Source implements Registration {
+    private final Process process;
+    private final InputStream in;
+    private final LineHandler handler;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream( 256 );
+    private final CountDownLatch ended = new CountDownLatch( 1 );
+    private volatile boolean closed;
+
+    private Source( Process process, InputStream in, LineHandler handler ) {
+      this.process = process;
+      this.in = in;
+      this.handler = handler;
+    }
+
+    /**
+     * Reads what is available
+     *
+     * @return true if something was read
+     */
+    private synchronized boolean service( byte[] buffer ) {
+      if ( closed ) {
+        end();
+        return false;
+      }
+      try {
+        int available = in.available();
+        if ( available <= 0 ) {
+          if ( !process.isAlive() && in.available() <= 0 ) {
+            flush();
+            end();
+          }
+          return false;
+        }
+        int read = in.read( buffer, 0, Math.min( available, buffer.length ) );
+        if ( read < 0 ) {
+          flush();
+          end();
+          return false;
+        }
+        for ( int i = 0; i < read; i++ ) {
+          if ( buffer[ i ] == '\n' ) {
+            flush();
+          } else {
+            line.write( buffer[ i ] );
+          }
+        }
+        return read > 0;
+      } catch ( IOException e ) {
+        // the stream was closed, e.g. when the process was destroyed
+        flush();
+        end();
+        return false;
+      }
+    }
+
+    private void flush() {
+      if ( line.size() == 0 ) {
+        return;
+      }
+      byte[] bytes = line.toByteArray();
+      line.reset();
+      int length = bytes.length;
+      if ( bytes[ length - 1 ] == '\r' ) {
+        length--;
+      }
+      try {
+        handler.onLine( new String( bytes, 0, length, Charset.defaultCharset() ) );
+      } catch ( RuntimeException e ) {
+        // a failing handler must not stop the pump
+      }
+    }
+
+    private void end() {
+      closed = true;
+      try {
+        in.close();
+      } catch ( IOException e ) {
+        // nothing left to read
+      }
+      ended.countDown();
+    }
+
+    @Override
+    public boolean awaitEnd( long timeout, TimeUnit unit ) throws InterruptedException {
+      return ended.await( timeout, unit );
+    }
+
+    @Override
+    public boolean isEnded() {
+      return ended.getCount() == 0;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
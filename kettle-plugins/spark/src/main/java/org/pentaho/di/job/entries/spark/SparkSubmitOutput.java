@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.spark;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.pentaho.di.core.logging.LogChannelInterface;
+
+/**
+ * Logs the output of spark-submit, shared by its output and error streams.
+ * <p>
+ * Until the job is submitted each line is logged and searched for the submission patterns, the YARN application id and
+ * the tracking URL. Once a pattern matched the listener is notified and the lines are only passed through to the log,
+ * every line or one line in {@code sampling} (lines mentioning an error or an exception are always logged), so the
+ * application reports spark-submit prints while it waits don't flood the log.
+ */
+public class SparkSubmitOutput implements ProcessOutputPump.LineHandler {
+
+  static final Pattern APPLICATION_ID = Pattern.compile( "application_\\d+_\\d+" );
+
+  static final Pattern TRACKING_URL = Pattern.compile( "tracking URL:\\s*(\\S+)" );
+
+  private final LogChannelInterface log;
+  private final String[] patterns;
+  private final int sampling;
+  private final PatternMatchingStreamLogger.PatternMatchedListener listener;
+
+  private volatile boolean submitted;
+  private volatile String applicationId;
+  private volatile String trackingUrl;
+  private long passedLines;
+
+  /**
+   * @param log
+   *          the log of the job entry
+   * @param patterns
+   *          the patterns of the line telling the job was submitted
+   * @param sampling
+   *          log one line in sampling after the submission, 1 or less to log them all
+   * @param listener
+   *          notified when the job is submitted, can be null
+   */
+  public SparkSubmitOutput( LogChannelInterface log, String[] patterns, int sampling,
+                            PatternMatchingStreamLogger.PatternMatchedListener listener ) {
+    this.log = log;
+    this.patterns = patterns;
+    this.sampling = Math.max( 1, sampling );
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized void onLine( String line ) {
+    if ( submitted ) {
+      if ( sampling == 1 || passedLines++ % sampling == 0 || isError( line ) ) {
+        log.logBasic( line );
+      }
+      return;
+    }
+    log.logBasic( line );
+    if ( applicationId == null ) {
+      Matcher matcher = APPLICATION_ID.matcher( line );
+      if ( matcher.find() ) {
+        applicationId = matcher.group();
+      }
+    }
+    Matcher matcher = TRACKING_URL.matcher( line );
+    if ( matcher.find() ) {
+      trackingUrl = matcher.group( 1 );
+    }
+    for ( String pattern : patterns ) {
+      if ( line.contains( pattern ) ) {
+        submitted = true;
+        if ( listener != null ) {
+          listener.onPatternFound( pattern );
+        }
+        return;
+      }
+    }
+  }
+
+  public boolean isSubmitted() {
+    return submitted;
+  }
+
+  /**
+   * @return the id of the YARN application, null if none was printed before the submission
+   */
+  public String getApplicationId() {
+    return applicationId;
+  }
+
+  /**
+   * @return the tracking URL of the application, null if none was printed
+   */
+  public String getTrackingUrl() {
+    return trackingUrl;
+  }
+
+  private static boolean isError( String line ) {
+    return line.contains( "ERROR" ) || line.contains( "Exception" );
+  }
+}
@@ -0,0 +1,181 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.spark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.pentaho.big.data.kettle.plugins.job.JobCompletionTracker;
+
+/**
+ * Status of a YARN application, read from the ResourceManager REST API (ws/v1/cluster/apps/&lt;id&gt;), so the
+ * completion of a job submitted in cluster mode can be polled without keeping spark-submit running.
+ */
+public class YarnApplicationStatus implements JobCompletionTracker.RemoteJob {
+
+  static final String APPS_PATH = "/ws/v1/cluster/apps/";
+
+  private static final Pattern STATE = Pattern.compile( "\"state\"\\s*:\\s*\"(\\w+)\"" );
+  private static final Pattern FINAL_STATUS = Pattern.compile( "\"finalStatus\"\\s*:\\s*\"(\\w+)\"" );
+
+  private static final int TIMEOUT = 10000;
+
+  private final String statusUrl;
+
+  private volatile String state;
+  private volatile String finalStatus;
+
+  public YarnApplicationStatus( String statusUrl ) {
+    this.statusUrl = statusUrl;
+  }
+
+  /**
+   * Builds the status URL of an application
+   *
+   * @param resourceManagerUrl
+   *          the base URL of the ResourceManager web services (e.g. http://rm:8088), can be empty
+   * @param trackingUrl
+   *          the tracking URL printed by spark-submit, its host and port are used when there is no ResourceManager URL
+   * @param applicationId
+   *          the id of the application
+   * @return the status URL, or null if it can't be built
+   */
+  public static String getStatusUrl( String resourceManagerUrl, String trackingUrl, String applicationId ) {
+    if ( applicationId == null ) {
+      return null;
+    }
+    String base = resourceManagerUrl;
+    if ( base == null || base.trim().isEmpty() ) {
+      if ( trackingUrl == null ) {
+        return null;
+      }
+      try {
+        URI uri = new URI( trackingUrl.trim() );
+        if ( uri.getScheme() == null || uri.getHost() == null ) {
+          return null;
+        }
+        base = uri.getScheme() + "://" + uri.getHost() + ( uri.getPort() < 0 ? "" : ":" + uri.getPort() );
+      } catch ( URISyntaxException e ) {
+        return null;
+      }
+    }
+    base = base.trim();
+    while ( base.endsWith( "/" ) ) {
+      base = base.substring( 0, base.length() - 1 );
+    }
+    return base + APPS_PATH + applicationId;
+  }
+
+  public String getStatusUrl() {
+    return statusUrl;
+  }
+
+  /**
+   * Reads the status of the application
+   *
+   * @return true once the application has finished, failed or was killed
+   */
+  @Override
+  public boolean isComplete() throws IOException {
+    update( get() );
+    return "FINISHED".equals( state ) || "FAILED".equals( state ) || "KILLED".equals( state );
+  }
+
+  /**
+   * @return true if the application completed successfully
+   */
+  public boolean isSucceeded() {
+    return "SUCCEEDED".equals( finalStatus );
+  }
+
+  /**
+   * @return the state of the application at the last poll, null before it
+   */
+  public String getState() {
+    return state;
+  }
+
+  public String getFinalStatus() {
+    return finalStatus;
+  }
+
+  /**
+   * Asks the ResourceManager to kill the application
+   */
+  public void kill() throws IOException {
+    HttpURLConnection connection = open( statusUrl + "/state" );
+    try {
+      connection.setRequestMethod( "PUT" );
+      connection.setDoOutput( true );
+      connection.setRequestProperty( "Content-Type", "application/json" );
+      try ( OutputStream out = connection.getOutputStream() ) {
+        out.write( "{\"state\":\"KILLED\"}".getBytes( StandardCharsets.UTF_8 ) );
+      }
+      int code = connection.getResponseCode();
+      if ( code >= 300 ) {
+        throw new IOException( "Killing " + statusUrl + " returned code " + code );
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  void update( String json ) throws IOException {
+    Matcher matcher = STATE.matcher( json );
+    if ( !matcher.find() ) {
+      throw new IOException( "No application state in the response of " + statusUrl );
+    }
+    state = matcher.group( 1 );
+    matcher = FINAL_STATUS.matcher( json );
+    finalStatus = matcher.find() ? matcher.group( 1 ) : null;
+  }
+
+  String get() throws IOException {
+    HttpURLConnection connection = open( statusUrl );
+    try {
+      int code = connection.getResponseCode();
+      if ( code != HttpURLConnection.HTTP_OK ) {
+        throw new IOException( statusUrl + " returned code " + code );
+      }
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try ( InputStream in = connection.getInputStream() ) {
+        byte[] buffer = new byte[ 4096 ];
+        int read;
+        while ( ( read = in.read( buffer ) ) >= 0 ) {
+          body.write( buffer, 0, read );
+        }
+      }
+      return new String( body.toByteArray(), StandardCharsets.UTF_8 );
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static HttpURLConnection open( String url ) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL( url ).openConnection();
+    connection.setConnectTimeout( TIMEOUT );
+    connection.setReadTimeout( TIMEOUT );
+    connection.setRequestProperty( "Accept", "application/json" );
+    return connection;
+  }
+}
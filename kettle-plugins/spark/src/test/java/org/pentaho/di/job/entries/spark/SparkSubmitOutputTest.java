@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.pentaho.di.core.logging.LogChannelInterface;
+
+public class SparkSubmitOutputTest {
+
+  private final List<String> logged = Collections.synchronizedList( new ArrayList<String>() );
+
+  private LogChannelInterface log() {
+    LogChannelInterface log = mock( LogChannelInterface.class );
+    doAnswer( invocation -> logged.add( (String) invocation.getArguments()[ 0 ] ) ).when( log ).logBasic( anyString() );
+    return log;
+  }
+
+  @Test
+  public void testCapturesTheApplicationUntilSubmitted() {
+    AtomicInteger found = new AtomicInteger();
+    SparkSubmitOutput output =
+      new SparkSubmitOutput( log(), new String[] { "tracking URL:" }, 1, pattern -> found.incrementAndGet() );
+
+    output.onLine( "INFO Client: Submitted application application_1500000000000_0042" );
+    assertFalse( output.isSubmitted() );
+    output.onLine( "\t tracking URL: http://rm.example.com:8088/proxy/application_1500000000000_0042/" );
+    output.onLine( "INFO Client: Application report for application_1500000000000_0043 (state: RUNNING)" );
+    output.onLine( "tracking URL: http://other:8088/" );
+
+    assertTrue( output.isSubmitted() );
+    assertEquals( 1, found.get() );
+    assertEquals( "application_1500000000000_0042", output.getApplicationId() );
+    assertEquals( "http://rm.example.com:8088/proxy/application_1500000000000_0042/", output.getTrackingUrl() );
+    assertEquals( 4, logged.size() );
+  }
+
+  @Test
+  public void testSamplesTheLinesAfterSubmission() {
+    SparkSubmitOutput output = new SparkSubmitOutput( log(), new String[] { "submitted" }, 10, null );
+    output.onLine( "job submitted" );
+    for ( int i = 0; i < 100; i++ ) {
+      output.onLine( "report " + i );
+    }
+    output.onLine( "ERROR something failed" );
+
+    assertEquals( 12, logged.size() );
+    assertEquals( "report 0", logged.get( 1 ) );
+    assertEquals( "report 10", logged.get( 2 ) );
+    assertEquals( "ERROR something failed", logged.get( 11 ) );
+  }
+
+  @Test
+  public void testPumpSplitsLines() throws InterruptedException {
+    Process process = mock( Process.class );
+    when( process.isAlive() ).thenReturn( false );
+    SparkSubmitOutput output = new SparkSubmitOutput( log(), new String[] { "tracking URL:" }, 1, null );
+
+    ProcessOutputPump.Registration registration = new ProcessOutputPump( 1 ).register( process,
+      new ByteArrayInputStream( "first\r\ntracking URL: http://rm:8088/\n\nlast".getBytes() ), output );
+
+    assertTrue( registration.awaitEnd( 5, TimeUnit.SECONDS ) );
+    assertEquals( Arrays.asList( "first", "tracking URL: http://rm:8088/", "last" ), logged );
+    assertTrue( output.isSubmitted() );
+  }
+}
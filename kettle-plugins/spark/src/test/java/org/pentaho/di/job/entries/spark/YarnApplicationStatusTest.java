@@ -0,0 +1,66 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.job.entries.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class YarnApplicationStatusTest {
+
+  private static final String APP = "application_1500000000000_0042";
+
+  @Test
+  public void testStatusUrlFromTheTrackingUrl() {
+    assertEquals( "http://rm.example.com:8088/ws/v1/cluster/apps/" + APP, YarnApplicationStatus
+      .getStatusUrl( null, "http://rm.example.com:8088/proxy/" + APP + "/", APP ) );
+    assertEquals( "https://rm/ws/v1/cluster/apps/" + APP,
+      YarnApplicationStatus.getStatusUrl( "", "https://rm/proxy/" + APP, APP ) );
+  }
+
+  @Test
+  public void testStatusUrlFromTheResourceManagerUrl() {
+    assertEquals( "http://rm2:8088/ws/v1/cluster/apps/" + APP,
+      YarnApplicationStatus.getStatusUrl( "http://rm2:8088/", "http://rm1:8088/proxy/" + APP, APP ) );
+  }
+
+  @Test
+  public void testNoStatusUrl() {
+    assertNull( YarnApplicationStatus.getStatusUrl( null, "http://rm:8088/", null ) );
+    assertNull( YarnApplicationStatus.getStatusUrl( null, null, APP ) );
+    assertNull( YarnApplicationStatus.getStatusUrl( null, "N/A", APP ) );
+  }
+
+  @Test
+  public void testState() throws IOException {
+    YarnApplicationStatus status = new YarnApplicationStatus( "http://rm:8088/ws/v1/cluster/apps/" + APP );
+    status.update( "{\"app\":{\"id\":\"" + APP + "\",\"state\":\"RUNNING\",\"finalStatus\":\"UNDEFINED\"}}" );
+    assertEquals( "RUNNING", status.getState() );
+    assertFalse( status.isSucceeded() );
+
+    status.update( "{\"app\":{\"id\":\"" + APP + "\",\"state\" : \"FINISHED\",\"finalStatus\" : \"SUCCEEDED\"}}" );
+    assertEquals( "FINISHED", status.getState() );
+    assertTrue( status.isSucceeded() );
+  }
+
+  @Test( expected = IOException.class )
+  public void testStateMissing() throws IOException {
+    new YarnApplicationStatus( "http://rm:8088/ws/v1/cluster/apps/" + APP ).update( "{\"RemoteException\":{}}" );
+  }
+}
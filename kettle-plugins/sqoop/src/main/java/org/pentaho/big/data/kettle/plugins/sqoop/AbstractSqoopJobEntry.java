@@ -95,6 +95,11 @@ public abstract class AbstractSqoopJobEntry<S extends SqoopConfig> extends Abstr
    */
   private final Map<String, Level> logLevelCache;
 
+  /**
+   * Picks the last value of incremental imports out of the Sqoop logging
+   */
+  private final SqoopLastValueCapture lastValueCapture = new SqoopLastValueCapture();
+
   /**
    * Declare the Sqoop tool used in this job entry.
    * 
@@ -194,7 +199,7 @@ public abstract class AbstractSqoopJobEntry<S extends SqoopConfig> extends Abstr
    */
   public void attachLoggingAppenders() {
     sqoopToKettleAppender = new KettleLogChannelAppender( log, new Log4jKettleLayout( StandardCharsets.UTF_8, true ) );
-    Filter filter = new SqoopLog4jFilter( log.getLogChannelId() );
+    Filter filter = new SqoopLog4jFilter( log.getLogChannelId(), lastValueCapture );
     ThreadContext.put( "logChannelId", log.getLogChannelId() );
     // Redirect all stderr logging to the first log to monitor so it shows up in the Kettle LogChannel
     Logger sqoopLogger = LogManager.getLogger( LOGS_TO_MONITOR[ 0 ] );
@@ -290,8 +295,6 @@ public abstract class AbstractSqoopJobEntry<S extends SqoopConfig> extends Abstr
     attachLoggingAppenders();
     try {
       configure( config, properties );
-      List<String> args = SqoopUtils.getCommandLineArgs( config, getVariables() );
-      args.add( 0, getToolName() ); // push the tool command-line argument on the top of the args list
 
       String configuredShimIdentifier = config.getNamedCluster().getShimIdentifier();
       if ( !StringUtil.isEmpty( configuredShimIdentifier ) ) {
@@ -332,8 +335,7 @@ public abstract class AbstractSqoopJobEntry<S extends SqoopConfig> extends Abstr
 
       HadoopClientServices hadoopClientServices = namedClusterServiceLocator.getService( namedCluster, HadoopClientServices.class );
 
-      int result = hadoopClientServices.runSqoop( args, properties );
-      if ( result != 0 ) {
+      if ( !runTool( config, properties, hadoopClientServices, jobResult ) ) {
         setJobResultFailed( jobResult );
       }
     } catch ( Exception ex ) {
@@ -344,6 +346,37 @@ public abstract class AbstractSqoopJobEntry<S extends SqoopConfig> extends Abstr
     }
   }
 
+  /**
+   * Runs the Sqoop tool with the configuration of this job entry
+   *
+   * @param config
+   *          Sqoop configuration settings
+   * @param properties
+   *          Execution properties
+   * @param hadoopClientServices
+   *          Services of the cluster to run Sqoop on
+   * @param jobResult
+   *          Result of the execution
+   * @return {@code true} if the tool succeeded
+   */
+  protected boolean runTool( S config, Properties properties, HadoopClientServices hadoopClientServices,
+                             Result jobResult ) throws Exception {
+    List<String> args = SqoopUtils.getCommandLineArgs( config, getVariables() );
+    args.add( 0, getToolName() ); // push the tool command-line argument on the top of the args list
+    return hadoopClientServices.runSqoop( args, properties ) == 0;
+  }
+
+  protected SqoopLastValueCapture getLastValueCapture() {
+    return lastValueCapture;
+  }
+
+  /**
+   * Routes the Sqoop logging of the calling thread to the log of this job entry, for threads started by the entry
+   */
+  protected void attachLoggingContext() {
+    ThreadContext.put( "logChannelId", log.getLogChannelId() );
+  }
+
   /**
    * Configure the Hadoop environment
    *
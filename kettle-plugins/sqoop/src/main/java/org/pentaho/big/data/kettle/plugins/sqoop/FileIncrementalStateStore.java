@@ -0,0 +1,88 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.pentaho.di.core.exception.KettleException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Incremental import state kept in a properties file. The file is read on each lookup and replaced atomically on each
+ * update, so several job entries can share it.
+ */
+public class FileIncrementalStateStore implements SqoopIncrementalStateStore {
+
+  private static final Object LOCK = new Object();
+
+  private final File file;
+
+  public FileIncrementalStateStore( File file ) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public String getLastValue( String key ) throws KettleException {
+    synchronized ( LOCK ) {
+      return load().getProperty( key );
+    }
+  }
+
+  @Override
+  public void setLastValue( String key, String lastValue ) throws KettleException {
+    synchronized ( LOCK ) {
+      Properties state = load();
+      state.setProperty( key, lastValue );
+      try {
+        File folder = file.getAbsoluteFile().getParentFile();
+        if ( folder != null && !folder.isDirectory() && !folder.mkdirs() ) {
+          throw new IOException( "Unable to create folder " + folder );
+        }
+        File temp = File.createTempFile( file.getName(), ".tmp", folder );
+        try {
+          try ( OutputStream out = Files.newOutputStream( temp.toPath() ) ) {
+            state.store( out, "Last values of incremental Sqoop imports" );
+          }
+          Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE );
+        } finally {
+          Files.deleteIfExists( temp.toPath() );
+        }
+      } catch ( IOException e ) {
+        throw new KettleException( "Unable to save the incremental import state to " + file, e );
+      }
+    }
+  }
+
+  private Properties load() throws KettleException {
+    Properties state = new Properties();
+    if ( file.exists() ) {
+      try ( InputStream in = Files.newInputStream( file.toPath() ) ) {
+        state.load( in );
+      } catch ( IOException e ) {
+        throw new KettleException( "Unable to read the incremental import state from " + file, e );
+      }
+    }
+    return state;
+  }
+}
@@ -0,0 +1,71 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metastore.api.exceptions.MetaStoreException;
+import org.pentaho.metastore.persist.MetaStoreFactory;
+import org.pentaho.metastore.util.PentahoDefaults;
+
+/**
+ * Incremental import state kept in the metastore, one {@link SqoopIncrementalState} element per import
+ */
+public class MetaStoreIncrementalStateStore implements SqoopIncrementalStateStore {
+
+  private final MetaStoreFactory<SqoopIncrementalState> factory;
+
+  public MetaStoreIncrementalStateStore( IMetaStore metaStore ) {
+    this( new MetaStoreFactory<>( SqoopIncrementalState.class, metaStore, PentahoDefaults.NAMESPACE ) );
+  }
+
+  MetaStoreIncrementalStateStore( MetaStoreFactory<SqoopIncrementalState> factory ) {
+    this.factory = factory;
+  }
+
+  @Override
+  public String getLastValue( String key ) throws KettleException {
+    try {
+      SqoopIncrementalState state = factory.loadElement( getElementName( key ) );
+      return state == null || !key.equals( state.getKey() ) ? null : state.getLastValue();
+    } catch ( MetaStoreException e ) {
+      throw new KettleException( "Unable to read the incremental import state of " + key, e );
+    }
+  }
+
+  @Override
+  public synchronized void setLastValue( String key, String lastValue ) throws KettleException {
+    SqoopIncrementalState state = new SqoopIncrementalState();
+    state.setName( getElementName( key ) );
+    state.setKey( key );
+    state.setLastValue( lastValue );
+    try {
+      factory.saveElement( state );
+    } catch ( MetaStoreException e ) {
+      throw new KettleException( "Unable to save the incremental import state of " + key, e );
+    }
+  }
+
+  /**
+   * @return a name usable as a file name by file based metastores, the key itself is kept in the element
+   */
+  static String getElementName( String key ) {
+    StringBuilder name = new StringBuilder( key.length() + 9 );
+    for ( int i = 0; i < key.length(); i++ ) {
+      char c = key.charAt( i );
+      name.append( Character.isLetterOrDigit( c ) || c == '-' || c == '.' ? c : '_' );
+    }
+    return name.append( '-' ).append( Integer.toHexString( key.hashCode() ) ).toString();
+  }
+}
@@ -31,6 +31,7 @@ import org.pentaho.ui.xul.XulEventSource;
 import org.pentaho.ui.xul.util.AbstractModelList;
 import org.w3c.dom.Node;
 
+import java.beans.PropertyChangeSupport;
 import java.util.Map;
 
 /**
@@ -330,6 +331,15 @@ public abstract class SqoopConfig extends BlockableJobConfig implements XulEvent
     return (SqoopConfig) super.clone();
   }
 
+  /**
+   * @return a copy of this configuration that doesn't notify the listeners of this one when it is changed
+   */
+  public SqoopConfig detachedCopy() {
+    SqoopConfig copy = clone();
+    copy.pcs = new PropertyChangeSupport( copy );
+    return copy;
+  }
+
   /**
    * Silently set the following properties: {@code database, connect, username, password}.
    *
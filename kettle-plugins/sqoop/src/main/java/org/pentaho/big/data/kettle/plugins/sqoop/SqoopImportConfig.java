@@ -83,6 +83,16 @@ public class SqoopImportConfig extends SqoopConfig {
   public static final String ACCUMULO_USER = "accumuloUser";
   public static final String ACCUMULO_VISIBILITY = "accumuloVisibility";
   public static final String ACCUMULO_ZOOKEPERS = "accumuloZookeepers";
+
+  // Multi-table import
+  public static final String IMPORT_TABLES = "importTables";
+  public static final String TABLE_CONCURRENCY = "tableConcurrency";
+
+  // Incremental import state
+  public static final String INCREMENTAL_STATE_STORE = "incrementalStateStore";
+  public static final String STATE_STORE_METASTORE = "metastore";
+  public static final String STATE_STORE_FILE = "file";
+  public static final String STATE_STORE_NONE = "none";
   private final SqoopImportJobEntry jobEntry;
 
   // Import control arguments
@@ -204,6 +214,13 @@ public class SqoopImportConfig extends SqoopConfig {
   private String hbaseZookeeperQuorum;
   private String hbaseZookeeperClientPort;
 
+  // Non command line arguments for importing several tables
+  private String importTables;
+  private String tableConcurrency;
+
+  // Non command line argument for keeping the last value of incremental imports between runs
+  private String incrementalStateStore;
+
   public SqoopImportConfig( SqoopImportJobEntry jobEntry ) {
     this.jobEntry = jobEntry;
   }
@@ -464,6 +481,42 @@ public class SqoopImportConfig extends SqoopConfig {
       propertyChange( HBASE_ZOOKEEPER_CLIENT_PORT, this.hbaseZookeeperClientPort, hbaseZookeeperClientPort );
   }
 
+  /**
+   * @return the tables to import, comma separated, with % wildcards for patterns. When set, one import is run per
+   *         table instead of a single import
+   */
+  public String getImportTables() {
+    return importTables;
+  }
+
+  public void setImportTables( String importTables ) {
+    this.importTables = propertyChange( IMPORT_TABLES, this.importTables, importTables );
+  }
+
+  /**
+   * @return the number of tables imported at the same time
+   */
+  public String getTableConcurrency() {
+    return tableConcurrency;
+  }
+
+  public void setTableConcurrency( String tableConcurrency ) {
+    this.tableConcurrency = propertyChange( TABLE_CONCURRENCY, this.tableConcurrency, tableConcurrency );
+  }
+
+  /**
+   * @return where the last value of incremental imports is kept between runs: {@link #STATE_STORE_METASTORE} (the
+   *         default), {@link #STATE_STORE_FILE} or {@link #STATE_STORE_NONE}
+   */
+  public String getIncrementalStateStore() {
+    return incrementalStateStore;
+  }
+
+  public void setIncrementalStateStore( String incrementalStateStore ) {
+    this.incrementalStateStore =
+      propertyChange( INCREMENTAL_STATE_STORE, this.incrementalStateStore, incrementalStateStore );
+  }
+
   @Override
   public AbstractModelList<ArgumentWrapper> getAdvancedArgumentsList() {
     AbstractModelList<ArgumentWrapper> items = super.getAdvancedArgumentsList();
@@ -487,6 +540,16 @@ public class SqoopImportConfig extends SqoopConfig {
           "HBaseZookeeperClientPort.Label" ),
           false, "", 0, this, getClass().getMethod( "getHbaseZookeeperClientPort" ),
           getClass().getMethod( "setHbaseZookeeperClientPort", String.class ) ) );
+      items.add( new ArgumentWrapper( IMPORT_TABLES, BaseMessages.getString( getClass(), "ImportTables.Label" ),
+          false, "", 0, this, getClass().getMethod( "getImportTables" ),
+          getClass().getMethod( "setImportTables", String.class ) ) );
+      items.add( new ArgumentWrapper( TABLE_CONCURRENCY, BaseMessages.getString( getClass(), "TableConcurrency.Label" ),
+          false, "", 0, this, getClass().getMethod( "getTableConcurrency" ),
+          getClass().getMethod( "setTableConcurrency", String.class ) ) );
+      items.add( new ArgumentWrapper( INCREMENTAL_STATE_STORE, BaseMessages.getString( getClass(),
+          "IncrementalStateStore.Label" ),
+          false, "", 0, this, getClass().getMethod( "getIncrementalStateStore" ),
+          getClass().getMethod( "setIncrementalStateStore", String.class ) ) );
     } catch ( NoSuchMethodException ex ) {
       throw new RuntimeException( ex );
     }
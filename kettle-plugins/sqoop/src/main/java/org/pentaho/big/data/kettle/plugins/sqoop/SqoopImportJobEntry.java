@@ -13,6 +13,22 @@
 
 package org.pentaho.big.data.kettle.plugins.sqoop;
 
+import com.google.common.base.Strings;
+import org.pentaho.big.data.kettle.plugins.job.JobEntryMode;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Result;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.encryption.Encr;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.hadoop.shim.api.HadoopClientServices;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
 import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
 import org.pentaho.di.core.annotations.JobEntry;
@@ -20,6 +36,12 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.runtime.test.RuntimeTester;
 import org.pentaho.runtime.test.action.RuntimeTestActionService;
 
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -31,6 +53,33 @@ import java.util.Properties;
     documentationUrl = "https://pentaho-community.atlassian.net/wiki/display/EAI/Sqoop+Import" )
 public class SqoopImportJobEntry extends AbstractSqoopJobEntry<SqoopImportConfig> {
 
+  /**
+   * The number of rows a mapper of a multi-table import should import, the number of mappers of a table is derived
+   * from it
+   */
+  public static final String KETTLE_SQOOP_ROWS_PER_MAPPER = "KETTLE_SQOOP_ROWS_PER_MAPPER";
+
+  public static final long DEFAULT_ROWS_PER_MAPPER = 1000000L;
+
+  /**
+   * The number of tables imported at the same time when none is configured. Sqoop runs in this JVM and the entry
+   * redirects the process-wide System.err and log4j output while it runs, which is not known to be safe for concurrent
+   * imports, so tables are imported one after the other unless a concurrency is set.
+   */
+  public static final int DEFAULT_TABLE_CONCURRENCY = 1;
+
+  /**
+   * The properties file the last values of incremental imports are kept in when they are not kept in the metastore
+   */
+  public static final String KETTLE_SQOOP_INCREMENTAL_STATE_FILE = "KETTLE_SQOOP_INCREMENTAL_STATE_FILE";
+
+  public static final String DEFAULT_INCREMENTAL_STATE_FILE = "sqoop-incremental-state.properties";
+
+  /**
+   * The number of mappers of Sqoop, the largest number of mappers of a table when none is configured
+   */
+  static final int DEFAULT_MAX_MAPPERS = 4;
+
   public SqoopImportJobEntry( NamedClusterService namedClusterService,
                               NamedClusterServiceLocator serviceLocator,
                               RuntimeTestActionService runtimeTestActionService,
@@ -61,4 +110,230 @@ public class SqoopImportJobEntry extends AbstractSqoopJobEntry<SqoopImportConfig
           environmentSubstitute( sqoopConfig.getHbaseZookeeperClientPort() ) );
     }
   }
+
+  /**
+   * Imports the configured table, or each of the tables of a multi-table import
+   */
+  @Override
+  protected boolean runTool( SqoopImportConfig config, Properties properties,
+                             HadoopClientServices hadoopClientServices, Result jobResult ) throws Exception {
+    String importTables = environmentSubstitute( config.getImportTables() );
+    if ( Strings.isNullOrEmpty( importTables ) && !isIncrementalCommandLine( config ) ) {
+      SqoopIncrementalStateStore stateStore = getIncrementalStateStore( config );
+      if ( stateStore == null ) {
+        return super.runTool( config, properties, hadoopClientServices, jobResult );
+      }
+      return runImport( config, properties, hadoopClientServices, stateStore ) == 0;
+    }
+
+    SqoopImportConfig tablesConfig = config;
+    if ( JobEntryMode.ADVANCED_COMMAND_LINE.equals( config.getModeAsEnum() ) ) {
+      // the per table settings are made on the arguments, not on the command line
+      tablesConfig = (SqoopImportConfig) config.detachedCopy();
+      SqoopUtils.configureFromCommandLine( tablesConfig, config.getCommandLine(), null );
+      tablesConfig.setMode( JobEntryMode.ADVANCED_LIST );
+    }
+    SqoopIncrementalStateStore stateStore = getIncrementalStateStore( tablesConfig );
+    if ( Strings.isNullOrEmpty( importTables ) ) {
+      return runImport( tablesConfig, properties, hadoopClientServices, stateStore ) == 0;
+    }
+
+    List<SqoopTableCatalog.TableStatistics> tables = readTableStatistics( tablesConfig, importTables );
+    if ( tables.isEmpty() ) {
+      logError( getString( "NoTablesToImport", importTables ) );
+      return false;
+    }
+
+    SqoopMultiTableImport multiTableImport = new SqoopMultiTableImport(
+      Const.toInt( environmentSubstitute( tablesConfig.getTableConcurrency() ), DEFAULT_TABLE_CONCURRENCY ),
+      Const.toInt( environmentSubstitute( tablesConfig.getNumMappers() ), DEFAULT_MAX_MAPPERS ),
+      Const.toLong( getVariable( KETTLE_SQOOP_ROWS_PER_MAPPER ), DEFAULT_ROWS_PER_MAPPER ) );
+    List<SqoopMultiTableImport.TableImport> imports = multiTableImport.run( tablesConfig, tables, tableConfig -> {
+      attachLoggingContext();
+      Properties tableProperties = new Properties();
+      tableProperties.putAll( properties );
+      return runImport( tableConfig, tableProperties, hadoopClientServices, stateStore );
+    }, "Sqoop import (" + getName() + ")", () -> getParentJob() != null && getParentJob().isStopped() );
+
+    return report( imports, jobResult );
+  }
+
+  /**
+   * Runs a single import. Incremental imports start after the last value saved by the previous run, and the last
+   * value Sqoop reports at the end of the import is saved for the next one.
+   *
+   * @param stateStore
+   *          the store of the last values, null to run the import as configured
+   * @return the exit status of Sqoop
+   */
+  int runImport( SqoopImportConfig config, Properties properties, HadoopClientServices hadoopClientServices,
+                 SqoopIncrementalStateStore stateStore ) throws Exception {
+    String table = Const.NVL( environmentSubstitute( config.getTable() ), "" );
+    String key = null;
+    String threadName = Thread.currentThread().getName();
+    if ( stateStore != null ) {
+      key = getIncrementalStateKey( table );
+      String lastValue = stateStore.getLastValue( key );
+      if ( lastValue != null ) {
+        config = (SqoopImportConfig) config.detachedCopy();
+        config.setLastValue( lastValue );
+        logBasic( getString( "IncrementalStateLoaded", key, lastValue ) );
+      }
+      // forget a value left over by an earlier import on this thread
+      getLastValueCapture().take( threadName );
+    }
+
+    List<String> args = SqoopUtils.getCommandLineArgs( config, getVariables() );
+    args.add( 0, getToolName() ); // push the tool command-line argument on the top of the args list
+    int exitStatus = hadoopClientServices.runSqoop( args, properties );
+
+    if ( stateStore != null && exitStatus == 0 ) {
+      String lastValue = getLastValueCapture().take( threadName );
+      if ( lastValue != null ) {
+        stateStore.setLastValue( key, lastValue );
+        logBasic( getString( "IncrementalStateSaved", key, lastValue ) );
+      } else {
+        logError( getString( "IncrementalStateNotCaptured", key ) );
+      }
+    }
+    return exitStatus;
+  }
+
+  /**
+   * @return the store of the last values of the incremental imports of this entry, null if the import is not
+   *         incremental or if the state is not kept
+   */
+  SqoopIncrementalStateStore getIncrementalStateStore( SqoopImportConfig config ) {
+    if ( JobEntryMode.ADVANCED_COMMAND_LINE.equals( config.getModeAsEnum() )
+      || Strings.isNullOrEmpty( environmentSubstitute( config.getIncremental() ) ) ) {
+      return null;
+    }
+    String store = Const.NVL( environmentSubstitute( config.getIncrementalStateStore() ), "" ).trim();
+    if ( SqoopImportConfig.STATE_STORE_NONE.equalsIgnoreCase( store ) ) {
+      return null;
+    }
+    if ( !SqoopImportConfig.STATE_STORE_FILE.equalsIgnoreCase( store ) && getMetaStore() != null ) {
+      return new MetaStoreIncrementalStateStore( getMetaStore() );
+    }
+    return new FileIncrementalStateStore( new File( Const.NVL( getVariable( KETTLE_SQOOP_INCREMENTAL_STATE_FILE ),
+      Const.getKettleDirectory() + Const.FILE_SEPARATOR + DEFAULT_INCREMENTAL_STATE_FILE ) ) );
+  }
+
+  /**
+   * @return the key of the state of an incremental import: the job (its file, or its repository directory and name),
+   *         the name of this entry and the table. Jobs of the same name in different files or folders keep their own
+   *         state
+   */
+  String getIncrementalStateKey( String table ) {
+    JobMeta jobMeta = getParentJob() != null ? getParentJob().getJobMeta() : null;
+    String job = null;
+    if ( jobMeta != null ) {
+      if ( !Strings.isNullOrEmpty( jobMeta.getFilename() ) ) {
+        job = jobMeta.getFilename();
+      } else if ( jobMeta.getRepositoryDirectory() != null ) {
+        String directory = Const.NVL( jobMeta.getRepositoryDirectory().getPath(), "" );
+        job = directory + ( directory.endsWith( "/" ) ? "" : "/" ) + Const.NVL( jobMeta.getName(), "" );
+      } else {
+        job = jobMeta.getName();
+      }
+    }
+    return Const.NVL( job, "" ) + "/" + Const.NVL( getName(), "" ) + "/" + table;
+  }
+
+  /**
+   * @return true if the import is configured through a command line holding an incremental import
+   */
+  private boolean isIncrementalCommandLine( SqoopImportConfig config ) {
+    return JobEntryMode.ADVANCED_COMMAND_LINE.equals( config.getModeAsEnum() ) && config.getCommandLine() != null
+      && environmentSubstitute( config.getCommandLine() ).contains( "--incremental" );
+  }
+
+  /**
+   * Logs the outcome of each table import and adds it to the result rows
+   *
+   * @return true if all the tables were imported
+   */
+  boolean report( List<SqoopMultiTableImport.TableImport> imports, Result jobResult ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "table" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "split_by" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "mappers" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "exit_status" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "duration_ms" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "estimated_rows" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "estimated_rows_per_second" ) );
+
+    boolean succeeded = true;
+    for ( SqoopMultiTableImport.TableImport tableImport : imports ) {
+      if ( tableImport.isSucceeded() ) {
+        logBasic( getString( "TableImported", tableImport.getTable(), String.valueOf( tableImport.getMappers() ),
+          String.valueOf( tableImport.getSplitBy() ), String.valueOf( tableImport.getDurationMillis() ),
+          String.valueOf( Math.round( tableImport.getRowsPerSecond() ) ),
+          String.valueOf( tableImport.getEstimatedRows() ) ) );
+      } else {
+        succeeded = false;
+        if ( !tableImport.isStarted() ) {
+          logError( getString( "TableImportNotStarted", tableImport.getTable() ) );
+        } else if ( tableImport.getFailure() != null ) {
+          logError( getString( "TableImportFailed", tableImport.getTable(),
+            String.valueOf( tableImport.getExitStatus() ) ), tableImport.getFailure() );
+        } else {
+          logError( getString( "TableImportFailed", tableImport.getTable(),
+            String.valueOf( tableImport.getExitStatus() ) ) );
+        }
+      }
+      jobResult.getRows().add( new RowMetaAndData( rowMeta, tableImport.getTable(), tableImport.getSplitBy(),
+        (long) tableImport.getMappers(), (long) tableImport.getExitStatus(), tableImport.getDurationMillis(),
+        tableImport.getEstimatedRows(), tableImport.getRowsPerSecond() ) );
+    }
+    return succeeded;
+  }
+
+  /**
+   * Reads the tables to import and their statistics from the source database
+   */
+  List<SqoopTableCatalog.TableStatistics> readTableStatistics( SqoopImportConfig config, String importTables )
+    throws KettleException {
+    DatabaseMeta databaseMeta = config.getModeAsEnum() == JobEntryMode.QUICK_SETUP
+      ? getParentJob().getJobMeta().findDatabase( config.getDatabase() ) : null;
+    Database database = null;
+    Connection connection = null;
+    try {
+      if ( databaseMeta != null ) {
+        database = new Database( this, databaseMeta );
+        database.connect();
+        connection = database.getConnection();
+      } else {
+        if ( !Strings.isNullOrEmpty( config.getDriver() ) ) {
+          Class.forName( environmentSubstitute( config.getDriver() ) );
+        }
+        connection = DriverManager.getConnection( environmentSubstitute( config.getConnect() ),
+          environmentSubstitute( config.getUsername() ),
+          Encr.decryptPasswordOptionallyEncrypted( environmentSubstitute( config.getPassword() ) ) );
+      }
+      SqoopTableCatalog catalog = new SqoopTableCatalog( connection );
+      String schema = Strings.emptyToNull( environmentSubstitute( config.getSchema() ) );
+      List<SqoopTableCatalog.TableStatistics> statistics = new ArrayList<>();
+      for ( String table : catalog.listTables( schema, importTables ) ) {
+        statistics.add( catalog.getStatistics( schema, table ) );
+      }
+      return statistics;
+    } catch ( SQLException | ClassNotFoundException e ) {
+      throw new KettleException( getString( "ErrorReadingTableStatistics" ), e );
+    } finally {
+      if ( database != null ) {
+        database.disconnect();
+      } else if ( connection != null ) {
+        try {
+          connection.close();
+        } catch ( SQLException e ) {
+          // nothing left to read
+        }
+      }
+    }
+  }
+
+  private static String getString( String key, String... parameters ) {
+    return BaseMessages.getString( AbstractSqoopJobEntry.class, key, parameters );
+  }
 }
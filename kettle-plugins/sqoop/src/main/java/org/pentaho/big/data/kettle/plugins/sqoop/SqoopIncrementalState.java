@@ -0,0 +1,57 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.pentaho.metastore.persist.MetaStoreAttribute;
+import org.pentaho.metastore.persist.MetaStoreElementType;
+
+/**
+ * The last value of an incremental import, as saved in the metastore
+ */
+@MetaStoreElementType( name = "SqoopIncrementalState", description = "Last value of an incremental Sqoop import" )
+public class SqoopIncrementalState {
+
+  @MetaStoreAttribute
+  private String name;
+
+  @MetaStoreAttribute
+  private String key;
+
+  @MetaStoreAttribute
+  private String lastValue;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName( String name ) {
+    this.name = name;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public void setKey( String key ) {
+    this.key = key;
+  }
+
+  public String getLastValue() {
+    return lastValue;
+  }
+
+  public void setLastValue( String lastValue ) {
+    this.lastValue = lastValue;
+  }
+}
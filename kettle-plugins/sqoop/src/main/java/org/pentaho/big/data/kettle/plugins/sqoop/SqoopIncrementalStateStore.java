@@ -0,0 +1,31 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Keeps the last value of incremental imports between runs, so the next run imports only the new or modified rows
+ */
+public interface SqoopIncrementalStateStore {
+
+  /**
+   * @param key
+   *          identifies the import, see {@link SqoopImportJobEntry#getIncrementalStateKey(String)}
+   * @return the last value saved by the previous successful run, null if there is none
+   */
+  String getLastValue( String key ) throws KettleException;
+
+  void setLastValue( String key, String lastValue ) throws KettleException;
+}
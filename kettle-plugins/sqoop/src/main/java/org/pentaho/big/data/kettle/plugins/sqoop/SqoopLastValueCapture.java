@@ -0,0 +1,56 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the new last value of an incremental import out of the Sqoop logging. At the end of an incremental import
+ * Sqoop logs the arguments of the next one, among which {@code --last-value <value>}. Values are kept per thread, as
+ * the imports of a multi-table import run concurrently, each on its own thread.
+ */
+public class SqoopLastValueCapture {
+
+  static final Pattern LAST_VALUE = Pattern.compile( "^\\s*--last-value\\s+(.+?)\\s*$" );
+
+  private final Map<String, String> lastValues = new ConcurrentHashMap<>();
+
+  /**
+   * @param threadName
+   *          the thread that logged the message
+   * @param message
+   *          a message logged by Sqoop
+   */
+  public void onMessage( String threadName, String message ) {
+    if ( threadName == null || message == null ) {
+      return;
+    }
+    Matcher matcher = LAST_VALUE.matcher( message );
+    if ( matcher.matches() ) {
+      lastValues.put( threadName, matcher.group( 1 ) );
+    }
+  }
+
+  /**
+   * Returns and forgets the last value logged by a thread
+   *
+   * @return the last value, null if the thread logged none
+   */
+  public String take( String threadName ) {
+    return lastValues.remove( threadName );
+  }
+}
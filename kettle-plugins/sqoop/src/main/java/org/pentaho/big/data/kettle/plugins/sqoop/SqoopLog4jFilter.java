@@ -19,14 +19,27 @@ import org.apache.logging.log4j.core.filter.AbstractFilter;
 
 public class SqoopLog4jFilter extends AbstractFilter {
   String logChannelId;
+  SqoopLastValueCapture lastValueCapture;
 
   public SqoopLog4jFilter( String logChannelId ) {
+    this( logChannelId, null );
+  }
+
+  /**
+   * @param lastValueCapture
+   *          gets the messages of the log channel, to pick up the last value of incremental imports. Can be null.
+   */
+  public SqoopLog4jFilter( String logChannelId, SqoopLastValueCapture lastValueCapture ) {
     this.logChannelId = logChannelId;
+    this.lastValueCapture = lastValueCapture;
   }
 
   @Override
   public Result filter(LogEvent event) {
     if ( logChannelId.equals( event.getContextData().getValue( "logChannelId" ) ) ) {
+      if ( lastValueCapture != null && event.getMessage() != null ) {
+        lastValueCapture.onMessage( event.getThreadName(), event.getMessage().getFormattedMessage() );
+      }
       return Result.NEUTRAL;
     }
     return Result.DENY;
@@ -0,0 +1,243 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.google.common.base.Strings;
+
+/**
+ * Imports several tables of a database, one Sqoop import per table, running at most {@code concurrency} imports at a
+ * time. The imports share the connection settings and options of the job entry configuration.
+ * <p>
+ * Each table is imported with its own copy of the configuration: the table is set, a free-form query and the
+ * generated class and jar names are cleared, the target directory gets a sub-directory per table and the Hive table
+ * defaults to the source table. The split column comes from the table statistics unless one is configured, and the
+ * number of mappers is one per {@code rowsPerMapper} estimated rows, up to {@code maxMappers}. A table without a
+ * split column is imported with a single mapper.
+ */
+public class SqoopMultiTableImport {
+
+  /**
+   * Runs the Sqoop import of a single table
+   *
+   * @return the exit code of Sqoop
+   */
+  public interface TableRunner {
+    int run( SqoopImportConfig config ) throws Exception;
+  }
+
+  /**
+   * The plan and the outcome of the import of a table
+   */
+  public static class TableImport {
+    private final String table;
+    private final String splitBy;
+    private final int mappers;
+    private final long estimatedRows;
+    private volatile int exitStatus = -1;
+    private volatile long durationMillis;
+    private volatile Exception failure;
+    private volatile boolean started;
+
+    TableImport( String table, String splitBy, int mappers, long estimatedRows ) {
+      this.table = table;
+      this.splitBy = splitBy;
+      this.mappers = mappers;
+      this.estimatedRows = estimatedRows;
+    }
+
+    public String getTable() {
+      return table;
+    }
+
+    public String getSplitBy() {
+      return splitBy;
+    }
+
+    public int getMappers() {
+      return mappers;
+    }
+
+    /**
+     * @return the number of rows of the table according to its statistics, -1 if unknown
+     */
+    public long getEstimatedRows() {
+      return estimatedRows;
+    }
+
+    /**
+     * @return the exit code of Sqoop, -1 if the import didn't run or failed with an exception
+     */
+    public int getExitStatus() {
+      return exitStatus;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    public Exception getFailure() {
+      return failure;
+    }
+
+    public boolean isStarted() {
+      return started;
+    }
+
+    public boolean isSucceeded() {
+      return exitStatus == 0;
+    }
+
+    /**
+     * @return the estimated rows imported per second, -1 if the row count is unknown
+     */
+    public double getRowsPerSecond() {
+      if ( estimatedRows < 0 || durationMillis <= 0 ) {
+        return -1;
+      }
+      return estimatedRows * 1000.0 / durationMillis;
+    }
+  }
+
+  private final int concurrency;
+  private final int maxMappers;
+  private final long rowsPerMapper;
+
+  /**
+   * @param concurrency
+   *          the number of tables imported at the same time
+   * @param maxMappers
+   *          the largest number of mappers of an import
+   * @param rowsPerMapper
+   *          the number of rows a mapper should import
+   */
+  public SqoopMultiTableImport( int concurrency, int maxMappers, long rowsPerMapper ) {
+    this.concurrency = Math.max( 1, concurrency );
+    this.maxMappers = Math.max( 1, maxMappers );
+    this.rowsPerMapper = Math.max( 1L, rowsPerMapper );
+  }
+
+  /**
+   * Imports the tables. Once the calling thread is interrupted no new import is started and the running ones are
+   * interrupted. Once the stop condition is true no new import is started and the running ones complete.
+   *
+   * @param config
+   *          the configuration of the job entry
+   * @param tables
+   *          the statistics of the tables to import
+   * @param runner
+   *          runs the import of a table
+   * @param threadName
+   *          the name prefix of the import threads
+   * @param stopCondition
+   *          checked before each import is started
+   * @return the imports, in the order of the tables
+   */
+  public List<TableImport> run( SqoopImportConfig config, List<SqoopTableCatalog.TableStatistics> tables,
+                                TableRunner runner, String threadName, BooleanSupplier stopCondition )
+    throws InterruptedException {
+    List<TableImport> imports = new ArrayList<>();
+    List<SqoopImportConfig> configs = new ArrayList<>();
+    for ( SqoopTableCatalog.TableStatistics statistics : tables ) {
+      TableImport tableImport = plan( config, statistics );
+      imports.add( tableImport );
+      configs.add( configure( config, tableImport ) );
+    }
+
+    final AtomicInteger count = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool( Math.min( concurrency, Math.max( 1, tables.size() ) ),
+      r -> {
+        Thread thread = new Thread( r, threadName + " " + count.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+      } );
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for ( int i = 0; i < imports.size(); i++ ) {
+        TableImport tableImport = imports.get( i );
+        SqoopImportConfig tableConfig = configs.get( i );
+        futures.add( executor.submit( () -> runImport( tableImport, tableConfig, runner, stopCondition ) ) );
+      }
+      executor.shutdown();
+      for ( Future<?> future : futures ) {
+        try {
+          future.get();
+        } catch ( ExecutionException e ) {
+          // recorded in the table import
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return Collections.unmodifiableList( imports );
+  }
+
+  TableImport plan( SqoopImportConfig config, SqoopTableCatalog.TableStatistics statistics ) {
+    String splitBy = Strings.isNullOrEmpty( config.getSplitBy() ) ? statistics.getSplitColumn() : config.getSplitBy();
+    int mappers;
+    if ( splitBy == null ) {
+      mappers = 1;
+    } else if ( statistics.getRowCount() < 0 ) {
+      mappers = maxMappers;
+    } else {
+      long needed = ( statistics.getRowCount() + rowsPerMapper - 1 ) / rowsPerMapper;
+      mappers = (int) Math.max( 1L, Math.min( maxMappers, needed ) );
+    }
+    return new TableImport( statistics.getTable(), splitBy, mappers, statistics.getRowCount() );
+  }
+
+  static SqoopImportConfig configure( SqoopImportConfig config, TableImport tableImport ) {
+    SqoopImportConfig copy = (SqoopImportConfig) config.detachedCopy();
+    copy.setTable( tableImport.getTable() );
+    copy.setQuery( null );
+    copy.setClassName( null );
+    copy.setJarFile( null );
+    copy.setHiveTable( null );
+    copy.setSplitBy( tableImport.getSplitBy() );
+    copy.setNumMappers( String.valueOf( tableImport.getMappers() ) );
+    if ( !Strings.isNullOrEmpty( config.getTargetDir() ) ) {
+      String targetDir = config.getTargetDir();
+      while ( targetDir.length() > 1 && targetDir.endsWith( "/" ) ) {
+        targetDir = targetDir.substring( 0, targetDir.length() - 1 );
+      }
+      copy.setTargetDir( targetDir + "/" + tableImport.getTable() );
+    }
+    return copy;
+  }
+
+  private static void runImport( TableImport tableImport, SqoopImportConfig config, TableRunner runner,
+                                 BooleanSupplier stopCondition ) {
+    if ( Thread.currentThread().isInterrupted() || stopCondition.getAsBoolean() ) {
+      return;
+    }
+    tableImport.started = true;
+    long start = System.currentTimeMillis();
+    try {
+      tableImport.exitStatus = runner.run( config );
+    } catch ( Exception e ) {
+      tableImport.failure = e;
+    } finally {
+      tableImport.durationMillis = System.currentTimeMillis() - start;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the tables of a multi-table import and their size statistics from the JDBC metadata of the source database.
+ * <p>
+ * Table names containing a {@code %} wildcard are matched as patterns (a {@code _} in a pattern matches any character,
+ * as in SQL LIKE). The row count of a table is the cardinality of its table statistic, as reported by
+ * {@link DatabaseMetaData#getIndexInfo} with approximate values allowed, so no table is scanned. The split column is
+ * the primary key when it is a single numeric or temporal column, otherwise the first such column of a single-column
+ * unique index.
+ */
+public class SqoopTableCatalog {
+
+  /**
+   * What a table import is planned from
+   */
+  public static class TableStatistics {
+    private final String table;
+    private final long rowCount;
+    private final String splitColumn;
+
+    public TableStatistics( String table, long rowCount, String splitColumn ) {
+      this.table = table;
+      this.rowCount = rowCount;
+      this.splitColumn = splitColumn;
+    }
+
+    public String getTable() {
+      return table;
+    }
+
+    /**
+     * @return the estimated number of rows, -1 if unknown
+     */
+    public long getRowCount() {
+      return rowCount;
+    }
+
+    /**
+     * @return the column to split the import by, null if the table has no suitable column
+     */
+    public String getSplitColumn() {
+      return splitColumn;
+    }
+  }
+
+  private static final String[] TABLE_TYPES = new String[] { "TABLE" };
+
+  private final DatabaseMetaData metaData;
+
+  public SqoopTableCatalog( Connection connection ) throws SQLException {
+    this.metaData = connection.getMetaData();
+  }
+
+  /**
+   * @param schema
+   *          the schema of the tables, can be null
+   * @param tables
+   *          table names and patterns, comma separated
+   * @return the names of the matching tables, in the order of the list, each table once
+   */
+  public List<String> listTables( String schema, String tables ) throws SQLException {
+    Set<String> names = new LinkedHashSet<>();
+    for ( String entry : splitTableList( tables ) ) {
+      if ( entry.indexOf( '%' ) < 0 ) {
+        names.add( entry );
+        continue;
+      }
+      try ( ResultSet rs = metaData.getTables( null, schema, entry, TABLE_TYPES ) ) {
+        while ( rs.next() ) {
+          names.add( rs.getString( "TABLE_NAME" ) );
+        }
+      }
+    }
+    return new ArrayList<>( names );
+  }
+
+  public TableStatistics getStatistics( String schema, String table ) throws SQLException {
+    Map<String, Integer> columnTypes = new HashMap<>();
+    try ( ResultSet rs = metaData.getColumns( null, schema, table, null ) ) {
+      while ( rs.next() ) {
+        columnTypes.put( rs.getString( "COLUMN_NAME" ), rs.getInt( "DATA_TYPE" ) );
+      }
+    }
+
+    String splitColumn = null;
+    List<String> primaryKey = new ArrayList<>();
+    try ( ResultSet rs = metaData.getPrimaryKeys( null, schema, table ) ) {
+      while ( rs.next() ) {
+        primaryKey.add( rs.getString( "COLUMN_NAME" ) );
+      }
+    }
+    if ( primaryKey.size() == 1 && isSplittable( columnTypes.get( primaryKey.get( 0 ) ) ) ) {
+      splitColumn = primaryKey.get( 0 );
+    }
+
+    long rowCount = -1L;
+    Map<String, List<String>> uniqueIndexes = new HashMap<>();
+    try ( ResultSet rs = metaData.getIndexInfo( null, schema, table, false, true ) ) {
+      while ( rs.next() ) {
+        if ( rs.getShort( "TYPE" ) == DatabaseMetaData.tableIndexStatistic ) {
+          long cardinality = rs.getLong( "CARDINALITY" );
+          if ( !rs.wasNull() ) {
+            rowCount = cardinality;
+          }
+        } else if ( !rs.getBoolean( "NON_UNIQUE" ) && rs.getString( "INDEX_NAME" ) != null ) {
+          uniqueIndexes.computeIfAbsent( rs.getString( "INDEX_NAME" ), name -> new ArrayList<>() )
+            .add( rs.getString( "COLUMN_NAME" ) );
+        }
+      }
+    }
+    if ( splitColumn == null ) {
+      for ( List<String> columns : uniqueIndexes.values() ) {
+        if ( columns.size() == 1 && isSplittable( columnTypes.get( columns.get( 0 ) ) ) ) {
+          splitColumn = columns.get( 0 );
+          break;
+        }
+      }
+    }
+    return new TableStatistics( table, rowCount, splitColumn );
+  }
+
+  static List<String> splitTableList( String tables ) {
+    List<String> entries = new ArrayList<>();
+    if ( tables != null ) {
+      for ( String entry : tables.split( "[,\\s]+" ) ) {
+        if ( !entry.isEmpty() ) {
+          entries.add( entry );
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * @return true if Sqoop can split an import on a column of this JDBC type
+   */
+  static boolean isSplittable( Integer type ) {
+    if ( type == null ) {
+      return false;
+    }
+    switch ( type ) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+      case Types.DATE:
+      case Types.TIMESTAMP:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileIncrementalStateStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testLastValuesSurviveNewStores() throws Exception {
+    File file = new File( temporaryFolder.getRoot(), "state" + File.separator + "sqoop.properties" );
+    FileIncrementalStateStore store = new FileIncrementalStateStore( file );
+    assertNull( store.getLastValue( "job/entry/orders" ) );
+
+    store.setLastValue( "job/entry/orders", "1000" );
+    store.setLastValue( "job/entry/customers", "2024-05-01 10:00:00.0" );
+    store.setLastValue( "job/entry/orders", "2000" );
+    assertTrue( file.isFile() );
+
+    FileIncrementalStateStore reopened = new FileIncrementalStateStore( file );
+    assertEquals( "2000", reopened.getLastValue( "job/entry/orders" ) );
+    assertEquals( "2024-05-01 10:00:00.0", reopened.getLastValue( "job/entry/customers" ) );
+    assertEquals( 1, file.getParentFile().list().length );
+  }
+
+  @Test
+  public void testMetaStoreElementNamesAreFileNames() {
+    String name = MetaStoreIncrementalStateStore.getElementName( "my job/import: orders" );
+    assertTrue( name, name.matches( "[A-Za-z0-9._-]+" ) );
+    assertNotEquals( name, MetaStoreIncrementalStateStore.getElementName( "my job/import: orders_" ) );
+    assertNotEquals( name, MetaStoreIncrementalStateStore.getElementName( "my job/import_ orders" ) );
+  }
+}
@@ -0,0 +1,70 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.job.Job;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.RepositoryDirectoryInterface;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterService;
+import org.pentaho.hadoop.shim.api.cluster.NamedClusterServiceLocator;
+import org.pentaho.runtime.test.RuntimeTester;
+import org.pentaho.runtime.test.action.RuntimeTestActionService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SqoopImportJobEntryTest {
+
+  private SqoopImportJobEntry entry;
+  private JobMeta jobMeta;
+
+  @Before
+  public void setup() {
+    entry = new SqoopImportJobEntry( mock( NamedClusterService.class ), mock( NamedClusterServiceLocator.class ),
+      mock( RuntimeTestActionService.class ), mock( RuntimeTester.class ) );
+    entry.setName( "import" );
+    jobMeta = mock( JobMeta.class );
+    when( jobMeta.getName() ).thenReturn( "daily" );
+    Job job = mock( Job.class );
+    when( job.getJobMeta() ).thenReturn( jobMeta );
+    entry.setParentJob( job );
+  }
+
+  @Test
+  public void testIncrementalStateKeyOfJobFiles() {
+    when( jobMeta.getFilename() ).thenReturn( "/etl/sales/daily.kjb" );
+    String sales = entry.getIncrementalStateKey( "orders" );
+    when( jobMeta.getFilename() ).thenReturn( "/etl/stock/daily.kjb" );
+    String stock = entry.getIncrementalStateKey( "orders" );
+
+    assertEquals( "/etl/sales/daily.kjb/import/orders", sales );
+    assertNotEquals( sales, stock );
+  }
+
+  @Test
+  public void testIncrementalStateKeyOfRepositoryJobs() {
+    RepositoryDirectoryInterface directory = mock( RepositoryDirectoryInterface.class );
+    when( directory.getPath() ).thenReturn( "/home/sales" );
+    when( jobMeta.getRepositoryDirectory() ).thenReturn( directory );
+    assertEquals( "/home/sales/daily/import/orders", entry.getIncrementalStateKey( "orders" ) );
+
+    when( directory.getPath() ).thenReturn( "/" );
+    assertEquals( "/daily/import/orders", entry.getIncrementalStateKey( "orders" ) );
+  }
+}
@@ -14,6 +14,7 @@ package org.pentaho.big.data.kettle.plugins.sqoop;
 
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.apache.logging.log4j.util.ReadOnlyStringMap;
 import org.junit.Test;
 
@@ -39,4 +40,28 @@ public class SqoopLog4jFilterTest {
     assertEquals( Filter.Result.NEUTRAL, f.filter( goodEvent ) );
     assertEquals( Filter.Result.DENY, f.filter( badEvent ) );
   }
-}
\ No newline at end of file
+
+  @Test
+  public void capturesLastValueOfTheLogChannel() {
+    SqoopLastValueCapture capture = new SqoopLastValueCapture();
+    Filter f = new SqoopLog4jFilter( "goodLog", capture );
+    f.filter( event( "goodLog", "import-1", "  --last-value 2024-05-01 10:00:00.0" ) );
+    f.filter( event( "goodLog", "import-2", "  --last-value 42" ) );
+    f.filter( event( "badLog", "import-2", "  --last-value 43" ) );
+    f.filter( event( "goodLog", "import-2", "Transferred 10 bytes" ) );
+
+    assertEquals( "2024-05-01 10:00:00.0", capture.take( "import-1" ) );
+    assertEquals( "42", capture.take( "import-2" ) );
+    assertNull( capture.take( "import-2" ) );
+  }
+
+  private static LogEvent event( String logChannelId, String threadName, String message ) {
+    LogEvent event = mock( LogEvent.class );
+    ReadOnlyStringMap contextData = mock( ReadOnlyStringMap.class );
+    when( contextData.getValue( "logChannelId" ) ).thenReturn( logChannelId );
+    when( event.getContextData() ).thenReturn( contextData );
+    when( event.getThreadName() ).thenReturn( threadName );
+    when( event.getMessage() ).thenReturn( new SimpleMessage( message ) );
+    return event;
+  }
+}
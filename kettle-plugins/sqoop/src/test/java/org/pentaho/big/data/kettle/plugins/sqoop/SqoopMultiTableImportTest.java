@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.junit.Test;
+
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class SqoopMultiTableImportTest {
+
+  private static SqoopTableCatalog.TableStatistics table( String name, long rows, String splitColumn ) {
+    return new SqoopTableCatalog.TableStatistics( name, rows, splitColumn );
+  }
+
+  @Test
+  public void testMappersFollowTheTableSize() {
+    SqoopMultiTableImport multiTableImport = new SqoopMultiTableImport( 2, 8, 1000L );
+    SqoopImportConfig config = new SqoopImportConfig( null );
+
+    assertEquals( 3, multiTableImport.plan( config, table( "orders", 2500L, "id" ) ).getMappers() );
+    assertEquals( 1, multiTableImport.plan( config, table( "small", 10L, "id" ) ).getMappers() );
+    assertEquals( 8, multiTableImport.plan( config, table( "huge", 1000000L, "id" ) ).getMappers() );
+    assertEquals( 8, multiTableImport.plan( config, table( "unknown", -1L, "id" ) ).getMappers() );
+    SqoopMultiTableImport.TableImport noKey = multiTableImport.plan( config, table( "log", 1000000L, null ) );
+    assertEquals( 1, noKey.getMappers() );
+    assertNull( noKey.getSplitBy() );
+
+    config.setSplitBy( "created" );
+    assertEquals( "created", multiTableImport.plan( config, table( "log", 1000000L, null ) ).getSplitBy() );
+  }
+
+  @Test
+  public void testTableConfiguration() {
+    SqoopImportConfig config = new SqoopImportConfig( null );
+    config.setConnect( "jdbc:mysql://db/sales" );
+    config.setTable( "ignored" );
+    config.setQuery( "select 1" );
+    config.setHiveTable( "target" );
+    config.setTargetDir( "/data/sales/" );
+    PropertyChangeListener listener = mock( PropertyChangeListener.class );
+    config.addPropertyChangeListener( listener );
+
+    SqoopImportConfig tableConfig = SqoopMultiTableImport.configure( config,
+      new SqoopMultiTableImport( 1, 4, 1000L ).plan( config, table( "orders", 2500L, "id" ) ) );
+
+    assertEquals( "jdbc:mysql://db/sales", tableConfig.getConnect() );
+    assertEquals( "orders", tableConfig.getTable() );
+    assertEquals( "id", tableConfig.getSplitBy() );
+    assertEquals( "3", tableConfig.getNumMappers() );
+    assertEquals( "/data/sales/orders", tableConfig.getTargetDir() );
+    assertNull( tableConfig.getQuery() );
+    assertNull( tableConfig.getHiveTable() );
+    assertEquals( "ignored", config.getTable() );
+    verifyZeroInteractions( listener );
+  }
+
+  @Test
+  public void testImportsRunConcurrently() throws InterruptedException {
+    List<SqoopTableCatalog.TableStatistics> tables = Arrays.asList( table( "a", 1L, "id" ), table( "b", 1L, "id" ),
+      table( "c", 1L, "id" ), table( "d", 1L, "id" ) );
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<SqoopMultiTableImport.TableImport> imports = new SqoopMultiTableImport( 2, 4, 1000L ).run(
+      new SqoopImportConfig( null ), tables, tableConfig -> {
+        maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+        Thread.sleep( 50 );
+        running.decrementAndGet();
+        if ( tableConfig.getTable().equals( "c" ) ) {
+          throw new IllegalStateException( "failed" );
+        }
+        return tableConfig.getTable().equals( "d" ) ? 1 : 0;
+      }, "test", () -> false );
+
+    assertEquals( 2, maxRunning.get() );
+    assertEquals( 4, imports.size() );
+    assertTrue( imports.get( 0 ).isSucceeded() );
+    assertTrue( imports.get( 1 ).isSucceeded() );
+    assertFalse( imports.get( 2 ).isSucceeded() );
+    assertTrue( imports.get( 2 ).getFailure() instanceof IllegalStateException );
+    assertEquals( 1, imports.get( 3 ).getExitStatus() );
+    assertTrue( imports.get( 0 ).getDurationMillis() >= 40 );
+  }
+
+  @Test
+  public void testStopSkipsQueuedImports() throws InterruptedException {
+    List<SqoopTableCatalog.TableStatistics> tables = Arrays.asList( table( "a", 1L, "id" ), table( "b", 1L, "id" ),
+      table( "c", 1L, "id" ) );
+    AtomicBoolean stopped = new AtomicBoolean();
+
+    List<SqoopMultiTableImport.TableImport> imports = new SqoopMultiTableImport( 1, 4, 1000L ).run(
+      new SqoopImportConfig( null ), tables, tableConfig -> {
+        stopped.set( true );
+        return 0;
+      }, "test", stopped::get );
+
+    assertTrue( imports.get( 0 ).isSucceeded() );
+    assertFalse( imports.get( 1 ).isStarted() );
+    assertFalse( imports.get( 2 ).isStarted() );
+    assertEquals( -1, imports.get( 2 ).getExitStatus() );
+  }
+
+  @Test
+  public void testTableList() {
+    assertEquals( Arrays.asList( "orders", "order_lines", "SALES_%" ),
+      SqoopTableCatalog.splitTableList( "orders, order_lines,SALES_%" ) );
+    assertEquals( Collections.emptyList(), SqoopTableCatalog.splitTableList( null ) );
+  }
+}
@@ -0,0 +1,169 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.big.data.kettle.plugins.sqoop;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SqoopTableCatalogTest {
+
+  private DatabaseMetaData metaData;
+  private SqoopTableCatalog catalog;
+
+  @Before
+  public void setup() throws SQLException {
+    metaData = mock( DatabaseMetaData.class );
+    Connection connection = mock( Connection.class );
+    when( connection.getMetaData() ).thenReturn( metaData );
+    catalog = new SqoopTableCatalog( connection );
+  }
+
+  @Test
+  public void testListTablesExpandsPatterns() throws SQLException {
+    when( metaData.getTables( (String) isNull(), eq( "sales" ), eq( "ORDERS_%" ), any( String[].class ) ) )
+      .thenReturn( resultSet( row( "TABLE_NAME", "ORDERS_2023" ), row( "TABLE_NAME", "ORDERS_2024" ) ) );
+
+    assertEquals( Arrays.asList( "customers", "ORDERS_2023", "ORDERS_2024" ),
+      catalog.listTables( "sales", "customers, ORDERS_%,customers ORDERS_2024" ) );
+    verify( metaData, never() ).getTables( (String) isNull(), anyString(), eq( "customers" ),
+      any( String[].class ) );
+  }
+
+  @Test
+  public void testPrimaryKeySplitColumnAndRowEstimate() throws SQLException {
+    columns( "orders", row( "COLUMN_NAME", "id", "DATA_TYPE", Types.BIGINT ),
+      row( "COLUMN_NAME", "code", "DATA_TYPE", Types.VARCHAR ) );
+    when( metaData.getPrimaryKeys( null, "sales", "orders" ) ).thenReturn( resultSet( row( "COLUMN_NAME", "id" ) ) );
+    when( metaData.getIndexInfo( null, "sales", "orders", false, true ) ).thenReturn( resultSet(
+      row( "TYPE", DatabaseMetaData.tableIndexStatistic, "CARDINALITY", 12345L ),
+      row( "TYPE", DatabaseMetaData.tableIndexOther, "NON_UNIQUE", false, "INDEX_NAME", "ux_code",
+        "COLUMN_NAME", "code" ) ) );
+
+    SqoopTableCatalog.TableStatistics statistics = catalog.getStatistics( "sales", "orders" );
+
+    assertEquals( "orders", statistics.getTable() );
+    assertEquals( 12345L, statistics.getRowCount() );
+    assertEquals( "id", statistics.getSplitColumn() );
+  }
+
+  @Test
+  public void testUniqueIndexSplitColumn() throws SQLException {
+    columns( "events", row( "COLUMN_NAME", "source", "DATA_TYPE", Types.VARCHAR ),
+      row( "COLUMN_NAME", "seq", "DATA_TYPE", Types.INTEGER ),
+      row( "COLUMN_NAME", "name", "DATA_TYPE", Types.VARCHAR ),
+      row( "COLUMN_NAME", "created", "DATA_TYPE", Types.TIMESTAMP ),
+      row( "COLUMN_NAME", "batch", "DATA_TYPE", Types.INTEGER ) );
+    // a composite primary key can't split an import
+    when( metaData.getPrimaryKeys( null, "sales", "events" ) ).thenReturn(
+      resultSet( row( "COLUMN_NAME", "source" ), row( "COLUMN_NAME", "seq" ) ) );
+    when( metaData.getIndexInfo( null, "sales", "events", false, true ) ).thenReturn( resultSet(
+      row( "TYPE", DatabaseMetaData.tableIndexStatistic, "CARDINALITY", null ),
+      row( "TYPE", DatabaseMetaData.tableIndexOther, "NON_UNIQUE", false, "INDEX_NAME", "ux_name",
+        "COLUMN_NAME", "name" ),
+      row( "TYPE", DatabaseMetaData.tableIndexOther, "NON_UNIQUE", true, "INDEX_NAME", "ix_batch",
+        "COLUMN_NAME", "batch" ),
+      row( "TYPE", DatabaseMetaData.tableIndexOther, "NON_UNIQUE", false, "INDEX_NAME", "ux_created",
+        "COLUMN_NAME", "created" ) ) );
+
+    SqoopTableCatalog.TableStatistics statistics = catalog.getStatistics( "sales", "events" );
+
+    assertEquals( -1L, statistics.getRowCount() );
+    assertEquals( "created", statistics.getSplitColumn() );
+  }
+
+  @Test
+  public void testNoSplitColumn() throws SQLException {
+    columns( "notes", row( "COLUMN_NAME", "text", "DATA_TYPE", Types.VARCHAR ) );
+    when( metaData.getPrimaryKeys( null, "sales", "notes" ) ).thenReturn( resultSet() );
+    when( metaData.getIndexInfo( null, "sales", "notes", false, true ) ).thenReturn( resultSet(
+      row( "TYPE", DatabaseMetaData.tableIndexStatistic, "CARDINALITY", 7L ) ) );
+
+    SqoopTableCatalog.TableStatistics statistics = catalog.getStatistics( "sales", "notes" );
+
+    assertEquals( 7L, statistics.getRowCount() );
+    assertNull( statistics.getSplitColumn() );
+  }
+
+  private void columns( String table, Map<String, Object>... rows ) throws SQLException {
+    when( metaData.getColumns( null, "sales", table, null ) ).thenReturn( resultSet( rows ) );
+  }
+
+  private static Map<String, Object> row( Object... namesAndValues ) {
+    Map<String, Object> row = new HashMap<>();
+    for ( int i = 0; i < namesAndValues.length; i += 2 ) {
+      row.put( (String) namesAndValues[ i ], namesAndValues[ i + 1 ] );
+    }
+    return row;
+  }
+
+  /**
+   * A result set over rows of column values, a missing column reading as SQL NULL
+   */
+  private static ResultSet resultSet( Map<String, Object>... rows ) throws SQLException {
+    ResultSet rs = mock( ResultSet.class );
+    AtomicInteger current = new AtomicInteger( -1 );
+    AtomicReference<Object> lastRead = new AtomicReference<>();
+    when( rs.next() ).thenAnswer( invocation -> current.incrementAndGet() < rows.length );
+    when( rs.getString( anyString() ) ).thenAnswer( invocation -> {
+      Object value = rows[ current.get() ].get( (String) invocation.getArguments()[ 0 ] );
+      lastRead.set( value );
+      return value;
+    } );
+    when( rs.getInt( anyString() ) ).thenAnswer( invocation -> {
+      Number value = (Number) rows[ current.get() ].get( (String) invocation.getArguments()[ 0 ] );
+      lastRead.set( value );
+      return value == null ? 0 : value.intValue();
+    } );
+    when( rs.getShort( anyString() ) ).thenAnswer( invocation -> {
+      Number value = (Number) rows[ current.get() ].get( (String) invocation.getArguments()[ 0 ] );
+      lastRead.set( value );
+      return value == null ? (short) 0 : value.shortValue();
+    } );
+    when( rs.getLong( anyString() ) ).thenAnswer( invocation -> {
+      Number value = (Number) rows[ current.get() ].get( (String) invocation.getArguments()[ 0 ] );
+      lastRead.set( value );
+      return value == null ? 0L : value.longValue();
+    } );
+    when( rs.getBoolean( anyString() ) ).thenAnswer( invocation -> {
+      Boolean value = (Boolean) rows[ current.get() ].get( (String) invocation.getArguments()[ 0 ] );
+      lastRead.set( value );
+      return value != null && value;
+    } );
+    when( rs.wasNull() ).thenAnswer( invocation -> lastRead.get() == null );
+    return rs;
+  }
+}
@@ -26,6 +26,7 @@ import org.pentaho.amazon.client.ClientFactoriesManager;
 import org.pentaho.amazon.client.ClientType;
 import org.pentaho.amazon.client.api.EmrClient;
 import org.pentaho.amazon.client.api.S3Client;
+import org.pentaho.big.data.kettle.plugins.job.JobCompletionTracker;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
@@ -45,6 +46,7 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Aliaksandr_Zhuk on 1/31/2018.
@@ -209,16 +211,11 @@ public abstract class AbstractAmazonJobExecutor extends AbstractAmazonJobEntry {
 
       File tmpFile = createStagingFile();
 
-      // delete old jar if needed
-      try {
-        s3Client.deleteObjectFromBucket( stagingBucketName, key );
-      } catch ( Exception ex ) {
-        logError( Const.getStackTracker( ex ) );
-      }
-
-      // put jar in s3 staging bucket
-      s3Client.putObjectInBucket( stagingBucketName, key, tmpFile );
+      // put jar in s3 staging bucket, replacing the previous one unless it has the same content
       String stagingS3FileUrl = getStagingS3FileUrl( stagingBucketName );
+      if ( !s3Client.putObjectInBucketIfChanged( stagingBucketName, key, tmpFile ) ) {
+        logBasic( BaseMessages.getString( PKG, "AbstractAmazonJobExecutor.StagingFileUnchanged", stagingS3FileUrl ) );
+      }
 
       if ( runOnNewCluster ) {
         // Determine the instances for Hadoop cluster.
@@ -247,31 +244,41 @@ public abstract class AbstractAmazonJobExecutor extends AbstractAmazonJobEntry {
       if ( blocking ) {
         try {
           if ( log.isBasic() ) {
-            while ( emrClient.isRunning() ) {
-
-              if ( isJobStoppedByUser() ) {
-                setResultError( result );
-                break;
+            JobCompletionTracker.Completion completion = JobCompletionTracker.getInstance().track(
+              () -> !emrClient.isRunning() || emrClient.getCurrentClusterState() == null
+                || emrClient.getCurrentClusterState().isEmpty(),
+              () -> getParentJob().isInterrupted() || getParentJob().isStopped(), Math.max( logIntv, 1 ) * 1000L );
+            try {
+              long nextLog = 0L;
+              while ( !completion.isDone() && !getParentJob().isInterrupted() && !getParentJob().isStopped() ) {
+                if ( System.currentTimeMillis() >= nextLog ) {
+                  logBasic( hadoopJobName
+                    + " " + BaseMessages
+                    .getString( PKG, "AbstractAmazonJobExecutor.JobFlowExecutionStatus", hadoopJobFlowId )
+                    + emrClient.getCurrentClusterState() + " " );
+
+                  logBasic( hadoopJobName
+                    + " " + BaseMessages
+                    .getString( PKG, "AbstractAmazonJobExecutor.JobFlowStepStatus", emrClient.getStepId() )
+                    + emrClient.getCurrentStepState() + " " );
+                  nextLog = System.currentTimeMillis() + Math.max( logIntv, 1 ) * 1000L;
+                }
+
+                try {
+                  completion.await( JobCompletionTracker.STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS );
+                } catch ( InterruptedException ie ) {
+                  logError( Const.getStackTracker( ie ) );
+                }
               }
+            } finally {
+              completion.cancel();
+            }
 
-              if ( emrClient.getCurrentClusterState() == null || emrClient.getCurrentClusterState().isEmpty() ) {
-                break;
-              }
-              logBasic( hadoopJobName
-                + " " + BaseMessages
-                .getString( PKG, "AbstractAmazonJobExecutor.JobFlowExecutionStatus", hadoopJobFlowId )
-                + emrClient.getCurrentClusterState() + " " );
-
-              logBasic( hadoopJobName
-                + " " + BaseMessages
-                .getString( PKG, "AbstractAmazonJobExecutor.JobFlowStepStatus", emrClient.getStepId() )
-                + emrClient.getCurrentStepState() + " " );
-
-              try {
-                Thread.sleep( logIntv * 1000 );
-              } catch ( InterruptedException ie ) {
-                logError( Const.getStackTracker( ie ) );
-              }
+            if ( completion.getState() == JobCompletionTracker.State.STOPPED && isJobStoppedByUser() ) {
+              setResultError( result );
+            }
+            if ( completion.getFailure() != null ) {
+              throw completion.getFailure();
             }
 
             if ( emrClient.isClusterTerminated() && emrClient.isStepNotSuccess() ) {
@@ -14,6 +14,7 @@
 package org.pentaho.amazon.client.api;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Created by Aliaksandr_Zhuk on 2/5/2018.
@@ -33,5 +34,13 @@ public interface S3Client {
 
   void putObjectInBucket( String stagingBucketName, String key, File tmpFile );
 
+  /**
+   * Uploads a file unless the object already holds the same content, as told by the MD5 digest saved in the metadata
+   * of the objects uploaded by this method
+   *
+   * @return false if the upload was skipped
+   */
+  boolean putObjectInBucketIfChanged( String stagingBucketName, String key, File tmpFile ) throws IOException;
+
   String readStepLogsFromS3( String stagingBucketName, String hadoopJobFlowId, String stepId );
 }
@@ -20,10 +20,6 @@ import com.amazonaws.services.elasticmapreduce.model.Application;
 import com.amazonaws.services.elasticmapreduce.model.BootstrapActionConfig;
 import com.amazonaws.services.elasticmapreduce.model.CancelStepsRequest;
 import com.amazonaws.services.elasticmapreduce.model.ClusterState;
-import com.amazonaws.services.elasticmapreduce.model.DescribeClusterRequest;
-import com.amazonaws.services.elasticmapreduce.model.DescribeClusterResult;
-import com.amazonaws.services.elasticmapreduce.model.DescribeStepRequest;
-import com.amazonaws.services.elasticmapreduce.model.DescribeStepResult;
 import com.amazonaws.services.elasticmapreduce.model.HadoopJarStepConfig;
 import com.amazonaws.services.elasticmapreduce.model.JobFlowInstancesConfig;
 import com.amazonaws.services.elasticmapreduce.model.ListStepsRequest;
@@ -72,9 +68,15 @@ public class EmrClientImpl implements EmrClient {
   private boolean alive;
   private boolean requestClusterShutdown = false;
   private boolean requestStepCancell = false;
+  private final EmrClusterStatusCache statusCache;
 
   public EmrClientImpl( AmazonElasticMapReduce emrClient ) {
+    this( emrClient, EmrClusterStatusCache.getInstance() );
+  }
+
+  EmrClientImpl( AmazonElasticMapReduce emrClient, EmrClusterStatusCache statusCache ) {
     this.emrClient = emrClient;
+    this.statusCache = statusCache;
   }
 
   @Override
@@ -158,8 +160,9 @@ public class EmrClientImpl implements EmrClient {
 
   @Override
   public boolean isRunning() {
-    currentStepState = getActualStepState();
-    currentClusterState = getActualClusterState();
+    EmrClusterStatusCache.ClusterStatus status = getStatus();
+    currentStepState = status.getStepState( stepId );
+    currentClusterState = status.getState();
     boolean isClusterRunning = isClusterRunning();
     boolean isStepRunning = isStepRunning();
 
@@ -567,6 +570,7 @@ public class EmrClientImpl implements EmrClient {
       TerminateJobFlowsRequest terminateJobFlowsRequest = new TerminateJobFlowsRequest();
       terminateJobFlowsRequest.withJobFlowIds( hadoopJobFlowId );
       emrClient.terminateJobFlows( terminateJobFlowsRequest );
+      statusCache.invalidate( hadoopJobFlowId );
       currentClusterState = getActualClusterState();
       requestClusterShutdown = true;
     }
@@ -596,38 +600,21 @@ public class EmrClientImpl implements EmrClient {
     return false;
   }
 
-  private String getActualClusterState() {
-    String clusterState = null;
-    DescribeClusterRequest describeClusterRequest = new DescribeClusterRequest();
-    describeClusterRequest.setClusterId( hadoopJobFlowId );
-    DescribeClusterResult describeClusterResult = emrClient.describeCluster( describeClusterRequest );
+  private EmrClusterStatusCache.ClusterStatus getStatus() {
+    return statusCache.getStatus( emrClient, hadoopJobFlowId, stepId );
+  }
 
-    if ( describeClusterResult != null ) {
-      clusterState = describeClusterResult.getCluster().getStatus().getState();
-    }
-    return clusterState;
+  private String getActualClusterState() {
+    return getStatus().getState();
   }
 
   private String getActualStepState() {
-    String stepState = null;
-    DescribeStepRequest describeStepRequest = new DescribeStepRequest();
-    describeStepRequest.setClusterId( hadoopJobFlowId );
-    describeStepRequest.setStepId( stepId );
-    DescribeStepResult describeStepResult = emrClient.describeStep( describeStepRequest );
-
-    if ( describeStepResult != null ) {
-      stepState = describeStepResult.getStep().getStatus().getState();
-    }
-    return stepState;
+    return getStatus().getStepState( stepId );
   }
 
   @Override
   public String getJobFlowLogUri() throws URISyntaxException {
-    DescribeClusterRequest clusterRequest = new DescribeClusterRequest();
-    clusterRequest.setClusterId( hadoopJobFlowId );
-
-    DescribeClusterResult clusterResult = emrClient.describeCluster( clusterRequest );
-    String clusterLogUri = clusterResult.getCluster().getLogUri();
+    String clusterLogUri = getStatus().getLogUri();
     String clusterLogBucket = new URI( clusterLogUri ).getHost();
     return clusterLogBucket;
   }
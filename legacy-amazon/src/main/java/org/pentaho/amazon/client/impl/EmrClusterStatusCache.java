@@ -0,0 +1,160 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.amazon.client.impl;
+
+import com.amazonaws.services.elasticmapreduce.AmazonElasticMapReduce;
+import com.amazonaws.services.elasticmapreduce.model.DescribeClusterRequest;
+import com.amazonaws.services.elasticmapreduce.model.DescribeClusterResult;
+import com.amazonaws.services.elasticmapreduce.model.DescribeStepRequest;
+import com.amazonaws.services.elasticmapreduce.model.DescribeStepResult;
+import com.amazonaws.services.elasticmapreduce.model.ListStepsRequest;
+import com.amazonaws.services.elasticmapreduce.model.ListStepsResult;
+import com.amazonaws.services.elasticmapreduce.model.StepSummary;
+import org.pentaho.di.core.Const;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the status of EMR clusters and of their steps between polls. A refresh reads the cluster with one
+ * DescribeCluster call and the states of its latest steps with one ListSteps call, however many steps are polled, so
+ * the job entries running steps on the same job flow share the calls. A status is refreshed once it is older than
+ * KETTLE_AMAZON_EMR_STATUS_CACHE_TTL milliseconds (default 2 seconds).
+ */
+public class EmrClusterStatusCache {
+
+  public static final String STATUS_CACHE_TTL_PROPERTY = "KETTLE_AMAZON_EMR_STATUS_CACHE_TTL";
+
+  public static final long DEFAULT_STATUS_CACHE_TTL = 2000L;
+
+  /**
+   * Statuses not used for this long are dropped
+   */
+  static final long EXPIRY = 10 * 60 * 1000L;
+
+  private static EmrClusterStatusCache instance;
+
+  private final long ttl;
+  private final ConcurrentMap<String, ClusterStatus> clusters = new ConcurrentHashMap<>();
+
+  EmrClusterStatusCache( long ttl ) {
+    this.ttl = Math.max( 0L, ttl );
+  }
+
+  public static synchronized EmrClusterStatusCache getInstance() {
+    if ( instance == null ) {
+      instance = new EmrClusterStatusCache(
+        Const.toLong( System.getProperty( STATUS_CACHE_TTL_PROPERTY ), DEFAULT_STATUS_CACHE_TTL ) );
+    }
+    return instance;
+  }
+
+  /**
+   * @param emrClient
+   *          the client to refresh the status with
+   * @param clusterId
+   *          the job flow
+   * @param stepId
+   *          the step of interest, read on its own when it is not among the latest steps of the cluster. Can be null.
+   * @return the status of the cluster, refreshed if it is older than the TTL
+   */
+  public ClusterStatus getStatus( AmazonElasticMapReduce emrClient, String clusterId, String stepId ) {
+    long now = System.currentTimeMillis();
+    clusters.values().removeIf( status -> now - status.lastUsed > EXPIRY );
+    ClusterStatus status = clusters.computeIfAbsent( clusterId, ClusterStatus::new );
+    status.refresh( emrClient, stepId, now, ttl );
+    return status;
+  }
+
+  /**
+   * Forces the next lookup of a cluster to read its status, after changing the cluster
+   */
+  public void invalidate( String clusterId ) {
+    ClusterStatus status = clusters.get( clusterId );
+    if ( status != null ) {
+      status.invalidate();
+    }
+  }
+
+  /**
+   * The last known status of a cluster and of its steps
+   */
+  public static class ClusterStatus {
+    private final String clusterId;
+    private final Map<String, String> stepStates = new HashMap<>();
+    private String state;
+    private String logUri;
+    private long refreshed = -1L;
+    private int refreshes;
+    private volatile long lastUsed;
+
+    ClusterStatus( String clusterId ) {
+      this.clusterId = clusterId;
+    }
+
+    private synchronized void refresh( AmazonElasticMapReduce emrClient, String stepId, long now, long ttl ) {
+      lastUsed = now;
+      if ( refreshed < 0 || now - refreshed >= ttl ) {
+        state = null;
+        logUri = null;
+        stepStates.clear();
+        DescribeClusterResult cluster =
+          emrClient.describeCluster( new DescribeClusterRequest().withClusterId( clusterId ) );
+        if ( cluster != null ) {
+          state = cluster.getCluster().getStatus().getState();
+          logUri = cluster.getCluster().getLogUri();
+        }
+        ListStepsResult steps = emrClient.listSteps( new ListStepsRequest().withClusterId( clusterId ) );
+        if ( steps != null && steps.getSteps() != null ) {
+          for ( StepSummary step : steps.getSteps() ) {
+            stepStates.put( step.getId(), step.getStatus() == null ? null : step.getStatus().getState() );
+          }
+        }
+        refreshed = now;
+        refreshes++;
+      }
+      if ( stepId != null && !stepStates.containsKey( stepId ) ) {
+        // older than the first page of steps
+        DescribeStepResult step =
+          emrClient.describeStep( new DescribeStepRequest().withClusterId( clusterId ).withStepId( stepId ) );
+        stepStates.put( stepId, step == null ? null : step.getStep().getStatus().getState() );
+      }
+    }
+
+    private synchronized void invalidate() {
+      refreshed = -1L;
+    }
+
+    public synchronized String getState() {
+      return state;
+    }
+
+    public synchronized String getLogUri() {
+      return logUri;
+    }
+
+    public synchronized String getStepState( String stepId ) {
+      return stepStates.get( stepId );
+    }
+
+    /**
+     * @return the number of times the status was read from EMR
+     */
+    synchronized int getRefreshes() {
+      return refreshes;
+    }
+  }
+}
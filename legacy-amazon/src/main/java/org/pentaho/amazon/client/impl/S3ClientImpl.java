@@ -14,14 +14,29 @@
 package org.pentaho.amazon.client.impl;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
 import org.pentaho.amazon.client.api.S3Client;
+import org.pentaho.di.core.Const;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -29,6 +44,30 @@ import java.util.zip.GZIPInputStream;
  */
 public class S3ClientImpl implements S3Client {
 
+  /**
+   * Files of at least this many bytes are uploaded in parts, several parts at a time
+   */
+  public static final String MULTIPART_THRESHOLD_PROPERTY = "KETTLE_AMAZON_S3_MULTIPART_THRESHOLD";
+
+  public static final String MULTIPART_PART_SIZE_PROPERTY = "KETTLE_AMAZON_S3_MULTIPART_PART_SIZE";
+
+  public static final String UPLOAD_THREADS_PROPERTY = "KETTLE_AMAZON_S3_UPLOAD_THREADS";
+
+  public static final long DEFAULT_MULTIPART_THRESHOLD = 16L * 1024 * 1024;
+
+  /**
+   * The smallest part size accepted by S3
+   */
+  public static final long DEFAULT_MULTIPART_PART_SIZE = 5L * 1024 * 1024;
+
+  public static final int DEFAULT_UPLOAD_THREADS = 4;
+
+  /**
+   * The user metadata holding the MD5 digest of the uploaded file. The ETag can't be used, it isn't the digest of the
+   * content for multipart uploads.
+   */
+  static final String CONTENT_MD5_METADATA = "pentaho-content-md5";
+
   private AmazonS3 s3Client;
 
   public S3ClientImpl( AmazonS3 s3Client ) {
@@ -52,6 +91,65 @@ public class S3ClientImpl implements S3Client {
     s3Client.putObject( new PutObjectRequest( stagingBucketName, key, tmpFile ) );
   }
 
+  @Override
+  public boolean putObjectInBucketIfChanged( String stagingBucketName, String key, File tmpFile ) throws IOException {
+    String md5 = BinaryUtils.toHex( Md5Utils.computeMD5Hash( tmpFile ) );
+    if ( md5.equals( getContentMd5( stagingBucketName, key ) ) ) {
+      return false;
+    }
+
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.addUserMetadata( CONTENT_MD5_METADATA, md5 );
+    PutObjectRequest request = new PutObjectRequest( stagingBucketName, key, tmpFile ).withMetadata( metadata );
+    long threshold = Const.toLong( System.getProperty( MULTIPART_THRESHOLD_PROPERTY ), DEFAULT_MULTIPART_THRESHOLD );
+    if ( tmpFile.length() < threshold ) {
+      s3Client.putObject( request );
+    } else {
+      putObjectInParts( request, threshold );
+    }
+    return true;
+  }
+
+  /**
+   * @return the MD5 digest saved with the object, null if there is no such object or digest or if it can't be read. A
+   *         staging bucket may allow writing objects but not reading them (403 on HEAD), the object is then uploaded
+   */
+  String getContentMd5( String stagingBucketName, String key ) {
+    try {
+      ObjectMetadata metadata = s3Client.getObjectMetadata( stagingBucketName, key );
+      return metadata == null ? null : metadata.getUserMetaDataOf( CONTENT_MD5_METADATA );
+    } catch ( AmazonS3Exception e ) {
+      return null;
+    }
+  }
+
+  private void putObjectInParts( PutObjectRequest request, long threshold ) throws IOException {
+    int threads = Math.max( 1, Const.toInt( System.getProperty( UPLOAD_THREADS_PROPERTY ), DEFAULT_UPLOAD_THREADS ) );
+    AtomicInteger count = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool( threads, r -> {
+      Thread thread = new Thread( r, "S3 staging upload " + count.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    TransferManager transferManager = TransferManagerBuilder.standard()
+      .withS3Client( s3Client )
+      .withMultipartUploadThreshold( threshold )
+      .withMinimumUploadPartSize(
+        Const.toLong( System.getProperty( MULTIPART_PART_SIZE_PROPERTY ), DEFAULT_MULTIPART_PART_SIZE ) )
+      .withExecutorFactory( () -> executor )
+      .build();
+    try {
+      transferManager.upload( request ).waitForCompletion();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while uploading s3://" + request.getBucketName() + "/"
+        + request.getKey() );
+    } finally {
+      // shuts the executor down, not the S3 client
+      transferManager.shutdownNow( false );
+    }
+  }
+
   @Override
   public String readStepLogsFromS3( String stagingBucketName, String hadoopJobFlowId, String stepId ) {
 
@@ -61,11 +159,31 @@ public class S3ClientImpl implements S3Client {
     String logFromS3File = "";
     String pathToStepLogs = "";
 
-    for ( String gzLogFile : logArchives ) {
-      logFromS3File = readLogFromS3( stagingBucketName, hadoopJobFlowId + "/steps/" + stepId + gzLogFile );
-      if ( logFromS3File != null && !logFromS3File.isEmpty() ) {
-        logContents.append( logFromS3File + lineSeparator );
+    // the archives are read at the same time, the log is still assembled in the order above
+    ExecutorService executor = Executors.newFixedThreadPool( logArchives.length, r -> {
+      Thread thread = new Thread( r, "S3 step log reader" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    try {
+      List<CompletableFuture<String>> logs = new ArrayList<>();
+      for ( String gzLogFile : logArchives ) {
+        String logKey = hadoopJobFlowId + "/steps/" + stepId + gzLogFile;
+        logs.add( CompletableFuture.supplyAsync( () -> readLogFromS3( stagingBucketName, logKey ), executor ) );
+      }
+      for ( CompletableFuture<String> log : logs ) {
+        logFromS3File = log.join();
+        if ( logFromS3File != null && !logFromS3File.isEmpty() ) {
+          logContents.append( logFromS3File + lineSeparator );
+        }
+      }
+    } catch ( CompletionException e ) {
+      if ( e.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) e.getCause();
       }
+      throw e;
+    } finally {
+      executor.shutdown();
     }
     if ( logContents.length() == 0 ) {
       pathToStepLogs = "s3://" + stagingBucketName + "/" + hadoopJobFlowId + "/steps/" + stepId;
@@ -0,0 +1,104 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.amazon.client.impl;
+
+import com.amazonaws.services.elasticmapreduce.AmazonElasticMapReduce;
+import com.amazonaws.services.elasticmapreduce.model.Cluster;
+import com.amazonaws.services.elasticmapreduce.model.ClusterStatus;
+import com.amazonaws.services.elasticmapreduce.model.DescribeClusterRequest;
+import com.amazonaws.services.elasticmapreduce.model.DescribeClusterResult;
+import com.amazonaws.services.elasticmapreduce.model.DescribeStepRequest;
+import com.amazonaws.services.elasticmapreduce.model.DescribeStepResult;
+import com.amazonaws.services.elasticmapreduce.model.ListStepsRequest;
+import com.amazonaws.services.elasticmapreduce.model.ListStepsResult;
+import com.amazonaws.services.elasticmapreduce.model.Step;
+import com.amazonaws.services.elasticmapreduce.model.StepStatus;
+import com.amazonaws.services.elasticmapreduce.model.StepSummary;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EmrClusterStatusCacheTest {
+
+  private AmazonElasticMapReduce emr;
+
+  @Before
+  public void setUp() {
+    emr = mock( AmazonElasticMapReduce.class );
+    when( emr.describeCluster( any( DescribeClusterRequest.class ) ) ).thenReturn( new DescribeClusterResult()
+      .withCluster( new Cluster().withLogUri( "s3://logs/" ).withStatus( new ClusterStatus().withState( "RUNNING" ) ) ) );
+    when( emr.listSteps( any( ListStepsRequest.class ) ) ).thenReturn( new ListStepsResult().withSteps(
+      new StepSummary().withId( "s-1" ).withStatus( new StepStatus().withState( "RUNNING" ) ),
+      new StepSummary().withId( "s-2" ).withStatus( new StepStatus().withState( "PENDING" ) ) ) );
+  }
+
+  @Test
+  public void testStepsOfAClusterShareOneRefresh() {
+    EmrClusterStatusCache cache = new EmrClusterStatusCache( 60000L );
+
+    EmrClusterStatusCache.ClusterStatus first = cache.getStatus( emr, "j-1", "s-1" );
+    EmrClusterStatusCache.ClusterStatus second = cache.getStatus( emr, "j-1", "s-2" );
+
+    assertEquals( "RUNNING", first.getState() );
+    assertEquals( "s3://logs/", first.getLogUri() );
+    assertEquals( "RUNNING", first.getStepState( "s-1" ) );
+    assertEquals( "PENDING", second.getStepState( "s-2" ) );
+    assertEquals( 1, second.getRefreshes() );
+    verify( emr, times( 1 ) ).describeCluster( any( DescribeClusterRequest.class ) );
+    verify( emr, times( 1 ) ).listSteps( any( ListStepsRequest.class ) );
+    verify( emr, never() ).describeStep( any( DescribeStepRequest.class ) );
+  }
+
+  @Test
+  public void testStatusIsRefreshedWhenExpiredOrInvalidated() {
+    EmrClusterStatusCache cache = new EmrClusterStatusCache( 0L );
+    cache.getStatus( emr, "j-1", "s-1" );
+    assertEquals( 2, cache.getStatus( emr, "j-1", "s-1" ).getRefreshes() );
+
+    cache = new EmrClusterStatusCache( 60000L );
+    cache.getStatus( emr, "j-1", "s-1" );
+    cache.invalidate( "j-1" );
+    assertEquals( 2, cache.getStatus( emr, "j-1", "s-1" ).getRefreshes() );
+  }
+
+  @Test
+  public void testOlderStepsAreDescribed() {
+    when( emr.describeStep( any( DescribeStepRequest.class ) ) ).thenReturn(
+      new DescribeStepResult().withStep( new Step().withId( "s-0" ).withStatus( new StepStatus().withState( "FAILED" ) ) ) );
+    EmrClusterStatusCache cache = new EmrClusterStatusCache( 60000L );
+
+    assertEquals( "FAILED", cache.getStatus( emr, "j-1", "s-0" ).getStepState( "s-0" ) );
+    assertEquals( "FAILED", cache.getStatus( emr, "j-1", "s-0" ).getStepState( "s-0" ) );
+    verify( emr, times( 1 ) ).describeStep( any( DescribeStepRequest.class ) );
+  }
+
+  @Test
+  public void testClustersAreCachedSeparately() {
+    EmrClusterStatusCache cache = new EmrClusterStatusCache( 60000L );
+    EmrClusterStatusCache.ClusterStatus first = cache.getStatus( emr, "j-1", null );
+    EmrClusterStatusCache.ClusterStatus second = cache.getStatus( emr, "j-2", null );
+
+    assertNotSame( first, second );
+    assertEquals( 1, first.getRefreshes() );
+    assertEquals( 1, second.getRefreshes() );
+  }
+}
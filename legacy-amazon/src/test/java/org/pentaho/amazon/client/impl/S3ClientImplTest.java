@@ -14,6 +14,9 @@
 package org.pentaho.amazon.client.impl;
 
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import org.apache.commons.io.FileUtils;
@@ -23,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -33,11 +37,14 @@ import java.io.FileOutputStream;
 import java.nio.file.Paths;
 import java.util.zip.GZIPOutputStream;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 
 /**
@@ -144,6 +151,47 @@ public class S3ClientImplTest {
     }
   }
 
+  @Test
+  public void testPutObjectInBucketIfChanged_whenContentIsUnchanged() throws Exception {
+    ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass( PutObjectRequest.class );
+    Mockito.when( awsS3Client.getObjectMetadata( "bucket", "key" ) ).thenThrow( notFound() );
+
+    Assert.assertTrue( s3Client.putObjectInBucketIfChanged( "bucket", "key", new File( logFileName ) ) );
+    verify( awsS3Client ).putObject( request.capture() );
+    ObjectMetadata uploaded = request.getValue().getMetadata();
+
+    Mockito.reset( awsS3Client );
+    Mockito.when( awsS3Client.getObjectMetadata( "bucket", "key" ) ).thenReturn( uploaded );
+    Assert.assertFalse( s3Client.putObjectInBucketIfChanged( "bucket", "key", new File( logFileName ) ) );
+    verify( awsS3Client, never() ).putObject( any( PutObjectRequest.class ) );
+  }
+
+  @Test
+  public void testPutObjectInBucketIfChanged_whenContentChanged() throws Exception {
+    ObjectMetadata previous = new ObjectMetadata();
+    previous.addUserMetadata( S3ClientImpl.CONTENT_MD5_METADATA, "d41d8cd98f00b204e9800998ecf8427e" );
+    Mockito.when( awsS3Client.getObjectMetadata( "bucket", "key" ) ).thenReturn( previous );
+
+    Assert.assertTrue( s3Client.putObjectInBucketIfChanged( "bucket", "key", new File( logFileName ) ) );
+    verify( awsS3Client ).putObject( any( PutObjectRequest.class ) );
+  }
+
+  @Test
+  public void testPutObjectInBucketIfChanged_whenMetadataIsForbidden() throws Exception {
+    AmazonS3Exception forbidden = new AmazonS3Exception( "Forbidden" );
+    forbidden.setStatusCode( 403 );
+    Mockito.when( awsS3Client.getObjectMetadata( "bucket", "key" ) ).thenThrow( forbidden );
+
+    Assert.assertTrue( s3Client.putObjectInBucketIfChanged( "bucket", "key", new File( logFileName ) ) );
+    verify( awsS3Client ).putObject( any( PutObjectRequest.class ) );
+  }
+
+  private static AmazonS3Exception notFound() {
+    AmazonS3Exception exception = new AmazonS3Exception( "Not Found" );
+    exception.setStatusCode( 404 );
+    return exception;
+  }
+
   private void createGzArchive() throws Exception {
 
     try ( FileInputStream fileInputStream = new FileInputStream( logFileName );
@@ -0,0 +1,235 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.avroinput;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.util.Utf8;
+import org.pentaho.di.core.variables.VariableSpace;
+
+/**
+ * A user-supplied path (e.g. $.customer.orders[0].items[*].sku) compiled into the steps that walk the Avro structure:
+ * record field names, array indexes and map keys. Record fields remember the schema field they resolve to, so that
+ * records are read by position, and map keys are pre-built Utf8 objects.
+ * <p>
+ * Path parts holding variables are substituted on each {@link #reset(VariableSpace)}, and the steps are only compiled
+ * again when a substituted value changes. Between resets the path is consumed step by step with {@link #next()}.
+ */
+class AvroFieldPath {
+
+  /**
+   * A single step of a path: either a named record field or the content of a [...] (array index or map key)
+   */
+  static class Step {
+    private final String m_name;
+    private final boolean m_bracket;
+    private final Utf8 m_key;
+    private final int m_index;
+    private final boolean m_isIndex;
+
+    /** the schema the field was last resolved against and the field it resolved to */
+    private Schema m_schema;
+    private Schema.Field m_field;
+
+    Step( String name, boolean bracket ) {
+      m_name = name;
+      m_bracket = bracket;
+      if ( bracket ) {
+        m_key = new Utf8( name );
+        int index = 0;
+        boolean isIndex = true;
+        try {
+          index = Integer.parseInt( name.trim() );
+        } catch ( NumberFormatException e ) {
+          isIndex = false;
+        }
+        m_index = index;
+        m_isIndex = isIndex;
+      } else {
+        m_key = null;
+        m_index = 0;
+        m_isIndex = false;
+      }
+    }
+
+    /**
+     * @return the field name, or the content of the brackets for array and map steps
+     */
+    String getName() {
+      return m_name;
+    }
+
+    boolean isBracket() {
+      return m_bracket;
+    }
+
+    boolean isWildcard() {
+      return m_bracket && m_name.equals( "*" );
+    }
+
+    /**
+     * @return the map key of this step
+     */
+    Utf8 getKey() {
+      return m_key;
+    }
+
+    /**
+     * @return true if the content of the brackets is an array index
+     */
+    boolean isIndex() {
+      return m_isIndex;
+    }
+
+    int getIndex() {
+      return m_index;
+    }
+
+    /**
+     * @return the field of the schema this step names, or null if the schema has no such field
+     */
+    Schema.Field getField( Schema s ) {
+      if ( s != m_schema ) {
+        m_field = s.getField( m_name );
+        m_schema = s;
+      }
+      return m_field;
+    }
+
+    /**
+     * Reads the value of the field this step names, by position when the record was built with the schema the field
+     * was resolved against.
+     */
+    Object getValue( GenericData.Record record, Schema s, Schema.Field field ) {
+      if ( field != null && record.getSchema() == s ) {
+        return record.get( field.pos() );
+      }
+      return record.get( m_name );
+    }
+
+    @Override
+    public String toString() {
+      return m_bracket ? "[" + m_name + "]" : m_name;
+    }
+  }
+
+  private final String[] m_parts;
+  private final boolean[] m_variable;
+  private final String[] m_resolved;
+
+  private Step[] m_steps;
+  private int m_next;
+
+  /**
+   * @param path
+   *          the user-supplied path
+   */
+  AvroFieldPath( String path ) {
+    List<String> parts = new ArrayList<String>( Arrays.asList( AvroInputData.cleansePath( path ).split( "\\." ) ) );
+
+    if ( parts.get( 0 ).equals( "$" ) ) {
+      parts.remove( 0 ); // root record indicator
+    } else if ( parts.get( 0 ).startsWith( "$[" ) ) {
+      // strip leading $ off of array
+      parts.set( 0, parts.get( 0 ).substring( 1 ) );
+    }
+
+    m_parts = parts.toArray( new String[parts.size()] );
+    m_resolved = m_parts.clone();
+    m_variable = new boolean[m_parts.length];
+    for ( int i = 0; i < m_parts.length; i++ ) {
+      m_variable[i] = m_parts[i].indexOf( '$' ) >= 0 || m_parts[i].indexOf( '%' ) >= 0;
+    }
+  }
+
+  /**
+   * Substitutes the variables of the path and rewinds it to its first step. Should be called prior to processing a new
+   * value from the avro file
+   *
+   * @param space
+   *          environment variables (values that environment variables resolve to cannot contain "."s)
+   */
+  void reset( VariableSpace space ) {
+    boolean changed = m_steps == null;
+    for ( int i = 0; i < m_parts.length; i++ ) {
+      if ( m_variable[i] ) {
+        String resolved = space.environmentSubstitute( m_parts[i] );
+        if ( !resolved.equals( m_resolved[i] ) ) {
+          m_resolved[i] = resolved;
+          changed = true;
+        }
+      }
+    }
+    if ( changed ) {
+      m_steps = compile( m_resolved );
+    }
+    m_next = 0;
+  }
+
+  /**
+   * @return true if there are steps left to consume (never before the first reset)
+   */
+  boolean hasNext() {
+    return m_steps != null && m_next < m_steps.length;
+  }
+
+  Step next() {
+    return m_steps[m_next++];
+  }
+
+  /**
+   * @return the steps left to consume, for error messages
+   */
+  List<Step> remaining() {
+    if ( m_steps == null ) {
+      return new ArrayList<Step>();
+    }
+    return Arrays.asList( m_steps ).subList( m_next, m_steps.length );
+  }
+
+  static Step[] compile( String[] parts ) {
+    List<Step> steps = new ArrayList<Step>();
+    for ( String part : parts ) {
+      if ( part.length() == 0 ) {
+        steps.add( new Step( part, false ) );
+        continue;
+      }
+
+      // a part is an optional field name followed by any number of [...]
+      int start = 0;
+      while ( start < part.length() ) {
+        if ( part.charAt( start ) == '[' ) {
+          int end = part.indexOf( ']', start );
+          if ( end < 0 ) {
+            end = part.length();
+          }
+          steps.add( new Step( part.substring( start + 1, end ), true ) );
+          start = end + 1;
+        } else {
+          int end = part.indexOf( '[', start );
+          if ( end < 0 ) {
+            end = part.length();
+          }
+          steps.add( new Step( part.substring( start, end ), false ) );
+          start = end;
+        }
+      }
+    }
+    return steps.toArray( new Step[steps.size()] );
+  }
+}
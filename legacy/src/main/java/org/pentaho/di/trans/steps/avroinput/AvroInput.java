@@ -44,6 +44,20 @@ import org.pentaho.di.trans.step.StepMetaInterface;
  */
 public class AvroInput extends BaseStep implements StepInterface {
 
+  /** Number of threads decompressing and decoding the blocks of a container file (1 reads it sequentially) */
+  public static final String DECODE_THREADS_VARIABLE = "KETTLE_AVRO_INPUT_DECODE_THREADS";
+
+  /** Y to split the blocks of a container file between the copies of the step instead of each reading all of them */
+  public static final String SPLIT_COPIES_VARIABLE = "KETTLE_AVRO_INPUT_SPLIT_COPIES";
+
+  /** N to output the objects decoded by the worker threads as they come rather than in file order */
+  public static final String PRESERVE_ORDER_VARIABLE = "KETTLE_AVRO_INPUT_PRESERVE_ORDER";
+
+  /** Size in bytes of the block ranges a container file is split into */
+  public static final String RANGE_SIZE_VARIABLE = "KETTLE_AVRO_INPUT_RANGE_SIZE";
+
+  public static final long DEFAULT_RANGE_SIZE = 16L * 1024 * 1024;
+
   protected AvroInputMeta m_meta;
   protected AvroInputData m_data;
 
@@ -117,6 +131,20 @@ public class AvroInput extends BaseStep implements StepInterface {
           environmentSubstitute( m_meta.getFilename() ), getTransMeta() );
         m_data.establishFileType( fileObject, readerSchema, m_meta.getAvroFields(), m_meta.getAvroIsJsonEncoded(),
             newFieldOffset, m_meta.getDontComplainAboutMissingFields(), log );
+
+        // decode the blocks of container files on worker threads and/or split them between step copies
+        int workers = Const.toInt( environmentSubstitute( getVariable( DECODE_THREADS_VARIABLE, "1" ) ), 1 );
+        boolean splitCopies =
+            "Y".equalsIgnoreCase( environmentSubstitute( getVariable( SPLIT_COPIES_VARIABLE, "N" ) ) );
+        if ( workers > 1 || splitCopies ) {
+          long rangeSize =
+              Const.toLong( environmentSubstitute( getVariable( RANGE_SIZE_VARIABLE, "" ) ), DEFAULT_RANGE_SIZE );
+          boolean preserveOrder =
+              !"N".equalsIgnoreCase( environmentSubstitute( getVariable( PRESERVE_ORDER_VARIABLE, "Y" ) ) );
+          m_data.startParallelDecoding( fileObject, Math.max( 1, workers ), Math.max( 1L, rangeSize ),
+              preserveOrder, splitCopies ? getUniqueStepNrAcrossSlaves() : 0,
+              splitCopies ? Math.max( 1, getUniqueStepCountAcrossSlaves() ) : 1 );
+        }
       }
     }
 
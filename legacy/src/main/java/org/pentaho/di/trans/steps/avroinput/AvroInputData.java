@@ -26,8 +26,10 @@ import org.apache.avro.generic.GenericContainer;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.JsonDecoder;
 import org.apache.avro.util.Utf8;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -62,9 +64,17 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
   /** For reading container files - will be null if file is not a container file */
   protected DataFileStream m_containerReader;
 
+  /**
+   * For decoding the blocks of a container file on worker threads - null unless parallel decoding has been started
+   */
+  protected ParallelContainerReader m_parallelReader;
+
   /** For reading from files of just serialized objects */
   protected GenericDatumReader m_datumReader;
   protected Decoder m_decoder;
+
+  /** The schema the (reused) json decoder was built for */
+  protected Schema m_jsonDecoderSchema;
   protected InputStream m_inStream;
 
   /**
@@ -200,8 +210,7 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
      */
     protected List<AvroInputMeta.AvroField> m_subFields;
 
-    private List<String> m_pathParts;
-    private List<String> m_tempParts;
+    private AvroFieldPath m_path;
 
     protected RowMetaInterface m_outputRowMeta;
 
@@ -219,27 +228,11 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
       if ( Const.isEmpty( m_expansionPath ) ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.NoPathSet" ) );
       }
-      if ( m_pathParts != null ) {
+      if ( m_path != null ) {
         return;
       }
 
-      String expansionPath = cleansePath( m_expansionPath );
-
-      String[] temp = expansionPath.split( "\\." );
-      m_pathParts = new ArrayList<String>();
-      for ( String part : temp ) {
-        m_pathParts.add( part );
-      }
-
-      if ( m_pathParts.get( 0 ).equals( "$" ) ) {
-        m_pathParts.remove( 0 ); // root record indicator
-      } else if ( m_pathParts.get( 0 ).startsWith( "$[" ) ) {
-
-        // strip leading $ off of array
-        String r = m_pathParts.get( 0 ).substring( 1, m_pathParts.get( 0 ).length() );
-        m_pathParts.set( 0, r );
-      }
-      m_tempParts = new ArrayList<String>();
+      m_path = new AvroFieldPath( m_expansionPath );
 
       // initialize the sub fields
       if ( m_subFields != null ) {
@@ -257,11 +250,7 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
      *          environment variables (values that environment variables resolve to cannot contain "."s)
      */
     public void reset( VariableSpace space ) {
-      m_tempParts.clear();
-
-      for ( String part : m_pathParts ) {
-        m_tempParts.add( space.environmentSubstitute( part ) );
-      }
+      m_path.reset( space );
 
       // reset sub fields
       for ( AvroInputMeta.AvroField f : m_subFields ) {
@@ -292,32 +281,23 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathMap" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( !( part.charAt( 0 ) == '[' ) ) {
+      AvroFieldPath.Step step = m_path.next();
+      if ( !step.isBracket() ) {
         throw new KettleException( BaseMessages
-            .getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathMap2", part ) );
+            .getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathMap2", step ) );
       }
 
-      String key = part.substring( 1, part.indexOf( ']' ) );
-
-      if ( part.indexOf( ']' ) < part.length() - 1 ) {
-        // more dimensions to the array/map
-        part = part.substring( part.indexOf( ']' ) + 1, part.length() );
-        m_tempParts.add( 0, part );
-      }
-
-      if ( key.equals( "*" ) ) {
+      if ( step.isWildcard() ) {
         // start the expansion - we delegate conversion to our subfields
         Schema valueType = s.getValueType();
         Object[][] result = new Object[map.keySet().size()][m_outputRowMeta.size() + RowDataUtil.OVER_ALLOCATE_SIZE];
 
         int i = 0;
-        for ( Utf8 mk : map.keySet() ) {
-          Object value = map.get( mk );
+        for ( Object value : map.values() ) {
 
           for ( int j = 0; j < m_subFields.size(); j++ ) {
             AvroInputMeta.AvroField sf = m_subFields.get( j );
@@ -343,7 +323,7 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
 
         return result;
       } else {
-        Object value = map.get( new Utf8( key ) );
+        Object value = map.get( step.getKey() );
 
         if ( value == null ) {
           // key doesn't exist in map
@@ -438,25 +418,17 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathArray" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( !( part.charAt( 0 ) == '[' ) ) {
+      AvroFieldPath.Step step = m_path.next();
+      if ( !step.isBracket() ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathArray2",
-            part ) );
-      }
-
-      String index = part.substring( 1, part.indexOf( ']' ) );
-
-      if ( part.indexOf( ']' ) < part.length() - 1 ) {
-        // more dimensions to the array
-        part = part.substring( part.indexOf( ']' ) + 1, part.length() );
-        m_tempParts.add( 0, part );
+            step ) );
       }
 
-      if ( index.equals( "*" ) ) {
+      if ( step.isWildcard() ) {
         // start the expansion - we delegate conversion to our subfields
 
         Schema elementType = s.getElementType();
@@ -487,13 +459,11 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
         }
         return result;
       } else {
-        int arrayI = 0;
-        try {
-          arrayI = Integer.parseInt( index.trim() );
-        } catch ( NumberFormatException e ) {
+        if ( !step.isIndex() ) {
           throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG,
-              "AvroInput.Error.UnableToParseArrayIndex", index ) );
+              "AvroInput.Error.UnableToParseArrayIndex", step.getName() ) );
         }
+        int arrayI = step.getIndex();
 
         if ( arrayI >= array.size() || arrayI < 0 ) {
 
@@ -591,26 +561,19 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.MalformedPathRecord" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( part.charAt( 0 ) == '[' ) {
+      AvroFieldPath.Step step = m_path.next();
+      if ( step.isBracket() ) {
         throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.InvalidPath" )
-            + m_tempParts );
+            + m_path.remaining() );
       }
 
-      if ( part.indexOf( '[' ) > 0 ) {
-        String arrayPart = part.substring( part.indexOf( '[' ) );
-        part = part.substring( 0, part.indexOf( '[' ) );
-
-        // put the array section back into location zero
-        m_tempParts.add( 0, arrayPart );
-      }
-
-      // part is a named field of the record
-      Schema.Field fieldS = s.getField( part );
+      // step is a named field of the record
+      String part = step.getName();
+      Schema.Field fieldS = step.getField( s );
 
       if ( fieldS == null ) {
         if ( !ignoreMissing ) {
@@ -619,7 +582,7 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
         }
       }
 
-      Object field = record.get( part );
+      Object field = step.getValue( record, s, fieldS );
 
       if ( field == null ) {
         // field is null and we haven't hit the expansion yet. There will be
@@ -1291,6 +1254,46 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
     init();
   }
 
+  /**
+   * Switches an established container file over to decoding its blocks on a pool of worker threads.
+   *
+   * @param avroFile
+   *          the container file
+   * @param workers
+   *          the number of decoding threads
+   * @param rangeSize
+   *          the size in bytes of the block ranges the file is split into
+   * @param preserveOrder
+   *          true if objects are to be output in file order
+   * @param copyNr
+   *          the number of this step copy
+   * @param copies
+   *          the number of step copies splitting the file between them (1 if each copy reads the whole file)
+   * @return false if the file is not a (binary) container file, in which case it is still read sequentially
+   * @throws KettleException
+   *           if a problem occurs
+   */
+  public boolean startParallelDecoding( FileObject avroFile, int workers, long rangeSize, boolean preserveOrder,
+      int copyNr, int copies ) throws KettleException {
+    if ( m_containerReader == null ) {
+      return false;
+    }
+    try {
+      m_containerReader.close();
+      m_containerReader = null;
+      m_inStream = null;
+      m_parallelReader = new ParallelContainerReader( avroFile, workers, rangeSize, preserveOrder, copyNr, copies );
+    } catch ( IOException e ) {
+      throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.UnableToOpenAvroFile" ),
+          e );
+    }
+    if ( m_log != null && m_log.isBasic() ) {
+      m_log.logBasic( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Message.ParallelDecoding",
+          m_parallelReader.getRangeCount(), workers, preserveOrder ) );
+    }
+    return true;
+  }
+
   protected void initTopLevelStructure( Schema schema, boolean setDefault ) throws KettleException {
     // what top-level structure are we using?
     if ( schema.getType() == Schema.Type.RECORD ) {
@@ -1644,7 +1647,27 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
    */
   public Object[][] avroObjectToKettle( Object[] incoming, VariableSpace space ) throws KettleException {
 
-    if ( m_containerReader != null ) {
+    if ( m_parallelReader != null ) {
+      // container file decoded by worker threads
+      Object next;
+      try {
+        next = m_parallelReader.next();
+      } catch ( IOException e ) {
+        throw new KettleException( BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.ObjectReadError" ), e );
+      }
+      if ( next == null ) {
+        return null; // no more input
+      }
+      if ( m_topLevelRecord != null ) {
+        m_topLevelRecord = (Record) next;
+      } else if ( m_topLevelArray != null ) {
+        m_topLevelArray = (GenericData.Array) next;
+      } else {
+        m_topLevelMap = (Map<Utf8, Object>) next;
+      }
+
+      return setKettleFields( incoming, space );
+    } else if ( m_containerReader != null ) {
       // container file
       try {
         if ( m_containerReader.hasNext() ) {
@@ -1704,14 +1727,21 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
           if ( m_jsonEncoded ) {
             try {
               String fieldValue = fieldMeta.getString( incoming[m_fieldToDecodeIndex] );
-              m_decoder = m_factory.jsonDecoder( m_schemaToUse, fieldValue );
+              if ( m_decoder instanceof JsonDecoder && m_jsonDecoderSchema == m_schemaToUse ) {
+                // a json decoder is bound to its schema, it can only be reused while the schema stays the same
+                ( (JsonDecoder) m_decoder ).configure( fieldValue );
+              } else {
+                m_decoder = m_factory.jsonDecoder( m_schemaToUse, fieldValue );
+                m_jsonDecoderSchema = m_schemaToUse;
+              }
             } catch ( IOException e ) {
               throw new KettleException(
                   BaseMessages.getString( AvroInputMeta.PKG, "AvroInput.Error.JsonDecoderError" ) );
             }
           } else {
             byte[] fieldValue = fieldMeta.getBinary( incoming[m_fieldToDecodeIndex] );
-            m_decoder = m_factory.binaryDecoder( fieldValue, null );
+            m_decoder = m_factory.binaryDecoder( fieldValue,
+                m_decoder instanceof BinaryDecoder ? (BinaryDecoder) m_decoder : null );
           }
         }
 
@@ -1738,6 +1768,9 @@ public class AvroInputData extends BaseStepData implements StepDataInterface {
   }
 
   public void close() throws IOException {
+    if ( m_parallelReader != null ) {
+      m_parallelReader.close();
+    }
     if ( m_containerReader != null ) {
       m_containerReader.close();
     }
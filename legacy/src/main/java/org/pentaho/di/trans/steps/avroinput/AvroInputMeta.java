@@ -196,8 +196,7 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
     protected int m_outputIndex; // the index that this field is in the output
                                  // row structure
     private ValueMeta m_tempValueMeta;
-    private List<String> m_pathParts;
-    private List<String> m_tempParts;
+    private AvroFieldPath m_path;
 
     /**
      * Initialize this field by parsing the path etc.
@@ -211,28 +210,11 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
       if ( Const.isEmpty( m_fieldPath ) ) {
         throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.NoPathSet" ) );
       }
-      if ( m_pathParts != null ) {
+      if ( m_path != null ) {
         return;
       }
 
-      String fieldPath = AvroInputData.cleansePath( m_fieldPath );
-
-      String[] temp = fieldPath.split( "\\." );
-      m_pathParts = new ArrayList<String>();
-      for ( String part : temp ) {
-        m_pathParts.add( part );
-      }
-
-      if ( m_pathParts.get( 0 ).equals( "$" ) ) {
-        m_pathParts.remove( 0 ); // root record indicator
-      } else if ( m_pathParts.get( 0 ).startsWith( "$[" ) ) {
-
-        // strip leading $ off of array
-        String r = m_pathParts.get( 0 ).substring( 1, m_pathParts.get( 0 ).length() );
-        m_pathParts.set( 0, r );
-      }
-
-      m_tempParts = new ArrayList<String>();
+      m_path = new AvroFieldPath( m_fieldPath );
 
       m_tempValueMeta = new ValueMeta();
       m_tempValueMeta.setType( ValueMeta.getType( m_kettleType ) );
@@ -246,14 +228,10 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
      *          environment variables (values that environment variables resolve to cannot contain "."s)
      */
     public void reset( VariableSpace space ) {
-      // first clear because there may be stuff left over from processing
+      // rewinds the path, there may be steps left over from processing
       // the previous avro object (especially if a path exited early due to
       // non-existent map key or array index out of bounds)
-      m_tempParts.clear();
-
-      for ( String part : m_pathParts ) {
-        m_tempParts.add( space.environmentSubstitute( part ) );
-      }
+      m_path.reset( space );
     }
 
     /**
@@ -371,24 +349,16 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathMap" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( !( part.charAt( 0 ) == '[' ) ) {
-        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathMap2", part ) );
+      AvroFieldPath.Step step = m_path.next();
+      if ( !step.isBracket() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathMap2", step ) );
       }
 
-      String key = part.substring( 1, part.indexOf( ']' ) );
-
-      if ( part.indexOf( ']' ) < part.length() - 1 ) {
-        // more dimensions to the array/map
-        part = part.substring( part.indexOf( ']' ) + 1, part.length() );
-        m_tempParts.add( 0, part );
-      }
-
-      Object value = map.get( new Utf8( key ) );
+      Object value = map.get( step.getKey() );
       if ( value == null ) {
         return null;
       }
@@ -464,28 +434,20 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathArray" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( !( part.charAt( 0 ) == '[' ) ) {
-        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathArray2", part ) );
-      }
-
-      String index = part.substring( 1, part.indexOf( ']' ) );
-      int arrayI = 0;
-      try {
-        arrayI = Integer.parseInt( index.trim() );
-      } catch ( NumberFormatException e ) {
-        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.UnableToParseArrayIndex", index ) );
+      AvroFieldPath.Step step = m_path.next();
+      if ( !step.isBracket() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathArray2", step ) );
       }
 
-      if ( part.indexOf( ']' ) < part.length() - 1 ) {
-        // more dimensions to the array
-        part = part.substring( part.indexOf( ']' ) + 1, part.length() );
-        m_tempParts.add( 0, part );
+      if ( !step.isIndex() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.UnableToParseArrayIndex",
+            step.getName() ) );
       }
+      int arrayI = step.getIndex();
 
       if ( arrayI >= array.size() || arrayI < 0 ) {
         return null;
@@ -567,29 +529,23 @@ public class AvroInputMeta extends BaseStepMeta implements StepMetaInterface {
         return null;
       }
 
-      if ( m_tempParts.size() == 0 ) {
+      if ( m_path == null || !m_path.hasNext() ) {
         throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.MalformedPathRecord" ) );
       }
 
-      String part = m_tempParts.remove( 0 );
-      if ( part.charAt( 0 ) == '[' ) {
-        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.InvalidPath" ) + m_tempParts );
-      }
-
-      if ( part.indexOf( '[' ) > 0 ) {
-        String arrayPart = part.substring( part.indexOf( '[' ) );
-        part = part.substring( 0, part.indexOf( '[' ) );
-
-        // put the array section back into location zero
-        m_tempParts.add( 0, arrayPart );
+      AvroFieldPath.Step step = m_path.next();
+      if ( step.isBracket() ) {
+        throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.InvalidPath" )
+            + m_path.remaining() );
       }
 
-      // part is a named field of the record
-      Schema.Field fieldS = s.getField( part );
+      // step is a named field of the record
+      String part = step.getName();
+      Schema.Field fieldS = step.getField( s );
       if ( fieldS == null && !ignoreMissing ) {
         throw new KettleException( BaseMessages.getString( PKG, "AvroInput.Error.NonExistentField", part ) );
       }
-      Object field = record.get( part );
+      Object field = step.getValue( record, s, fieldS );
 
       if ( field == null ) {
         fieldS = defaultSchema.getField( part );
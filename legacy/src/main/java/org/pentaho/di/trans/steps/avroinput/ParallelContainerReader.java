@@ -0,0 +1,282 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.avroinput;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.SeekableFileInput;
+import org.apache.avro.file.SeekableInput;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.vfs.KettleVFS;
+
+/**
+ * Reads an Avro container file on a pool of worker threads. The file is cut into byte ranges and, as a Hadoop input
+ * split would, each range owns the blocks whose sync marker starts in it; a worker seeks to the first sync marker of its
+ * range and decompresses and decodes the blocks up to the end of the range.
+ * <p>
+ * When the file is shared by several step copies each copy only reads every n-th range. Within a copy the objects are
+ * returned in file order when order is preserved (each range has its own bounded queue, drained in turn), otherwise as
+ * soon as any worker has decoded them.
+ */
+class ParallelContainerReader {
+
+  /** marks the end of a range in a queue */
+  private static final Object END_OF_RANGE = new Object();
+
+  private static final int QUEUE_CAPACITY = 1024;
+
+  private final FileObject m_file;
+  private final boolean m_preserveOrder;
+  private final List<BlockingQueue<Object>> m_queues = new ArrayList<BlockingQueue<Object>>();
+  private final ExecutorService m_executor;
+  private final List<SeekableInput> m_inputs = new ArrayList<SeekableInput>();
+
+  private int m_current;
+  private int m_finishedRanges;
+  private volatile IOException m_failure;
+  private volatile boolean m_closed;
+
+  /**
+   * @param file
+   *          the container file
+   * @param workers
+   *          the number of threads decoding blocks
+   * @param rangeSize
+   *          the size in bytes of the ranges the file is cut into
+   * @param preserveOrder
+   *          true to return the objects in file order
+   * @param copyNr
+   *          the number of the step copy reading the file
+   * @param copies
+   *          the number of step copies sharing the file
+   */
+  ParallelContainerReader( FileObject file, int workers, long rangeSize, boolean preserveOrder, int copyNr,
+      int copies ) throws IOException {
+    m_file = file;
+    m_preserveOrder = preserveOrder;
+
+    long length = file.getContent().getSize();
+    List<long[]> ranges = new ArrayList<long[]>();
+    int index = 0;
+    for ( long start = 0; start < length; start += rangeSize, index++ ) {
+      if ( index % copies == copyNr ) {
+        ranges.add( new long[] { start, Math.min( start + rangeSize, length ) } );
+      }
+    }
+
+    final String name = file.getName().getBaseName();
+    final AtomicInteger threads = new AtomicInteger();
+    m_executor = Executors.newFixedThreadPool( Math.max( 1, workers ), new ThreadFactory() {
+      @Override
+      public Thread newThread( Runnable r ) {
+        Thread thread = new Thread( r, "AvroInput decoder " + threads.incrementAndGet() + " (" + name + ")" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+
+    BlockingQueue<Object> shared = preserveOrder ? null : new ArrayBlockingQueue<Object>( QUEUE_CAPACITY );
+    for ( final long[] range : ranges ) {
+      final BlockingQueue<Object> queue = preserveOrder ? new ArrayBlockingQueue<Object>( QUEUE_CAPACITY ) : shared;
+      m_queues.add( queue );
+      m_executor.execute( new Runnable() {
+        @Override
+        public void run() {
+          decodeRange( range[0], range[1], queue );
+        }
+      } );
+    }
+    m_executor.shutdown();
+  }
+
+  /**
+   * @return the number of ranges read by this reader
+   */
+  int getRangeCount() {
+    return m_queues.size();
+  }
+
+  /**
+   * @return the next decoded object, or null once all the ranges have been read
+   * @throws IOException
+   *           if a range could not be read
+   */
+  Object next() throws IOException {
+    while ( m_current < m_queues.size() ) {
+      Object next;
+      try {
+        next = m_queues.get( m_current ).take();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new IOException( e );
+      }
+      if ( next != END_OF_RANGE ) {
+        return next;
+      }
+      if ( m_failure != null ) {
+        throw m_failure;
+      }
+      if ( m_preserveOrder ) {
+        m_current++;
+      } else if ( ++m_finishedRanges == m_queues.size() ) {
+        m_current = m_queues.size();
+      }
+    }
+    return null;
+  }
+
+  void close() throws IOException {
+    m_closed = true;
+    m_executor.shutdownNow();
+    synchronized ( m_inputs ) {
+      for ( SeekableInput input : m_inputs ) {
+        input.close();
+      }
+      m_inputs.clear();
+    }
+  }
+
+  private void decodeRange( long start, long end, BlockingQueue<Object> queue ) {
+    SeekableInput input = null;
+    try {
+      if ( m_closed ) {
+        return;
+      }
+      input = openInput();
+      DataFileReader<Object> reader = new DataFileReader<Object>( input, new GenericDatumReader<Object>() );
+      if ( start > 0 ) {
+        // skip to the first block whose sync marker starts in the range
+        reader.sync( start );
+      }
+      while ( !m_closed && reader.hasNext() && !reader.pastSync( end ) ) {
+        queue.put( reader.next() );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } catch ( IOException e ) {
+      m_failure = e;
+    } catch ( RuntimeException e ) {
+      m_failure = new IOException( e );
+    } finally {
+      if ( input != null ) {
+        synchronized ( m_inputs ) {
+          m_inputs.remove( input );
+        }
+        try {
+          input.close();
+        } catch ( IOException e ) {
+          // nothing left to read from it
+        }
+      }
+      try {
+        if ( !m_closed ) {
+          queue.put( END_OF_RANGE );
+        }
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private SeekableInput openInput() throws IOException {
+    SeekableInput input;
+    if ( "file".equals( m_file.getName().getScheme() ) ) {
+      input = new SeekableFileInput( new File( m_file.getName().getPath() ) );
+    } else {
+      input = new VfsSeekableInput( m_file );
+    }
+    synchronized ( m_inputs ) {
+      m_inputs.add( input );
+    }
+    return input;
+  }
+
+  /**
+   * Seekable view of a VFS file for file systems without random access: seeking forward skips, seeking backward opens
+   * the file again. A range is read sequentially after a single seek.
+   */
+  static class VfsSeekableInput implements SeekableInput {
+    private final FileObject m_file;
+    private final long m_length;
+    private InputStream m_in;
+    private long m_position;
+
+    VfsSeekableInput( FileObject file ) throws IOException {
+      m_file = file;
+      m_length = file.getContent().getSize();
+      m_in = open();
+    }
+
+    private InputStream open() throws IOException {
+      return new BufferedInputStream( KettleVFS.getInputStream( m_file ), 64 * 1024 );
+    }
+
+    @Override
+    public void seek( long p ) throws IOException {
+      if ( p < m_position ) {
+        m_in.close();
+        m_in = open();
+        m_position = 0;
+      }
+      while ( m_position < p ) {
+        long skipped = m_in.skip( p - m_position );
+        if ( skipped <= 0 ) {
+          if ( m_in.read() < 0 ) {
+            throw new EOFException();
+          }
+          skipped = 1;
+        }
+        m_position += skipped;
+      }
+    }
+
+    @Override
+    public long tell() {
+      return m_position;
+    }
+
+    @Override
+    public long length() {
+      return m_length;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      int read = m_in.read( b, off, len );
+      if ( read > 0 ) {
+        m_position += read;
+      }
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      m_in.close();
+    }
+  }
+}
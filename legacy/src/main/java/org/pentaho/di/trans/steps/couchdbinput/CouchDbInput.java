@@ -13,10 +13,11 @@
 
 package org.pentaho.di.trans.steps.couchdbinput;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpHost;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.AuthCache;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
@@ -27,7 +28,6 @@ import org.pentaho.di.cluster.SlaveConnectionManager;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.encryption.Encr;
 import org.pentaho.di.core.exception.KettleException;
-import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.util.HttpClientManager;
@@ -40,12 +40,21 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CouchDbInput extends BaseStep implements StepInterface {
   private static Class<?> PKG = CouchDbInputMeta.class; // for i18n purposes, needed by Translator2!! $NON-NLS-1$
 
+  /** Number of view rows fetched per request, 0 to fetch the whole view in one request */
+  public static final String PAGE_SIZE_VARIABLE = "KETTLE_COUCHDB_PAGE_SIZE";
+
+  /** JSON array of the view keys splitting the view into ranges read in parallel */
+  public static final String KEY_RANGES_VARIABLE = "KETTLE_COUCHDB_KEY_RANGES";
+
+  public static final int DEFAULT_PAGE_SIZE = 10000;
+
   private final HttpClientFactory httpClientFactory = new HttpClientFactory();
   private final HttpClientManager httpClientManager = createHttpClientManager();
 
@@ -86,144 +95,31 @@ public class CouchDbInput extends BaseStep implements StepInterface {
 
         data.outputRowMeta = new RowMeta();
         meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
-
-        // Skip over first introduction row containing the number of results...
-        //
-        // Example: {"total_rows":3,"offset":0,"rows":[
-        //
-        data.buffer = new StringBuilder( 1000 );
-        data.open = 0;
-        boolean cont = true;
-        int c = data.bufferedInputStream.read();
-        while ( c >= 0 && cont && !isStopped() ) {
-          data.buffer.append( (char) c );
-
-          switch ( (char) c ) {
-            case '{':
-              data.open++;
-
-              // Second JSON nested block means: another row of data...
-              if ( data.open == 2 ) {
-                logBasic( "Read header: >>" + data.buffer.substring( 0, data.buffer.length() - 1 ) + "<<" );
-                data.buffer.delete( 0, data.buffer.length() - 1 );
-                cont = false; // Stop the while loop.
-              }
-
-              break;
-            case '}':
-              data.open--;
-              break;
-
-            case '"':
-              // skip until the next "
-              //
-              int prev = c;
-              c = data.bufferedInputStream.read();
-              while ( c != '"' && prev != '\\' && c >= 0 ) {
-                data.buffer.append( (char) c );
-                prev = c;
-                c = data.bufferedInputStream.read();
-              }
-          }
-
-          if ( cont ) {
-            c = data.bufferedInputStream.read();
-          }
-        }
-
-        if ( c < 0 ) {
-          setOutputDone();
-          return false;
-        }
       }
 
-      // read one JSON block from the data until no data is left on the input stream
+      // the rows of the view, one JSON object per row: {"id":"...","key":...,"value":...}
       //
-      boolean cont = true;
-      int c = data.bufferedInputStream.read();
-      while ( c >= 0 && cont && !isStopped() ) {
-        data.buffer.append( (char) c );
-
-        switch ( (char) c ) {
-          case '{':
-            data.open++;
-
-            // Second JSON nested block means: another row of data...
-            if ( data.open == 2 ) {
-
-              sendBufferRow( false );
-
-              cont = false; // Stop the while loop.
-            }
-
-            break;
-          case '}':
-            data.open--;
-            break;
-        }
-
-        if ( cont ) {
-          c = data.bufferedInputStream.read();
-        }
-      }
-
-      if ( c < 0 ) {
-        if ( data.buffer.length() > 0 ) {
-          sendBufferRow( true );
-        }
+      String json = data.parallelReader != null ? data.parallelReader.nextRow() : data.reader.nextRow();
+      if ( json == null || isStopped() ) {
         setOutputDone();
         return false;
       }
 
-      return true;
-    } catch ( IOException e ) {
-      throw new KettleException( "Unable to read from the CouchDB REST web service", e );
-    }
-  }
-
-  private void sendBufferRow( boolean lastRow ) throws KettleStepException {
-
-    int pos = data.buffer.length() - 2;
+      if ( log.isDebug() ) {
+        logDebug( "Read row: " + json );
+      }
+      Object[] row = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      row[ index++ ] = json;
 
-    if ( lastRow ) {
-      // Get rid of any ]} at the end of the last row.
+      // putRow will send the row on to the default output hop.
       //
-      pos = removeTrailingSpaces( data.buffer, pos );
-      pos = removeTrailingCharacter( data.buffer, pos, '}' );
-      pos = removeTrailingSpaces( data.buffer, pos );
-      pos = removeTrailingCharacter( data.buffer, pos, ']' );
-    }
-
-    pos = removeTrailingSpaces( data.buffer, pos );
-    pos = removeTrailingCharacter( data.buffer, pos, ',' );
+      putRow( data.outputRowMeta, row );
 
-    String json = data.buffer.substring( 0, pos + 1 );
-    data.buffer.delete( 0, data.buffer.length() - 1 );
-
-    if ( log.isDebug() ) {
-      logDebug( "Read row: " + json );
-    }
-    Object[] row = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-    int index = 0;
-    row[ index++ ] = json;
-
-    // putRow will send the row on to the default output hop.
-    //
-    putRow( data.outputRowMeta, row );
-  }
-
-  private int removeTrailingCharacter( StringBuilder buffer, int pos, char c ) {
-    if ( data.buffer.charAt( pos ) == c ) {
-      pos--;
-    }
-    return pos;
-  }
-
-  private int removeTrailingSpaces( StringBuilder buffer, int pos ) {
-    while ( pos >= 0 && Const.isSpace( data.buffer.charAt( pos ) ) ) {
-      pos--;
+      return true;
+    } catch ( IOException e ) {
+      throw new KettleException( "Unable to read from the CouchDB REST web service", e );
     }
-    return pos;
   }
 
   public boolean init( StepMetaInterface stepMetaInterface, StepDataInterface stepDataInterface ) {
@@ -255,37 +151,48 @@ public class CouchDbInput extends BaseStep implements StepInterface {
 
       logBasic( "Querying CouchDB view on URL: " + url );
 
+      int pageSize = Const.toInt( environmentSubstitute( getVariable( PAGE_SIZE_VARIABLE, "" ) ), DEFAULT_PAGE_SIZE );
+      List<String> splitKeys;
       try {
-        HttpClient client = createHttpClient( realUser, realPass );
-
-        HttpGet method = getMethodFactory.create( url );
+        splitKeys = parseKeyRanges( environmentSubstitute( getVariable( KEY_RANGES_VARIABLE, "" ) ) );
+      } catch ( IOException e ) {
+        logError( "Invalid " + KEY_RANGES_VARIABLE + ", a JSON array of view keys is expected", e );
+        return false;
+      }
 
-        // Execute request
-        data.inputStream = null;
-        data.bufferedInputStream = null;
+      try {
+        // one reader per key range, the split keys bounding consecutive ranges
+        //
+        List<CouchDbViewReader> readers = new ArrayList<>();
+        for ( int i = 0; i <= splitKeys.size(); i++ ) {
+          String startKey = i > 0 ? splitKeys.get( i - 1 ) : null;
+          String endKey = i < splitKeys.size() ? splitKeys.get( i ) : null;
 
-        //Client Preemptive Basic Authentication
-        HttpClientContext context = null;
-        if ( StringUtils.isNotBlank( hostname ) ) {
-          context = getHttpClientContext( hostname, port );
-        }
+          HttpClient client = createHttpClient( realUser, realPass );
 
-        HttpResponse httpResponse =
-          context != null ? client.execute( method, context ) : client.execute( method );
-        int result = httpResponse.getStatusLine().getStatusCode();
+          //Client Preemptive Basic Authentication
+          HttpClientContext context = null;
+          if ( StringUtils.isNotBlank( hostname ) ) {
+            context = getHttpClientContext( hostname, port );
+          }
 
-        // the response
-        data.inputStream = httpResponse.getEntity().getContent();
-        data.bufferedInputStream = new BufferedInputStream( data.inputStream, 1000 );
+          CouchDbViewReader reader =
+            new CouchDbViewReader( client, context, getMethodFactory, url, pageSize, startKey, endKey );
+          readers.add( reader );
 
-        if ( result < 200 || result >= 300 ) {
-          StringBuilder err = new StringBuilder();
-          int c;
-          while ( ( c = data.bufferedInputStream.read() ) >= 0 ) {
-            err.append( (char) c );
+          // Execute request
+          int result = reader.open();
+          if ( result < 200 || result >= 300 ) {
+            logError( "Web request returned code " + result + " : " + reader.getErrorBody() );
+            closeReaders( readers );
+            return false;
           }
-          logError( "Web request returned code " + result + " : " + err.toString() );
-          return false;
+        }
+
+        if ( readers.size() > 1 ) {
+          data.parallelReader = new ParallelCouchDbViewReader( readers );
+        } else {
+          data.reader = readers.get( 0 );
         }
 
         data.counter = 0;
@@ -303,18 +210,53 @@ public class CouchDbInput extends BaseStep implements StepInterface {
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
 
-    if ( data.bufferedInputStream != null ) {
-      try {
-        data.bufferedInputStream.close();
-      } catch ( Exception e ) {
-        setErrors( 1 );
-        logError( "Error closing data stream", e );
+    try {
+      if ( data.parallelReader != null ) {
+        data.parallelReader.close();
       }
+      if ( data.reader != null ) {
+        data.reader.close();
+      }
+    } catch ( Exception e ) {
+      setErrors( 1 );
+      logError( "Error closing data stream", e );
     }
 
     super.dispose( smi, sdi );
   }
 
+  /**
+   * Parses the split keys of the key ranges read in parallel
+   *
+   * @param keyRanges
+   *          a JSON array of view keys, e.g. ["g","p"] for the ranges [first, "g"), ["g", "p") and ["p", last]
+   * @return the JSON of each split key, empty when the view is read as a single range
+   */
+  static List<String> parseKeyRanges( String keyRanges ) throws IOException {
+    List<String> splitKeys = new ArrayList<>();
+    if ( StringUtils.isBlank( keyRanges ) ) {
+      return splitKeys;
+    }
+    JsonNode keys = new ObjectMapper().readTree( keyRanges );
+    if ( !keys.isArray() ) {
+      throw new IOException( "Not a JSON array: " + keyRanges );
+    }
+    for ( JsonNode key : keys ) {
+      splitKeys.add( key.toString() );
+    }
+    return splitKeys;
+  }
+
+  private void closeReaders( List<CouchDbViewReader> readers ) {
+    for ( CouchDbViewReader reader : readers ) {
+      try {
+        reader.close();
+      } catch ( IOException e ) {
+        logError( "Error closing data stream", e );
+      }
+    }
+  }
+
   @Deprecated
   static class HttpClientFactory {
     public HttpClient createHttpClient() {
@@ -13,9 +13,6 @@
 
 package org.pentaho.di.trans.steps.couchdbinput;
 
-import java.io.BufferedInputStream;
-import java.io.InputStream;
-
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -29,10 +26,9 @@ public class CouchDbInputData extends BaseStepData implements StepDataInterface
 
   public int counter;
 
-  public InputStream inputStream;
-  public BufferedInputStream bufferedInputStream;
-
-  public StringBuilder buffer;
+  /** Reads the view, when it is read as a single key range */
+  public CouchDbViewReader reader;
 
-  public int open;
+  /** Reads the view, when it is split into key ranges read in parallel */
+  public ParallelCouchDbViewReader parallelReader;
 }
@@ -0,0 +1,258 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.couchdbinput;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.util.Objects;
+
+/**
+ * Streams the rows of a CouchDB view, one JSON object per row, fetching the view page by page.
+ * <p>
+ * Each page is parsed with a streaming JSON parser, so escaped quotes and braces inside strings are handled and only
+ * the current row is held in memory. A page is requested with limit=pageSize; when it is full the next page starts at
+ * the key and document id of its last row (startkey/startkey_docid), skipping the rows with that same key and id that
+ * were already read. A view may emit the same key and id more than once, so this can be more than one row. The reader
+ * can be restricted to a key range [startKey, endKey), keys being JSON values.
+ */
+public class CouchDbViewReader {
+
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+
+  private final HttpClient client;
+  private final HttpClientContext context;
+  private final CouchDbInput.GetMethodFactory getMethodFactory;
+  private final String viewUrl;
+  private final int pageSize;
+  private final String startKey;
+  private final String endKey;
+
+  private InputStream page;
+  private JsonParser parser;
+  private int rowsInPage;
+  private String lastKey;
+  private String lastId;
+  private int lastRowCount;
+  private boolean done;
+
+  /**
+   * @param client
+   *          the client to query CouchDB with
+   * @param context
+   *          the context of the requests (preemptive authentication), can be null
+   * @param getMethodFactory
+   *          creates the GET requests
+   * @param viewUrl
+   *          the URL of the view
+   * @param pageSize
+   *          the number of rows per request, 0 or less to get the whole view in one request
+   * @param startKey
+   *          the JSON key the rows start at (inclusive), null to start at the first row
+   * @param endKey
+   *          the JSON key the rows end at (exclusive), null to read up to the last row
+   */
+  public CouchDbViewReader( HttpClient client, HttpClientContext context, CouchDbInput.GetMethodFactory getMethodFactory,
+                            String viewUrl, int pageSize, String startKey, String endKey ) {
+    this.client = client;
+    this.context = context;
+    this.getMethodFactory = getMethodFactory;
+    this.viewUrl = viewUrl;
+    this.pageSize = pageSize;
+    this.startKey = startKey;
+    this.endKey = endKey;
+  }
+
+  /**
+   * Requests the first page of the view
+   *
+   * @return the HTTP status code of the response. On errors the reader has no rows and the response body is available
+   *         through {@link #getErrorBody()}
+   */
+  public int open() throws IOException {
+    HttpResponse response = execute( buildPageUrl() );
+    int status = response.getStatusLine().getStatusCode();
+    if ( status < 200 || status >= 300 ) {
+      done = true;
+    }
+    return status;
+  }
+
+  /**
+   * @return the body of the error response of {@link #open()}
+   */
+  public String getErrorBody() throws IOException {
+    if ( page == null ) {
+      return "";
+    }
+    StringBuilder err = new StringBuilder();
+    int c;
+    while ( ( c = page.read() ) >= 0 ) {
+      err.append( (char) c );
+    }
+    closePage();
+    return err.toString();
+  }
+
+  /**
+   * @return the JSON of the next row of the view, null when all rows have been read
+   */
+  public String nextRow() throws IOException {
+    while ( !done ) {
+      if ( parser == null && !startPage() ) {
+        if ( !nextPage() ) {
+          done = true;
+        }
+        continue;
+      }
+      JsonToken token = parser.nextToken();
+      if ( token == JsonToken.START_OBJECT ) {
+        JsonNode row = MAPPER.readTree( parser );
+        rowsInPage++;
+        JsonNode key = row.get( "key" );
+        JsonNode id = row.get( "id" );
+        String rowKey = key == null ? null : key.toString();
+        String rowId = id == null || id.isNull() ? null : id.asText();
+        if ( rowKey != null && rowKey.equals( lastKey ) && Objects.equals( rowId, lastId ) ) {
+          lastRowCount++;
+        } else {
+          lastRowCount = 1;
+        }
+        lastKey = rowKey;
+        lastId = rowId;
+        return row.toString();
+      }
+      // end of the rows of this page
+      closePage();
+      if ( !nextPage() ) {
+        done = true;
+      }
+    }
+    return null;
+  }
+
+  public void close() throws IOException {
+    done = true;
+    closePage();
+  }
+
+  /**
+   * Positions the parser on the first row of the current page
+   *
+   * @return false if the page has no rows
+   */
+  private boolean startPage() throws IOException {
+    if ( page == null ) {
+      return false;
+    }
+    parser = JSON_FACTORY.createParser( new BufferedInputStream( page, BUFFER_SIZE ) );
+    rowsInPage = 0;
+    if ( parser.nextToken() != JsonToken.START_OBJECT ) {
+      closePage();
+      return false;
+    }
+    // Example: {"total_rows":3,"offset":0,"rows":[ ... ]}
+    while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ( "rows".equals( name ) && parser.getCurrentToken() == JsonToken.START_ARRAY ) {
+        return true;
+      }
+      parser.skipChildren();
+    }
+    closePage();
+    return false;
+  }
+
+  /**
+   * Requests the page following a full page
+   *
+   * @return false if there are no more pages
+   */
+  private boolean nextPage() throws IOException {
+    if ( pageSize <= 0 || rowsInPage < pageSize || lastKey == null ) {
+      return false;
+    }
+    HttpResponse response = execute( buildPageUrl() );
+    int status = response.getStatusLine().getStatusCode();
+    if ( status < 200 || status >= 300 ) {
+      throw new IOException( "Web request returned code " + status + " : " + getErrorBody() );
+    }
+    rowsInPage = 0;
+    return true;
+  }
+
+  private HttpResponse execute( String url ) throws IOException {
+    closePage();
+    HttpGet method = getMethodFactory.create( url );
+    HttpResponse response = context != null ? client.execute( method, context ) : client.execute( method );
+    HttpEntity entity = response.getEntity();
+    page = entity == null ? null : entity.getContent();
+    return response;
+  }
+
+  String buildPageUrl() throws IOException {
+    StringBuilder url = new StringBuilder( viewUrl );
+    char separator = viewUrl.indexOf( '?' ) < 0 ? '?' : '&';
+    if ( pageSize > 0 ) {
+      url.append( separator ).append( "limit=" ).append( pageSize );
+      separator = '&';
+    }
+    if ( lastKey != null ) {
+      url.append( separator ).append( "startkey=" ).append( encode( lastKey ) );
+      if ( lastId != null ) {
+        url.append( "&startkey_docid=" ).append( encode( lastId ) );
+      }
+      url.append( "&skip=" ).append( lastRowCount );
+      separator = '&';
+    } else if ( startKey != null ) {
+      url.append( separator ).append( "startkey=" ).append( encode( startKey ) );
+      separator = '&';
+    }
+    if ( endKey != null ) {
+      url.append( separator ).append( "endkey=" ).append( encode( endKey ) ).append( "&inclusive_end=false" );
+    }
+    return url.toString();
+  }
+
+  private static String encode( String value ) throws IOException {
+    return URLEncoder.encode( value, "UTF-8" );
+  }
+
+  private void closePage() throws IOException {
+    if ( parser != null ) {
+      parser.close();
+      parser = null;
+    }
+    if ( page != null ) {
+      page.close();
+      page = null;
+    }
+  }
+}
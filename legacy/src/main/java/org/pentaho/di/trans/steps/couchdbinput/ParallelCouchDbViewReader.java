@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.couchdbinput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads several key ranges of a view at the same time, one thread per range, and returns the rows in key order: the
+ * rows of each range are buffered in a bounded queue and the queues are drained one range after the other.
+ */
+public class ParallelCouchDbViewReader {
+
+  /** marks the end of a range in a queue */
+  private static final Object END_OF_RANGE = new Object();
+
+  private static final int QUEUE_CAPACITY = 1000;
+
+  private final List<CouchDbViewReader> readers;
+  private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+  private final ExecutorService executor;
+
+  private int current;
+  private volatile IOException failure;
+
+  /**
+   * @param readers
+   *          opened readers of consecutive key ranges
+   */
+  public ParallelCouchDbViewReader( List<CouchDbViewReader> readers ) {
+    this.readers = readers;
+    executor = Executors.newFixedThreadPool( readers.size(), r -> {
+      Thread thread = new Thread( r, "CouchDB view reader" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    for ( CouchDbViewReader reader : readers ) {
+      BlockingQueue<Object> queue = new ArrayBlockingQueue<>( QUEUE_CAPACITY );
+      queues.add( queue );
+      executor.execute( () -> readRange( reader, queue ) );
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * @return the JSON of the next row, null when all the ranges have been read
+   */
+  public String nextRow() throws IOException {
+    while ( current < queues.size() ) {
+      Object row;
+      try {
+        row = queues.get( current ).take();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new IOException( e );
+      }
+      if ( row != END_OF_RANGE ) {
+        return (String) row;
+      }
+      if ( failure != null ) {
+        throw failure;
+      }
+      current++;
+    }
+    return null;
+  }
+
+  public void close() throws IOException {
+    executor.shutdownNow();
+    for ( CouchDbViewReader reader : readers ) {
+      reader.close();
+    }
+  }
+
+  /**
+   * Copies the rows of one range to its queue. The end marker is always queued, whatever ends the range, so that
+   * {@link #nextRow()} never waits for a reader that has stopped; only a {@link #close()} (interrupt) skips it.
+   */
+  private void readRange( CouchDbViewReader reader, BlockingQueue<Object> queue ) {
+    try {
+      String row;
+      while ( ( row = reader.nextRow() ) != null ) {
+        queue.put( row );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } catch ( IOException e ) {
+      failure = e;
+    } catch ( Throwable e ) {
+      failure = new IOException( e );
+    } finally {
+      if ( !Thread.currentThread().isInterrupted() ) {
+        try {
+          queue.put( END_OF_RANGE );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.avroinput;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.variables.Variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class AvroFieldPathTest {
+
+  @Test
+  public void testCompilesSteps() {
+    AvroFieldPath path = new AvroFieldPath( "$.customer.orders[2][key].sku" );
+    path.reset( new Variables() );
+
+    assertEquals( "[customer, orders, [2], [key], sku]", path.remaining().toString() );
+    path.next();
+    path.next();
+    AvroFieldPath.Step index = path.next();
+    assertTrue( index.isBracket() );
+    assertTrue( index.isIndex() );
+    assertEquals( 2, index.getIndex() );
+    AvroFieldPath.Step key = path.next();
+    assertFalse( key.isIndex() );
+    assertEquals( new Utf8( "key" ), key.getKey() );
+    assertFalse( path.next().isBracket() );
+    assertFalse( path.hasNext() );
+  }
+
+  @Test
+  public void testTopLevelArray() {
+    AvroFieldPath path = new AvroFieldPath( "$[*].name" );
+    path.reset( new Variables() );
+
+    assertTrue( path.next().isWildcard() );
+    assertEquals( "name", path.next().getName() );
+  }
+
+  @Test
+  public void testNoStepsBeforeReset() {
+    assertFalse( new AvroFieldPath( "$.name" ).hasNext() );
+  }
+
+  @Test
+  public void testConstantPathsAreNotSubstituted() {
+    VariableSpace space = mock( VariableSpace.class );
+    AvroFieldPath path = new AvroFieldPath( "$.name[0]" );
+    path.reset( space );
+    path.reset( space );
+
+    verify( space, never() ).environmentSubstitute( anyString() );
+    assertEquals( "name", path.next().getName() );
+  }
+
+  @Test
+  public void testVariablesAreSubstitutedOnReset() {
+    Variables space = new Variables();
+    space.setVariable( "key", "first" );
+    AvroFieldPath path = new AvroFieldPath( "$.map[${key}]" );
+    path.reset( space );
+    path.next();
+    assertEquals( new Utf8( "first" ), path.next().getKey() );
+
+    space.setVariable( "key", "second" );
+    path.reset( space );
+    path.next();
+    assertEquals( new Utf8( "second" ), path.next().getKey() );
+  }
+
+  @Test
+  public void testRecordFieldsAreReadByPosition() {
+    Schema schema = new Schema.Parser().parse( AvroInputTest.s_schemaTopLevelRecord );
+    GenericData.Record record = new GenericData.Record( schema );
+    record.put( "age", 42 );
+
+    AvroFieldPath path = new AvroFieldPath( "$.age" );
+    path.reset( new Variables() );
+    AvroFieldPath.Step step = path.next();
+    Schema.Field field = step.getField( schema );
+
+    assertSame( schema.getField( "age" ), field );
+    assertSame( field, step.getField( schema ) );
+    assertEquals( 42, step.getValue( record, schema, field ) );
+    assertNull( step.getField( new Schema.Parser().parse( AvroInputTest.s_schemaTopLevelRecordManyFields ) ) );
+  }
+}
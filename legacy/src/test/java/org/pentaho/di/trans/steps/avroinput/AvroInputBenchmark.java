@@ -0,0 +1,157 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.avroinput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.value.ValueMetaPluginType;
+import org.pentaho.di.core.variables.Variables;
+
+/**
+ * Micro-benchmark of decoding Avro objects held in an incoming field and extracting leaf values from a nested schema
+ * (the per row work of the Avro Input step when decoding from a field), run by hand (it is not picked up by the test
+ * runner):
+ * <pre>
+ *   java -cp ... org.pentaho.di.trans.steps.avroinput.AvroInputBenchmark [rows]
+ * </pre>
+ */
+public class AvroInputBenchmark {
+
+  private static final String SCHEMA = "{\"type\": \"record\", \"name\": \"Order\", \"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"long\"},"
+      + "{\"name\": \"customer\", \"type\": {\"type\": \"record\", \"name\": \"Customer\", \"fields\": ["
+      + "  {\"name\": \"name\", \"type\": \"string\"},"
+      + "  {\"name\": \"address\", \"type\": {\"type\": \"record\", \"name\": \"Address\", \"fields\": ["
+      + "    {\"name\": \"street\", \"type\": \"string\"}, {\"name\": \"city\", \"type\": \"string\"}]}}]}},"
+      + "{\"name\": \"lines\", \"type\": {\"type\": \"array\", \"items\": {\"type\": \"record\", \"name\": \"Line\","
+      + "  \"fields\": [{\"name\": \"sku\", \"type\": \"string\"}, {\"name\": \"quantity\", \"type\": \"int\"}]}}},"
+      + "{\"name\": \"attributes\", \"type\": {\"type\": \"map\", \"values\": \"string\"}}]}";
+
+  private static final String[][] FIELDS = {
+    { "id", "$.id", "Integer" },
+    { "customer", "$.customer.name", "String" },
+    { "city", "$.customer.address.city", "String" },
+    { "first_sku", "$.lines[0].sku", "String" },
+    { "first_quantity", "$.lines[0].quantity", "Integer" },
+    { "channel", "$.attributes[channel]", "String" }
+  };
+
+  public static void main( String[] args ) throws Exception {
+    int rows = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 200000;
+    ValueMetaPluginType.getInstance().searchPlugins();
+
+    Schema schema = new Schema.Parser().parse( SCHEMA );
+    List<byte[]> encoded = encode( schema, 1000 );
+    List<AvroInputMeta.AvroField> fields = new ArrayList<AvroInputMeta.AvroField>();
+    for ( int i = 0; i < FIELDS.length; i++ ) {
+      AvroInputMeta.AvroField field = new AvroInputMeta.AvroField();
+      field.m_fieldName = FIELDS[ i ][ 0 ];
+      field.m_fieldPath = FIELDS[ i ][ 1 ];
+      field.m_kettleType = FIELDS[ i ][ 2 ];
+      field.init( i );
+      fields.add( field );
+    }
+
+    // warm up
+    run( schema, encoded, fields, rows / 10, false );
+    run( schema, encoded, fields, rows / 10, true );
+
+    report( "new decoder per row", rows, run( schema, encoded, fields, rows, false ) );
+    report( "reused decoder", rows, run( schema, encoded, fields, rows, true ) );
+  }
+
+  private static long run( Schema schema, List<byte[]> encoded, List<AvroInputMeta.AvroField> fields, int rows,
+      boolean reuseDecoder ) throws IOException, KettleException {
+    DecoderFactory factory = new DecoderFactory();
+    GenericDatumReader<GenericData.Record> reader = new GenericDatumReader<GenericData.Record>( schema );
+    GenericData.Record record = new GenericData.Record( schema );
+    Variables variables = new Variables();
+    BinaryDecoder decoder = null;
+    Object[] row = new Object[fields.size()];
+
+    long start = System.nanoTime();
+    for ( int i = 0; i < rows; i++ ) {
+      decoder = factory.binaryDecoder( encoded.get( i % encoded.size() ), reuseDecoder ? decoder : null );
+      record = reader.read( record, decoder );
+      for ( AvroInputMeta.AvroField field : fields ) {
+        field.reset( variables );
+        row[ field.m_outputIndex ] = field.convertToKettleValue( record, record.getSchema(), schema, false );
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static void report( String name, int rows, long elapsed ) {
+    System.out.printf( "%-25s %8.0f ns/row%n", name, (double) elapsed / rows );
+  }
+
+  private static List<byte[]> encode( Schema schema, int count ) throws IOException {
+    Schema customerSchema = schema.getField( "customer" ).schema();
+    Schema addressSchema = customerSchema.getField( "address" ).schema();
+    Schema linesSchema = schema.getField( "lines" ).schema();
+
+    GenericDatumWriter<GenericData.Record> writer = new GenericDatumWriter<GenericData.Record>( schema );
+    List<byte[]> encoded = new ArrayList<byte[]>();
+    BinaryEncoder encoder = null;
+    for ( int i = 0; i < count; i++ ) {
+      GenericData.Record address = new GenericData.Record( addressSchema );
+      address.put( "street", i + " Main Street" );
+      address.put( "city", "City " + ( i % 50 ) );
+      GenericData.Record customer = new GenericData.Record( customerSchema );
+      customer.put( "name", "Customer " + i );
+      customer.put( "address", address );
+
+      GenericData.Array<GenericData.Record> lines =
+          new GenericData.Array<GenericData.Record>( 3, linesSchema );
+      for ( int j = 0; j < 3; j++ ) {
+        GenericData.Record line = new GenericData.Record( linesSchema.getElementType() );
+        line.put( "sku", "SKU-" + ( i * 3 + j ) );
+        line.put( "quantity", j + 1 );
+        lines.add( line );
+      }
+
+      Map<Utf8, Utf8> attributes = new HashMap<Utf8, Utf8>();
+      attributes.put( new Utf8( "channel" ), new Utf8( i % 2 == 0 ? "web" : "store" ) );
+      attributes.put( new Utf8( "priority" ), new Utf8( "normal" ) );
+
+      GenericData.Record order = new GenericData.Record( schema );
+      order.put( "id", (long) i );
+      order.put( "customer", customer );
+      order.put( "lines", lines );
+      order.put( "attributes", attributes );
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      encoder = EncoderFactory.get().binaryEncoder( out, encoder );
+      writer.write( order, encoder );
+      encoder.flush();
+      encoded.add( out.toByteArray() );
+    }
+    return encoded;
+  }
+}
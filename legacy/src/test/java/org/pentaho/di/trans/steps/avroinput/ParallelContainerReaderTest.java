@@ -0,0 +1,131 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.avroinput;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.vfs.KettleVFS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelContainerReaderTest {
+
+  private static final int RECORDS = 5000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileObject file;
+
+  @Before
+  public void setup() throws Exception {
+    Schema schema = new Schema.Parser().parse( AvroInputTest.s_schemaTopLevelRecord );
+    File avroFile = temporaryFolder.newFile( "people.avro" );
+    DataFileWriter<GenericData.Record> writer =
+      new DataFileWriter<GenericData.Record>( new GenericDatumWriter<GenericData.Record>( schema ) );
+    writer.setCodec( CodecFactory.deflateCodec( 1 ) );
+    writer.setSyncInterval( 1024 );
+    writer.create( schema, avroFile );
+    for ( int i = 0; i < RECORDS; i++ ) {
+      GenericData.Record record = new GenericData.Record( schema );
+      record.put( "name", "person" + i );
+      record.put( "age", i );
+      record.put( "emails", new GenericData.Array<String>( 0, schema.getField( "emails" ).schema() ) );
+      writer.append( record );
+    }
+    writer.close();
+    file = KettleVFS.getFileObject( avroFile.getAbsolutePath() );
+  }
+
+  @Test
+  public void testPreservesOrder() throws IOException {
+    ParallelContainerReader reader = new ParallelContainerReader( file, 4, 4096, true, 0, 1 );
+    assertTrue( reader.getRangeCount() > 4 );
+    List<Integer> ages = readAges( reader );
+
+    assertEquals( RECORDS, ages.size() );
+    for ( int i = 0; i < RECORDS; i++ ) {
+      assertEquals( i, ages.get( i ).intValue() );
+    }
+  }
+
+  @Test
+  public void testUnordered() throws IOException {
+    List<Integer> ages = readAges( new ParallelContainerReader( file, 4, 4096, false, 0, 1 ) );
+
+    Collections.sort( ages );
+    assertEquals( RECORDS, ages.size() );
+    assertEquals( RECORDS - 1, ages.get( RECORDS - 1 ).intValue() );
+    assertEquals( RECORDS, new HashSet<Integer>( ages ).size() );
+  }
+
+  @Test
+  public void testSplitBetweenCopies() throws IOException {
+    Set<Integer> ages = new HashSet<Integer>();
+    int total = 0;
+    for ( int copy = 0; copy < 3; copy++ ) {
+      List<Integer> copyAges = readAges( new ParallelContainerReader( file, 2, 4096, true, copy, 3 ) );
+      total += copyAges.size();
+      ages.addAll( copyAges );
+    }
+
+    assertEquals( RECORDS, total );
+    assertEquals( RECORDS, ages.size() );
+  }
+
+  @Test
+  public void testVfsSeekableInput() throws IOException {
+    ParallelContainerReader.VfsSeekableInput input = new ParallelContainerReader.VfsSeekableInput( file );
+    byte[] magic = new byte[4];
+    input.seek( 100 );
+    input.seek( 0 );
+    assertEquals( 4, input.read( magic, 0, 4 ) );
+    assertEquals( 4, input.tell() );
+    assertEquals( 'O', magic[0] );
+    assertEquals( file.getContent().getSize(), input.length() );
+    input.close();
+  }
+
+  private static List<Integer> readAges( ParallelContainerReader reader ) throws IOException {
+    List<Integer> ages = new ArrayList<Integer>();
+    try {
+      Object next;
+      while ( ( next = reader.next() ) != null ) {
+        ages.add( (Integer) ( (GenericData.Record) next ).get( "age" ) );
+      }
+      assertNull( reader.next() );
+    } finally {
+      reader.close();
+    }
+    return ages;
+  }
+}
@@ -0,0 +1,289 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.couchdbinput;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CouchDbViewReaderTest {
+
+  private static final int ROWS = 25;
+
+  /**
+   * Key, document id and value of a view whose documents emit the same key more than once, in view order
+   */
+  private static final String[][] DUPLICATE_ROWS = {
+    { "a", "doc1", "1" }, { "a", "doc1", "2" }, { "a", "doc1", "3" }, { "a", "doc2", "4" }, { "b", "doc1", "5" },
+    { "b", "doc1", "6" }, { "c", "doc3", "7" } };
+
+  private HttpServer server;
+  private CloseableHttpClient client;
+  private String url;
+  private final AtomicInteger requests = new AtomicInteger();
+
+  @Before
+  public void setup() throws IOException {
+    server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+    server.createContext( "/db/_design/design/_view/view", this::handleView );
+    server.createContext( "/db/_design/design/_view/duplicates", this::handleDuplicatesView );
+    server.createContext( "/db/_design/design/_view/missing", exchange -> respond( exchange, 404,
+      "{\"error\":\"not_found\",\"reason\":\"missing_named_view\"}" ) );
+    server.start();
+    // the parallel readers keep one connection open per key range
+    client = HttpClients.custom().setMaxConnPerRoute( 10 ).setMaxConnTotal( 10 ).build();
+    url = CouchDbInput.buildUrl( "localhost", server.getAddress().getPort(), "db", "design", "view" );
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    client.close();
+    server.stop( 0 );
+  }
+
+  @Test
+  public void testReadsAllPages() throws IOException {
+    CouchDbViewReader reader = reader( url, 10, null, null );
+    assertEquals( 200, reader.open() );
+    List<String> rows = readAll( reader );
+
+    assertEquals( ROWS, rows.size() );
+    for ( int i = 0; i < ROWS; i++ ) {
+      assertEquals( expectedRow( i ), rows.get( i ) );
+    }
+    assertEquals( 3, requests.get() );
+  }
+
+  @Test
+  public void testUnpaged() throws IOException {
+    CouchDbViewReader reader = reader( url, 0, null, null );
+    assertEquals( 200, reader.open() );
+
+    assertEquals( ROWS, readAll( reader ).size() );
+    assertEquals( 1, requests.get() );
+  }
+
+  @Test
+  public void testKeyRange() throws IOException {
+    CouchDbViewReader reader = reader( url, 4, "\"k05\"", "\"k12\"" );
+    assertEquals( 200, reader.open() );
+    List<String> rows = readAll( reader );
+
+    assertEquals( 7, rows.size() );
+    assertEquals( expectedRow( 5 ), rows.get( 0 ) );
+    assertEquals( expectedRow( 11 ), rows.get( 6 ) );
+  }
+
+  @Test
+  public void testParallelKeyRanges() throws IOException {
+    List<String> splitKeys = CouchDbInput.parseKeyRanges( "[\"k08\", \"k17\"]" );
+    List<CouchDbViewReader> readers = new ArrayList<>();
+    for ( int i = 0; i <= splitKeys.size(); i++ ) {
+      CouchDbViewReader reader = reader( url, 5, i > 0 ? splitKeys.get( i - 1 ) : null,
+        i < splitKeys.size() ? splitKeys.get( i ) : null );
+      assertEquals( 200, reader.open() );
+      readers.add( reader );
+    }
+
+    ParallelCouchDbViewReader parallelReader = new ParallelCouchDbViewReader( readers );
+    List<String> rows = new ArrayList<>();
+    String row;
+    while ( ( row = parallelReader.nextRow() ) != null ) {
+      rows.add( row );
+    }
+    parallelReader.close();
+
+    assertEquals( ROWS, rows.size() );
+    for ( int i = 0; i < ROWS; i++ ) {
+      assertEquals( expectedRow( i ), rows.get( i ) );
+    }
+  }
+
+  @Test( timeout = 10000 )
+  public void testRepeatedKeyAndIdAcrossPages() throws IOException {
+    String duplicatesUrl =
+      CouchDbInput.buildUrl( "localhost", server.getAddress().getPort(), "db", "design", "duplicates" );
+    for ( int pageSize = 1; pageSize <= DUPLICATE_ROWS.length + 1; pageSize++ ) {
+      CouchDbViewReader reader = reader( duplicatesUrl, pageSize, null, null );
+      assertEquals( 200, reader.open() );
+      List<String> rows = readAll( reader );
+
+      assertEquals( "page size " + pageSize, DUPLICATE_ROWS.length, rows.size() );
+      for ( int i = 0; i < DUPLICATE_ROWS.length; i++ ) {
+        assertEquals( "page size " + pageSize, duplicateRow( i ), rows.get( i ) );
+      }
+    }
+  }
+
+  @Test( timeout = 10000 )
+  public void testParallelReaderFailure() throws IOException {
+    CouchDbViewReader failing = mock( CouchDbViewReader.class );
+    when( failing.nextRow() ).thenReturn( "{}" ).thenThrow( new IllegalStateException( "bad row" ) );
+    ParallelCouchDbViewReader parallelReader = new ParallelCouchDbViewReader( Collections.singletonList( failing ) );
+
+    assertEquals( "{}", parallelReader.nextRow() );
+    try {
+      parallelReader.nextRow();
+      fail( "the failure of the range reader should be rethrown" );
+    } catch ( IOException e ) {
+      assertTrue( e.getCause() instanceof IllegalStateException );
+    } finally {
+      parallelReader.close();
+    }
+  }
+
+  @Test
+  public void testErrorResponse() throws IOException {
+    CouchDbViewReader reader =
+      reader( CouchDbInput.buildUrl( "localhost", server.getAddress().getPort(), "db", "design", "missing" ), 10, null,
+        null );
+
+    assertEquals( 404, reader.open() );
+    assertEquals( "{\"error\":\"not_found\",\"reason\":\"missing_named_view\"}", reader.getErrorBody() );
+    assertNull( reader.nextRow() );
+  }
+
+  private CouchDbViewReader reader( String viewUrl, int pageSize, String startKey, String endKey ) {
+    return new CouchDbViewReader( client, null, new CouchDbInput.GetMethodFactory(), viewUrl, pageSize, startKey,
+      endKey );
+  }
+
+  private static List<String> readAll( CouchDbViewReader reader ) throws IOException {
+    List<String> rows = new ArrayList<>();
+    String row;
+    while ( ( row = reader.nextRow() ) != null ) {
+      rows.add( row );
+    }
+    reader.close();
+    return rows;
+  }
+
+  /**
+   * The value holds braces, brackets and escaped quotes to check strings are not mistaken for structure
+   */
+  private static String expectedRow( int i ) {
+    String n = String.format( "%02d", i );
+    return "{\"id\":\"doc" + n + "\",\"key\":\"k" + n + "\",\"value\":{\"text\":\"a } \\\" { ] " + n + "\"}}";
+  }
+
+  /**
+   * A minimal CouchDB view: limit, skip, startkey, startkey_docid, endkey and inclusive_end
+   */
+  private void handleView( HttpExchange exchange ) throws IOException {
+    requests.incrementAndGet();
+    Map<String, String> params = parseQuery( exchange );
+    ObjectMapper mapper = new ObjectMapper();
+    String startKey = params.containsKey( "startkey" ) ? mapper.readTree( params.get( "startkey" ) ).asText() : null;
+    String endKey = params.containsKey( "endkey" ) ? mapper.readTree( params.get( "endkey" ) ).asText() : null;
+    boolean inclusiveEnd = !"false".equals( params.get( "inclusive_end" ) );
+    int skip = params.containsKey( "skip" ) ? Integer.parseInt( params.get( "skip" ) ) : 0;
+    int limit = params.containsKey( "limit" ) ? Integer.parseInt( params.get( "limit" ) ) : Integer.MAX_VALUE;
+
+    List<String> rows = new ArrayList<>();
+    for ( int i = 0; i < ROWS && rows.size() < limit; i++ ) {
+      String key = String.format( "k%02d", i );
+      if ( startKey != null && key.compareTo( startKey ) < 0 ) {
+        continue;
+      }
+      if ( endKey != null && ( inclusiveEnd ? key.compareTo( endKey ) > 0 : key.compareTo( endKey ) >= 0 ) ) {
+        break;
+      }
+      if ( skip > 0 ) {
+        skip--;
+        continue;
+      }
+      rows.add( expectedRow( i ) );
+    }
+    respond( exchange, 200, "{\"total_rows\":" + ROWS + ",\"offset\":0,\"rows\":[\r\n"
+      + String.join( ",\r\n", rows ) + "\r\n]}" );
+  }
+
+  private static String duplicateRow( int i ) {
+    String[] row = DUPLICATE_ROWS[ i ];
+    return "{\"id\":\"" + row[ 1 ] + "\",\"key\":\"" + row[ 0 ] + "\",\"value\":" + row[ 2 ] + "}";
+  }
+
+  /**
+   * The rows of {@link #DUPLICATE_ROWS} with limit, skip, startkey and startkey_docid
+   */
+  private void handleDuplicatesView( HttpExchange exchange ) throws IOException {
+    Map<String, String> params = parseQuery( exchange );
+    String startKey =
+      params.containsKey( "startkey" ) ? new ObjectMapper().readTree( params.get( "startkey" ) ).asText() : null;
+    String startId = params.get( "startkey_docid" );
+    int skip = params.containsKey( "skip" ) ? Integer.parseInt( params.get( "skip" ) ) : 0;
+    int limit = params.containsKey( "limit" ) ? Integer.parseInt( params.get( "limit" ) ) : Integer.MAX_VALUE;
+
+    List<String> rows = new ArrayList<>();
+    for ( int i = 0; i < DUPLICATE_ROWS.length && rows.size() < limit; i++ ) {
+      String key = DUPLICATE_ROWS[ i ][ 0 ];
+      String id = DUPLICATE_ROWS[ i ][ 1 ];
+      if ( startKey != null && ( key.compareTo( startKey ) < 0
+        || key.equals( startKey ) && startId != null && id.compareTo( startId ) < 0 ) ) {
+        continue;
+      }
+      if ( skip > 0 ) {
+        skip--;
+        continue;
+      }
+      rows.add( duplicateRow( i ) );
+    }
+    respond( exchange, 200, "{\"total_rows\":" + DUPLICATE_ROWS.length + ",\"offset\":0,\"rows\":[\r\n"
+      + String.join( ",\r\n", rows ) + "\r\n]}" );
+  }
+
+  private static Map<String, String> parseQuery( HttpExchange exchange ) throws IOException {
+    Map<String, String> params = new HashMap<>();
+    String query = exchange.getRequestURI().getRawQuery();
+    if ( query != null ) {
+      for ( String param : query.split( "&" ) ) {
+        String[] pair = param.split( "=", 2 );
+        params.put( pair[ 0 ], URLDecoder.decode( pair[ 1 ], "UTF-8" ) );
+      }
+    }
+    return params;
+  }
+
+  private static void respond( HttpExchange exchange, int status, String body ) throws IOException {
+    byte[] bytes = body.getBytes( StandardCharsets.UTF_8 );
+    exchange.sendResponseHeaders( status, bytes.length );
+    try ( OutputStream out = exchange.getResponseBody() ) {
+      out.write( bytes );
+    }
+  }
+}